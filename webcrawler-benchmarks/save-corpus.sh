@@ -0,0 +1,15 @@
+#!/usr/bin/env sh
+# Saves the pages listed in corpus/urls.txt (one URL per line) as gzipped HTML and writes
+# corpus/index.tsv, which LinkExtractionBenchmark reads instead of its generated pages.
+set -e
+cd "$(dirname "$0")/corpus"
+: > index.tsv
+n=0
+while IFS= read -r url; do
+  [ -z "$url" ] && continue
+  n=$((n + 1))
+  file=$(printf "page-%03d.html.gz" "$n")
+  curl -sSfL -A "Mozilla/5.0 (compatible; webcrawler/0.0.1)" "$url" | gzip -9 > "$file"
+  printf "%s\t%s\n" "$file" "$url" >> index.tsv
+done < urls.txt
+echo "Saved $n pages"
@@ -0,0 +1,92 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pages saved by {@code save-corpus.sh}, read from the directory named by the {@code corpus.dir}
+ * system property ({@code corpus} by default). {@code index.tsv} lists one page per line as
+ * {@code file<TAB>url}; files ending in {@code .gz} are decompressed. Without saved pages the
+ * corpus falls back to generated collection listings, so the benchmarks always run.
+ */
+public final class Corpus {
+
+    private Corpus() {
+    }
+
+    public static List<FetchedPage> load() {
+        Path directory = Path.of(System.getProperty("corpus.dir", "corpus"));
+        Path index = directory.resolve("index.tsv");
+        if (!Files.exists(index)) {
+            System.err.println("No saved pages in " + directory.toAbsolutePath() + ", using generated pages");
+            return List.of(page("https://www.metmuseum.org/art/collection/search?q=armor", collectionPage(100)),
+                    page("https://www.mfa.org/collections/search?query=armor", collectionPage(500)),
+                    page("https://www.metmuseum.org/art/collection/search?q=armor&offset=0", collectionPage(2000)));
+        }
+        try {
+            List<FetchedPage> pages = new ArrayList<>();
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] fields = line.split("\t");
+                if (fields.length < 2) {
+                    continue;
+                }
+                Path file = directory.resolve(fields[0]);
+                try (InputStream in = fields[0].endsWith(".gz")
+                        ? new GZIPInputStream(Files.newInputStream(file))
+                        : Files.newInputStream(file)) {
+                    pages.add(page(fields[1], in.readAllBytes()));
+                }
+            }
+            return pages;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load corpus from " + directory.toAbsolutePath(), e);
+        }
+    }
+
+    private static FetchedPage page(String url, byte[] body) {
+        // No declared charset, so both extractors detect it as they would for most servers
+        return new FetchedPage(url, 200, "text/html", null, body, null, null);
+    }
+
+    /**
+     * A search result listing with {@code cards} result cards of three links each, shaped like
+     * the large collection pages of museum sites.
+     */
+    static byte[] collectionPage(int cards) {
+        StringBuilder html = new StringBuilder(cards * 900);
+        html.append("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\"><title>Search the collection</title>")
+                .append("<link rel=\"stylesheet\" href=\"/static/main.css\">")
+                .append("<script>window.dataLayer = window.dataLayer || []; var q = '<a href=\"/x\">';</script>")
+                .append("</head><body><header class=\"site-header\"><nav><ul>");
+        for (int i = 0; i < 40; i++) {
+            html.append("<li class=\"nav-item\"><a class=\"nav-link\" href=\"/about-the-met/section-").append(i)
+                    .append("\">Section ").append(i).append("</a></li>");
+        }
+        html.append("</ul></nav></header><main><section class=\"results\">");
+        for (int i = 0; i < cards; i++) {
+            html.append("<article class=\"collection-object\" data-object-id=\"").append(100_000 + i).append("\">")
+                    .append("<figure><a href=\"/art/collection/search/").append(100_000 + i).append("\">")
+                    .append("<img src=\"https://images.metmuseum.org/CRDImages/ad/web-large/DP").append(i)
+                    .append(".jpg\" alt=\"Armor for man and horse, object ").append(i).append("\" loading=\"lazy\">")
+                    .append("</a></figure><div class=\"object-details\"><h3 class=\"title\">")
+                    .append("<a href=\"/art/collection/search/").append(100_000 + i)
+                    .append("?searchField=All&amp;sortBy=Relevance\">Armor (Kastenbrust) &mdash; ").append(i)
+                    .append("</a></h3><p class=\"artist\">Artist: <a href=\"/art/collection/search?q=artist-")
+                    .append(i % 97).append("\">Workshop of Lorenz Helmschmid</a></p>")
+                    .append("<p class=\"date\">ca. 1480&ndash;1490</p><p class=\"medium\">Steel, copper alloy, leather</p>")
+                    .append("<ul class=\"tags\"><li>Arms and Armor</li><li>German</li><li>Steel</li></ul>")
+                    .append("</div></article>\n");
+        }
+        html.append("</section></main><footer><p>&copy; The Metropolitan Museum of Art</p></footer></body></html>");
+        return html.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,123 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.graph.LocalEdgeStore;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per edge of writing a crawl's links to an in-process Neo4j from the test harness. One
+ * operation writes the links of {@value #PAGES} pages into an empty graph and waits until they
+ * are stored. {@code PER_EDGE} is the one-query-per-link path the crawler started with,
+ * {@code BATCHED} the {@link LinkGraphWriter} with its default settings and {@code LOCAL} the
+ * {@link LocalEdgeStore}, which does not touch Neo4j until the graph is exported.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphWriteBenchmark {
+
+    private static final int PAGES = 20;
+    private static final int LINKS_PER_PAGE = 50;
+    private static final int DISTINCT_TARGETS = 2_000;
+
+    private static final String PER_EDGE_QUERY = """
+            MERGE (u1:Page {url: $currentUrl})
+            MERGE (u2:Page {url: $linkedUrl})
+            MERGE (u1)-[:LINKS_TO]->(u2)
+            """;
+
+    public enum Writer { PER_EDGE, BATCHED, LOCAL }
+
+    @Param({"PER_EDGE", "BATCHED", "LOCAL"})
+    public Writer writer;
+
+    private Neo4j neo4j;
+    private Driver driver;
+    private Neo4jClient neo4jClient;
+    private LinkGraphWriter linkGraphWriter;
+    private LocalEdgeStore localEdgeStore;
+    private String[] pages;
+    private String[] targets;
+
+    @Setup(Level.Trial)
+    public void startNeo4j() throws IOException {
+        neo4j = Neo4jBuilders.newInProcessBuilder().withDisabledServer().build();
+        driver = GraphDatabase.driver(neo4j.boltURI(), AuthTokens.none());
+        neo4jClient = Neo4jClient.create(driver);
+        linkGraphWriter = new LinkGraphWriter(neo4jClient, new CrawlerProperties.GraphWriter(),
+                new CrawlMetrics(new SimpleMeterRegistry(), new CrawlerProperties.Metrics()));
+        CrawlerProperties.Graph graph = new CrawlerProperties.Graph();
+        graph.setDirectory(Files.createTempDirectory("graph-write-benchmark").toString());
+        localEdgeStore = new LocalEdgeStore(graph, linkGraphWriter);
+        pages = UrlSamples.urls(PAGES, 1);
+        targets = UrlSamples.urls(DISTINCT_TARGETS, 2);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearGraph() throws IOException {
+        neo4jClient.query("MATCH (n) DETACH DELETE n").run();
+        localEdgeStore.reset();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGES * LINKS_PER_PAGE)
+    public void writeLinks() throws InterruptedException {
+        for (int page = 0; page < PAGES; page++) {
+            for (int link = 0; link < LINKS_PER_PAGE; link++) {
+                String target = targets[(page * 31 + link * 7) % DISTINCT_TARGETS];
+                if (writer == Writer.PER_EDGE) {
+                    neo4jClient.query(PER_EDGE_QUERY)
+                            .bind(pages[page]).to("currentUrl")
+                            .bind(target).to("linkedUrl")
+                            .run();
+                } else if (writer == Writer.BATCHED) {
+                    linkGraphWriter.submit(pages[page], target);
+                } else {
+                    localEdgeStore.submit(pages[page], target);
+                }
+            }
+        }
+        if (writer == Writer.BATCHED) {
+            linkGraphWriter.flush();
+        } else if (writer == Writer.LOCAL) {
+            localEdgeStore.flush();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopNeo4j() throws IOException {
+        localEdgeStore.close();
+        linkGraphWriter.shutdown();
+        driver.close();
+        neo4j.close();
+    }
+}
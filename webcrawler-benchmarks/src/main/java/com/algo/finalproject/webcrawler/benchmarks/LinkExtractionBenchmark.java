@@ -0,0 +1,58 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.parse.DomLinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractionMode;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.StreamingLinkExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of the DOM and streaming link extractors over the whole {@link Corpus};
+ * one operation extracts the links of every page. Run with {@code -prof gc} to see allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LinkExtractionBenchmark {
+
+    @Param({"DOM", "STREAMING"})
+    public LinkExtractionMode mode;
+
+    private LinkExtractor extractor;
+    private List<FetchedPage> pages;
+
+    @Setup
+    public void setUp() {
+        extractor = switch (mode) {
+            case DOM -> new DomLinkExtractor(0, 0);
+            case STREAMING -> new StreamingLinkExtractor(0, 0);
+        };
+        pages = Corpus.load();
+    }
+
+    @Benchmark
+    public void extractLinks(Blackhole blackhole) throws IOException {
+        for (FetchedPage page : pages) {
+            extractor.extract(page, blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import com.algo.finalproject.webcrawler.service.robots.RobotsParser;
+import com.algo.finalproject.webcrawler.service.robots.RobotsRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of deciding whether robots.txt allows a URL, with a generated robots.txt of {@code rules}
+ * path prefixes, a tenth of them allow rules, plus a few wildcard rules as large sites have.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RobotsRulesBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param({"10", "1000"})
+    public int rules;
+
+    private String[] urls;
+    private RobotsRules robotsRules;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        urls = UrlSamples.urls(SAMPLES, 42);
+        Random random = new Random(7);
+        StringBuilder robots = new StringBuilder("User-agent: *\n")
+                .append("Disallow: /*?sort=\n")
+                .append("Disallow: /*.pdf$\n")
+                .append("Allow: /exhibitions/*/overview$\n");
+        for (int i = 0; i < rules; i++) {
+            // Half of the rules share their first segment with the sample URLs
+            String path = urls[random.nextInt(SAMPLES)];
+            path = path.substring(path.indexOf('/', "https://".length()));
+            path = random.nextBoolean() ? path.substring(0, Math.max(2, path.length() / 2)) : "/x" + path;
+            robots.append(random.nextInt(10) == 0 ? "Allow: " : "Disallow: ").append(path).append('\n');
+        }
+        robotsRules = RobotsParser.parse(robots.toString(), "webcrawler");
+    }
+
+    @Benchmark
+    public boolean isAllowed() {
+        return robotsRules.isAllowed(urls[next++ & (SAMPLES - 1)]);
+    }
+}
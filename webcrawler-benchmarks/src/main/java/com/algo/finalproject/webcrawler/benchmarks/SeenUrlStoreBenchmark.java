@@ -0,0 +1,100 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import com.algo.finalproject.webcrawler.service.seen.BloomSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.ExactSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.FingerprintSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStoreType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert and lookup cost of the seen-URL stores with eight threads hitting one store preloaded
+ * with a million URLs. Inserts run as single shots of a fixed number of new URLs per thread, so
+ * the store grows by the same amount in every iteration instead of for as long as it runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class SeenUrlStoreBenchmark {
+
+    private static final int PRELOADED_URLS = 1_000_000;
+    private static final int INSERTS_PER_THREAD = 100_000;
+
+    @Param({"EXACT", "FINGERPRINT", "BLOOM"})
+    public SeenUrlStoreType store;
+
+    private SeenUrlStore seenUrls;
+    private final AtomicLong nextUrl = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        seenUrls = switch (store) {
+            case EXACT -> new ExactSeenUrlStore();
+            case FINGERPRINT -> new FingerprintSeenUrlStore(PRELOADED_URLS);
+            case BLOOM -> new BloomSeenUrlStore(PRELOADED_URLS, 0.0001);
+        };
+        for (int i = 0; i < PRELOADED_URLS; i++) {
+            seenUrls.add(url(i));
+        }
+        nextUrl.set(PRELOADED_URLS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    @OperationsPerInvocation(INSERTS_PER_THREAD)
+    public int insert() {
+        int added = 0;
+        for (int i = 0; i < INSERTS_PER_THREAD; i++) {
+            if (seenUrls.add(url(nextUrl.getAndIncrement()))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    @Benchmark
+    public boolean containsSeen() {
+        return seenUrls.contains(url(ThreadLocalIndex.next() % PRELOADED_URLS));
+    }
+
+    @Benchmark
+    public boolean containsUnseen() {
+        return seenUrls.contains(url(PRELOADED_URLS * 4L + ThreadLocalIndex.next()));
+    }
+
+    private static String url(long i) {
+        return "https://www.metmuseum.org/art/collection/search/" + i;
+    }
+
+    private static final class ThreadLocalIndex {
+        private static final ThreadLocal<long[]> COUNTER = ThreadLocal.withInitial(() -> new long[1]);
+
+        static long next() {
+            long[] counter = COUNTER.get();
+            return counter[0]++ * 7919 & Integer.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.algo.finalproject.webcrawler.benchmarks;
+
+import java.util.Random;
+
+/**
+ * Deterministic URLs shaped like the links found on the seed sites: a few heavily linked hosts,
+ * a tail of external hosts, shallow navigation paths and deep collection paths.
+ */
+public final class UrlSamples {
+
+    private static final String[] SEED_HOSTS = {"www.metmuseum.org", "www.nps.gov", "www.mfa.org"};
+    private static final String[] SECTIONS = {"art/collection/search", "exhibitions", "collections/object",
+            "subjects/parks", "planyourvisit", "about-the-met/policies", "learn/education", "events"};
+
+    private UrlSamples() {
+    }
+
+    public static String[] urls(int count, long seed) {
+        Random random = new Random(seed);
+        String[] urls = new String[count];
+        for (int i = 0; i < count; i++) {
+            String host = random.nextInt(10) < 7
+                    ? SEED_HOSTS[random.nextInt(SEED_HOSTS.length)]
+                    : "www.external-" + random.nextInt(200) + ".org";
+            StringBuilder url = new StringBuilder(96).append("https://").append(host).append('/')
+                    .append(SECTIONS[random.nextInt(SECTIONS.length)]);
+            int extraSegments = random.nextInt(4);
+            for (int s = 0; s < extraSegments; s++) {
+                url.append('/').append(Integer.toString(random.nextInt(1 << 20), 36));
+            }
+            if (random.nextInt(5) == 0) {
+                url.append("?page=").append(random.nextInt(50));
+            }
+            urls[i] = url.toString();
+        }
+        return urls;
+    }
+}
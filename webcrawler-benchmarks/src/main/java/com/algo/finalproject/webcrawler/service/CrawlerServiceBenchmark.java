@@ -0,0 +1,80 @@
+package com.algo.finalproject.webcrawler.service;
+
+import com.algo.finalproject.webcrawler.benchmarks.UrlSamples;
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.frontier.UrlDepthPair;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import com.algo.finalproject.webcrawler.service.seen.FingerprintSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-URL cost of the checks the crawl loop runs on every discovered link: scoring its frontier
+ * priority once, with and without counting an inlink, comparing two scored entries as the heap
+ * does, and the link filter.
+ * Lives in the service package to reach the package-private {@link CrawlerService} members.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrawlerServiceBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    private String[] urls;
+    private UrlDepthPair[] pairs;
+    private UrlScorer urlScorer;
+    private UrlScorer inlinkScorer;
+    private SeenUrlStore seenUrls;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        urls = UrlSamples.urls(SAMPLES, 42);
+        CrawlerProperties properties = new CrawlerProperties();
+        urlScorer = new UrlScorer(properties);
+        properties.getScoring().setInlinkWeight(1);
+        inlinkScorer = new UrlScorer(properties);
+        pairs = new UrlDepthPair[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            pairs[i] = new UrlDepthPair(urls[i], 1, urlScorer.score(urls[i]));
+        }
+        // The link filter of a job with the default seen-URL store
+        seenUrls = new FingerprintSeenUrlStore(properties.getSeenUrls().getExpectedUrls());
+    }
+
+    @Benchmark
+    public int calculatePriority() {
+        return urlScorer.score(urls[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public int scoreLink() {
+        return inlinkScorer.scoreLink(urls[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public int compare() {
+        int i = next++;
+        return UrlDepthPair.BY_PRIORITY.compare(pairs[i & (SAMPLES - 1)], pairs[(i + 1) & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    public boolean isValidUrl() {
+        return CrawlerService.isValidUrl(seenUrls, urls[next++ & (SAMPLES - 1)]);
+    }
+}
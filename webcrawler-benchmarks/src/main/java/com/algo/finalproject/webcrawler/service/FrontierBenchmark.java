@@ -0,0 +1,92 @@
+package com.algo.finalproject.webcrawler.service;
+
+import com.algo.finalproject.webcrawler.benchmarks.UrlSamples;
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.frontier.HostFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.UrlDepthPair;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offer/poll throughput of the crawl frontier with eight threads sharing it, each operation
+ * adding one discovered URL and taking the next one to fetch. Compares the single
+ * {@link PriorityBlockingQueue} the crawler started with against the per-host {@link HostFrontier},
+ * both ordered by the priority {@link UrlScorer} stored in each entry when it was discovered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class FrontierBenchmark {
+
+    private static final int SAMPLES = 1 << 14;
+    private static final int PRELOADED = 10_000;
+
+    public enum QueueType { PRIORITY_BLOCKING_QUEUE, HOST_FRONTIER }
+
+    @Param({"PRIORITY_BLOCKING_QUEUE", "HOST_FRONTIER"})
+    public QueueType queue;
+
+    private UrlDepthPair[] pairs;
+    private PriorityBlockingQueue<UrlDepthPair> priorityQueue;
+    private HostFrontier<UrlDepthPair> hostFrontier;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        String[] urls = UrlSamples.urls(SAMPLES, 7);
+        UrlScorer urlScorer = new UrlScorer(new CrawlerProperties());
+        pairs = new UrlDepthPair[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            pairs[i] = new UrlDepthPair(urls[i], 1, urlScorer.score(urls[i]));
+        }
+        priorityQueue = new PriorityBlockingQueue<>(PRELOADED * 2, UrlDepthPair.BY_PRIORITY);
+        // No politeness limits, so only the data structure is measured
+        hostFrontier = new HostFrontier<>(pair -> HostFrontier.hostOf(pair.url), UrlDepthPair.BY_PRIORITY,
+                Integer.MAX_VALUE, 0);
+        for (int i = 0; i < PRELOADED; i++) {
+            offer(pairs[i]);
+        }
+        next.set(PRELOADED);
+    }
+
+    @Benchmark
+    public UrlDepthPair offerPoll() throws InterruptedException {
+        offer(pairs[next.getAndIncrement() & (SAMPLES - 1)]);
+        if (queue == QueueType.PRIORITY_BLOCKING_QUEUE) {
+            return priorityQueue.poll();
+        }
+        UrlDepthPair polled = hostFrontier.poll(0, TimeUnit.MILLISECONDS);
+        if (polled != null) {
+            hostFrontier.release(polled);
+        }
+        return polled;
+    }
+
+    private void offer(UrlDepthPair pair) {
+        if (queue == QueueType.PRIORITY_BLOCKING_QUEUE) {
+            priorityQueue.offer(pair);
+        } else {
+            hostFrontier.offer(pair);
+        }
+    }
+}
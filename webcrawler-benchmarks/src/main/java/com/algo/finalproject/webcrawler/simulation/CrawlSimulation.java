@@ -0,0 +1,266 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.config.FetchConfiguration;
+import com.algo.finalproject.webcrawler.config.ParseConfiguration;
+import com.algo.finalproject.webcrawler.service.CrawlerService;
+import com.algo.finalproject.webcrawler.service.PageRankingService;
+import com.algo.finalproject.webcrawler.service.cache.FetchCache;
+import com.algo.finalproject.webcrawler.service.cluster.ClusterClient;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportFormat;
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.graph.LocalEdgeStore;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlStats;
+import com.algo.finalproject.webcrawler.service.metrics.TimerStats;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import com.algo.finalproject.webcrawler.service.url.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.harness.Neo4j;
+import org.neo4j.harness.Neo4jBuilders;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Crawls a {@link SyntheticWeb} served on a loopback port with a fully wired
+ * {@link CrawlerService} and reports pages per second, the fetch-to-persist latency of pages and
+ * the peak heap. Frontier, fetch and graph changes can so be measured end to end, repeatably and
+ * without touching a real site.
+ * <p>
+ * Arguments are {@code --option=value} for the simulation, see {@link #usage()}, and
+ * {@code crawler.*=value} to override the crawler's own properties, e.g.
+ * {@code crawler.frontier.min-delay-millis=0}. Otherwise the crawler runs with the defaults of
+ * {@link CrawlerProperties}, except that robots.txt is not fetched, since the synthetic hosts
+ * cannot be resolved, and no ranking runs after the crawl.
+ * <p>
+ * The crawler needs a Neo4j database to start a crawl, so an in-process one from the test
+ * harness is started first. It is only written to with {@code --sink=neo4j}; the default
+ * in-memory sink keeps the graph out of the measurement. The heap it takes is part of the
+ * baseline reported next to the peak.
+ * <p>
+ * Usage: {@code CrawlSimulation [--option=value ...] [crawler.property=value ...]}
+ */
+public final class CrawlSimulation {
+
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    public enum Sink { MEMORY, LOCAL, NEO4J }
+
+    /**
+     * What a simulation run measured; written as JSON with {@code --out}.
+     *
+     * @param fetchToPersistP50Millis median time from a page's first fetch to its last link in the sink
+     * @param baselineHeapBytes       heap in use after a full GC, just before the crawl started
+     * @param peakHeapBytes           highest heap in use, sampled every {@value #HEAP_SAMPLE_MILLIS} ms
+     * @param gcMillis                time the collectors reported during the crawl
+     */
+    public record Report(long seed, int hosts, long syntheticPages, String sink,
+                         long pagesProcessed, long links, double elapsedSeconds, double pagesPerSecond,
+                         double fetchToPersistP50Millis, double fetchToPersistP99Millis,
+                         double fetchToPersistMaxMillis, long baselineHeapBytes, long peakHeapBytes,
+                         long gcMillis, long serverRequests, long injectedErrors, TimerStats fetch,
+                         TimerStats parse, Map<String, Long> errors, Map<String, Long> retries) {
+    }
+
+    private CrawlSimulation() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, String> overrides = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (arg.startsWith("--") && equals > 2) {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (arg.startsWith("crawler.") && equals > 0) {
+                overrides.put(arg.substring(0, equals), arg.substring(equals + 1));
+            } else {
+                System.err.println(usage());
+                System.exit(2);
+            }
+        }
+        Report report;
+        try {
+            report = run(options, overrides);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(usage());
+            System.exit(2);
+            return;
+        }
+        print(report);
+        String out = options.get("out");
+        if (out != null) {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(out), report);
+            System.out.println("Report written to " + out);
+        }
+        // The crawler's parse threads are not daemons
+        System.exit(0);
+    }
+
+    static String usage() {
+        return """
+                Usage: CrawlSimulation [--option=value ...] [crawler.property=value ...]
+                  --seed=42              seed of the synthetic web; the same seed gives the same web
+                  --hosts=200            number of sites
+                  --pages-per-host=100   pages of each site
+                  --min-links=3          smallest number of power-law links of a page
+                  --max-links=200        largest number of power-law links of a page
+                  --link-exponent=2.5    exponent of the power-law link count
+                  --cross-host-links=0.1 share of links leading to another site
+                  --latency-millis=20    median of the hosts' base latencies
+                  --error-rate=0.01      average share of requests failing with a 503 or 500
+                  --depth=32             crawl depth
+                  --sink=memory          graph sink: memory, local or neo4j
+                  --max-seconds=600      stop the crawl after this long
+                  --out=<file>           also write the report as JSON
+                """;
+    }
+
+    static Report run(Map<String, String> options, Map<String, String> overrides) throws Exception {
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int depth = Integer.parseInt(options.getOrDefault("depth", "32"));
+        long maxSeconds = Long.parseLong(options.getOrDefault("max-seconds", "600"));
+        Sink sinkType = Sink.valueOf(options.getOrDefault("sink", "memory").toUpperCase());
+        SyntheticWeb web = new SyntheticWeb(seed,
+                Integer.parseInt(options.getOrDefault("hosts", "200")),
+                Integer.parseInt(options.getOrDefault("pages-per-host", "100")),
+                Integer.parseInt(options.getOrDefault("min-links", "3")),
+                Integer.parseInt(options.getOrDefault("max-links", "200")),
+                Double.parseDouble(options.getOrDefault("link-exponent", "2.5")),
+                Double.parseDouble(options.getOrDefault("cross-host-links", "0.1")),
+                Double.parseDouble(options.getOrDefault("latency-millis", "20")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0.01")));
+        CrawlerProperties properties = properties(overrides);
+
+        FetchToPersistLatency latency = new FetchToPersistLatency();
+        try (SyntheticWebServer server = new SyntheticWebServer(web);
+             Neo4j neo4j = Neo4jBuilders.newInProcessBuilder().withDisabledServer().build();
+             Driver driver = GraphDatabase.driver(neo4j.boltURI(), AuthTokens.none())) {
+            Neo4jClient neo4jClient = Neo4jClient.create(driver);
+            CrawlMetrics metrics = new CrawlMetrics(new SimpleMeterRegistry(), properties);
+            LinkGraphWriter linkGraphWriter = new LinkGraphWriter(neo4jClient, properties.getGraphWriter(), metrics);
+            GraphSink sink = switch (sinkType) {
+                case MEMORY -> new InMemoryGraphSink();
+                case LOCAL -> {
+                    properties.getGraph().setDirectory(Files.createTempDirectory("crawl-simulation").toString());
+                    yield new LocalEdgeStore(properties.getGraph(), linkGraphWriter);
+                }
+                case NEO4J -> linkGraphWriter;
+            };
+            TimedGraphSink timedSink = new TimedGraphSink(sink, latency);
+            PageRankingService pageRankingService = new PageRankingService(neo4jClient, properties);
+            ClusterClient clusterClient = new ClusterClient(properties, new ObjectMapper());
+            CrawlerService crawler = new CrawlerService(neo4jClient, pageRankingService, timedSink,
+                    new LoopbackPageFetcher(new FetchConfiguration().pageFetcher(properties), server.baseUrl(), latency),
+                    new ParseConfiguration().linkExtractor(properties), new UrlCanonicalizer(properties),
+                    new UrlScorer(properties), new FetchCache(properties), metrics, clusterClient, properties);
+
+            System.out.printf("Crawling %d pages on %d synthetic hosts from %s%n", web.pages(), web.hosts(),
+                    server.baseUrl());
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            System.gc();
+            long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+            AtomicLong peakHeap = new AtomicLong(baselineHeap);
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                    0, HEAP_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+            long gcBefore = gcMillis();
+
+            long start = System.nanoTime();
+            crawler.startCrawling(List.of(SyntheticWeb.url(0, 0)), depth);
+            long deadline = start + TimeUnit.SECONDS.toNanos(maxSeconds);
+            boolean stopped = false;
+            while (crawler.isCrawlInProgress()) {
+                if (!stopped && System.nanoTime() > deadline) {
+                    System.out.println("Stopping the crawl after " + maxSeconds + " s");
+                    crawler.stopCrawling();
+                    stopped = true;
+                }
+                Thread.sleep(HEAP_SAMPLE_MILLIS);
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            sampler.shutdownNow();
+            long gc = gcMillis() - gcBefore;
+
+            CrawlStats stats = crawler.getStats();
+            double[] persistMillis = latency.sortedMillis();
+            Report report = new Report(seed, web.hosts(), web.pages(), sinkType.name().toLowerCase(),
+                    stats.pagesProcessed(), timedSink.links(), elapsedSeconds,
+                    stats.pagesProcessed() / elapsedSeconds,
+                    FetchToPersistLatency.percentile(persistMillis, 50),
+                    FetchToPersistLatency.percentile(persistMillis, 99),
+                    FetchToPersistLatency.percentile(persistMillis, 100),
+                    baselineHeap, peakHeap.get(), gc, server.requests(), server.injectedErrors(),
+                    stats.fetch(), stats.parse(), stats.errors(), stats.retries());
+
+            if (sink instanceof LocalEdgeStore localEdgeStore) {
+                localEdgeStore.close();
+            }
+            linkGraphWriter.shutdown();
+            pageRankingService.shutdown();
+            clusterClient.shutdown();
+            return report;
+        }
+    }
+
+    /**
+     * The crawler's defaults with the overrides bound on top, the way Spring binds
+     * application.properties.
+     */
+    private static CrawlerProperties properties(Map<String, String> overrides) {
+        CrawlerProperties properties = new CrawlerProperties();
+        properties.getRobots().setEnabled(false);
+        properties.getPageRank().setRankAfterCrawl(false);
+        properties.getGraph().setExportAfterCrawl(GraphExportFormat.NONE);
+        new Binder(new MapConfigurationPropertySource(overrides)).bind("crawler", Bindable.ofInstance(properties));
+        return properties;
+    }
+
+    private static long gcMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time >= 0)
+                .sum();
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%-28s %,d of %,d%n", "Pages processed", report.pagesProcessed(), report.syntheticPages());
+        System.out.printf("%-28s %,d%n", "Links", report.links());
+        System.out.printf("%-28s %.1f s%n", "Elapsed", report.elapsedSeconds());
+        System.out.printf("%-28s %.1f%n", "Pages/sec", report.pagesPerSecond());
+        System.out.printf("%-28s p50 %.1f ms, p99 %.1f ms, max %.1f ms%n", "Fetch to persist",
+                report.fetchToPersistP50Millis(), report.fetchToPersistP99Millis(), report.fetchToPersistMaxMillis());
+        System.out.printf("%-28s p50 %.1f ms, p99 %.1f ms%n", "Fetch", report.fetch().p50Millis(),
+                report.fetch().p99Millis());
+        System.out.printf("%-28s %.1f MiB (baseline %.1f MiB)%n", "Peak heap", report.peakHeapBytes() / 1048576.0,
+                report.baselineHeapBytes() / 1048576.0);
+        System.out.printf("%-28s %,d ms%n", "GC", report.gcMillis());
+        System.out.printf("%-28s %,d requests, %,d injected errors%n", "Server", report.serverRequests(),
+                report.injectedErrors());
+        System.out.printf("%-28s %s%n", "Crawler errors", report.errors());
+        System.out.printf("%-28s %s%n", "Retries", report.retries());
+    }
+}
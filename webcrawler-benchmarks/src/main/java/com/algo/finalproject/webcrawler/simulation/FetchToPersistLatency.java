@@ -0,0 +1,52 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time from the first fetch of a page to the moment the graph sink has taken the last of its
+ * links. Retries and the wait for a parse thread count, so this is what a page costs end to end.
+ * Pages none of whose links reached the sink, such as failed or link-less pages, are not counted.
+ */
+public class FetchToPersistLatency {
+
+    private final Map<String, Long> fetchStarted = new ConcurrentHashMap<>();
+    private final Map<String, Long> persisted = new ConcurrentHashMap<>();
+
+    public void fetchStarted(String url) {
+        fetchStarted.putIfAbsent(url, System.nanoTime());
+    }
+
+    public void persisted(String url) {
+        persisted.merge(url, System.nanoTime(), Math::max);
+    }
+
+    public void clear() {
+        fetchStarted.clear();
+        persisted.clear();
+    }
+
+    /**
+     * Latencies of the persisted pages in milliseconds, sorted.
+     */
+    public double[] sortedMillis() {
+        double[] millis = persisted.entrySet().stream()
+                .filter(entry -> fetchStarted.containsKey(entry.getKey()))
+                .mapToDouble(entry -> (entry.getValue() - fetchStarted.get(entry.getKey())) / 1e6)
+                .toArray();
+        Arrays.sort(millis);
+        return millis;
+    }
+
+    /**
+     * Nearest-rank percentile of {@code sorted}, 0 if it is empty.
+     */
+    public static double percentile(double[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+}
@@ -0,0 +1,71 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+
+import java.util.Arrays;
+
+/**
+ * {@link GraphSink} that keeps the links in memory, as pairs of {@link UrlDictionary} ids, so a
+ * simulation measures the crawler and not the database. A link costs 8 bytes plus its URLs the
+ * first time they are seen. Nothing reaches Neo4j, so no ranking runs after the crawl.
+ */
+public class InMemoryGraphSink implements GraphSink {
+
+    private final UrlDictionary urls = new UrlDictionary();
+    private int[] edges = new int[1024];
+    private int edgeCount;
+    private int duplicates;
+
+    @Override
+    public void submit(String fromUrl, String toUrl) {
+        add(urls.intern(fromUrl), urls.intern(toUrl), false);
+    }
+
+    @Override
+    public void submitDuplicate(String url, String originalUrl) {
+        add(urls.intern(url), urls.intern(originalUrl), true);
+    }
+
+    private synchronized void add(int from, int to, boolean duplicate) {
+        if (duplicate) {
+            duplicates++;
+            return;
+        }
+        if (2 * edgeCount == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+        }
+        edges[2 * edgeCount] = from;
+        edges[2 * edgeCount + 1] = to;
+        edgeCount++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public synchronized void reset() {
+        urls.clear();
+        edges = new int[1024];
+        edgeCount = 0;
+        duplicates = 0;
+    }
+
+    @Override
+    public boolean crawlCompleted() {
+        return false;
+    }
+
+    public synchronized int edgeCount() {
+        return edgeCount;
+    }
+
+    public synchronized int duplicateCount() {
+        return duplicates;
+    }
+
+    public int pageCount() {
+        return urls.size();
+    }
+}
@@ -0,0 +1,63 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.fetch.PageFetcher;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends the fetches of synthetic {@code https://site-<n>.test} URLs to the
+ * {@link SyntheticWebServer} and passes everything else on to the crawler's own fetcher.
+ * <p>
+ * The crawler only follows https links, while the server speaks plain HTTP without a
+ * certificate; the URL is rewritten to {@code http://127.0.0.1:<port>/site-<n>.test/<path>} just
+ * before the fetch and the page handed back under its original URL, so the frontier, the parser
+ * and the graph never see the server. Other URLs fail at once, so a simulation never leaves the
+ * machine.
+ */
+public class LoopbackPageFetcher implements PageFetcher {
+
+    private static final String SCHEME = "https://";
+
+    private final PageFetcher delegate;
+    private final String baseUrl;
+    private final FetchToPersistLatency latency;
+
+    public LoopbackPageFetcher(PageFetcher delegate, String baseUrl, FetchToPersistLatency latency) {
+        this.delegate = delegate;
+        this.baseUrl = baseUrl;
+        this.latency = latency;
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, String etag, String lastModified, int timeoutMillis) {
+        String local = localUrl(url);
+        if (local == null) {
+            return CompletableFuture.failedFuture(new IOException("Not a synthetic URL: " + url));
+        }
+        latency.fetchStarted(url);
+        return delegate.fetch(local, etag, lastModified, timeoutMillis)
+                .thenApply(page -> new FetchedPage(url, page.statusCode(), page.contentType(), page.charset(),
+                        page.body(), page.etag(), page.lastModified()));
+    }
+
+    /**
+     * The server's URL for {@code url}, or {@code null} if it is not a synthetic URL.
+     */
+    private String localUrl(String url) {
+        if (!url.startsWith(SCHEME)) {
+            return null;
+        }
+        int hostEnd = SCHEME.length();
+        while (hostEnd < url.length() && "/?#".indexOf(url.charAt(hostEnd)) < 0) {
+            hostEnd++;
+        }
+        String host = url.substring(SCHEME.length(), hostEnd);
+        if (!host.endsWith(SyntheticWeb.DOMAIN)) {
+            return null;
+        }
+        String rest = url.substring(hostEnd);
+        return baseUrl + "/" + host + (rest.startsWith("/") ? rest : "/" + rest);
+    }
+}
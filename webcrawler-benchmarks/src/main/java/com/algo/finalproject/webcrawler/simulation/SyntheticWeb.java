@@ -0,0 +1,186 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * A generated web of {@code hosts} sites named {@code site-<n>.test} with {@code pagesPerHost}
+ * pages each. Nothing is stored: the links and text of a page and the latency and error rate of
+ * a host all follow from the seed, so a run can be repeated exactly and the web can be larger
+ * than the heap.
+ * <p>
+ * Every page links to its parent and two children in a binary tree of its site, and every home
+ * page to the home pages of two other sites, so the whole web is reachable from
+ * {@code site-0.test} within about {@code log2(hosts) + log2(pagesPerHost)} links. On top of
+ * that a page has a power-law number of links, {@code P(k) ~ k^-linkExponent} from
+ * {@code minLinks} up to {@code maxLinks}. Their targets favour low page numbers and low host numbers, which gives the in-degrees a
+ * power-law tail as well, and {@code crossHostLinks} of them lead to another site.
+ * <p>
+ * A host answers after a latency drawn around its own base latency, which is log-normally
+ * spread around {@code latencyMillis}. It fails a request with its own error rate, on average
+ * {@code errorRate}: half of the failures are 503s with a {@code Retry-After}, which the crawler
+ * retries, the other half 500s, which it does not.
+ */
+public class SyntheticWeb {
+
+    public static final String DOMAIN = ".test";
+    private static final String PAGE_PATH = "/pages/";
+    private static final int VOCABULARY = 5_000;
+    private static final int WORDS_PER_PAGE = 150;
+    private static final int HOST_STREAM = 0;
+    private static final int LINK_STREAM = 1;
+    private static final int TEXT_STREAM = 2;
+
+    private final long seed;
+    private final int hosts;
+    private final int pagesPerHost;
+    private final int minLinks;
+    private final int maxLinks;
+    private final double linkExponent;
+    private final double crossHostLinks;
+    private final double[] hostLatencyMillis;
+    private final double[] hostErrorRate;
+
+    public SyntheticWeb(long seed, int hosts, int pagesPerHost, int minLinks, int maxLinks, double linkExponent,
+                        double crossHostLinks, double latencyMillis, double errorRate) {
+        if (hosts < 1 || pagesPerHost < 1) {
+            throw new IllegalArgumentException("A synthetic web needs at least one host and page");
+        }
+        if (linkExponent <= 1) {
+            throw new IllegalArgumentException("linkExponent must be above 1: " + linkExponent);
+        }
+        this.seed = seed;
+        this.hosts = hosts;
+        this.pagesPerHost = pagesPerHost;
+        this.minLinks = minLinks;
+        this.maxLinks = Math.max(minLinks, maxLinks);
+        this.linkExponent = linkExponent;
+        this.crossHostLinks = crossHostLinks;
+        this.hostLatencyMillis = new double[hosts];
+        this.hostErrorRate = new double[hosts];
+        for (int host = 0; host < hosts; host++) {
+            SplittableRandom random = random(HOST_STREAM, host, 0);
+            hostLatencyMillis[host] = latencyMillis * Math.exp(0.75 * random.nextGaussian());
+            hostErrorRate[host] = Math.min(1, errorRate * 2 * random.nextDouble());
+        }
+    }
+
+    public int hosts() {
+        return hosts;
+    }
+
+    public long pages() {
+        return (long) hosts * pagesPerHost;
+    }
+
+    public static String hostName(int host) {
+        return "site-" + host + DOMAIN;
+    }
+
+    /**
+     * The host number of {@code hostName}, or -1 if it is not a host of this web.
+     */
+    public int hostIndex(String hostName) {
+        if (!hostName.startsWith("site-") || !hostName.endsWith(DOMAIN)) {
+            return -1;
+        }
+        try {
+            int host = Integer.parseInt(hostName, 5, hostName.length() - DOMAIN.length(), 10);
+            return host < hosts ? host : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The page number of {@code path}, or -1 if the path is not a page.
+     */
+    public int pageIndex(String path) {
+        if (path.isEmpty() || path.equals("/")) {
+            return 0;
+        }
+        if (!path.startsWith(PAGE_PATH)) {
+            return -1;
+        }
+        try {
+            int page = Integer.parseInt(path, PAGE_PATH.length(), path.length(), 10);
+            return page > 0 && page < pagesPerHost ? page : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String url(int host, int page) {
+        return "https://" + hostName(host) + (page == 0 ? "/" : PAGE_PATH + page);
+    }
+
+    /**
+     * Outgoing links of a page, as absolute URLs; the same for every call.
+     */
+    public List<String> links(int host, int page) {
+        SplittableRandom random = random(LINK_STREAM, host, page);
+        List<String> links = new ArrayList<>();
+        if (page > 0) {
+            links.add(url(host, (page - 1) / 2));
+        }
+        for (int child = 2 * page + 1; child <= 2 * page + 2 && child < pagesPerHost; child++) {
+            links.add(url(host, child));
+        }
+        if (page == 0) {
+            for (int site = 2 * host + 1; site <= 2 * host + 2 && site < hosts; site++) {
+                links.add(url(site, 0));
+            }
+        }
+        int count = (int) Math.min(maxLinks, minLinks * Math.pow(1 - random.nextDouble(), -1 / (linkExponent - 1)));
+        for (int i = 0; i < count; i++) {
+            int targetHost = hosts > 1 && random.nextDouble() < crossHostLinks
+                    ? (int) (hosts * Math.pow(random.nextDouble(), 2))
+                    : host;
+            links.add(url(targetHost, (int) (pagesPerHost * Math.pow(random.nextDouble(), 3))));
+        }
+        return links;
+    }
+
+    /**
+     * The HTML of a page: its links and a paragraph of words drawn for this page alone, so
+     * pages are not near-duplicates of each other.
+     */
+    public String html(int host, int page) {
+        SplittableRandom random = random(TEXT_STREAM, host, page);
+        StringBuilder html = new StringBuilder(4096)
+                .append("<!DOCTYPE html><html><head><title>")
+                .append(hostName(host)).append(" page ").append(page)
+                .append("</title></head><body><nav>");
+        for (String link : links(host, page)) {
+            html.append("<a href=\"").append(link).append("\">").append(word(random.nextInt(VOCABULARY)))
+                    .append("</a>\n");
+        }
+        html.append("</nav><main><p>");
+        for (int i = 0; i < WORDS_PER_PAGE; i++) {
+            html.append(word(random.nextInt(VOCABULARY))).append(' ');
+        }
+        return html.append("</p></main></body></html>").toString();
+    }
+
+    public double latencyMillis(int host) {
+        return hostLatencyMillis[host];
+    }
+
+    public double errorRate(int host) {
+        return hostErrorRate[host];
+    }
+
+    /**
+     * A generator of its own for each host or page and purpose, so that changing one does not
+     * shift the others.
+     */
+    private SplittableRandom random(int stream, int host, int page) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L
+                + host * 0x94D049BB133111EBL + page);
+    }
+
+    private static String word(int index) {
+        return Integer.toString(index * 7919 + 1296, 36);
+    }
+}
@@ -0,0 +1,93 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves a {@link SyntheticWeb} over plain HTTP on a loopback port. The host of a page is the
+ * first segment of the path, {@code /site-3.test/pages/12}, as {@link LoopbackPageFetcher}
+ * rewrites it. Every request waits out its host's latency on a virtual thread of its own, so
+ * slow hosts do not hold up the others, and may be answered with an injected error.
+ */
+public class SyntheticWebServer implements AutoCloseable {
+
+    private final SyntheticWeb web;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public SyntheticWebServer(SyntheticWeb web) throws IOException {
+        this.web = web;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * {@code http://127.0.0.1:<port>}, to which the host and path of a synthetic URL are appended.
+     */
+    public String baseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long injectedErrors() {
+        return errors.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            int hostEnd = path.indexOf('/', 1);
+            int host = web.hostIndex(hostEnd < 0 ? path.substring(1) : path.substring(1, hostEnd));
+            int page = host < 0 ? -1 : web.pageIndex(hostEnd < 0 ? "/" : path.substring(hostEnd));
+            if (page < 0) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Thread.sleep((long) (web.latencyMillis(host) * (0.5 + random.nextDouble())));
+            if (random.nextDouble() < web.errorRate(host)) {
+                errors.increment();
+                if (random.nextBoolean()) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    exchange.sendResponseHeaders(503, -1);
+                } else {
+                    exchange.sendResponseHeaders(500, -1);
+                }
+                return;
+            }
+            byte[] body = web.html(host, page).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
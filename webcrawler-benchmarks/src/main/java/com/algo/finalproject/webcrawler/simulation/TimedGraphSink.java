@@ -0,0 +1,71 @@
+package com.algo.finalproject.webcrawler.simulation;
+
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Passes links on to the sink under test and notes when each page's links were taken, for
+ * {@link FetchToPersistLatency}. A sink that writes in the background, like the Neo4j writer,
+ * has taken a link once it is queued.
+ */
+public class TimedGraphSink implements GraphSink {
+
+    private final GraphSink delegate;
+    private final FetchToPersistLatency latency;
+    private final LongAdder links = new LongAdder();
+
+    public TimedGraphSink(GraphSink delegate, FetchToPersistLatency latency) {
+        this.delegate = delegate;
+        this.latency = latency;
+    }
+
+    @Override
+    public void submit(String fromUrl, String toUrl) throws InterruptedException {
+        delegate.submit(fromUrl, toUrl);
+        links.increment();
+        latency.persisted(fromUrl);
+    }
+
+    @Override
+    public void submitDuplicate(String url, String originalUrl) throws InterruptedException {
+        delegate.submitDuplicate(url, originalUrl);
+    }
+
+    @Override
+    public void submit(String crawl, String fromUrl, String toUrl) throws InterruptedException {
+        delegate.submit(crawl, fromUrl, toUrl);
+        links.increment();
+        latency.persisted(fromUrl);
+    }
+
+    @Override
+    public void submitDuplicate(String crawl, String url, String originalUrl) throws InterruptedException {
+        delegate.submitDuplicate(crawl, url, originalUrl);
+    }
+
+    @Override
+    public void flush() throws InterruptedException {
+        delegate.flush();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        delegate.reset();
+        links.reset();
+        latency.clear();
+    }
+
+    @Override
+    public boolean crawlCompleted() {
+        return delegate.crawlCompleted();
+    }
+
+    /**
+     * Links submitted since the last reset.
+     */
+    public long links() {
+        return links.sum();
+    }
+}
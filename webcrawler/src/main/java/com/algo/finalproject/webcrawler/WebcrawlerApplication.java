@@ -2,10 +2,12 @@ package com.algo.finalproject.webcrawler;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class WebcrawlerApplication {
 	private static final Logger logger = LogManager.getLogger(WebcrawlerApplication.class);
 	public static void main(String[] args) {
@@ -0,0 +1,299 @@
+package com.algo.finalproject.webcrawler.config;
+
+import com.algo.finalproject.webcrawler.service.fetch.FetchEngine;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportFormat;
+import com.algo.finalproject.webcrawler.service.graph.GraphSinkType;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractionMode;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStoreType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tunables for the crawler, bound from the {@code crawler.*} keys in application.properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "crawler")
+public class CrawlerProperties {
+
+    private Graph graph = new Graph();
+    private GraphWriter graphWriter = new GraphWriter();
+    private PageRank pageRank = new PageRank();
+    private Frontier frontier = new Frontier();
+    private Fetch fetch = new Fetch();
+    private Limiter limiter = new Limiter();
+    private Robots robots = new Robots();
+    private Dedup dedup = new Dedup();
+    private Parse parse = new Parse();
+    private SeenUrls seenUrls = new SeenUrls();
+    private Canonicalization canonicalization = new Canonicalization();
+    private Persistence persistence = new Persistence();
+    private FetchCache fetchCache = new FetchCache();
+    private Scoring scoring = new Scoring();
+    private Metrics metrics = new Metrics();
+    private Results results = new Results();
+    private Cluster cluster = new Cluster();
+    private Jobs jobs = new Jobs();
+
+    @Data
+    public static class Graph {
+        /** Where discovered links go while the crawl runs. */
+        private GraphSinkType sink = GraphSinkType.NEO4J;
+        /** Directory of the local edge store. */
+        private String directory = "crawl-graph";
+        /** Size of each memory-mapped edge segment of the local store, 8 bytes per edge. */
+        private long segmentBytes = 64L * 1024 * 1024;
+        /** How the local store hands the graph to Neo4j once a crawl completes. */
+        private GraphExportFormat exportAfterCrawl = GraphExportFormat.UNWIND;
+        /**
+         * Whether a crawl job started while no other job runs deletes the graph of earlier jobs;
+         * off keeps every job's pages, tagged with its id, in one graph.
+         */
+        private boolean clearOnStart = true;
+    }
+
+    @Data
+    public static class GraphWriter {
+        /** Maximum number of edges sent in a single UNWIND query. */
+        private int batchSize = 500;
+        /** Maximum time an edge may wait in a partially filled batch before it is flushed. */
+        private long maxBatchDelayMillis = 200;
+        /** Capacity of the edge queue; fetch workers block when it is full. */
+        private int queueCapacity = 20_000;
+        /** Number of threads writing batches to Neo4j. */
+        private int writerThreads = 2;
+        /** Attempts per batch before its edges are dropped, e.g. on transient deadlocks. */
+        private int maxAttempts = 3;
+        /** Wait before the second attempt at a batch; it doubles for each attempt after that. */
+        private long retryBackoffMillis = 100;
+    }
+
+    @Data
+    public static class PageRank {
+        /** Probability of following an outgoing link rather than jumping to a random page. */
+        private double dampingFactor = 0.85;
+        /** Iteration stops once the L1 change of the rank vector drops below this value. */
+        private double tolerance = 1e-6;
+        /** Upper bound on power iterations when the ranks do not converge. */
+        private int maxIterations = 100;
+        /** Number of scores written back per UNWIND query. */
+        private int writeBatchSize = 5_000;
+        /** Fork-join parallelism used for the iterations, 0 for one worker per core. */
+        private int parallelism = 0;
+        /** Whether ranks are recomputed automatically once a crawl completes. */
+        private boolean rankAfterCrawl = true;
+        /** Keep the last graph in memory and rank only from the pages and links added since. */
+        private boolean incremental = false;
+        /** Residual an incremental pass leaves per page, relative to the average score; bounds its L1 error at this / (1 - damping). */
+        private double residualTolerance = 1e-4;
+        /** Pages and links added since the last full pass, relative to its graph, above which a full pass runs instead. */
+        private double maxIncrementalChange = 0.2;
+    }
+
+    @Data
+    public static class Frontier {
+        /** Maximum concurrent fetches against a single host; the adaptive limiter only ever lowers it. */
+        private int maxRequestsPerHost = 2;
+        /** Minimum time between the starts of two fetches against the same host. */
+        private long minDelayMillis = 250;
+    }
+
+    @Data
+    public static class Fetch {
+        /** How pages are downloaded; parsing always happens on the parse pool. */
+        private FetchEngine engine = FetchEngine.HTTP_CLIENT;
+        /** Maximum fetches in flight at once, independent of the number of parse threads. */
+        private int maxInFlight = 256;
+        /** Threads parsing fetched pages and extracting links, 0 for one per core. */
+        private int parseThreads = 0;
+        /** Connect and response timeout of a single fetch. */
+        private int timeoutMillis = 10_000;
+        private String userAgent = "Mozilla/5.0 (compatible; webcrawler/0.0.1)";
+    }
+
+    @Data
+    public static class Limiter {
+        /** Adapt the fetch limits and timeouts to latency, 429/503 responses and timeouts; off keeps them fixed. */
+        private boolean adaptive = true;
+        /** Fetches in flight at least, however many time out; {@code fetch.max-in-flight} is the upper bound. */
+        private int minInFlight = 16;
+        /** A host counts as congested while its smoothed latency exceeds its fastest by this factor. */
+        private double latencyTolerance = 2.0;
+        /** Factor applied to a limit after a 429, a 503 or a timeout. */
+        private double backoffRatio = 0.5;
+        /** Shortest fetch timeout; {@code fetch.timeout-millis} is the longest. */
+        private int minTimeoutMillis = 2_000;
+        /** Retries of a page answered with 429 or 503, or whose fetch timed out or was refused. */
+        private int maxRetries = 3;
+        /** Delay before the first retry when the server sent no {@code Retry-After}; doubled per retry and jittered. */
+        private long retryBaseDelayMillis = 1_000;
+        /** Longest delay before a retry, also when {@code Retry-After} asks for more. */
+        private long maxRetryDelayMillis = 60_000;
+    }
+
+    @Data
+    public static class Robots {
+        /** Read robots.txt once per host and skip the pages it disallows. */
+        private boolean enabled = true;
+        /** Product token looked up in the {@code User-agent} lines of robots.txt. */
+        private String agent = "webcrawler";
+        /** How long the rules of a host are kept; RFC 9309 asks for at most a day. */
+        private long ttlMillis = 86_400_000;
+        /** How long a host whose robots.txt could not be read stays disallowed before it is read again. */
+        private long errorTtlMillis = 600_000;
+        /** Hosts whose rules are cached; beyond it expired entries, then arbitrary ones, are evicted. */
+        private int maxHosts = 100_000;
+        /** Longest {@code Crawl-delay} honoured; longer ones are cut to it. */
+        private long maxCrawlDelayMillis = 30_000;
+        /** Queue the pages listed in the sitemaps of the seed hosts when a crawl starts. */
+        private boolean sitemaps = true;
+        /** Pages queued from the sitemaps of one seed host at most. */
+        private int maxSitemapUrls = 100_000;
+        /** Sitemap files read per seed host at most, counting those listed by sitemap indexes. */
+        private int maxSitemaps = 100;
+    }
+
+    @Data
+    public static class Dedup {
+        /** Do not follow the links of pages whose text nearly duplicates an earlier page of the crawl. */
+        private boolean enabled = true;
+        /** Bits in which the SimHash fingerprints of two near-duplicate pages may differ at most. */
+        private int maxDistance = 3;
+        /** Word shingles a page needs for its fingerprint to be compared; shorter pages are never duplicates. */
+        private int minShingles = 50;
+        /** Pages indexed per crawl at most, about 150 bytes each; later pages are still looked up. */
+        private int maxPages = 1_000_000;
+    }
+
+    @Data
+    public static class Parse {
+        /** How links are extracted from fetched pages. */
+        private LinkExtractionMode mode = LinkExtractionMode.DOM;
+        /** Bytes of a page body that are parsed at most, 0 for no limit. */
+        private int maxBytes = 4 * 1024 * 1024;
+        /** Links taken from a single page at most, 0 for no limit. */
+        private int maxLinks = 5_000;
+    }
+
+    @Data
+    public static class SeenUrls {
+        private SeenUrlStoreType store = SeenUrlStoreType.FINGERPRINT;
+        /** Number of URLs the store is presized for; both compact stores grow beyond it. */
+        private long expectedUrls = 1_000_000;
+        /** Upper bound on the share of new URLs the Bloom store wrongly reports as seen. */
+        private double falsePositiveRate = 0.0001;
+    }
+
+    @Data
+    public static class Canonicalization {
+        /** Treat {@code /a/} and {@code /a} as the same page. */
+        private boolean removeTrailingSlash = true;
+        /** Query parameters removed from every URL; a trailing {@code *} matches a prefix. */
+        private List<String> trackingParams = new ArrayList<>(List.of(
+                "utm_*", "gclid", "fbclid", "msclkid", "mc_cid", "mc_eid", "_ga", "_hsenc", "_hsmi"));
+        /** Extra rules keyed by lower-case host name. */
+        private Map<String, HostRule> hosts = new HashMap<>();
+
+        @Data
+        public static class HostRule {
+            /** Additional query parameters removed for this host. */
+            private List<String> dropParams = new ArrayList<>();
+            /** Remove the whole query string, for hosts that only use it for sessions or views. */
+            private boolean dropQuery = false;
+            /** Lower-case the path, for hosts with case-insensitive paths. */
+            private boolean lowercasePath = false;
+        }
+    }
+
+    @Data
+    public static class Persistence {
+        /** Spill the frontier to disk and checkpoint it so an interrupted crawl can be resumed. */
+        private boolean enabled = false;
+        /** Directory holding a subdirectory per crawl job with its frontier segments, visited log and checkpoint. */
+        private String directory = "crawl-state";
+        /** Frontier entries kept in memory; the rest wait on disk. */
+        private int hotWindowSize = 10_000;
+        /** Size at which a new frontier segment file is started. */
+        private long segmentBytes = 64L * 1024 * 1024;
+        private long checkpointIntervalMillis = 10_000;
+    }
+
+    @Data
+    public static class FetchCache {
+        /** Revalidate pages fetched by earlier crawls and replay their outlinks when unchanged. */
+        private boolean enabled = false;
+        /** File the cache is loaded from at startup and saved to after each crawl. */
+        private String file = "crawl-cache/fetch-cache.bin";
+        /** Approximate memory held by cached entries; least recently used pages are evicted beyond it. */
+        private long maxBytes = 256L * 1024 * 1024;
+    }
+
+    @Data
+    public static class Scoring {
+        /** Priority of a URL that matches no rule, before the per-segment penalty. */
+        private int basePriority = 7;
+        /** Boost keyed by host suffix; a URL gets the boost of its longest matching suffix. */
+        private Map<String, Integer> hosts = new HashMap<>(Map.of(
+                "metmuseum.org", 10, "nps.gov", 10, "mfa.org", 10));
+        /** Boost keyed by path prefix; a URL gets the boost of its longest matching prefix. */
+        private Map<String, Integer> paths = new HashMap<>(Map.of("/exhibitions", 5, "/collections", 5));
+        /** Subtracted once per path segment, so shallow pages are crawled first. */
+        private int segmentPenalty = 1;
+        /** Added per doubling of the inlinks a URL has received so far, 0 to ignore inlinks. */
+        private double inlinkWeight = 0;
+        /** Width of each of the four rows of the inlink sketch, which takes 16 bytes per unit of width. */
+        private int inlinkSketchWidth = 1 << 20;
+    }
+
+    @Data
+    public static class Metrics {
+        /** Hosts that get their own fetch latency histogram; later hosts share the {@code other} one. */
+        private int maxTaggedHosts = 100;
+        /** Publish histogram buckets for latency timers, for percentile queries in the monitoring backend. */
+        private boolean percentileHistograms = true;
+        /** Share of queued links logged at debug level; logging every link costs throughput. */
+        private double linkLogSampleRate = 0.01;
+    }
+
+    @Data
+    public static class Results {
+        /** Most pages returned by one request for a page of the ranking. */
+        private int maxPageSize = 1_000;
+        /** Pages read per query while streaming the ranking. */
+        private int streamBatchSize = 5_000;
+    }
+
+    @Data
+    public static class Cluster {
+        /** Split the crawl across the instances listed in {@code nodes}, partitioned by host. */
+        private boolean enabled = false;
+        /** Position of this instance in {@code nodes}; node 0 coordinates the crawl. */
+        private int nodeId = 0;
+        /** Base URLs of all instances, e.g. {@code http://crawler-0:8080}, the same list on every instance. */
+        private List<String> nodes = new ArrayList<>();
+        /** Most links sent to another instance in one request. */
+        private int batchSize = 1_000;
+        /** Longest time a forwarded link waits for its batch to fill up. */
+        private long maxBatchDelayMillis = 100;
+        /** Links queued per instance before forwarding blocks the parse threads. */
+        private int queueCapacity = 50_000;
+        /** Attempts to deliver a batch of links before it is dropped. */
+        private int maxAttempts = 5;
+        /** Connect and request timeout for calls to other instances. */
+        private long timeoutMillis = 5_000;
+        /** Interval at which the coordinator polls the instances to detect the end of the crawl. */
+        private long terminationCheckMillis = 500;
+    }
+
+    @Data
+    public static class Jobs {
+        /** Crawl jobs running at once; further starts are refused until one of them ends. */
+        private int maxActive = 8;
+        /** Ended jobs whose status and stats are kept, the oldest dropped first. */
+        private int maxFinished = 100;
+    }
+}
@@ -0,0 +1,23 @@
+package com.algo.finalproject.webcrawler.config;
+
+import com.algo.finalproject.webcrawler.service.fetch.HttpClientPageFetcher;
+import com.algo.finalproject.webcrawler.service.fetch.JsoupPageFetcher;
+import com.algo.finalproject.webcrawler.service.fetch.PageFetcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the {@link PageFetcher} selected by {@code crawler.fetch.engine}.
+ */
+@Configuration
+public class FetchConfiguration {
+
+    @Bean
+    public PageFetcher pageFetcher(CrawlerProperties properties) {
+        CrawlerProperties.Fetch fetch = properties.getFetch();
+        return switch (fetch.getEngine()) {
+            case VIRTUAL_THREAD -> new JsoupPageFetcher(fetch.getTimeoutMillis(), fetch.getUserAgent());
+            case HTTP_CLIENT -> new HttpClientPageFetcher(fetch.getTimeoutMillis(), fetch.getUserAgent());
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.algo.finalproject.webcrawler.config;
+
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.graph.LocalEdgeStore;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.io.IOException;
+
+/**
+ * Creates the {@link GraphSink} selected by {@code crawler.graph.sink}. The local store exports
+ * through the {@link LinkGraphWriter}, so the writer exists with either sink.
+ */
+@Configuration
+public class GraphConfiguration {
+
+    @Bean
+    @Primary
+    public GraphSink graphSink(CrawlerProperties properties, LinkGraphWriter linkGraphWriter) throws IOException {
+        CrawlerProperties.Graph graph = properties.getGraph();
+        return switch (graph.getSink()) {
+            case NEO4J -> linkGraphWriter;
+            case LOCAL -> new LocalEdgeStore(graph, linkGraphWriter);
+        };
+    }
+}
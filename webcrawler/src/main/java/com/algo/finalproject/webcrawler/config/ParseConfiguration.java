@@ -0,0 +1,23 @@
+package com.algo.finalproject.webcrawler.config;
+
+import com.algo.finalproject.webcrawler.service.parse.DomLinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.StreamingLinkExtractor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Creates the {@link LinkExtractor} selected by {@code crawler.parse.mode}.
+ */
+@Configuration
+public class ParseConfiguration {
+
+    @Bean
+    public LinkExtractor linkExtractor(CrawlerProperties properties) {
+        CrawlerProperties.Parse parse = properties.getParse();
+        return switch (parse.getMode()) {
+            case DOM -> new DomLinkExtractor(parse.getMaxBytes(), parse.getMaxLinks());
+            case STREAMING -> new StreamingLinkExtractor(parse.getMaxBytes(), parse.getMaxLinks());
+        };
+    }
+}
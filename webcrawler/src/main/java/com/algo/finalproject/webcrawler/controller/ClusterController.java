@@ -0,0 +1,83 @@
+package com.algo.finalproject.webcrawler.controller;
+
+import com.algo.finalproject.webcrawler.service.CrawlerService;
+import com.algo.finalproject.webcrawler.service.cluster.ForwardedLink;
+import com.algo.finalproject.webcrawler.service.cluster.NodeStatus;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Endpoints the instances of a cluster call on each other; clients use {@link CrawlerController}.
+ */
+@RestController
+@RequestMapping("/cluster")
+@AllArgsConstructor
+public class ClusterController {
+
+    private final CrawlerService crawlerService;
+
+    @PostMapping("/links")
+    @Operation(summary = "Queue links forwarded by another cluster node")
+    public ResponseEntity<Void> links(@RequestBody List<ForwardedLink> links) {
+        if (!crawlerService.acceptForwarded(links)) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/start/{depth}")
+    @Operation(summary = "Start this node's share of a cluster crawl job")
+    public ResponseEntity<Void> start(@PathVariable int depth, @RequestParam String job,
+                                      @RequestBody List<String> urls) {
+        if (!crawlerService.startPeerCrawl(job, urls, depth)) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/resume")
+    @Operation(summary = "Resume this node's share of an interrupted cluster crawl")
+    public ResponseEntity<Void> resume() {
+        if (!crawlerService.resumePeerCrawl()) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/stop")
+    @Operation(summary = "Stop this node's share of a cluster crawl")
+    public ResponseEntity<Void> stop() {
+        if (!crawlerService.stopPeerCrawl()) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/cancel/{job}")
+    @Operation(summary = "Cancel this node's share of a cluster crawl job")
+    public ResponseEntity<Void> cancel(@PathVariable String job) {
+        if (!crawlerService.cancelPeerJob(job)) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/finish")
+    @Operation(summary = "Finish this node's share of a cluster crawl once the whole cluster is idle")
+    public ResponseEntity<Void> finish() {
+        if (!crawlerService.finishPeerCrawl()) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @GetMapping("/status")
+    @Operation(summary = "Counters the coordinator uses to detect the end of a cluster crawl")
+    public NodeStatus status() {
+        return crawlerService.getNodeStatus();
+    }
+}
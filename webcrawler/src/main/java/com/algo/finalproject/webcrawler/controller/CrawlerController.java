@@ -1,16 +1,40 @@
 package com.algo.finalproject.webcrawler.controller;
 
 import com.algo.finalproject.webcrawler.service.CrawlerService;
+import com.algo.finalproject.webcrawler.service.PageRankingService;
 import com.algo.finalproject.webcrawler.service.ResultService;
+import com.algo.finalproject.webcrawler.service.cache.FetchCache;
+import com.algo.finalproject.webcrawler.service.cache.FetchCacheStats;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportFormat;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportStats;
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.graph.GraphWriterStats;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.graph.LocalEdgeStore;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobStats;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobStatus;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlStats;
+import com.algo.finalproject.webcrawler.service.rank.PageRankStats;
+import com.algo.finalproject.webcrawler.service.rank.RankedPages;
+import com.algo.finalproject.webcrawler.service.url.CanonicalizationStats;
+import com.algo.finalproject.webcrawler.service.url.UrlCanonicalizer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import lombok.AllArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/crawl")
@@ -21,11 +45,70 @@ public class CrawlerController {
     private final CrawlerService crawlerService;
     private final Neo4jClient neo4jClient;
     private final ResultService resultService;
+    private final LinkGraphWriter linkGraphWriter;
+    private final GraphSink graphSink;
+    private final PageRankingService pageRankingService;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final FetchCache fetchCache;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/start/{depth}")
-    @Operation(summary = "Start crawling the given URLs with the specified depth")
-    public ResponseEntity<Void> crawl(@PathVariable int depth,@RequestBody List<String> urls) {
-        crawlerService.startCrawling(urls, depth);
+    @Operation(summary = "Start a crawl job for the given URLs with the specified depth and return its status; "
+            + "the job runs alongside any others, up to crawler.jobs.max-active")
+    public ResponseEntity<CrawlJobStatus> crawl(@PathVariable int depth,@RequestBody List<String> urls) {
+        String id = crawlerService.startCrawling(urls, depth);
+        if (id == null) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202)
+                .location(URI.create("/crawl/jobs/" + id))
+                .body(crawlerService.getJobStatus(id));
+    }
+
+    @GetMapping("/jobs")
+    @Operation(summary = "List the running and the recently ended crawl jobs, oldest first")
+    public List<CrawlJobStatus> getJobs() {
+        return crawlerService.getJobs();
+    }
+
+    @GetMapping("/jobs/{id}")
+    @Operation(summary = "Get the state, seeds and depth limit of a crawl job")
+    public ResponseEntity<CrawlJobStatus> getJob(@PathVariable String id) {
+        return ResponseEntity.of(Optional.ofNullable(crawlerService.getJobStatus(id)));
+    }
+
+    @GetMapping("/jobs/{id}/stats")
+    @Operation(summary = "Get pages, links, frontier size and error counts of a crawl job")
+    public ResponseEntity<CrawlJobStats> getJobStats(@PathVariable String id) {
+        return ResponseEntity.of(Optional.ofNullable(crawlerService.getJobStats(id)));
+    }
+
+    @PostMapping("/jobs/{id}/cancel")
+    @Operation(summary = "Cancel a crawl job: finish its pages in flight and discard its frontier")
+    public ResponseEntity<Void> cancel(@PathVariable String id) {
+        if (!crawlerService.cancelJob(id)) {
+            return crawlerService.getJobStatus(id) == null
+                    ? ResponseEntity.notFound().build()
+                    : ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/resume")
+    @Operation(summary = "Resume the interrupted crawl jobs from their last checkpoints")
+    public ResponseEntity<Void> resume() {
+        if (!crawlerService.resumeCrawling()) {
+            return ResponseEntity.status(409).build();
+        }
+        return ResponseEntity.status(202).build();
+    }
+
+    @PostMapping("/stop")
+    @Operation(summary = "Stop dispatching pages of every job, finish those in flight and checkpoint the frontiers")
+    public ResponseEntity<Void> stop() {
+        if (!crawlerService.stopCrawling()) {
+            return ResponseEntity.status(409).build();
+        }
         return ResponseEntity.status(202).build();
     }
 
@@ -42,14 +125,85 @@ public class CrawlerController {
         }
     }
     @GetMapping("/status")
-    @Operation(summary = "Check if the crawling process is in progress")
+    @Operation(summary = "Check if any crawl job is in progress")
     public boolean getStatus() {
         return crawlerService.isCrawlInProgress();
     }
 
+    @GetMapping("/stats")
+    @Operation(summary = "Get throughput, latencies, queue depths and error counts of the crawl")
+    public CrawlStats getStats() {
+        return crawlerService.getStats();
+    }
+
     @GetMapping("/result")
-    @Operation(summary = "Get the URLs sorted by page rank")
-    public List<String> getResult() {
-        return resultService.getUrlsByPageRank();
+    @Operation(summary = "Get a page of the crawled URLs with their scores, best PageRank first; "
+            + "pass nextAfterRank and nextAfterUrl of the response to get the next page")
+    public RankedPages getResult(@RequestParam(defaultValue = "100") int limit,
+                                 @RequestParam(required = false) Double afterRank,
+                                 @RequestParam(required = false) String afterUrl) {
+        return resultService.getTopPages(limit, afterRank, afterUrl);
+    }
+
+    @GetMapping(value = "/result/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Stream the best pages, or all of them with limit 0, as one chunked JSON array")
+    public StreamingResponseBody streamResult(@RequestParam(defaultValue = "0") long limit) {
+        return out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                resultService.streamTopPages(limit, page -> {
+                    try {
+                        json.writeObject(page);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+    }
+
+    @GetMapping("/graphWriter/stats")
+    @Operation(summary = "Get batch size and flush latency metrics of the Neo4j link graph writer")
+    public GraphWriterStats getGraphWriterStats() {
+        return linkGraphWriter.getStats();
+    }
+
+    @PostMapping("/graph/export/{format}")
+    @Operation(summary = "Export the local edge store to Neo4j (UNWIND) or to CSV files for neo4j-admin import (CSV)")
+    public ResponseEntity<GraphExportStats> exportGraph(@PathVariable GraphExportFormat format) {
+        if (format == GraphExportFormat.NONE) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!(graphSink instanceof LocalEdgeStore localEdgeStore) || crawlerService.isCrawlInProgress()) {
+            return ResponseEntity.status(409).build();
+        }
+        try {
+            return ResponseEntity.ok(localEdgeStore.export(format));
+        } catch (IOException e) {
+            logger.error("Failed to export local edge store", e);
+            return ResponseEntity.internalServerError().build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/canonicalizer/stats")
+    @Operation(summary = "Get how many URLs were rewritten and how many duplicate fetches that saved")
+    public CanonicalizationStats getCanonicalizerStats() {
+        return urlCanonicalizer.getStats();
+    }
+
+    @GetMapping("/fetchCache/stats")
+    @Operation(summary = "Get how many pages were revalidated, replayed from the fetch cache or parsed again")
+    public FetchCacheStats getFetchCacheStats() {
+        return fetchCache.getStats();
+    }
+
+    @PostMapping("/rank")
+    @Operation(summary = "Recompute the PageRank of every crawled page, or only propagate the pages and links added since the last pass")
+    public PageRankStats rank(@RequestParam(defaultValue = "false") boolean incremental) {
+        return incremental ? pageRankingService.updatePageRank() : pageRankingService.computePageRank();
     }
 }
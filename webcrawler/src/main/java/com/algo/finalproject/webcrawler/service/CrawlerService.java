@@ -1,78 +1,561 @@
 package com.algo.finalproject.webcrawler.service;
 
 import com.algo.finalproject.webcrawler.WebcrawlerApplication;
-import lombok.Getter;
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.cache.CachedPage;
+import com.algo.finalproject.webcrawler.service.cache.FetchCache;
+import com.algo.finalproject.webcrawler.service.cluster.ClusterClient;
+import com.algo.finalproject.webcrawler.service.cluster.ClusterTopology;
+import com.algo.finalproject.webcrawler.service.cluster.ForwardedLink;
+import com.algo.finalproject.webcrawler.service.cluster.NodeStatus;
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.fetch.PageFetcher;
+import com.algo.finalproject.webcrawler.service.frontier.HostFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.HostSlots;
+import com.algo.finalproject.webcrawler.service.frontier.PersistentFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.UrlDepthPair;
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.job.CrawlJob;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobState;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobStats;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobStatus;
+import com.algo.finalproject.webcrawler.service.limit.FetchLimiter;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlStats;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractor;
+import com.algo.finalproject.webcrawler.service.robots.RobotsCache;
+import com.algo.finalproject.webcrawler.service.robots.RobotsRules;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import com.algo.finalproject.webcrawler.service.seen.BloomSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.ExactSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.FingerprintSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStore;
+import com.algo.finalproject.webcrawler.service.url.UrlCanonicalizer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
 
+/**
+ * Runs crawl jobs, each with its own {@link CrawlJob frontier, seen URLs and depth limit}, side by
+ * side. Every job has a dispatcher thread of its own, and all of them take their fetch slots from
+ * one {@link FetchLimiter}, which serves them in turn, and hand their pages to one pool of parse
+ * threads. The slots and delays of each host are counted over all jobs in one {@link HostSlots}.
+ * The graph, the fetch cache, the robots.txt rules and the URL scores are shared, so a new job
+ * only clears them, and a finished one only triggers the ranking, when no other job is
+ * running. In cluster mode one job runs at a time across the cluster.
+ */
 @Service
 public class CrawlerService {
 
     private static final Logger logger = LogManager.getLogger(WebcrawlerApplication.class);
-    private final PriorityBlockingQueue<UrlDepthPair> urlQueue;
-    private final Set<String> visitedUrls;
-    private final ExecutorService executorService;
-    private final Semaphore semaphore;
+    private final CrawlerProperties properties;
+    private final CrawlerProperties.Jobs jobsConfig;
+    private final PageFetcher pageFetcher;
+    private final LinkExtractor linkExtractor;
+    private final ExecutorService parseExecutor;
+    private final FetchLimiter fetchLimiter;
+    private final HostSlots hostSlots;
+    private final RobotsCache robotsCache;
+    private final CrawlerProperties.Robots robotsConfig;
+    private final ExecutorService sitemapExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final CrawlerProperties.Dedup dedupConfig;
+    private final boolean clearGraphOnStart;
     private final Neo4jClient neo4jClient;
     private final PageRankingService pageRankingService;
-    private int maxDepth;
-    @Getter
-    private volatile boolean crawlInProgress = false;
-    private volatile boolean stopCrawl = true;
+    private final GraphSink graphSink;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final UrlScorer urlScorer;
+    private final FetchCache fetchCache;
+    private final CrawlMetrics crawlMetrics;
+    private final ClusterClient clusterClient;
+    private final ClusterTopology topology;
+    private final double linkLogSampleRate;
+    /** Jobs from their start until their dispatcher has ended them, including any ranking. */
+    private final Map<String, CrawlJob> activeJobs = new ConcurrentHashMap<>();
+    /** Status and stats of ended jobs, oldest first; guarded by itself. */
+    private final Map<String, EndedJob> endedJobs;
+    /** Active jobs still dispatching; guarded by {@code this}. */
+    private int runningJobs;
+    /** Whether a job completed since the graph was last ranked; guarded by {@code this}. */
+    private boolean rankPending;
+    /** Frontier entries taken by the dispatchers, compared between termination checks. */
+    private final LongAdder entriesTaken = new LongAdder();
+    private final LongAdder linksReceived = new LongAdder();
 
     @Autowired
-    public CrawlerService(Neo4jClient neo4jClient, PageRankingService pageRankingService) {
-        this.urlQueue = new PriorityBlockingQueue<>(11, new UrlComparator());
-        this.visitedUrls = ConcurrentHashMap.newKeySet();
-        this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        this.semaphore = new Semaphore(Runtime.getRuntime().availableProcessors());
+    public CrawlerService(Neo4jClient neo4jClient, PageRankingService pageRankingService,
+                          GraphSink graphSink, PageFetcher pageFetcher, LinkExtractor linkExtractor,
+                          UrlCanonicalizer urlCanonicalizer, UrlScorer urlScorer, FetchCache fetchCache,
+                          CrawlMetrics crawlMetrics, ClusterClient clusterClient, CrawlerProperties properties) {
+        CrawlerProperties.Fetch fetchConfig = properties.getFetch();
+        int parseThreads = fetchConfig.getParseThreads() > 0
+                ? fetchConfig.getParseThreads()
+                : Runtime.getRuntime().availableProcessors();
+        this.properties = properties;
+        this.jobsConfig = properties.getJobs();
+        int maxEnded = jobsConfig.getMaxFinished();
+        this.endedJobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EndedJob> eldest) {
+                return size() > maxEnded;
+            }
+        };
+        this.pageFetcher = pageFetcher;
+        this.linkExtractor = linkExtractor;
+        this.parseExecutor = Executors.newFixedThreadPool(parseThreads);
+        this.fetchLimiter = new FetchLimiter(properties);
+        this.hostSlots = new HostSlots(properties);
+        this.robotsCache = new RobotsCache(properties);
+        this.robotsConfig = properties.getRobots();
+        this.dedupConfig = properties.getDedup();
+        this.clearGraphOnStart = properties.getGraph().isClearOnStart();
         this.neo4jClient = neo4jClient;
         this.pageRankingService = pageRankingService;
-        this.maxDepth = 3;
+        this.graphSink = graphSink;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.urlScorer = urlScorer;
+        this.fetchCache = fetchCache;
+        this.crawlMetrics = crawlMetrics;
+        this.clusterClient = clusterClient;
+        this.topology = clusterClient.topology();
+        this.linkLogSampleRate = properties.getMetrics().getLinkLogSampleRate();
+        crawlMetrics.gauge("crawler.frontier.size", "Frontier entries held in memory", this,
+                service -> service.sumOverJobs(job -> job.getFrontier().size()));
+        crawlMetrics.gauge("crawler.frontier.backlog.bytes", "Approximate size of the frontier entries on disk",
+                this, service -> service.sumOverJobs(job -> job.getFrontier().backlogBytes()));
+        crawlMetrics.gauge("crawler.seen.urls", "URLs fetched or claimed for fetching", this,
+                service -> service.sumOverJobs(job -> job.getVisitedUrls().size()));
+        crawlMetrics.gauge("crawler.fetch.in.flight", "Pages being fetched or processed", this,
+                service -> service.sumOverJobs(CrawlJob::inFlight));
+        crawlMetrics.gauge("crawler.fetch.limit", "Current limit on pages in flight", fetchLimiter,
+                FetchLimiter::limit);
+        crawlMetrics.gauge("crawler.robots.hosts", "Hosts whose robots.txt rules are cached", robotsCache,
+                RobotsCache::size);
+        crawlMetrics.gauge("crawler.dedup.pages", "Pages in the near-duplicate indexes", this,
+                service -> service.sumOverJobs(job -> job.getNearDuplicates().size()));
+        crawlMetrics.gauge("crawler.jobs.active", "Crawl jobs started and not yet ended", activeJobs,
+                Map::size);
+    }
 
+    /**
+     * Starts a crawl job from {@code urls} and returns its id, or {@code null} if it was refused
+     * because {@code jobs.maxActive} jobs are running. In cluster mode only the coordinator starts
+     * jobs, one at a time; it starts the other instances too and then watches for the end of the
+     * job.
+     */
+    public String startCrawling(List<String> urls, int maxDepth) {
+        if (clusterClient.isEnabled() && !topology.isCoordinator()) {
+            logger.error("Cluster crawls are started on node 0, not on node " + topology.nodeId());
+            return null;
+        }
+        urls = urls.stream().map(urlCanonicalizer::canonicalize).distinct().toList();
+        String id = UUID.randomUUID().toString();
+        if (!startLocalCrawl(id, urls, maxDepth)) {
+            return null;
+        }
+        if (clusterClient.isEnabled()) {
+            if (!clusterClient.broadcast("/cluster/start/" + maxDepth + "?job=" + id, urls)) {
+                logger.warn("Not every cluster node started the crawl");
+            }
+            startTerminationCheck(activeJobs.get(id));
+        }
+        return id;
     }
 
-    public CrawlerService(Neo4jClient neo4jClient, PageRankingService pageRankingService, int maxDepth) {
-        this.urlQueue = new PriorityBlockingQueue<>(11, new UrlComparator());
-        this.visitedUrls = ConcurrentHashMap.newKeySet();
-        this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        this.semaphore = new Semaphore(Runtime.getRuntime().availableProcessors());
-        this.neo4jClient = neo4jClient;
-        this.pageRankingService = pageRankingService;
-        this.maxDepth = maxDepth;
+    /**
+     * Starts this instance's share of cluster job {@code id}, started by the coordinator. Returns
+     * {@code false} if a job is already running here.
+     */
+    public boolean startPeerCrawl(String id, List<String> urls, int maxDepth) {
+        return startLocalCrawl(id, urls, maxDepth);
     }
 
+    private synchronized boolean startLocalCrawl(String id, List<String> urls, int maxDepth) {
+        if (!canStartJob()) {
+            return false;
+        }
+        boolean first = activeJobs.isEmpty();
+        CrawlJob job = new CrawlJob(id, urls, maxDepth, createSeenUrlStore(properties.getSeenUrls()), hostSlots,
+                properties);
 
-    public void startCrawling(List<String> urls, int maxDepth) {
-        if (crawlInProgress) {
+        logger.info("Starting crawl job " + id + " with URLs: " + urls);
+        if (first) {
+            try {
+                graphSink.reset();
+            } catch (IOException e) {
+                logger.error("Failed to reset link graph store", e);
+                return false;
+            }
+        }
+        try {
+            job.start();
+        } catch (IOException e) {
+            logger.error("Failed to create crawl frontier", e);
+            return false;
+        }
+        // The instances of a cluster share one Neo4j database
+        if (topology.isCoordinator()) {
+            if (first && clearGraphOnStart) {
+                clean();
+            }
+            initCrawl(id, urls);
+        }
+        if (first) {
+            urlScorer.reset();
+            crawlMetrics.crawlStarted();
+        }
+        activeJobs.put(id, job);
+        runningJobs++;
+        logger.info("Starting crawl job " + id + " at time: " + System.currentTimeMillis());
+        List<UrlDepthPair> initialUrls = urls.stream()
+                .filter(topology::isLocal)
+                .map(url -> new UrlDepthPair(url, 1, urlScorer.score(url)))
+                .toList();
+        initialUrls.forEach(job.getFrontier()::offer);
+        seedFromSitemaps(job, initialUrls);
+        startDispatcher(job);
+        return true;
+    }
+
+    private boolean canStartJob() {
+        if (clusterClient.isEnabled() && !activeJobs.isEmpty()) {
             logger.info("Crawl already in progress");
+            return false;
+        }
+        if (activeJobs.size() >= jobsConfig.getMaxActive()) {
+            logger.info("Refusing crawl job, {} jobs already in progress", activeJobs.size());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Queues the pages listed in the sitemaps of the seed hosts, or in their
+     * {@code /sitemap.xml} if robots.txt names none. Each host's sitemaps are read in the
+     * background and count as in flight, so the job does not end before they are read.
+     */
+    private void seedFromSitemaps(CrawlJob job, List<UrlDepthPair> seeds) {
+        if (!robotsCache.isEnabled() || !robotsConfig.isSitemaps()) {
             return;
         }
-        this.maxDepth = maxDepth;
-        crawlInProgress = true;
-        stopCrawl = false;
+        Set<String> origins = new HashSet<>();
+        for (UrlDepthPair seed : seeds) {
+            String origin = RobotsCache.originOf(seed.url);
+            if (!origins.add(origin)) {
+                continue;
+            }
+            job.pageStarted();
+            robotsCache.rules(seed.url)
+                    .thenAcceptAsync(rules -> readSitemaps(job, origin, rules), sitemapExecutor)
+                    .whenComplete((ignored, ex) -> {
+                        if (ex != null) {
+                            logger.error("Failed to read sitemaps of host: " + origin, ex);
+                        }
+                        job.pageDone();
+                    });
+        }
+    }
+
+    private void readSitemaps(CrawlJob job, String origin, RobotsRules rules) {
+        List<String> sitemaps = rules.sitemaps().isEmpty()
+                ? List.of(origin + "/sitemap.xml")
+                : rules.sitemaps();
+        long[] queued = {0};
+        for (String sitemap : sitemaps) {
+            if (job.isStopRequested() || queued[0] >= robotsConfig.getMaxSitemapUrls()) {
+                break;
+            }
+            try {
+                robotsCache.sitemapReader().read(sitemap, page -> {
+                    if (job.isStopRequested() || queued[0] >= robotsConfig.getMaxSitemapUrls()) {
+                        return false;
+                    }
+                    String url = urlCanonicalizer.canonicalize(page);
+                    if (isValidUrl(job.getVisitedUrls(), url) && topology.isLocal(url) && isAllowed(job, url)) {
+                        job.getFrontier().offer(new UrlDepthPair(url, 1, urlScorer.score(url)));
+                        queued[0]++;
+                    }
+                    return true;
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        crawlMetrics.recordSitemapUrls(queued[0]);
+        logger.info("Queued {} pages from the sitemaps of host: {}", queued[0], origin);
+    }
+
+    /**
+     * Continues the jobs that were stopped or interrupted, each from its last frontier checkpoint
+     * and under its old id, without clearing the graph. Returns {@code false} if nothing could be
+     * resumed.
+     */
+    public boolean resumeCrawling() {
+        if (clusterClient.isEnabled() && !topology.isCoordinator()) {
+            logger.error("Cluster crawls are resumed on node 0, not on node " + topology.nodeId());
+            return false;
+        }
+        if (!resumeLocalCrawl()) {
+            return false;
+        }
+        if (clusterClient.isEnabled()) {
+            if (!clusterClient.broadcast("/cluster/resume", Map.of())) {
+                logger.warn("Not every cluster node resumed the crawl");
+            }
+            activeJobs.values().forEach(this::startTerminationCheck);
+        }
+        return true;
+    }
+
+    /**
+     * Resumes this instance's share of a cluster job, on behalf of the coordinator.
+     */
+    public boolean resumePeerCrawl() {
+        return resumeLocalCrawl();
+    }
+
+    private synchronized boolean resumeLocalCrawl() {
+        Path directory = Path.of(properties.getPersistence().getDirectory());
+        if (!properties.getPersistence().isEnabled() || !Files.isDirectory(directory)) {
+            return false;
+        }
+        List<String> ids = new ArrayList<>();
+        try (DirectoryStream<Path> jobs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            jobs.forEach(job -> ids.add(job.getFileName().toString()));
+        } catch (IOException e) {
+            logger.error("Failed to list saved crawl jobs in " + directory.toAbsolutePath(), e);
+            return false;
+        }
+        boolean resumed = false;
+        for (String id : ids) {
+            if (activeJobs.containsKey(id) || !canStartJob()) {
+                continue;
+            }
+            CrawlJob job = new CrawlJob(id, List.of(), 0, createSeenUrlStore(properties.getSeenUrls()), hostSlots,
+                    properties);
+            if (!job.getFrontier().canResume()) {
+                continue;
+            }
+            try {
+                job.resume();
+            } catch (IOException e) {
+                logger.error("Failed to resume crawl frontier of job " + id, e);
+                continue;
+            }
+            if (activeJobs.isEmpty()) {
+                crawlMetrics.crawlStarted();
+            }
+            activeJobs.put(id, job);
+            runningJobs++;
+            resumed = true;
+            logger.info("Resuming crawl job " + id + " with " + job.getVisitedUrls().size()
+                    + " visited URLs at time: " + System.currentTimeMillis());
+            startDispatcher(job);
+        }
+        return resumed;
+    }
+
+    /**
+     * Stops dispatching the pages of every job and lets those in flight finish; the links they
+     * find are still queued and written to the graph. With persistence enabled the frontiers are
+     * checkpointed, so {@link #resumeCrawling} continues the jobs later. In cluster mode all
+     * instances are stopped. Returns {@code false} if no job is running here.
+     */
+    public boolean stopCrawling() {
+        boolean stopped = stopPeerCrawl();
+        if (clusterClient.isEnabled() && !clusterClient.broadcast("/cluster/stop", Map.of())) {
+            logger.warn("Not every cluster node stopped the crawl");
+        }
+        return stopped;
+    }
+
+    /**
+     * Stops this instance only, on behalf of another instance of the cluster.
+     */
+    public boolean stopPeerCrawl() {
+        if (activeJobs.isEmpty()) {
+            return false;
+        }
+        for (CrawlJob job : activeJobs.values()) {
+            logger.info("Stopping crawl job " + job.getId() + " with " + job.inFlight() + " pages in flight");
+            job.requestStop();
+        }
+        return true;
+    }
+
+    /**
+     * Stops job {@code id} like {@link #stopCrawling}, but discards its frontier, so it cannot be
+     * resumed; the other jobs carry on. A job that is stopping or was stopped, even before a
+     * restart, has its saved frontier deleted. In cluster mode the job is cancelled on all
+     * instances. Returns {@code false} if the job is unknown here or completed.
+     */
+    public boolean cancelJob(String id) {
+        boolean cancelled = cancelPeerJob(id);
+        if (cancelled && clusterClient.isEnabled() && !clusterClient.broadcast("/cluster/cancel/" + id, Map.of())) {
+            logger.warn("Not every cluster node cancelled the crawl");
+        }
+        return cancelled;
+    }
+
+    /**
+     * Cancels this instance's share of job {@code id}, on behalf of the coordinator.
+     */
+    public synchronized boolean cancelPeerJob(String id) {
+        CrawlJob job = activeJobs.get(id);
+        if (job != null) {
+            logger.info("Cancelling crawl job " + id + " with " + job.inFlight() + " pages in flight");
+            return job.requestCancel();
+        }
+        EndedJob ended;
+        synchronized (endedJobs) {
+            ended = endedJobs.get(id);
+        }
+        if (ended != null && ended.status().state() != CrawlJobState.STOPPED) {
+            return ended.status().state() == CrawlJobState.CANCELLED;
+        }
+        boolean discarded = CrawlJob.discard(properties, id);
+        if (ended == null) {
+            return discarded;
+        }
+        logger.info("Cancelling stopped crawl job " + id);
+        synchronized (endedJobs) {
+            endedJobs.put(id, new EndedJob(ended.status().withState(CrawlJobState.CANCELLED), ended.stats()));
+        }
+        return true;
+    }
+
+    /**
+     * Ends this instance's share of a cluster job once the coordinator has found the whole
+     * cluster idle. Returns {@code false} if no job is running.
+     */
+    public boolean finishPeerCrawl() {
+        if (activeJobs.isEmpty()) {
+            return false;
+        }
+        activeJobs.values().forEach(CrawlJob::requestFinish);
+        return true;
+    }
+
+    /**
+     * Queues links that another instance found on its pages and this instance owns. Returns
+     * {@code false} if no job is running, so the sender retries later. A cluster runs one job at a
+     * time, so the links belong to the job running here.
+     */
+    public boolean acceptForwarded(List<ForwardedLink> links) {
+        CrawlJob job = activeJobs.values().stream().findFirst().orElse(null);
+        if (job == null || !job.isAcceptingLinks()) {
+            return false;
+        }
+        for (ForwardedLink link : links) {
+            if (isValidUrl(job.getVisitedUrls(), link.url())) {
+                job.getFrontier().offer(new UrlDepthPair(link.url(), link.depth(), urlScorer.scoreLink(link.url())));
+            }
+        }
+        linksReceived.add(links.size());
+        return true;
+    }
+
+    public NodeStatus getNodeStatus() {
+        return new NodeStatus(topology.nodeId(), isCrawlInProgress(), isIdle(), entriesTaken.sum(),
+                clusterClient.linksSent(), linksReceived.sum());
+    }
+
+    /**
+     * Whether any crawl job is running or ending here.
+     */
+    public boolean isCrawlInProgress() {
+        return !activeJobs.isEmpty();
+    }
+
+    /**
+     * The active and the most recently ended jobs, oldest first.
+     */
+    public List<CrawlJobStatus> getJobs() {
+        List<CrawlJobStatus> jobs = new ArrayList<>();
+        synchronized (endedJobs) {
+            endedJobs.values().forEach(job -> jobs.add(job.status()));
+        }
+        activeJobs.values().forEach(job -> jobs.add(job.status()));
+        jobs.sort(Comparator.comparing(CrawlJobStatus::startedAt));
+        return jobs;
+    }
+
+    /**
+     * Status of job {@code id}, or {@code null} if it is unknown or ended too long ago.
+     */
+    public CrawlJobStatus getJobStatus(String id) {
+        CrawlJob job = activeJobs.get(id);
+        if (job != null) {
+            return job.status();
+        }
+        synchronized (endedJobs) {
+            EndedJob ended = endedJobs.get(id);
+            return ended == null ? null : ended.status();
+        }
+    }
+
+    /**
+     * Stats of job {@code id}, or {@code null} if it is unknown or ended too long ago.
+     */
+    public CrawlJobStats getJobStats(String id) {
+        CrawlJob job = activeJobs.get(id);
+        if (job != null) {
+            return job.stats();
+        }
+        synchronized (endedJobs) {
+            EndedJob ended = endedJobs.get(id);
+            return ended == null ? null : ended.stats();
+        }
+    }
+
+    /**
+     * Watches the cluster from the coordinator and finishes {@code job} on every instance once
+     * all of them are idle.
+     */
+    private void startTerminationCheck(CrawlJob job) {
+        Thread checker = new Thread(() -> {
+            try {
+                if (clusterClient.awaitClusterIdle(this::getNodeStatus,
+                        () -> !job.state().isActive() || job.isStopRequested())) {
+                    logger.info("All cluster nodes are idle, finishing the crawl");
+                    clusterClient.broadcast("/cluster/finish", Map.of());
+                    finishPeerCrawl();
+                }
+            } catch (InterruptedException e) {
+                logger.error("Interrupted while waiting for the cluster to finish", e);
+                Thread.currentThread().interrupt();
+            }
+        }, "cluster-termination");
+        checker.setDaemon(true);
+        checker.start();
+    }
 
-        logger.info("Starting crawl with URLs: " + urls);
-        clean();
-        logger.info("Starting crawl at time: " + System.currentTimeMillis());
-        initCrawl(urls);
-        List<UrlDepthPair> initialUrls = urls.stream().map(url -> new UrlDepthPair(url, 1)).toList();
-        urlQueue.addAll(initialUrls);
-        CompletableFuture.runAsync(this::crawl);
+    private static SeenUrlStore createSeenUrlStore(CrawlerProperties.SeenUrls config) {
+        return switch (config.getStore()) {
+            case EXACT -> new ExactSeenUrlStore();
+            case FINGERPRINT -> new FingerprintSeenUrlStore(config.getExpectedUrls());
+            case BLOOM -> new BloomSeenUrlStore(config.getExpectedUrls(), config.getFalsePositiveRate());
+        };
     }
 
     private void clean() {
@@ -81,140 +564,384 @@ public class CrawlerService {
                 """;
         neo4jClient.query(cypherQuery)
                 .run();
+        pageRankingService.graphCleared();
         logger.info("Cleaned Neo4j database");
     }
 
-    private void initCrawl(List<String> urls) {
+    private void initCrawl(String crawl, List<String> urls) {
         float initialPageRank = 1;
         String cypherQuery = """
                   MERGE (u1:Page {url: $currentUrl})
-                  SET u1.pageRank = $initialPageRank
+                    ON CREATE SET u1.pageRank = $initialPageRank, u1.pending = true
+                  SET u1.crawls = CASE WHEN $crawl IN coalesce(u1.crawls, []) THEN u1.crawls ELSE coalesce(u1.crawls, []) + $crawl END
                 """;
         for (String url : urls) {
             neo4jClient.query(cypherQuery)
                     .bind(url).to("currentUrl")
                     .bind(initialPageRank).to("initialPageRank")
+                    .bind(crawl).to("crawl")
                     .run();
         }
     }
 
-    private void crawl() {
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
+    /**
+     * Dispatches the entries of {@code job} until its frontier is empty and none of its pages is
+     * in flight, or until it is stopped, then drains its pages in flight and ends it. The graph is
+     * flushed and ranked once the last running job has ended.
+     */
+    private void crawl(CrawlJob job) {
+        try {
+            dispatch(job);
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while dispatching crawl job " + job.getId(), e);
+            job.requestStop();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            job.awaitInFlight();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for pages in flight", e);
+            Thread.currentThread().interrupt();
+        }
+        boolean stopped = job.isStopRequested();
+        boolean last;
+        synchronized (this) {
+            runningJobs--;
+            rankPending |= !stopped;
+            last = runningJobs == 0;
+        }
+        // The sink is shared, so only the last job waits for it; others would keep it busy
+        if (last) {
+            try {
+                graphSink.flush();
+            } catch (InterruptedException e) {
+                logger.error("Interrupted while flushing link graph", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+        job.end();
+        fetchCache.save();
+        logger.info("Crawl job " + job.getId() + " " + job.state().name().toLowerCase()
+                + " at time: " + System.currentTimeMillis());
+        boolean rank = false;
+        if (last) {
+            synchronized (this) {
+                rank = runningJobs == 0 && rankPending;
+                rankPending &= !rank;
+            }
+        }
+        // The ranking covers the graph of all jobs and instances, so it runs once, on the coordinator
+        if (rank && graphSink.crawlCompleted() && topology.isCoordinator()) {
+            awaitPeersFinished();
+            pageRankingService.onCrawlCompleted();
+        }
+        synchronized (this) {
+            synchronized (endedJobs) {
+                endedJobs.put(job.getId(), new EndedJob(job.status(), job.stats()));
+            }
+            activeJobs.remove(job.getId());
+            if (activeJobs.isEmpty()) {
+                crawlMetrics.crawlFinished();
+            }
+        }
+    }
 
-        do {
-            while (!urlQueue.isEmpty() && crawlInProgress) {
-                UrlDepthPair current = urlQueue.poll();
-                if (current == null || visitedUrls.contains(current.url)) {
-                    continue;
-                }
+    private void awaitPeersFinished() {
+        try {
+            clusterClient.awaitPeersFinished();
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while waiting for cluster nodes to finish", e);
+            Thread.currentThread().interrupt();
+        }
+    }
 
-                // Skip URLs exceeding max depth
-                if (current.depth >= maxDepth) {
-                    continue;
-                }
+    /**
+     * No page of any job in flight, nothing queued and, in cluster mode, no forwarded link
+     * unacknowledged.
+     */
+    private boolean isIdle() {
+        return activeJobs.values().stream().allMatch(CrawlJob::isIdle) && clusterClient.pendingLinks() == 0;
+    }
 
-                visitedUrls.add(current.url);
-                try {
-                    semaphore.acquire();
-                    futures.add(CompletableFuture.runAsync(() -> {
-                        try {
-                            processUrl(current.url, current.depth + 1);
-                        } finally {
-                            semaphore.release();
-                        }
-                    }, executorService).exceptionally(ex -> {
-                        logger.error("Error processing URL: " + current.url, ex);
-                        return null;
-                    }));
-                } catch (InterruptedException e) {
-                    logger.error("Interrupted while acquiring semaphore", e);
-                    Thread.currentThread().interrupt();
-                }
-            }
-        } while (!futures.stream().allMatch(CompletableFuture::isDone) || !urlQueue.isEmpty());
-        logger.info("Crawl completed at time: " + System.currentTimeMillis());
-        crawlInProgress = false;
+    private long sumOverJobs(ToLongFunction<CrawlJob> value) {
+        return activeJobs.values().stream().mapToLong(value).sum();
     }
 
-    private void processUrl(String url, int nextDepth) {
-        try {
-            Document doc = Jsoup.connect(url)
-                    .timeout(10000).get();
-            List<String> extractedLinks = extractLinks(doc);
-
-            for (String absUrl : extractedLinks) {
-                if (isValidUrl(absUrl) && !stopCrawl) {
-                    urlQueue.offer(new UrlDepthPair(absUrl, nextDepth));
-                    logger.info("Added URL to queue: " + absUrl + " with depth: " + nextDepth);
-
-                    try {
-                        insertUrlToNeo4j(url, absUrl);
-                        pageRankingService.updatePageRank(absUrl);
-                    } catch (Exception e) {
-                        logger.error("Failed to insert URL into Neo4j: " + absUrl, e);
+    /**
+     * Blocks in the job's frontier while no host is ready. The page that brings the job's
+     * in-flight count to zero wakes the loop up, which then sees that the job is complete if
+     * nothing was queued. In cluster mode other instances may still send links, so only the
+     * coordinator ends the loop.
+     */
+    private void dispatch(CrawlJob job) throws InterruptedException {
+        PersistentFrontier frontier = job.getFrontier();
+        while (true) {
+            // Read the token before the checks, so a wake-up between them is not missed
+            long wakeUps = frontier.wakeUps();
+            if (job.isStopRequested() || job.isFinishRequested() || (!clusterClient.isEnabled() && job.isIdle())) {
+                return;
+            }
+            UrlDepthPair current = frontier.take(wakeUps);
+            if (current == null) {
+                continue;
+            }
+            entriesTaken.increment();
+            // Skip URLs exceeding max depth; a retried URL is already in the seen set
+            if (current.depth >= job.getMaxDepth()
+                    || (current.attempt == 0 && !job.getVisitedUrls().add(current.url))) {
+                frontier.release(current);
+                continue;
+            }
+
+            long waitStart = System.nanoTime();
+            fetchLimiter.acquire();
+            crawlMetrics.recordSemaphoreWait(System.nanoTime() - waitStart);
+            if (job.isStopRequested()) {
+                // Not released, so a resumed job fetches it again
+                fetchLimiter.release();
+                return;
+            }
+            job.pageStarted();
+            CompletableFuture<Boolean> page;
+            try {
+                page = processUrl(job, current);
+            } catch (RuntimeException e) {
+                page = CompletableFuture.failedFuture(e);
+            }
+            page.whenComplete((retried, ex) -> {
+                try {
+                    if (ex != null) {
+                        crawlMetrics.recordError("process", ex);
+                        job.recordError();
+                        logger.error("Error processing URL: " + current.url, ex);
+                    }
+                    // A retry went back to the frontier in place of this entry
+                    if (!Boolean.TRUE.equals(retried)) {
+                        frontier.markVisited(current.url);
+                        frontier.release(current);
                     }
+                } finally {
+                    fetchLimiter.release();
+                    job.pageDone();
                 }
-            }
-        } catch (IOException e) {
-            logger.error("Failed to fetch URL: " + url, e);
+            });
         }
     }
 
-    private List<String> extractLinks(Document doc) {
-        List<String> links = new ArrayList<>();
-        Elements elements = doc.select("a[href]");
-        for (Element link : elements) {
-            links.add(link.absUrl("href"));
-        }
-        return links;
+    private void startDispatcher(CrawlJob job) {
+        Thread dispatcher = new Thread(() -> crawl(job), "crawl-dispatcher-" + job.getId());
+        dispatcher.setDaemon(true);
+        dispatcher.start();
     }
 
-    private boolean isValidUrl(String url) {
-        return !url.isEmpty() && !visitedUrls.contains(url) && url.startsWith("https://")
-                && !url.contains("javascript:") && !url.contains(".onion") && !url.startsWith("tel:");
+    /**
+     * Fetches and processes the page of {@code entry}. Completes with {@code true} if the fetch
+     * is to be retried and the entry went back to the frontier.
+     */
+    private CompletableFuture<Boolean> processUrl(CrawlJob job, UrlDepthPair entry) {
+        String host = HostFrontier.hostOf(entry.url);
+        return robotsCache.rules(entry.url).thenCompose(rules -> {
+            if (rules.crawlDelayMillis() > 0) {
+                hostSlots.setMinDelay(host, robotsCache.crawlDelayMillis(rules));
+            }
+            if (!rules.isAllowed(entry.url)) {
+                crawlMetrics.recordRobotsDisallowed();
+                job.recordRobotsDisallowed();
+                return CompletableFuture.completedFuture(false);
+            }
+            return fetchPage(job, entry, host);
+        });
     }
 
-    private void insertUrlToNeo4j(String currentUrl, String linkedUrl) {
-        String cypherQuery = """
-                MERGE (u1:Page {url: $currentUrl})
-                MERGE (u2:Page {url: $linkedUrl})
-                MERGE (u1)-[:LINKS_TO]->(u2)
-                """;
-        neo4jClient.query(cypherQuery)
-                .bind(currentUrl).to("currentUrl")
-                .bind(linkedUrl).to("linkedUrl")
-                .run();
-        logger.info("Inserted URL into Neo4j and created relationship: {} -> {}", currentUrl, linkedUrl);
+    private CompletableFuture<Boolean> fetchPage(CrawlJob job, UrlDepthPair entry, String host) {
+        String url = entry.url;
+        // Pages seen by an earlier crawl are revalidated rather than downloaded unconditionally
+        CachedPage cached = fetchCache.get(url);
+        int timeoutMillis = fetchLimiter.timeoutMillis(host);
+        long fetchStart = System.nanoTime();
+        CompletableFuture<FetchedPage> fetch = cached == null
+                ? pageFetcher.fetch(url, null, null, timeoutMillis)
+                : pageFetcher.fetch(url, cached.etag(), cached.lastModified(), timeoutMillis);
+        // Timed where the fetch completes, before the page waits for a parse thread
+        fetch.thenRun(() -> {
+            long nanos = System.nanoTime() - fetchStart;
+            crawlMetrics.recordFetch(url, nanos);
+            hostSlots.setLimit(host, fetchLimiter.onSuccess(host, nanos));
+        });
+        return fetch.handleAsync((page, ex) -> {
+            if (ex != null) {
+                return fetchFailed(job, entry, host, ex);
+            }
+            handlePage(job, url, page, cached, entry.depth + 1);
+            return false;
+        }, parseExecutor);
     }
 
-
-    private static class UrlDepthPair {
-        final String url;
-        final int depth;
-
-        UrlDepthPair(String url, int depth) {
-            this.url = url;
-            this.depth = depth;
+    /**
+     * Backs off from a host that declined a fetch or timed out and queues the page again, up to
+     * {@code maxRetries} times. Returns whether the page was queued again.
+     */
+    private boolean fetchFailed(CrawlJob job, UrlDepthPair entry, String host, Throwable ex) {
+        crawlMetrics.recordError("fetch", ex);
+        job.recordError();
+        if (!FetchLimiter.isOverload(ex)) {
+            logger.error("Failed to fetch URL: " + entry.url, ex);
+            return false;
         }
+        boolean timeout = FetchLimiter.isTimeout(ex);
+        hostSlots.setLimit(host, fetchLimiter.onOverload(host, timeout));
+        long delay = fetchLimiter.retryDelayMillis(FetchLimiter.retryAfterMillis(ex), entry.attempt + 1);
+        hostSlots.delay(host, delay);
+        if (entry.attempt >= fetchLimiter.maxRetries()) {
+            logger.error("Giving up on URL: " + entry.url + " after " + (entry.attempt + 1) + " attempts", ex);
+            return false;
+        }
+        crawlMetrics.recordRetry(FetchLimiter.overloadReason(ex));
+        job.recordRetry();
+        logger.warn("Retrying URL: {} in {} ms after {}", entry.url, delay, ex.toString());
+        job.getFrontier().retry(entry);
+        return true;
     }
 
-    private static class UrlComparator implements Comparator<UrlDepthPair> {
-        @Override
-        public int compare(UrlDepthPair u1, UrlDepthPair u2) {
-            return calculatePriority(u2.url) - calculatePriority(u1.url);
+    private void handlePage(CrawlJob job, String url, FetchedPage page, CachedPage cached, int nextDepth) {
+        crawlMetrics.recordPage();
+        job.recordPage();
+        crawlMetrics.recordResponse(page.statusCode());
+        List<String> extractedLinks;
+        long fingerprint;
+        if (page.isNotModified()) {
+            if (cached == null) {
+                logger.error("Unexpected 304 for unconditional fetch of URL: " + url);
+                return;
+            }
+            fetchCache.recordNotModified();
+            extractedLinks = cached.outlinks();
+            fingerprint = cached.fingerprint();
+        } else {
+            long contentHash = FetchCache.contentHash(page.body());
+            if (cached != null && cached.contentHash() == contentHash) {
+                fetchCache.recordUnchanged();
+                extractedLinks = cached.outlinks();
+                fingerprint = cached.fingerprint();
+            } else {
+                extractedLinks = new ArrayList<>();
+                SimHash text = dedupConfig.isEnabled() ? new SimHash() : null;
+                long parseStart = System.nanoTime();
+                try {
+                    linkExtractor.extract(page, extractedLinks::add, text);
+                } catch (IOException e) {
+                    crawlMetrics.recordError("parse", e);
+                    job.recordError();
+                    logger.error("Failed to parse URL: " + url, e);
+                    return;
+                }
+                crawlMetrics.recordParse(System.nanoTime() - parseStart);
+                fingerprint = text != null && text.shingles() >= dedupConfig.getMinShingles() ? text.value() : 0;
+                if (cached == null) {
+                    fetchCache.recordMiss();
+                } else {
+                    fetchCache.recordChanged();
+                }
+            }
+            fetchCache.put(url, new CachedPage(page.etag(), page.lastModified(), contentHash, fingerprint,
+                    List.copyOf(extractedLinks)));
+        }
+        if (isNearDuplicate(job, url, fingerprint)) {
+            return;
         }
 
-        private int calculatePriority(String url) {
-            int priority = 0;
-            if (url.contains("metmuseum.org") || url.contains("nps.gov") || url.contains("mfa.org")) {
-                priority += 10;
+        SeenUrlStore visitedUrls = job.getVisitedUrls();
+        for (String link : extractedLinks) {
+            String absUrl = urlCanonicalizer.canonicalize(link);
+            // canonicalize returns the same instance for URLs it did not rewrite
+            if (absUrl != link && visitedUrls.contains(absUrl)) {
+                urlCanonicalizer.recordDuplicateSkipped();
+                continue;
             }
-            if (url.contains("/exhibitions/") || url.contains("/collections/")) {
-                priority += 5;
+            if (isValidUrl(visitedUrls, absUrl)) {
+                int owner = topology.owner(absUrl);
+                // Links of hosts whose rules are not loaded yet are checked when dispatched
+                if (owner == topology.nodeId() && isAllowed(job, absUrl)) {
+                    job.getFrontier().offer(new UrlDepthPair(absUrl, nextDepth, urlScorer.scoreLink(absUrl)));
+                    if (logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < linkLogSampleRate) {
+                        logger.debug("Added URL to queue: {} with depth: {}", absUrl, nextDepth);
+                    }
+                }
+
+                try {
+                    // Links too deep to be fetched are only recorded in the graph
+                    if (owner != topology.nodeId() && nextDepth < job.getMaxDepth()) {
+                        clusterClient.forward(owner, absUrl, nextDepth);
+                    }
+                    graphSink.submit(job.getId(), url, absUrl);
+                    job.recordLink();
+                } catch (InterruptedException e) {
+                    logger.error("Interrupted while queueing link: " + absUrl, e);
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    crawlMetrics.recordError("graph-submit", e);
+                    job.recordError();
+                    logger.error("Failed to record link to: " + absUrl, e);
+                }
             }
-            int depth = url.split("/").length;
-            priority += (10 - depth);
-            return priority;
         }
     }
+
+    public CrawlStats getStats() {
+        return crawlMetrics.getStats(isCrawlInProgress());
+    }
+
+    /**
+     * Whether an earlier page of the job has nearly the same text as {@code url}. If so the page
+     * is recorded as its duplicate, and its links, which mostly lead to copies of the original's
+     * pages, are not followed.
+     */
+    private boolean isNearDuplicate(CrawlJob job, String url, long fingerprint) {
+        if (!dedupConfig.isEnabled() || fingerprint == 0) {
+            return false;
+        }
+        String original = job.getNearDuplicates().findOrAdd(fingerprint, url);
+        if (original == null) {
+            return false;
+        }
+        crawlMetrics.recordNearDuplicate();
+        job.recordNearDuplicate();
+        logger.debug("Skipping links of URL: {}, a near-duplicate of {}", url, original);
+        try {
+            graphSink.submitDuplicate(job.getId(), url, original);
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while recording duplicate: " + url, e);
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            crawlMetrics.recordError("graph-submit", e);
+            job.recordError();
+            logger.error("Failed to record duplicate: " + url, e);
+        }
+        return true;
+    }
+
+    /**
+     * Whether the cached robots.txt rules of the URL's host, if any, allow it.
+     */
+    private boolean isAllowed(CrawlJob job, String url) {
+        RobotsRules rules = robotsCache.cachedRules(url);
+        if (rules == null || rules.isAllowed(url)) {
+            return true;
+        }
+        crawlMetrics.recordRobotsDisallowed();
+        job.recordRobotsDisallowed();
+        return false;
+    }
+
+    static boolean isValidUrl(SeenUrlStore visitedUrls, String url) {
+        return !url.isEmpty() && !visitedUrls.contains(url) && url.startsWith("https://")
+                && !url.contains("javascript:") && !url.contains(".onion") && !url.startsWith("tel:");
+    }
+
+    /**
+     * What is kept of a job once it has ended; its frontier and seen URLs are freed.
+     */
+    private record EndedJob(CrawlJobStatus status, CrawlJobStats stats) {
+    }
 }
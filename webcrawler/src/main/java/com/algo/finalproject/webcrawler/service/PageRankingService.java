@@ -1,80 +1,285 @@
 package com.algo.finalproject.webcrawler.service;
 
-import lombok.AllArgsConstructor;
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.rank.CsrGraph;
+import com.algo.finalproject.webcrawler.service.rank.IncrementalPageRank;
+import com.algo.finalproject.webcrawler.service.rank.PageRankEngine;
+import com.algo.finalproject.webcrawler.service.rank.PageRankStats;
+import jakarta.annotation.PreDestroy;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
-import java.util.Collection;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * Offline PageRank over the crawled {@code LINKS_TO} graph.
+ * <p>
+ * A ranking pass reads the whole graph from Neo4j once into a {@link CsrGraph}, runs power
+ * iteration in memory with {@link PageRankEngine} and writes the scores back in UNWIND batches.
+ * It runs after a crawl completes or on demand, never per discovered edge.
+ * <p>
+ * The graph writers mark every page and link they create as {@code pending}. With
+ * {@code crawler.page-rank.incremental} on, the graph and scores of the last full pass stay in
+ * memory, and later passes only take the pending pages and links from Neo4j and push their
+ * rank changes with {@link IncrementalPageRank}. Once the pages and links added since exceed
+ * {@code max-incremental-change} of that graph, a full pass runs instead.
+ * <p>
+ * The {@code pageRank} of a page is stored unnormalized, next to one {@code PageRankTotal} node
+ * that holds the sum over all pages; {@link ResultService} divides by it when the ranking is
+ * read. A change anywhere moves the total and so the PageRank of every page, but not the stored
+ * score of pages it did not reach, so an incremental pass writes only the pages whose score
+ * changed and the new total, and its cost follows the size of the change.
+ */
 @Service
-@AllArgsConstructor
 public class PageRankingService {
 
-    private Neo4jClient neo4jClient;
     private static final Logger logger = LogManager.getLogger(PageRankingService.class);
 
-    public void updatePageRank(String url) {
-        int inDegree = getInDegree(url);
-        logger.info("In-degree for URL: " + url + " is " + inDegree);
+    static final String LOAD_PAGES_QUERY = """
+            MATCH (p:Page)
+            RETURN p.url AS url
+            """;
+
+    static final String LOAD_LINKS_QUERY = """
+            MATCH (p:Page)-[:LINKS_TO]->(q:Page)
+            RETURN p.url AS from, q.url AS to
+            """;
+
+    static final String CLEAR_PENDING_PAGES_QUERY = """
+            MATCH (p:Page) WHERE p.pending = true
+            REMOVE p.pending
+            """;
+
+    static final String CLEAR_PENDING_LINKS_QUERY = """
+            MATCH ()-[r:LINKS_TO]->() WHERE r.pending = true
+            REMOVE r.pending
+            """;
+
+    static final String TAKE_PENDING_PAGES_QUERY = """
+            MATCH (p:Page) WHERE p.pending = true
+            REMOVE p.pending
+            RETURN p.url AS url
+            """;
+
+    static final String TAKE_PENDING_LINKS_QUERY = """
+            MATCH (p:Page)-[r:LINKS_TO]->(q:Page) WHERE r.pending = true
+            REMOVE r.pending
+            RETURN p.url AS from, q.url AS to
+            """;
+
+    static final String WRITE_TOTAL_QUERY = """
+            MERGE (t:PageRankTotal)
+            SET t.total = $total
+            """;
+
+    static final String WRITE_RANKS_QUERY = """
+            UNWIND $ranks AS r
+            MATCH (p:Page {url: r.url})
+            SET p.pageRank = r.pageRank
+            """;
+
+    private final Neo4jClient neo4jClient;
+    private final CrawlerProperties.PageRank config;
+    private final ForkJoinPool pool;
+    /** State of the last full pass for incremental passes, or {@code null} until one has run. */
+    private IncrementalPageRank incremental;
+    private long snapshotSize;
+
+    @Autowired
+    public PageRankingService(Neo4jClient neo4jClient, CrawlerProperties properties) {
+        this(neo4jClient, properties.getPageRank());
+    }
+
+    public PageRankingService(Neo4jClient neo4jClient, CrawlerProperties.PageRank config) {
+        this.neo4jClient = neo4jClient;
+        this.config = config;
+        this.pool = config.getParallelism() > 0
+                ? new ForkJoinPool(config.getParallelism())
+                : new ForkJoinPool();
+    }
+
+    /**
+     * Recomputes the PageRank of every page and stores it in the {@code pageRank} property.
+     */
+    public synchronized PageRankStats computePageRank() {
+        incremental = null;
+        long start = System.currentTimeMillis();
+        // Cleared first: pages and links created while the graph loads stay pending, and the
+        // next incremental pass skips those it already has
+        neo4jClient.query(CLEAR_PENDING_PAGES_QUERY).run();
+        neo4jClient.query(CLEAR_PENDING_LINKS_QUERY).run();
+        CsrGraph graph = loadGraph();
+        long loaded = System.currentTimeMillis();
+        logger.info("Loaded link graph with {} pages and {} links in {} ms",
+                graph.nodeCount(), graph.edgeCount(), loaded - start);
+
+        PageRankEngine engine = new PageRankEngine(pool, config.getDampingFactor(),
+                config.getTolerance(), config.getMaxIterations());
+        PageRankEngine.Result result = engine.run(graph);
+        long computed = System.currentTimeMillis();
+        logger.info("PageRank finished after {} iterations (delta {}, converged {}) in {} ms",
+                result.iterations(), result.delta(), result.converged(), computed - loaded);
+
+        double[] ranks = result.ranks();
+        writeRanks(ranks.length, graph::url, node -> ranks[node]);
+        writeTotal(Arrays.stream(ranks).sum());
+        long written = System.currentTimeMillis();
+        logger.info("Wrote PageRank for {} pages in {} ms", graph.nodeCount(), written - computed);
 
-        // Calculate PageRank based on in-degree and other factors
-        double pageRankScore = calculatePageRank(url, inDegree);
-        logger.info("PageRank for URL: " + url + " is " + pageRankScore);
-        // Update PageRank property of the node in Neo4j
-        updatePageRankInNeo4j(url, pageRankScore);
+        if (config.isIncremental() && graph.nodeCount() > 0) {
+            incremental = new IncrementalPageRank(graph, ranks, config.getDampingFactor(),
+                    config.getResidualTolerance());
+            snapshotSize = (long) graph.nodeCount() + graph.edgeCount();
+        }
+        return new PageRankStats(graph.nodeCount(), graph.edgeCount(), result.iterations(),
+                result.delta(), result.converged(), loaded - start, computed - loaded, written - computed,
+                false, 0, 0, 0, graph.nodeCount());
     }
 
-    private int getInDegree(String url) {
-        String cypherQuery = "MATCH (p:Page) WHERE p.url = $url " +
-                "RETURN size([(p)<--() | 1]) AS inDegree LIMIT 1";
+    /**
+     * Brings the PageRank up to date with the pages and links added since the last pass. Runs a
+     * full pass if there is no earlier one in memory or the graph has grown too much since.
+     */
+    public synchronized PageRankStats updatePageRank() {
+        if (incremental == null) {
+            return computePageRank();
+        }
         try {
-            return neo4jClient.query(cypherQuery)
-                    .bind(url).to("url")
-                    .fetchAs(Integer.class)
-                    .one()
-                    .orElse(0);
+            long start = System.currentTimeMillis();
+            takePending(incremental);
+            long loaded = System.currentTimeMillis();
+            if (incremental.addedSinceSnapshot() > config.getMaxIncrementalChange() * snapshotSize) {
+                logger.info("{} pages and links were added since the last full PageRank pass, ranking all pages",
+                        incremental.addedSinceSnapshot());
+                return computePageRank();
+            }
 
-        } catch (Exception e) {
-            logger.error("Failed to get in-degree for URL: " + url, e);
-            return 0;
+            IncrementalPageRank.Update update = incremental.propagate();
+            long computed = System.currentTimeMillis();
+            logger.info("Incremental PageRank took in {} pages and {} links with {} pushes in {} ms",
+                    update.newPages(), update.newLinks(), update.pushes(), computed - loaded);
+
+            // Scores stay on the scale of the last full pass, where the unchanged ones are stored
+            IncrementalPageRank state = incremental;
+            int[] changed = update.changedNodes();
+            int pages = changed.length;
+            writeRanks(pages, i -> state.url(changed[i]), i -> state.scale() * state.score(changed[i]));
+            if (pages > 0) {
+                writeTotal(state.scale() * state.totalScore());
+            }
+            long written = System.currentTimeMillis();
+            logger.info("Wrote PageRank for {} pages in {} ms", pages, written - computed);
+
+            double bound = config.getResidualTolerance() / (1 - config.getDampingFactor());
+            return new PageRankStats(incremental.nodeCount(), incremental.edgeCount(), 0, bound, true,
+                    loaded - start, computed - loaded, written - computed,
+                    true, update.newPages(), update.newLinks(), update.pushes(), pages);
+        } catch (RuntimeException e) {
+            // The pending marks may be gone while the scores were not written; start over
+            incremental = null;
+            throw e;
         }
     }
 
-    private double calculatePageRank(String url, int inDegree) {
-        double dampingFactor = 0.85;
-        double baseRank = (1 - dampingFactor);
-        double sumPageRank = getSumPageRank(url);
-        return baseRank + dampingFactor * sumPageRank;
+    /**
+     * Forgets the graph of the last pass, e.g. once the crawler has deleted it.
+     */
+    public synchronized void graphCleared() {
+        incremental = null;
     }
 
-    private double getSumPageRank(String url) {
-        String cypherQuery = """
-        MATCH (p:Page {url: $url})<-[:LINKS_TO]-(q:Page)
-        RETURN COALESCE(SUM(q.pageRank), 0) AS sumPageRank
-    """;
+    /**
+     * Called by the crawler once a crawl has completed; ranks the graph unless disabled in config.
+     */
+    public void onCrawlCompleted() {
+        if (!config.isRankAfterCrawl()) {
+            return;
+        }
         try {
-            return neo4jClient.query(cypherQuery)
-                    .bind(url).to("url")
-                    .fetchAs(Double.class)
-                    .one()
-                    .orElse(0.0);
+            if (config.isIncremental()) {
+                updatePageRank();
+            } else {
+                computePageRank();
+            }
         } catch (Exception e) {
-            logger.error("Failed to get sum of PageRank for URL: " + url, e);
-            return 0.0;
+            logger.error("Failed to compute PageRank after crawl", e);
         }
     }
 
-    private void updatePageRankInNeo4j(String url, double pageRankScore) {
-        String cypherQuery = "MATCH (p:Page) WHERE p.url = $url SET p.pageRank = $pageRank";
-        try {
-            neo4jClient.query(cypherQuery)
-                    .bind(url).to("url")
-                    .bind(pageRankScore).to("pageRank")
-                    .run();
-            logger.info("Updated PageRank for URL: " + url + " to " + pageRankScore);
-        } catch (Exception e) {
-            logger.error("Failed to update PageRank for URL: " + url, e);
+    private CsrGraph loadGraph() {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        // Pages without links would otherwise be missing from the snapshot and keep a stale rank
+        neo4jClient.query(LOAD_PAGES_QUERY)
+                .fetchAs(Integer.class)
+                .mappedBy((typeSystem, record) -> {
+                    builder.addNode(record.get("url").asString());
+                    return 0;
+                })
+                .all();
+        neo4jClient.query(LOAD_LINKS_QUERY)
+                .fetchAs(Integer.class)
+                .mappedBy((typeSystem, record) -> {
+                    builder.addEdge(record.get("from").asString(), record.get("to").asString());
+                    return 0;
+                })
+                .all();
+        return builder.build();
+    }
+
+    private void takePending(IncrementalPageRank state) {
+        neo4jClient.query(TAKE_PENDING_PAGES_QUERY)
+                .fetchAs(Integer.class)
+                .mappedBy((typeSystem, record) -> {
+                    state.addPage(record.get("url").asString());
+                    return 0;
+                })
+                .all();
+        neo4jClient.query(TAKE_PENDING_LINKS_QUERY)
+                .fetchAs(Integer.class)
+                .mappedBy((typeSystem, record) -> {
+                    state.addLink(record.get("from").asString(), record.get("to").asString());
+                    return 0;
+                })
+                .all();
+    }
+
+    /**
+     * Writes the ranks of {@code count} pages, the {@code i}-th named by {@code url.apply(i)}.
+     */
+    private void writeRanks(int count, IntFunction<String> url, IntToDoubleFunction rank) {
+        int batchSize = config.getWriteBatchSize();
+        List<Map<String, Object>> batch = new ArrayList<>(Math.min(batchSize, count));
+        for (int i = 0; i < count; i++) {
+            batch.add(Map.of("url", url.apply(i), "pageRank", rank.applyAsDouble(i)));
+            if (batch.size() == batchSize || i == count - 1) {
+                neo4jClient.query(WRITE_RANKS_QUERY)
+                        .bind(batch).to("ranks")
+                        .run();
+                batch = new ArrayList<>(batchSize);
+            }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Stores the sum of the stored scores, by which they are divided when read.
+     */
+    private void writeTotal(double total) {
+        neo4jClient.query(WRITE_TOTAL_QUERY)
+                .bind(total).to("total")
+                .run();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
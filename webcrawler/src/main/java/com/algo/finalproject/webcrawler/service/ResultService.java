@@ -1,21 +1,142 @@
 package com.algo.finalproject.webcrawler.service;
 
-import lombok.AllArgsConstructor;
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.rank.RankedPage;
+import com.algo.finalproject.webcrawler.service.rank.RankedPages;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Reads the ranking back, best page first, with keyset pagination.
+ * <p>
+ * Pages are ordered by {@code pageRank} descending and then by URL, and a page of results starts
+ * strictly after the last {@code (pageRank, url)} of the previous one. The range condition on
+ * {@code pageRank} is answered from the index created by
+ * {@link com.algo.finalproject.webcrawler.service.graph.GraphSchema}, so every request reads only
+ * the rows it returns, however deep into the ranking it is. Pages that have not been ranked yet
+ * have no {@code pageRank} and are not listed.
+ * <p>
+ * The stored {@code pageRank} is an unnormalized score, see {@link PageRankingService}; each
+ * request reads the total once and divides the scores it returns by it, which leaves the order
+ * as it is. The cursor stays in stored units, so it is never converted back and rounded.
+ */
 @Service
-@AllArgsConstructor
 public class ResultService {
 
+    static final String TOP_PAGES_QUERY = """
+            MATCH (p:Page)
+            WHERE p.pageRank <= $afterRank
+              AND (p.pageRank < $afterRank OR p.url > $afterUrl)
+            RETURN p.url AS url, p.pageRank AS pageRank
+            ORDER BY p.pageRank DESC, p.url ASC
+            LIMIT $limit
+            """;
+
+    static final String TOTAL_QUERY = """
+            MATCH (t:PageRankTotal)
+            RETURN t.total AS total
+            """;
+
     private final Neo4jClient neo4jClient;
+    private final CrawlerProperties.Results config;
+
+    @Autowired
+    public ResultService(Neo4jClient neo4jClient, CrawlerProperties properties) {
+        this(neo4jClient, properties.getResults());
+    }
+
+    public ResultService(Neo4jClient neo4jClient, CrawlerProperties.Results config) {
+        this.neo4jClient = neo4jClient;
+        this.config = config;
+    }
+
+    /**
+     * Returns up to {@code limit} pages, capped at {@code maxPageSize}, that rank after
+     * {@code afterRank}/{@code afterUrl}; pass {@code null} for both to start at the top.
+     */
+    public RankedPages getTopPages(int limit, Double afterRank, String afterUrl) {
+        int pageSize = Math.max(1, Math.min(limit, config.getMaxPageSize()));
+        double total = total();
+        // One extra row tells whether another page follows
+        List<RankedPage> scores = new ArrayList<>(fetchAfter(afterRank, afterUrl, pageSize + 1));
+        boolean more = scores.size() > pageSize;
+        if (more) {
+            scores.remove(pageSize);
+        }
+        List<RankedPage> pages = new ArrayList<>(scores.size());
+        for (RankedPage page : scores) {
+            pages.add(normalized(page, total));
+        }
+        if (!more) {
+            return new RankedPages(pages, null, null);
+        }
+        RankedPage last = scores.get(pageSize - 1);
+        return new RankedPages(pages, last.pageRank(), last.url());
+    }
+
+    /**
+     * Feeds the best {@code limit} pages, or all of them if {@code limit} is 0, to
+     * {@code consumer} in order. Reads {@code streamBatchSize} pages per query, so memory use
+     * does not depend on the size of the graph.
+     */
+    public void streamTopPages(long limit, Consumer<RankedPage> consumer) {
+        long remaining = limit > 0 ? limit : Long.MAX_VALUE;
+        double total = total();
+        Double afterRank = null;
+        String afterUrl = null;
+        while (remaining > 0) {
+            int batchSize = (int) Math.min(remaining, config.getStreamBatchSize());
+            Collection<RankedPage> batch = fetchAfter(afterRank, afterUrl, batchSize);
+            RankedPage last = null;
+            for (RankedPage page : batch) {
+                consumer.accept(normalized(page, total));
+                last = page;
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+            remaining -= batch.size();
+            afterRank = last.pageRank();
+            afterUrl = last.url();
+        }
+    }
+
+    /**
+     * The sum of the stored scores; 1 before the first ranking pass, when the pages only have
+     * the score they were created with.
+     */
+    private double total() {
+        double total = neo4jClient.query(TOTAL_QUERY)
+                .fetchAs(Double.class)
+                .first()
+                .orElse(1.0);
+        return total > 0 ? total : 1;
+    }
+
+    private static RankedPage normalized(RankedPage page, double total) {
+        return new RankedPage(page.url(), page.pageRank() / total);
+    }
 
-    public List<String> getUrlsByPageRank() {
-        String cypherQuery = "MATCH (p:Page) RETURN p.url AS url ORDER BY p.pageRank ASC";
-        return (List<String>) neo4jClient.query(cypherQuery)
-                .fetchAs(String.class)
+    /**
+     * Reads pages with their stored score.
+     */
+    private Collection<RankedPage> fetchAfter(Double afterRank, String afterUrl, int limit) {
+        // Without a cursor every ranked page qualifies
+        return neo4jClient.query(TOP_PAGES_QUERY)
+                .bindAll(Map.of(
+                        "afterRank", afterRank != null ? afterRank : Double.POSITIVE_INFINITY,
+                        "afterUrl", afterUrl != null ? afterUrl : "",
+                        "limit", limit))
+                .fetchAs(RankedPage.class)
+                .mappedBy((typeSystem, record) ->
+                        new RankedPage(record.get("url").asString(), record.get("pageRank").asDouble()))
                 .all();
     }
 }
@@ -0,0 +1,36 @@
+package com.algo.finalproject.webcrawler.service.cache;
+
+import java.util.List;
+
+/**
+ * What the crawler remembers about a page between crawls.
+ *
+ * @param etag         validator sent back as {@code If-None-Match}, or {@code null}
+ * @param lastModified validator sent back as {@code If-Modified-Since}, or {@code null}
+ * @param contentHash  {@link FetchCache#contentHash} of the body the outlinks were extracted from
+ * @param fingerprint  {@link com.algo.finalproject.webcrawler.service.dedup.SimHash} of that body's
+ *                     text, or 0 if the text was too short to compare
+ * @param outlinks     absolute links extracted from that body, before canonicalization
+ */
+public record CachedPage(String etag, String lastModified, long contentHash, long fingerprint,
+                         List<String> outlinks) {
+
+    /** Rough per-entry overhead of the map node, record and list objects. */
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int STRING_OVERHEAD = 40;
+
+    /**
+     * Approximate heap footprint of this entry stored under {@code url}.
+     */
+    long sizeBytes(String url) {
+        long size = ENTRY_OVERHEAD + sizeOf(url) + sizeOf(etag) + sizeOf(lastModified);
+        for (String link : outlinks) {
+            size += sizeOf(link) + Integer.BYTES;
+        }
+        return size;
+    }
+
+    private static long sizeOf(String value) {
+        return value == null ? 0 : STRING_OVERHEAD + value.length();
+    }
+}
@@ -0,0 +1,231 @@
+package com.algo.finalproject.webcrawler.service.cache;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the validators, content hash, text fingerprint and outlinks of every fetched page,
+ * keyed by canonical URL, so a recrawl can revalidate a page with a conditional GET and replay
+ * its outlinks instead of downloading and parsing it again.
+ * <p>
+ * Entries are kept in least-recently-used order and evicted once their approximate size exceeds
+ * {@code maxBytes}. The cache is loaded from {@code file} at startup and written back atomically
+ * after each crawl and on shutdown, oldest entry first so that the order survives a restart.
+ * With the cache disabled every lookup misses and nothing is stored.
+ */
+@Component
+public class FetchCache {
+
+    private static final Logger logger = LogManager.getLogger(FetchCache.class);
+    /** Files of an older format are not read, so the cache starts empty once after an upgrade. */
+    private static final int MAGIC = 0x46434832;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final boolean enabled;
+    private final Path file;
+    private final long maxBytes;
+    private final LinkedHashMap<String, CachedPage> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long sizeBytes;
+
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder unchanged = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Autowired
+    public FetchCache(CrawlerProperties properties) {
+        this(properties.getFetchCache());
+    }
+
+    public FetchCache(CrawlerProperties.FetchCache config) {
+        this.enabled = config.isEnabled();
+        this.file = Path.of(config.getFile());
+        this.maxBytes = config.getMaxBytes();
+        if (enabled && Files.exists(file)) {
+            try {
+                load();
+                logger.info("Loaded {} cached pages from {}", entries.size(), file.toAbsolutePath());
+            } catch (IOException e) {
+                logger.error("Failed to load fetch cache from " + file.toAbsolutePath() + ", starting empty", e);
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the entry stored for {@code url}, or {@code null} if the page was never cached.
+     */
+    public synchronized CachedPage get(String url) {
+        return enabled ? entries.get(url) : null;
+    }
+
+    public synchronized void put(String url, CachedPage page) {
+        if (!enabled) {
+            return;
+        }
+        CachedPage previous = entries.put(url, page);
+        if (previous != null) {
+            sizeBytes -= previous.sizeBytes(url);
+        }
+        sizeBytes += page.sizeBytes(url);
+        Iterator<Map.Entry<String, CachedPage>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, CachedPage> entry = eldest.next();
+            sizeBytes -= entry.getValue().sizeBytes(entry.getKey());
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    public void recordNotModified() {
+        notModified.increment();
+    }
+
+    public void recordUnchanged() {
+        unchanged.increment();
+    }
+
+    public void recordChanged() {
+        changed.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public synchronized FetchCacheStats getStats() {
+        return new FetchCacheStats(notModified.sum(), unchanged.sum(), changed.sum(), misses.sum(),
+                evictions.sum(), entries.size(), sizeBytes);
+    }
+
+    /**
+     * 64-bit hash of a page body, read eight bytes at a time and finished with the MurmurHash3
+     * finalizer. Used only to tell whether a page changed, never as a security check.
+     */
+    public static long contentHash(byte[] body) {
+        long hash = 0xcbf29ce484222325L ^ body.length;
+        int i = 0;
+        for (; i + Long.BYTES <= body.length; i += Long.BYTES) {
+            hash = (hash ^ (long) LONGS.get(body, i)) * 0x100000001b3L;
+            hash = Long.rotateLeft(hash, 31);
+        }
+        for (; i < body.length; i++) {
+            hash = (hash ^ body[i]) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Writes the cache to its file through a temporary file, so a crash never leaves a torn cache.
+     */
+    @PreDestroy
+    public synchronized void save() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                out.writeInt(MAGIC);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, CachedPage> entry : entries.entrySet()) {
+                    CachedPage page = entry.getValue();
+                    writeString(out, entry.getKey());
+                    writeString(out, page.etag());
+                    writeString(out, page.lastModified());
+                    out.writeLong(page.contentHash());
+                    out.writeLong(page.fingerprint());
+                    out.writeInt(page.outlinks().size());
+                    for (String link : page.outlinks()) {
+                        writeString(out, link);
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Saved {} cached pages to {}", entries.size(), file.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("Failed to save fetch cache to " + file.toAbsolutePath(), e);
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a fetch cache file");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String url = readString(in);
+                String etag = readString(in);
+                String lastModified = readString(in);
+                long contentHash = in.readLong();
+                long fingerprint = in.readLong();
+                int links = in.readInt();
+                List<String> outlinks = new ArrayList<>(links);
+                for (int j = 0; j < links; j++) {
+                    outlinks.add(readString(in));
+                }
+                put(url, new CachedPage(etag, lastModified, contentHash, fingerprint, List.copyOf(outlinks)));
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,18 @@
+package com.algo.finalproject.webcrawler.service.cache;
+
+/**
+ * Point-in-time counters of the {@link FetchCache}.
+ *
+ * @param notModified pages the server answered with 304, so nothing was downloaded or parsed
+ * @param unchanged   pages downloaded again whose content hash matched, so nothing was parsed
+ * @param changed     cached pages whose content changed and were parsed again
+ * @param misses      pages fetched for the first time
+ */
+public record FetchCacheStats(long notModified,
+                              long unchanged,
+                              long changed,
+                              long misses,
+                              long evictions,
+                              int entries,
+                              long sizeBytes) {
+}
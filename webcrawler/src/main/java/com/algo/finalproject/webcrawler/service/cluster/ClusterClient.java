@@ -0,0 +1,313 @@
+package com.algo.finalproject.webcrawler.service.cluster;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Talks to the other crawler instances of a cluster over HTTP.
+ * <p>
+ * Links owned by another instance are queued per instance and a sender thread posts them to its
+ * {@code /cluster/links} in batches of up to {@code batchSize}, closing a batch after
+ * {@code maxBatchDelayMillis} like the graph writer does. A failed batch is retried with
+ * exponential backoff, which also covers an instance that has not started the crawl yet. When
+ * a queue is full {@link #forward} blocks, so a slow instance slows its senders down.
+ * <p>
+ * The end of a crawl is detected by the coordinator with the four-counter method: the crawl is
+ * over once every instance reports being idle in two consecutive rounds and no instance sent or
+ * received a link or took a frontier entry in between. A forwarded link counts as pending at the
+ * sender until the receiver has queued it, so no link can be in transit while all instances are
+ * idle.
+ * With the cluster disabled no threads are started and every link is local.
+ */
+@Component
+public class ClusterClient {
+
+    private static final Logger logger = LogManager.getLogger(ClusterClient.class);
+    private static final long BACKOFF_MILLIS = 100;
+
+    private final CrawlerProperties.Cluster config;
+    private final ObjectMapper objectMapper;
+    private final ClusterTopology topology;
+    private final HttpClient client;
+    private final List<BlockingQueue<ForwardedLink>> queues = new ArrayList<>();
+    private final List<Thread> senders = new ArrayList<>();
+    private final AtomicLong pendingLinks = new AtomicLong();
+    private final LongAdder linksSent = new LongAdder();
+    private final LongAdder linksDropped = new LongAdder();
+    private volatile boolean running = true;
+
+    @Autowired
+    public ClusterClient(CrawlerProperties properties, ObjectMapper objectMapper) {
+        this(properties.getCluster(), objectMapper);
+    }
+
+    public ClusterClient(CrawlerProperties.Cluster config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.topology = config.isEnabled()
+                ? new ClusterTopology(config.getNodeId(), config.getNodes())
+                : ClusterTopology.standalone();
+        this.client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getTimeoutMillis()))
+                .build();
+        if (!config.isEnabled()) {
+            return;
+        }
+        for (int node = 0; node < topology.size(); node++) {
+            BlockingQueue<ForwardedLink> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+            queues.add(queue);
+            if (node == topology.nodeId()) {
+                continue;
+            }
+            int peer = node;
+            Thread sender = new Thread(() -> sendLoop(peer, queue), "cluster-sender-" + peer);
+            sender.setDaemon(true);
+            sender.start();
+            senders.add(sender);
+        }
+        logger.info("Cluster node {} of {}", topology.nodeId(), topology.size());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public ClusterTopology topology() {
+        return topology;
+    }
+
+    /**
+     * Queues {@code url} for the instance {@code node}, blocking while its queue is full.
+     */
+    public void forward(int node, String url, int depth) throws InterruptedException {
+        pendingLinks.incrementAndGet();
+        try {
+            queues.get(node).put(new ForwardedLink(url, depth));
+        } catch (InterruptedException e) {
+            pendingLinks.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Links queued or being sent that the receiving instance has not yet acknowledged.
+     */
+    public long pendingLinks() {
+        return pendingLinks.get();
+    }
+
+    public long linksSent() {
+        return linksSent.sum();
+    }
+
+    public long linksDropped() {
+        return linksDropped.sum();
+    }
+
+    /**
+     * Posts {@code body} as JSON to {@code path} on every other instance. Returns whether all of
+     * them accepted it.
+     */
+    public boolean broadcast(String path, Object body) {
+        boolean accepted = true;
+        for (int node = 0; node < topology.size(); node++) {
+            if (node == topology.nodeId()) {
+                continue;
+            }
+            try {
+                int status = post(node, path, body);
+                if (status / 100 != 2) {
+                    logger.warn("Node {} answered {} with HTTP {}", node, path, status);
+                    accepted = false;
+                }
+            } catch (IOException e) {
+                logger.error("Failed to send " + path + " to node " + node, e);
+                accepted = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Polls all instances until the cluster has been idle for two consecutive rounds with
+     * unchanged counters. Returns {@code false} if {@code cancelled} became true first.
+     */
+    public boolean awaitClusterIdle(Supplier<NodeStatus> local, BooleanSupplier cancelled) throws InterruptedException {
+        List<NodeStatus> previous = null;
+        while (!cancelled.getAsBoolean()) {
+            TimeUnit.MILLISECONDS.sleep(config.getTerminationCheckMillis());
+            List<NodeStatus> round = collectStatus(local);
+            if (isQuiescent(previous, round)) {
+                return true;
+            }
+            previous = round;
+        }
+        return false;
+    }
+
+    /**
+     * Waits until no other instance is crawling any more, e.g. still exporting its graph.
+     * Instances that cannot be reached are not waited for.
+     */
+    public void awaitPeersFinished() throws InterruptedException {
+        for (int node = 0; node < topology.size(); node++) {
+            if (node == topology.nodeId()) {
+                continue;
+            }
+            while (true) {
+                NodeStatus status = status(node);
+                if (status == null || !status.crawlInProgress()) {
+                    break;
+                }
+                TimeUnit.MILLISECONDS.sleep(config.getTerminationCheckMillis());
+            }
+        }
+    }
+
+    static boolean isQuiescent(List<NodeStatus> previous, List<NodeStatus> round) {
+        if (previous == null || round == null) {
+            return false;
+        }
+        for (int node = 0; node < round.size(); node++) {
+            NodeStatus before = previous.get(node);
+            NodeStatus now = round.get(node);
+            if (!before.idle() || !now.idle() || before.entriesTaken() != now.entriesTaken()
+                    || before.linksSent() != now.linksSent() || before.linksReceived() != now.linksReceived()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        senders.forEach(Thread::interrupt);
+        client.shutdownNow();
+    }
+
+    /**
+     * Status of every instance in node order, or {@code null} if one could not be reached.
+     */
+    private List<NodeStatus> collectStatus(Supplier<NodeStatus> local) {
+        List<NodeStatus> round = new ArrayList<>(topology.size());
+        for (int node = 0; node < topology.size(); node++) {
+            NodeStatus status = node == topology.nodeId() ? local.get() : status(node);
+            if (status == null) {
+                return null;
+            }
+            round.add(status);
+        }
+        return round;
+    }
+
+    private NodeStatus status(int node) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(topology.node(node) + "/cluster/status"))
+                .timeout(Duration.ofMillis(config.getTimeoutMillis()))
+                .GET()
+                .build();
+        try {
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                logger.warn("Node {} answered the status request with HTTP {}", node, response.statusCode());
+                return null;
+            }
+            return objectMapper.readValue(response.body(), NodeStatus.class);
+        } catch (IOException e) {
+            logger.warn("Failed to get the status of node {}: {}", node, e.toString());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private int post(int node, String path, Object body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(topology.node(node) + path))
+                .timeout(Duration.ofMillis(config.getTimeoutMillis()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private void sendLoop(int node, BlockingQueue<ForwardedLink> queue) {
+        List<ForwardedLink> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                ForwardedLink first = queue.poll(config.getMaxBatchDelayMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(queue, batch);
+                sendBatch(node, batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                pendingLinks.addAndGet(-batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private void fillBatch(BlockingQueue<ForwardedLink> queue, List<ForwardedLink> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchDelayMillis());
+        while (batch.size() < config.getBatchSize()) {
+            queue.drainTo(batch, config.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= config.getBatchSize() || remaining <= 0) {
+                return;
+            }
+            ForwardedLink next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void sendBatch(int node, List<ForwardedLink> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= config.getMaxAttempts(); attempt++) {
+            try {
+                int status = post(node, "/cluster/links", batch);
+                if (status / 100 == 2) {
+                    linksSent.add(batch.size());
+                    return;
+                }
+                logger.warn("Node {} rejected {} links with HTTP {} (attempt {})", node, batch.size(), status, attempt);
+            } catch (IOException e) {
+                logger.warn("Failed to forward {} links to node {} (attempt {}): {}", batch.size(), node, attempt,
+                        e.toString());
+            }
+            TimeUnit.MILLISECONDS.sleep(BACKOFF_MILLIS << (attempt - 1));
+        }
+        linksDropped.add(batch.size());
+        logger.error("Dropped {} links for node {} after {} attempts", batch.size(), node, config.getMaxAttempts());
+    }
+}
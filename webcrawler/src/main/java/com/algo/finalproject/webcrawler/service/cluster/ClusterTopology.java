@@ -0,0 +1,79 @@
+package com.algo.finalproject.webcrawler.service.cluster;
+
+import com.algo.finalproject.webcrawler.service.frontier.HostFrontier;
+
+import java.util.List;
+
+/**
+ * Assigns every host to one crawler instance.
+ * <p>
+ * The 32-bit hash space of host names is cut into {@code nodes.size()} equal ranges and an
+ * instance owns the hosts whose hash falls into its range. All pages of a host are therefore
+ * fetched, deduplicated and politeness-limited by the same instance. A standalone crawler is a
+ * topology of one instance that owns everything.
+ */
+public class ClusterTopology {
+
+    private final int nodeId;
+    private final List<String> nodes;
+
+    public ClusterTopology(int nodeId, List<String> nodes) {
+        if (nodeId < 0 || nodeId >= Math.max(1, nodes.size())) {
+            throw new IllegalArgumentException("Node id " + nodeId + " is not one of the " + nodes.size() + " nodes");
+        }
+        this.nodeId = nodeId;
+        this.nodes = List.copyOf(nodes);
+    }
+
+    public static ClusterTopology standalone() {
+        return new ClusterTopology(0, List.of());
+    }
+
+    public int owner(String url) {
+        if (nodes.size() <= 1) {
+            return 0;
+        }
+        long hash = hostHash(HostFrontier.hostOf(url)) & 0xFFFFFFFFL;
+        return (int) ((hash * nodes.size()) >>> 32);
+    }
+
+    public boolean isLocal(String url) {
+        return owner(url) == nodeId;
+    }
+
+    public int nodeId() {
+        return nodeId;
+    }
+
+    public int size() {
+        return Math.max(1, nodes.size());
+    }
+
+    /**
+     * Base URL of instance {@code node}, e.g. {@code http://localhost:8081}.
+     */
+    public String node(int node) {
+        return nodes.get(node);
+    }
+
+    /**
+     * The first instance cleans the graph, detects the end of a crawl and ranks the pages.
+     */
+    public boolean isCoordinator() {
+        return nodeId == 0;
+    }
+
+    /**
+     * {@link String#hashCode} is the same on every JVM; the finalizer of MurmurHash3 spreads
+     * similar host names over the whole range.
+     */
+    static int hostHash(String host) {
+        int h = host.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
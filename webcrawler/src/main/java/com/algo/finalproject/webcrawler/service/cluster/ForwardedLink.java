@@ -0,0 +1,7 @@
+package com.algo.finalproject.webcrawler.service.cluster;
+
+/**
+ * A discovered URL sent to the instance that owns its host, with the depth it was found at.
+ */
+public record ForwardedLink(String url, int depth) {
+}
@@ -0,0 +1,15 @@
+package com.algo.finalproject.webcrawler.service.cluster;
+
+/**
+ * State of one crawler instance as seen by the termination check. {@code idle} means nothing is
+ * queued, in flight or waiting to be forwarded. The counters only ever grow and are compared
+ * between rounds; {@code entriesTaken} makes an entry that the dispatcher took just before the
+ * status was read, and had not yet counted as in flight, show up in the next round.
+ */
+public record NodeStatus(int nodeId,
+                         boolean crawlInProgress,
+                         boolean idle,
+                         long entriesTaken,
+                         long linksSent,
+                         long linksReceived) {
+}
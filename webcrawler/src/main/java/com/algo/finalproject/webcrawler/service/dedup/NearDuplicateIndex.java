@@ -0,0 +1,128 @@
+package com.algo.finalproject.webcrawler.service.dedup;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds pages whose {@link SimHash} differs from an earlier page's in at most
+ * {@code maxDistance} bits.
+ * <p>
+ * The fingerprint is cut into {@code maxDistance + 1} bands. Two fingerprints within the distance
+ * cannot differ in every band, so they share at least one band exactly. Each band keys a table of
+ * buckets, and a lookup only compares the fingerprints in the page's bucket of each band. Buckets
+ * are immutable arrays replaced by compare-and-set, so any number of parse threads look up and
+ * add pages at once without locking. Two near-duplicates parsed at the same moment may both
+ * miss each other and be kept.
+ * <p>
+ * Each indexed page costs roughly 150 bytes with its URL. Beyond {@code maxPages} pages are
+ * still looked up, but no longer added.
+ */
+public class NearDuplicateIndex {
+
+    private static final int MAX_BUCKET_BITS = 16;
+    private static final Entry[] EMPTY = new Entry[0];
+
+    private final int maxDistance;
+    private final int maxPages;
+    private final int bands;
+    private final int[] bandShift;
+    private final long[] bandMask;
+    private final int bucketBits;
+    private final AtomicReferenceArray<Entry[]> buckets;
+    private final AtomicInteger size = new AtomicInteger();
+
+    public NearDuplicateIndex(int maxDistance, int maxPages) {
+        if (maxDistance < 0 || maxDistance >= Long.SIZE / 2) {
+            throw new IllegalArgumentException("maxDistance must be between 0 and 31: " + maxDistance);
+        }
+        this.maxDistance = maxDistance;
+        this.maxPages = maxPages;
+        this.bands = maxDistance + 1;
+        this.bandShift = new int[bands];
+        this.bandMask = new long[bands];
+        // The first bands take the bits that do not divide evenly
+        int shift = 0;
+        for (int band = 0; band < bands; band++) {
+            int width = Long.SIZE / bands + (band < Long.SIZE % bands ? 1 : 0);
+            bandShift[band] = shift;
+            bandMask[band] = width == Long.SIZE ? -1L : (1L << width) - 1;
+            shift += width;
+        }
+        this.bucketBits = Math.min(MAX_BUCKET_BITS, Long.SIZE / bands);
+        this.buckets = new AtomicReferenceArray<>(bands << bucketBits);
+    }
+
+    /**
+     * Returns the URL of an indexed near-duplicate of {@code fingerprint}, or indexes
+     * {@code url} under it and returns {@code null}.
+     */
+    public String findOrAdd(long fingerprint, String url) {
+        String original = find(fingerprint);
+        if (original != null) {
+            return original;
+        }
+        if (size.get() >= maxPages) {
+            return null;
+        }
+        Entry entry = new Entry(fingerprint, url);
+        for (int band = 0; band < bands; band++) {
+            int bucket = bucket(band, fingerprint);
+            Entry[] current;
+            Entry[] next;
+            do {
+                current = entries(bucket);
+                next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = entry;
+            } while (!buckets.compareAndSet(bucket, current == EMPTY ? null : current, next));
+        }
+        size.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * The URL of an indexed page whose fingerprint is within {@code maxDistance} bits, or
+     * {@code null}.
+     */
+    public String find(long fingerprint) {
+        for (int band = 0; band < bands; band++) {
+            for (Entry entry : entries(bucket(band, fingerprint))) {
+                if (SimHash.distance(entry.fingerprint, fingerprint) <= maxDistance) {
+                    return entry.url;
+                }
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public void clear() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
+        size.set(0);
+    }
+
+    private Entry[] entries(int bucket) {
+        Entry[] entries = buckets.get(bucket);
+        return entries == null ? EMPTY : entries;
+    }
+
+    /**
+     * Bands wider than the table are hashed down to it; the distance check sorts out the
+     * fingerprints that only share a bucket.
+     */
+    private int bucket(int band, long fingerprint) {
+        long key = (fingerprint >>> bandShift[band]) & bandMask[band];
+        if (Long.SIZE / bands > bucketBits) {
+            key = SimHash.mix(key);
+        }
+        return (band << bucketBits) | (int) (key & ((1L << bucketBits) - 1));
+    }
+
+    private record Entry(long fingerprint, String url) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.algo.finalproject.webcrawler.service.dedup;
+
+/**
+ * Builds the 64-bit SimHash of a text fed to it one character at a time, as the link extractors
+ * read it.
+ * <p>
+ * Letters and digits form words, compared without case; everything else separates them. Every
+ * run of {@value #SHINGLE_WORDS} consecutive words is hashed and votes on each of the 64 bits, so
+ * texts that share most of their shingles get fingerprints that differ in only a few bits. Words
+ * are hashed as they stream by, so nothing is allocated per word.
+ * <p>
+ * Not thread-safe; use one instance per page.
+ */
+public final class SimHash {
+
+    public static final int SHINGLE_WORDS = 3;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int[] votes = new int[Long.SIZE];
+    private long wordHash = FNV_OFFSET;
+    private boolean inWord;
+    private long previousWord;
+    private long wordBeforeThat;
+    private int words;
+    private int shingles;
+
+    public void append(char c) {
+        if (Character.isLetterOrDigit(c)) {
+            wordHash = (wordHash ^ Character.toLowerCase(c)) * FNV_PRIME;
+            inWord = true;
+        } else if (inWord) {
+            endWord();
+        }
+    }
+
+    public void append(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            append(text.charAt(i));
+        }
+    }
+
+    /**
+     * Shingles seen so far; fingerprints of texts with only a few of them are not meaningful.
+     */
+    public int shingles() {
+        if (inWord) {
+            endWord();
+        }
+        return shingles;
+    }
+
+    /**
+     * The fingerprint of the text appended so far. More text may be appended afterwards.
+     */
+    public long value() {
+        if (inWord) {
+            endWord();
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (votes[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Number of bits in which two fingerprints differ.
+     */
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    public static SimHash of(CharSequence text) {
+        SimHash simHash = new SimHash();
+        simHash.append(text);
+        return simHash;
+    }
+
+    private void endWord() {
+        long word = mix(wordHash);
+        wordHash = FNV_OFFSET;
+        inWord = false;
+        if (++words >= SHINGLE_WORDS) {
+            long shingle = mix(word ^ Long.rotateLeft(previousWord, 21) ^ Long.rotateLeft(wordBeforeThat, 42));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                votes[bit] += (int) ((shingle >>> bit) & 1) * 2 - 1;
+            }
+            shingles++;
+        }
+        wordBeforeThat = previousWord;
+        previousWord = word;
+    }
+
+    /**
+     * The SplitMix64 finalizer, which spreads every input bit over the whole hash.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
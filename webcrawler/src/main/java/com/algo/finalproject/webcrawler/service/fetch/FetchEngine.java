@@ -0,0 +1,11 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+/**
+ * Implementations of {@link PageFetcher} selectable through {@code crawler.fetch.engine}.
+ */
+public enum FetchEngine {
+    /** Blocking Jsoup connection, one virtual thread per fetch. */
+    VIRTUAL_THREAD,
+    /** Asynchronous {@link java.net.http.HttpClient} with HTTP/2 and pooled connections. */
+    HTTP_CLIENT
+}
@@ -0,0 +1,62 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A fetch answered with an error status. {@code retryAfterMillis} is the wait the server asked
+ * for in its {@code Retry-After} header, or -1 if it sent none.
+ */
+public class FetchStatusException extends IOException {
+
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    public FetchStatusException(String url, int statusCode, long retryAfterMillis) {
+        super("HTTP " + statusCode + " fetching " + url);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Whether the server declined the request because it is overloaded or rate-limiting us.
+     */
+    public boolean isOverload() {
+        return statusCode == TOO_MANY_REQUESTS || statusCode == SERVICE_UNAVAILABLE;
+    }
+
+    /**
+     * Parses a {@code Retry-After} value, either delay seconds or an HTTP date, into milliseconds
+     * from {@code nowMillis}. Returns -1 for a missing or malformed value.
+     */
+    public static long parseRetryAfter(String value, long nowMillis) {
+        if (value == null || value.isBlank()) {
+            return -1;
+        }
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // Not delay seconds, so it should be a date
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
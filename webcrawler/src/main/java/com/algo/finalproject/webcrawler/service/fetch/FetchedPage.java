@@ -0,0 +1,22 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+/**
+ * Raw response of a successful page fetch, handed to the parse stage as bytes.
+ *
+ * @param url          final URL after redirects, used as the base URI for relative links
+ * @param charset      charset declared by the server, or {@code null} to let Jsoup detect it
+ * @param etag         {@code ETag} response header, or {@code null}
+ * @param lastModified {@code Last-Modified} response header, or {@code null}
+ */
+public record FetchedPage(String url, int statusCode, String contentType, String charset, byte[] body,
+                          String etag, String lastModified) {
+
+    public static final int NOT_MODIFIED = 304;
+
+    /**
+     * Whether the server answered a conditional request with 304; the body is then empty.
+     */
+    public boolean isNotModified() {
+        return statusCode == NOT_MODIFIED;
+    }
+}
@@ -0,0 +1,124 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fetches pages with the JDK {@link HttpClient} in asynchronous mode.
+ * <p>
+ * The client negotiates HTTP/2 where the server supports it and keeps connections open between
+ * requests, so fetches to the same host share a connection. Bodies of error responses and
+ * non-HTML content are discarded as they stream in rather than buffered; a 304 answer to a
+ * conditional request is passed on with an empty body. The connect timeout is the configured
+ * one; the response timeout can be set per request.
+ */
+public class HttpClientPageFetcher implements PageFetcher {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient client;
+    private final Duration timeout;
+    private final String userAgent;
+
+    public HttpClientPageFetcher(int timeoutMillis, String userAgent) {
+        this.timeout = Duration.ofMillis(timeoutMillis);
+        this.userAgent = userAgent;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, String etag, String lastModified, int timeoutMillis) {
+        HttpRequest request;
+        try {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(timeoutMillis > 0 ? Duration.ofMillis(timeoutMillis) : timeout)
+                    .header("User-Agent", userAgent)
+                    .header("Accept", "text/html,application/xhtml+xml")
+                    .GET();
+            if (etag != null) {
+                builder.header("If-None-Match", etag);
+            }
+            if (lastModified != null) {
+                builder.header("If-Modified-Since", lastModified);
+            }
+            request = builder.build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL: " + url, e));
+        }
+        return client.sendAsync(request, this::handleBody)
+                .thenApply(response -> {
+                    int status = response.statusCode();
+                    if (response.body() == null && (status < 200 || status >= 300)) {
+                        long retryAfter = FetchStatusException.parseRetryAfter(
+                                response.headers().firstValue("Retry-After").orElse(null), System.currentTimeMillis());
+                        throw new CompletionException(new FetchStatusException(url, status, retryAfter));
+                    }
+                    if (response.body() == null) {
+                        throw new CompletionException(new IOException("Skipped " + url + ": "
+                                + contentType(response.headers())));
+                    }
+                    HttpHeaders headers = response.headers();
+                    String contentType = contentType(headers);
+                    return new FetchedPage(response.uri().toString(), response.statusCode(),
+                            contentType, charsetOf(contentType), response.body(),
+                            headers.firstValue("ETag").orElse(null),
+                            headers.firstValue("Last-Modified").orElse(null));
+                });
+    }
+
+    private HttpResponse.BodySubscriber<byte[]> handleBody(HttpResponse.ResponseInfo info) {
+        int status = info.statusCode();
+        if (status == FetchedPage.NOT_MODIFIED) {
+            return HttpResponse.BodySubscribers.replacing(new byte[0]);
+        }
+        String contentType = contentType(info.headers());
+        if (status < 200 || status >= 300 || !isHtml(contentType)) {
+            return HttpResponse.BodySubscribers.replacing(null);
+        }
+        return HttpResponse.BodySubscribers.ofByteArray();
+    }
+
+    private static String contentType(HttpHeaders headers) {
+        return headers.firstValue("Content-Type").orElse("");
+    }
+
+    private static boolean isHtml(String contentType) {
+        return contentType.isEmpty() || contentType.startsWith("text/") || contentType.contains("html")
+                || contentType.contains("xml");
+    }
+
+    static String charsetOf(String contentType) {
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if (index < 0) {
+            return null;
+        }
+        String charset = contentType.substring(index + "charset=".length());
+        int end = charset.indexOf(';');
+        if (end >= 0) {
+            charset = charset.substring(0, end);
+        }
+        charset = charset.trim().replace("\"", "");
+        return charset.isEmpty() ? null : charset;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        client.shutdownNow();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,61 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the blocking Jsoup connection on a fresh virtual thread per fetch, so thousands of
+ * fetches can wait on the network without tying up platform threads.
+ */
+public class JsoupPageFetcher implements PageFetcher {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final int timeoutMillis;
+    private final String userAgent;
+
+    public JsoupPageFetcher(int timeoutMillis, String userAgent) {
+        this.timeoutMillis = timeoutMillis;
+        this.userAgent = userAgent;
+    }
+
+    @Override
+    public CompletableFuture<FetchedPage> fetch(String url, String etag, String lastModified, int timeoutMillis) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Connection connection = Jsoup.connect(url)
+                        .userAgent(userAgent)
+                        .timeout(timeoutMillis > 0 ? timeoutMillis : this.timeoutMillis)
+                        .ignoreHttpErrors(true);
+                if (etag != null) {
+                    connection.header("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    connection.header("If-Modified-Since", lastModified);
+                }
+                Connection.Response response = connection.execute();
+                int status = response.statusCode();
+                if (status != FetchedPage.NOT_MODIFIED && (status < 200 || status >= 300)) {
+                    throw new FetchStatusException(url, status,
+                            FetchStatusException.parseRetryAfter(response.header("Retry-After"), System.currentTimeMillis()));
+                }
+                return new FetchedPage(response.url().toString(), status, response.contentType(),
+                        response.charset(), response.bodyAsBytes(),
+                        response.header("ETag"), response.header("Last-Modified"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
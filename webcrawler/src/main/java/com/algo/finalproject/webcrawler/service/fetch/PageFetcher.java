@@ -0,0 +1,30 @@
+package com.algo.finalproject.webcrawler.service.fetch;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Downloads pages without parsing them, so network waits never hold a parse thread.
+ */
+public interface PageFetcher {
+
+    /**
+     * Starts fetching {@code url}. The future fails with an {@link java.io.IOException} on
+     * network errors, non-2xx responses and non-HTML content.
+     */
+    default CompletableFuture<FetchedPage> fetch(String url) {
+        return fetch(url, null, null);
+    }
+
+    default CompletableFuture<FetchedPage> fetch(String url, String etag, String lastModified) {
+        return fetch(url, etag, lastModified, 0);
+    }
+
+    /**
+     * Starts a conditional fetch of {@code url}, sending {@code If-None-Match} and
+     * {@code If-Modified-Since} for the validators that are not {@code null}. A 304 response
+     * completes normally with an empty body, see {@link FetchedPage#isNotModified()}. Error
+     * statuses fail with a {@link FetchStatusException}. The response is awaited for
+     * {@code timeoutMillis}, or for the configured timeout if it is 0.
+     */
+    CompletableFuture<FetchedPage> fetch(String url, String etag, String lastModified, int timeoutMillis);
+}
@@ -0,0 +1,313 @@
+package com.algo.finalproject.webcrawler.service.frontier;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Append-only, segmented on-disk log of frontier entries plus the log of visited URLs.
+ * <p>
+ * Every discovered URL is appended to the current segment file; the crawler reads entries back
+ * in order to refill its in-memory window. The log counts entries that were read but not yet
+ * {@linkplain #completed completed} per segment, so a {@linkplain #checkpoint checkpoint} can
+ * record the oldest position a restarted crawl must re-read from. Segments before that position
+ * are deleted. A record is {@code [int depth][int priority][int length][UTF-8 url]}; a torn
+ * record at the end of a segment, left by a crash, is treated as the end of that segment. The
+ * checkpoint names the record format, so logs written in another format are not resumed.
+ */
+class FrontierLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "frontier-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String VISITED_FILE = "visited.log";
+    private static final String CHECKPOINT_FILE = "checkpoint.properties";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String FORMAT = "2";
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES * 3;
+
+    private final Path directory;
+    private final long segmentBytes;
+
+    private int writeSegment;
+    private long writeOffset;
+    private FileOutputStream writeFile;
+    private DataOutputStream writer;
+
+    private int readSegment;
+    private long readOffset;
+    private DataInputStream reader;
+
+    /** Entries read but not completed, per segment. */
+    private final TreeMap<Integer, Integer> outstanding = new TreeMap<>();
+
+    private final FileOutputStream visitedFile;
+    private final DataOutputStream visitedWriter;
+
+    private FrontierLog(Path directory, long segmentBytes, int readSegment, long readOffset, int writeSegment)
+            throws IOException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.readSegment = readSegment;
+        this.readOffset = readOffset;
+        this.visitedFile = new FileOutputStream(directory.resolve(VISITED_FILE).toFile(), true);
+        this.visitedWriter = new DataOutputStream(new BufferedOutputStream(visitedFile, BUFFER_SIZE));
+        openWriter(writeSegment);
+    }
+
+    /**
+     * Starts an empty log in {@code directory}, deleting the state of any previous crawl.
+     */
+    static FrontierLog create(Path directory, long segmentBytes) throws IOException {
+        delete(directory);
+        Files.createDirectories(directory);
+        return new FrontierLog(directory, segmentBytes, 0, 0, 0);
+    }
+
+    /**
+     * Reopens the log at its last checkpoint. New entries go to a fresh segment so that a torn
+     * tail of the previous run is never appended to.
+     */
+    static FrontierLog resume(Path directory, long segmentBytes) throws IOException {
+        Properties checkpoint = readCheckpoint(directory);
+        if (!FORMAT.equals(checkpoint.getProperty("format"))) {
+            throw new IOException("Unsupported frontier log format " + checkpoint.getProperty("format")
+                    + " in " + directory.toAbsolutePath());
+        }
+        int segment = Integer.parseInt(checkpoint.getProperty("segment"));
+        long offset = Long.parseLong(checkpoint.getProperty("offset"));
+        int lastSegment = segment;
+        for (int existing : segments(directory)) {
+            lastSegment = Math.max(lastSegment, existing);
+        }
+        return new FrontierLog(directory, segmentBytes, segment, offset, lastSegment + 1);
+    }
+
+    static boolean hasCheckpoint(Path directory) {
+        return Files.exists(directory.resolve(CHECKPOINT_FILE));
+    }
+
+    static Properties readCheckpoint(Path directory) throws IOException {
+        Properties checkpoint = new Properties();
+        try (Reader in = Files.newBufferedReader(directory.resolve(CHECKPOINT_FILE), StandardCharsets.UTF_8)) {
+            checkpoint.load(in);
+        }
+        return checkpoint;
+    }
+
+    synchronized void append(UrlDepthPair entry) throws IOException {
+        if (writeOffset >= segmentBytes) {
+            writer.close();
+            openWriter(writeSegment + 1);
+        }
+        byte[] bytes = entry.url.getBytes(StandardCharsets.UTF_8);
+        writer.writeInt(entry.depth);
+        writer.writeInt(entry.priority);
+        writer.writeInt(bytes.length);
+        writer.write(bytes);
+        writeOffset += RECORD_HEADER_BYTES + bytes.length;
+    }
+
+    synchronized boolean hasBacklog() {
+        return readSegment < writeSegment || readOffset < writeOffset;
+    }
+
+    /**
+     * Approximate bytes appended but not yet read, counting every skipped-over segment as full.
+     */
+    synchronized long backlogBytes() {
+        return Math.max(0, (writeSegment - readSegment) * segmentBytes + writeOffset - readOffset);
+    }
+
+    /**
+     * Reads up to {@code max} entries in append order; each must later be {@link #completed}.
+     */
+    synchronized List<UrlDepthPair> read(int max) throws IOException {
+        List<UrlDepthPair> entries = new ArrayList<>(Math.min(max, 1024));
+        if (readSegment == writeSegment) {
+            writer.flush();
+        }
+        while (entries.size() < max && hasBacklog()) {
+            if (reader == null) {
+                reader = openReader(readSegment, readOffset);
+            }
+            UrlDepthPair entry = readEntry();
+            if (entry == null) {
+                if (readSegment == writeSegment) {
+                    break;
+                }
+                readSegment++;
+                readOffset = 0;
+                continue;
+            }
+            entries.add(entry);
+            outstanding.merge(readSegment, 1, Integer::sum);
+        }
+        return entries;
+    }
+
+    synchronized void completed(UrlDepthPair entry) {
+        outstanding.computeIfPresent(entry.segment, (segment, count) -> count == 1 ? null : count - 1);
+    }
+
+    synchronized void appendVisited(String url) throws IOException {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        visitedWriter.writeInt(bytes.length);
+        visitedWriter.write(bytes);
+    }
+
+    /**
+     * Feeds every URL recorded by {@link #appendVisited} to {@code consumer}, then cuts off a torn
+     * record left at the end by a crash so that later appends stay readable.
+     */
+    static void replayVisited(Path directory, Consumer<String> consumer) throws IOException {
+        Path visited = directory.resolve(VISITED_FILE);
+        if (!Files.exists(visited)) {
+            return;
+        }
+        long validBytes = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(visited), BUFFER_SIZE))) {
+            while (true) {
+                int length = in.readInt();
+                byte[] bytes = new byte[length];
+                in.readFully(bytes);
+                consumer.accept(new String(bytes, StandardCharsets.UTF_8));
+                validBytes += Integer.BYTES + length;
+            }
+        } catch (EOFException e) {
+            // End of the log, possibly in the middle of a torn record
+        }
+        try (FileChannel channel = FileChannel.open(visited, StandardOpenOption.WRITE)) {
+            channel.truncate(validBytes);
+        }
+    }
+
+    /**
+     * Forces both logs to disk and atomically records where a restart has to resume reading,
+     * together with {@code metadata}. Returns the number of deleted segments.
+     */
+    synchronized int checkpoint(Properties metadata) throws IOException {
+        writer.flush();
+        writeFile.getFD().sync();
+        visitedWriter.flush();
+        visitedFile.getFD().sync();
+
+        int segment = outstanding.isEmpty() ? readSegment : Math.min(outstanding.firstKey(), readSegment);
+        long offset = outstanding.isEmpty() ? readOffset : 0;
+        Properties checkpoint = new Properties();
+        checkpoint.putAll(metadata);
+        checkpoint.setProperty("format", FORMAT);
+        checkpoint.setProperty("segment", Integer.toString(segment));
+        checkpoint.setProperty("offset", Long.toString(offset));
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            checkpoint.store(out, "Crawl frontier checkpoint");
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        int deleted = 0;
+        for (int existing : segments(directory)) {
+            if (existing < segment && Files.deleteIfExists(segmentPath(directory, existing))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+        writer.close();
+        visitedWriter.close();
+    }
+
+    /**
+     * Removes all crawl state from {@code directory}.
+     */
+    static void delete(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private UrlDepthPair readEntry() throws IOException {
+        try {
+            int depth = reader.readInt();
+            int priority = reader.readInt();
+            int length = reader.readInt();
+            byte[] bytes = new byte[length];
+            reader.readFully(bytes);
+            readOffset += RECORD_HEADER_BYTES + length;
+            return new UrlDepthPair(new String(bytes, StandardCharsets.UTF_8), depth, priority, readSegment);
+        } catch (EOFException e) {
+            // Reopen at the last complete record; the rest may still be in the writer's buffer
+            reader.close();
+            reader = null;
+            return null;
+        }
+    }
+
+    private void openWriter(int segment) throws IOException {
+        writeSegment = segment;
+        writeFile = new FileOutputStream(segmentPath(directory, segment).toFile(), true);
+        writer = new DataOutputStream(new BufferedOutputStream(writeFile, BUFFER_SIZE));
+        writeOffset = writeFile.getChannel().size();
+    }
+
+    private DataInputStream openReader(int segment, long offset) throws IOException {
+        Path path = segmentPath(directory, segment);
+        if (!Files.exists(path)) {
+            return new DataInputStream(InputStream.nullInputStream());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        channel.position(offset);
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+    }
+
+    private static Path segmentPath(Path directory, int segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static List<Integer> segments(Path directory) throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        segments.sort(Comparator.naturalOrder());
+        return segments;
+    }
+}
@@ -0,0 +1,301 @@
+package com.algo.finalproject.webcrawler.service.frontier;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Crawl frontier sharded into one queue per host.
+ * <p>
+ * Each host queue is ordered by the supplied comparator and guarded by its own lock, so offers
+ * for different hosts do not contend. Hosts that have work and a free fetch slot sit in a heap
+ * ordered by the time they may next be fetched. {@link #poll} hands out the item of the earliest
+ * ready host, which spreads workers across hosts while keeping at most {@code maxPerHost}
+ * fetches in flight and at least {@code minDelayMillis} between fetch starts on any one host.
+ * Both can be changed per host while the crawl runs, see {@link #setLimit} and {@link #delay}.
+ * Frontiers built on the same {@link HostSlots} count the fetches and delays of a host together,
+ * so a host queue taken from the heap is checked against them again before it hands out an item.
+ * Every item returned by {@link #poll} or {@link #take} must be given back with {@link #release}
+ * once fetched.
+ *
+ * @param <T> frontier entry type
+ */
+public class HostFrontier<T> {
+
+    private final Function<T, String> hostOf;
+    private final Comparator<T> order;
+    private final HostSlots slots;
+
+    private final ConcurrentHashMap<String, HostQueue> hosts = new ConcurrentHashMap<>();
+    private final PriorityQueue<HostQueue> readyHosts =
+            new PriorityQueue<>(Comparator.comparingLong((HostQueue h) -> h.readyAt));
+    private final ReentrantLock readyLock = new ReentrantLock();
+    private final Condition readyChanged = readyLock.newCondition();
+    private final AtomicInteger size = new AtomicInteger();
+    /** Number of {@link #wakeUp} calls; only changed while holding {@code readyLock}. */
+    private volatile long wakeUps;
+
+    public HostFrontier(Function<T, String> hostOf, Comparator<T> order, int maxPerHost, long minDelayMillis) {
+        this(hostOf, order, new HostSlots(maxPerHost, minDelayMillis));
+    }
+
+    /**
+     * Frontier whose hosts take their fetch slots and delays from {@code slots}.
+     */
+    public HostFrontier(Function<T, String> hostOf, Comparator<T> order, HostSlots slots) {
+        this.hostOf = hostOf;
+        this.order = order;
+        this.slots = slots;
+    }
+
+    public void offer(T item) {
+        HostQueue host = hosts.computeIfAbsent(hostOf.apply(item), HostQueue::new);
+        boolean schedule;
+        synchronized (host.slot) {
+            host.items.add(item);
+            size.incrementAndGet();
+            schedule = host.markScheduledIfIdle(System.nanoTime());
+        }
+        if (schedule) {
+            pushReady(host);
+        }
+    }
+
+    /**
+     * Returns the next item whose host is ready, waiting up to {@code timeout} for one, or
+     * {@code null} if no host became ready in time.
+     */
+    public T poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        readyLock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                HostQueue head = readyHosts.peek();
+                if (head != null && head.readyAt <= now) {
+                    T item = takeFrom(head, now);
+                    if (item != null) {
+                        return item;
+                    }
+                    continue;
+                }
+                long wait = deadline - now;
+                if (wait <= 0) {
+                    return null;
+                }
+                if (head != null) {
+                    wait = Math.min(wait, head.readyAt - now);
+                }
+                readyChanged.awaitNanos(wait);
+            }
+        } finally {
+            readyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the next item whose host is ready, waiting without a timeout, or {@code null} as
+     * soon as {@link #wakeUp} has been called since {@link #wakeUps} returned {@code wakeUps}.
+     * Reading the token before checking whether to wait means a wake-up is never missed.
+     */
+    public T take(long wakeUps) throws InterruptedException {
+        readyLock.lockInterruptibly();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                HostQueue head = readyHosts.peek();
+                if (head != null && head.readyAt <= now) {
+                    T item = takeFrom(head, now);
+                    if (item != null) {
+                        return item;
+                    }
+                    continue;
+                }
+                if (this.wakeUps != wakeUps) {
+                    return null;
+                }
+                if (head == null) {
+                    readyChanged.await();
+                } else {
+                    readyChanged.awaitNanos(head.readyAt - now);
+                }
+            }
+        } finally {
+            readyLock.unlock();
+        }
+    }
+
+    public long wakeUps() {
+        return wakeUps;
+    }
+
+    /**
+     * Makes every {@link #take} given an earlier token return, with {@code null} if no item is ready.
+     */
+    public void wakeUp() {
+        readyLock.lock();
+        try {
+            wakeUps++;
+            readyChanged.signalAll();
+        } finally {
+            readyLock.unlock();
+        }
+    }
+
+    /**
+     * Frees the fetch slot taken by an item returned from {@link #poll} or {@link #take}.
+     */
+    public void release(T item) {
+        HostQueue host = hosts.get(hostOf.apply(item));
+        if (host != null) {
+            slots.release(host.slot);
+        }
+    }
+
+    /**
+     * Changes how many items of {@code host} may be handed out at once, see {@link HostSlots#setLimit}.
+     */
+    public void setLimit(String host, int limit) {
+        slots.setLimit(host, limit);
+    }
+
+    /**
+     * Keeps at least {@code delayMillis} between fetch starts on {@code host}, see
+     * {@link HostSlots#setMinDelay}.
+     */
+    public void setMinDelay(String host, long delayMillis) {
+        slots.setMinDelay(host, delayMillis);
+    }
+
+    /**
+     * Hands out no item of {@code host} for the next {@code delayMillis}, see {@link HostSlots#delay}.
+     * A host already in the heap keeps its place until it is taken and found to be delayed.
+     */
+    public void delay(String host, long delayMillis) {
+        slots.delay(host, delayMillis);
+    }
+
+    /**
+     * Number of queued items, not counting those handed out and not yet released.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+
+    public int hostCount() {
+        return hosts.size();
+    }
+
+    /**
+     * Takes the next item of the host at the head of the heap, or returns {@code null} and puts
+     * the host back in line if another frontier has taken its last slot or delayed it since.
+     */
+    private T takeFrom(HostQueue head, long now) {
+        readyHosts.poll();
+        synchronized (head.slot) {
+            head.scheduled = false;
+            T item = head.slot.isFull() || head.slot.nextAllowedStart > now ? null : head.take(now);
+            if (head.markScheduledIfIdle(now)) {
+                readyHosts.add(head);
+            }
+            return item;
+        }
+    }
+
+    private void pushReady(HostQueue host) {
+        readyLock.lock();
+        try {
+            readyHosts.add(host);
+            readyChanged.signalAll();
+        } finally {
+            readyLock.unlock();
+        }
+    }
+
+    /**
+     * Extracts the lower-cased host of an absolute URL without allocating a {@link java.net.URI}.
+     */
+    public static String hostOf(String url) {
+        int start = url.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int at = url.indexOf('@', start);
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        if (at >= 0 && at < end) {
+            start = at + 1;
+        }
+        int colon = url.indexOf(':', start);
+        if (colon >= 0 && colon < end) {
+            end = colon;
+        }
+        return url.substring(start, end).toLowerCase();
+    }
+
+    private final class HostQueue {
+        final PriorityQueue<T> items = new PriorityQueue<>(order);
+        final HostSlots.Slot slot;
+        /** True while this host has an entry in {@code readyHosts}; {@code readyAt} is fixed meanwhile. */
+        boolean scheduled;
+        long readyAt;
+        /** True while this host waits in {@code slot} for a free fetch slot. */
+        boolean waiting;
+
+        HostQueue(String host) {
+            this.slot = slots.slot(host);
+        }
+
+        /**
+         * Schedules the host if it has items and is not scheduled yet, or makes it wait for a
+         * slot if all are taken; called holding {@code slot}.
+         */
+        boolean markScheduledIfIdle(long now) {
+            if (scheduled || items.isEmpty()) {
+                return false;
+            }
+            if (slot.isFull()) {
+                if (!waiting) {
+                    waiting = true;
+                    slot.addWaiting(this::wake);
+                }
+                return false;
+            }
+            scheduled = true;
+            readyAt = Math.max(now, slot.nextAllowedStart);
+            return true;
+        }
+
+        T take(long now) {
+            T item = items.poll();
+            size.decrementAndGet();
+            slot.inFlight++;
+            slot.nextAllowedStart = Math.max(slot.nextAllowedStart, now + slot.minDelayNanos);
+            return item;
+        }
+
+        void wake() {
+            boolean schedule;
+            synchronized (slot) {
+                waiting = false;
+                schedule = markScheduledIfIdle(System.nanoTime());
+            }
+            if (schedule) {
+                pushReady(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.algo.finalproject.webcrawler.service.frontier;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetch slots and delays of every host, shared by the {@link HostFrontier}s of all crawl jobs.
+ * <p>
+ * Each job queues its own pages per host, but the fetches in flight on a host and the time the
+ * next one may start are kept here, so jobs crawling the same host together stay within its
+ * limit and its {@code Crawl-delay} just as a single job would. A host queue that finds every
+ * slot of its host taken waits here, and is scheduled again by whichever job frees a slot.
+ * Like the host limits of the {@code FetchLimiter}, a host is kept once it has been seen.
+ */
+public class HostSlots {
+
+    private final int maxPerHost;
+    private final long minDelayNanos;
+    private final ConcurrentHashMap<String, Slot> hosts = new ConcurrentHashMap<>();
+
+    public HostSlots(CrawlerProperties properties) {
+        this(properties.getFrontier().getMaxRequestsPerHost(), properties.getFrontier().getMinDelayMillis());
+    }
+
+    public HostSlots(int maxPerHost, long minDelayMillis) {
+        if (maxPerHost < 1) {
+            throw new IllegalArgumentException("maxPerHost must be at least 1: " + maxPerHost);
+        }
+        this.maxPerHost = maxPerHost;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+    }
+
+    /**
+     * Changes how many fetches of {@code host} may run at once, e.g. as the host gets faster or
+     * slower. Fetches already running are not affected.
+     */
+    public void setLimit(String host, int limit) {
+        Slot slot = slot(host);
+        List<Runnable> woken;
+        synchronized (slot) {
+            slot.limit = Math.max(1, limit);
+            woken = slot.takeWaiting();
+        }
+        woken.forEach(Runnable::run);
+    }
+
+    /**
+     * Keeps at least {@code delayMillis} between fetch starts on {@code host}, e.g. its
+     * robots.txt {@code Crawl-delay}. It never goes below {@code minDelayMillis}.
+     */
+    public void setMinDelay(String host, long delayMillis) {
+        Slot slot = slot(host);
+        synchronized (slot) {
+            slot.minDelayNanos = Math.max(minDelayNanos, TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        }
+    }
+
+    /**
+     * Starts no fetch of {@code host} for the next {@code delayMillis}, e.g. after the host
+     * answered {@code 429 Too Many Requests}.
+     */
+    public void delay(String host, long delayMillis) {
+        Slot slot = slot(host);
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        synchronized (slot) {
+            slot.nextAllowedStart = Math.max(slot.nextAllowedStart, until);
+        }
+    }
+
+    /**
+     * Number of fetches of {@code host} in flight, over all frontiers.
+     */
+    public int inFlight(String host) {
+        Slot slot = hosts.get(host);
+        if (slot == null) {
+            return 0;
+        }
+        synchronized (slot) {
+            return slot.inFlight;
+        }
+    }
+
+    public int hostCount() {
+        return hosts.size();
+    }
+
+    Slot slot(String host) {
+        return hosts.computeIfAbsent(host, ignored -> new Slot());
+    }
+
+    /**
+     * Frees a slot taken by a frontier and schedules the host queues that waited for one.
+     */
+    void release(Slot slot) {
+        List<Runnable> woken;
+        synchronized (slot) {
+            slot.inFlight--;
+            woken = slot.takeWaiting();
+        }
+        woken.forEach(Runnable::run);
+    }
+
+    /**
+     * State of one host. It is guarded by its own monitor, which also guards the queues of the
+     * host in every frontier.
+     */
+    final class Slot {
+        int inFlight;
+        int limit = maxPerHost;
+        long minDelayNanos = HostSlots.this.minDelayNanos;
+        long nextAllowedStart = Long.MIN_VALUE;
+        /** Host queues with items that found every slot taken, run once one is free. */
+        private List<Runnable> waiting = new ArrayList<>();
+
+        boolean isFull() {
+            return inFlight >= limit;
+        }
+
+        void addWaiting(Runnable wake) {
+            waiting.add(wake);
+        }
+
+        /**
+         * Takes the queues waiting for a slot if one is free, to be run without holding the monitor.
+         */
+        private List<Runnable> takeWaiting() {
+            if (isFull() || waiting.isEmpty()) {
+                return List.of();
+            }
+            List<Runnable> woken = waiting;
+            waiting = new ArrayList<>();
+            return woken;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.algo.finalproject.webcrawler.service.frontier;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Crawl frontier that keeps only a bounded hot window in memory.
+ * <p>
+ * With persistence enabled every discovered URL is appended to a {@link FrontierLog} on disk and
+ * the per-host {@link HostFrontier} is refilled from the log whenever it drops below half of
+ * {@code hotWindowSize}, so memory stays flat however large the frontier grows. The log is
+ * checkpointed periodically; after a restart {@link #resume} continues from the last checkpoint
+ * and replays the visited URLs so that finished pages are not fetched again.
+ * With persistence disabled the frontier is the in-memory {@link HostFrontier} alone.
+ */
+public class PersistentFrontier {
+
+    private static final Logger logger = LogManager.getLogger(PersistentFrontier.class);
+
+    private final Comparator<UrlDepthPair> order;
+    private final HostSlots slots;
+    private final CrawlerProperties.Persistence config;
+    private final Path directory;
+
+    private volatile HostFrontier<UrlDepthPair> hot;
+    private volatile FrontierLog log;
+    private ScheduledExecutorService checkpointer;
+    private int maxDepth;
+
+    public PersistentFrontier(Comparator<UrlDepthPair> order, CrawlerProperties properties) {
+        this(order, properties, Path.of(properties.getPersistence().getDirectory()), new HostSlots(properties));
+    }
+
+    /**
+     * Frontier keeping its state in {@code directory} rather than in {@code persistence.directory},
+     * whose hosts take their fetch slots and delays from {@code slots}.
+     */
+    public PersistentFrontier(Comparator<UrlDepthPair> order, CrawlerProperties properties, Path directory,
+                              HostSlots slots) {
+        this.order = order;
+        this.slots = slots;
+        this.config = properties.getPersistence();
+        this.directory = directory;
+        this.hot = newHostFrontier();
+    }
+
+    /**
+     * Starts an empty frontier, discarding any state saved by a previous crawl.
+     */
+    public synchronized void start(int maxDepth) throws IOException {
+        close();
+        this.maxDepth = maxDepth;
+        hot = newHostFrontier();
+        if (config.isEnabled()) {
+            log = FrontierLog.create(directory, config.getSegmentBytes());
+            startCheckpointing();
+        }
+    }
+
+    public boolean canResume() {
+        return config.isEnabled() && FrontierLog.hasCheckpoint(directory);
+    }
+
+    /**
+     * Reopens the frontier saved by an interrupted crawl, passing every URL that was completely
+     * processed to {@code visited}. Returns the depth limit of that crawl.
+     */
+    public synchronized int resume(Consumer<String> visited) throws IOException {
+        if (!canResume()) {
+            throw new IllegalStateException("No saved crawl to resume in " + directory.toAbsolutePath());
+        }
+        close();
+        maxDepth = Integer.parseInt(FrontierLog.readCheckpoint(directory).getProperty("maxDepth"));
+        FrontierLog.replayVisited(directory, visited);
+        hot = newHostFrontier();
+        log = FrontierLog.resume(directory, config.getSegmentBytes());
+        startCheckpointing();
+        logger.info("Resumed crawl frontier from {}", directory.toAbsolutePath());
+        return maxDepth;
+    }
+
+    public void offer(UrlDepthPair entry) {
+        FrontierLog current = log;
+        if (current == null) {
+            hot.offer(entry);
+            return;
+        }
+        try {
+            current.append(entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to frontier log", e);
+        }
+        // A waiting take only refills the window when it wakes up
+        if (hot.size() < config.getHotWindowSize() / 2) {
+            hot.wakeUp();
+        }
+    }
+
+    public UrlDepthPair poll(long timeout, TimeUnit unit) throws InterruptedException {
+        refill();
+        return hot.poll(timeout, unit);
+    }
+
+    /**
+     * Blocking counterpart of {@link #poll}, see {@link HostFrontier#take}.
+     */
+    public UrlDepthPair take(long wakeUps) throws InterruptedException {
+        refill();
+        return hot.take(wakeUps);
+    }
+
+    public long wakeUps() {
+        return hot.wakeUps();
+    }
+
+    public void wakeUp() {
+        hot.wakeUp();
+    }
+
+    /**
+     * Records that {@code url} has been fetched and all of its links offered.
+     */
+    public void markVisited(String url) {
+        FrontierLog current = log;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.appendVisited(url);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to visited log", e);
+        }
+    }
+
+    /**
+     * Returns an entry taken with {@link #poll}, whether it was processed or skipped.
+     */
+    public void release(UrlDepthPair entry) {
+        hot.release(entry);
+        FrontierLog current = log;
+        if (current != null && entry.segment != UrlDepthPair.NOT_LOGGED) {
+            current.completed(entry);
+        }
+    }
+
+    /**
+     * Hands an entry taken with {@link #take} back for another attempt. The retry is kept in
+     * memory only and the logged entry stays outstanding until it is released, so after a restart
+     * the URL is fetched again.
+     */
+    public void retry(UrlDepthPair entry) {
+        hot.release(entry);
+        hot.offer(entry.nextAttempt());
+    }
+
+    /**
+     * Number of entries in the in-memory window.
+     */
+    public int size() {
+        return hot.size();
+    }
+
+    /**
+     * Approximate size of the entries that wait on disk, 0 with persistence disabled.
+     */
+    public long backlogBytes() {
+        FrontierLog current = log;
+        return current == null ? 0 : current.backlogBytes();
+    }
+
+    public boolean isEmpty() {
+        FrontierLog current = log;
+        return hot.isEmpty() && (current == null || !current.hasBacklog());
+    }
+
+    /**
+     * Ends a crawl that ran to completion; nothing is left to resume.
+     */
+    public synchronized void finish() {
+        close();
+        if (config.isEnabled()) {
+            try {
+                FrontierLog.delete(directory);
+            } catch (IOException e) {
+                logger.error("Failed to delete crawl state in " + directory.toAbsolutePath(), e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the saved frontier of a crawl that is not running, along with its directory.
+     * Returns {@code false} if there was none.
+     */
+    public static boolean delete(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        FrontierLog.delete(directory);
+        Files.deleteIfExists(directory);
+        return true;
+    }
+
+    /**
+     * Ends a crawl that was stopped early. With persistence the frontier is checkpointed and kept,
+     * so that {@link #resume} continues it; entries taken but never released are fetched again.
+     */
+    public synchronized void stop() {
+        close();
+    }
+
+    public synchronized void checkpoint() {
+        FrontierLog current = log;
+        if (current == null) {
+            return;
+        }
+        Properties metadata = new Properties();
+        metadata.setProperty("maxDepth", Integer.toString(maxDepth));
+        try {
+            int deleted = current.checkpoint(metadata);
+            logger.debug("Checkpointed crawl frontier, deleted {} consumed segments", deleted);
+        } catch (IOException e) {
+            logger.error("Failed to checkpoint crawl frontier", e);
+        }
+    }
+
+    private void refill() {
+        FrontierLog current = log;
+        int window = config.getHotWindowSize();
+        int size = hot.size();
+        if (current == null || size >= window / 2 || !current.hasBacklog()) {
+            return;
+        }
+        try {
+            current.read(window - size).forEach(hot::offer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read frontier log", e);
+        }
+    }
+
+    private void startCheckpointing() {
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "frontier-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getCheckpointIntervalMillis();
+        checkpointer.scheduleWithFixedDelay(this::checkpoint, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+            checkpointer = null;
+        }
+        if (log != null) {
+            checkpoint();
+            try {
+                log.close();
+            } catch (IOException e) {
+                logger.error("Failed to close frontier log", e);
+            }
+            log = null;
+        }
+    }
+
+    private HostFrontier<UrlDepthPair> newHostFrontier() {
+        return new HostFrontier<>(entry -> HostFrontier.hostOf(entry.url), order, slots);
+    }
+}
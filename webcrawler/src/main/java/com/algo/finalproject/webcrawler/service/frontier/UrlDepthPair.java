@@ -0,0 +1,50 @@
+package com.algo.finalproject.webcrawler.service.frontier;
+
+import java.util.Comparator;
+
+/**
+ * Frontier entry: a URL, the crawl depth it was discovered at and its priority, computed once
+ * when the entry is created.
+ */
+public class UrlDepthPair {
+
+    /** Highest priority first. */
+    public static final Comparator<UrlDepthPair> BY_PRIORITY = (u1, u2) -> Integer.compare(u2.priority, u1.priority);
+
+    public final String url;
+    public final int depth;
+    public final int priority;
+    /** Fetches of this URL that failed and were retried, 0 for a new entry. */
+    public final int attempt;
+    /** Frontier log segment the entry was read from, or {@link #NOT_LOGGED}. */
+    final int segment;
+
+    static final int NOT_LOGGED = -1;
+
+    public UrlDepthPair(String url, int depth) {
+        this(url, depth, 0);
+    }
+
+    public UrlDepthPair(String url, int depth, int priority) {
+        this(url, depth, priority, NOT_LOGGED);
+    }
+
+    UrlDepthPair(String url, int depth, int priority, int segment) {
+        this(url, depth, priority, segment, 0);
+    }
+
+    private UrlDepthPair(String url, int depth, int priority, int segment, int attempt) {
+        this.url = url;
+        this.depth = depth;
+        this.priority = priority;
+        this.segment = segment;
+        this.attempt = attempt;
+    }
+
+    /**
+     * The same entry for another attempt, still accounted to the log segment it came from.
+     */
+    UrlDepthPair nextAttempt() {
+        return new UrlDepthPair(url, depth, priority, segment, attempt + 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+/**
+ * How {@link LocalEdgeStore} hands its graph over to Neo4j.
+ */
+public enum GraphExportFormat {
+    /** Leave the graph in the local store. */
+    NONE,
+    /** Write the deduplicated edges through the {@link LinkGraphWriter}, in UNWIND batches. */
+    UNWIND,
+    /** Write {@code pages.csv} and {@code links.csv} for {@code neo4j-admin database import}. */
+    CSV
+}
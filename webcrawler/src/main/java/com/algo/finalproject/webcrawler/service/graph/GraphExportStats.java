@@ -0,0 +1,15 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+/**
+ * Result of exporting the {@link LocalEdgeStore}; {@code location} is the CSV directory, if any.
+ * {@code duplicateEdges} counts links stored more than once, {@code duplicatePages} the
+ * {@code DUPLICATE_OF} edges of near-duplicate pages.
+ */
+public record GraphExportStats(GraphExportFormat format,
+                               int pages,
+                               long edges,
+                               long duplicateEdges,
+                               long duplicatePages,
+                               long exportMillis,
+                               String location) {
+}
@@ -0,0 +1,53 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the constraint and indexes the crawler relies on once the application has started.
+ * <p>
+ * The uniqueness constraint on {@code Page.url} backs every {@code MERGE} and {@code MATCH} by
+ * URL and stops concurrent graph writers from creating the same page twice. The range index on
+ * {@code Page.pageRank} lets the ranking be read best first, a page at a time, without sorting
+ * the whole graph. The indexes on {@code pending} let an incremental ranking pass find the pages
+ * and links created since the last one without scanning the graph. All statements are
+ * idempotent; if Neo4j is unreachable the crawler still starts and the schema is created on the
+ * next start.
+ */
+@Component
+public class GraphSchema {
+
+    private static final Logger logger = LogManager.getLogger(GraphSchema.class);
+
+    static final List<String> SCHEMA_QUERIES = List.of(
+            "CREATE CONSTRAINT page_url_unique IF NOT EXISTS FOR (p:Page) REQUIRE p.url IS UNIQUE",
+            "CREATE RANGE INDEX page_rank IF NOT EXISTS FOR (p:Page) ON (p.pageRank)",
+            "CREATE RANGE INDEX page_pending IF NOT EXISTS FOR (p:Page) ON (p.pending)",
+            "CREATE RANGE INDEX links_to_pending IF NOT EXISTS FOR ()-[r:LINKS_TO]-() ON (r.pending)");
+
+    private final Neo4jClient neo4jClient;
+
+    public GraphSchema(Neo4jClient neo4jClient) {
+        this.neo4jClient = neo4jClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createSchema() {
+        for (String query : SCHEMA_QUERIES) {
+            try {
+                neo4jClient.query(query).run();
+            } catch (Exception e) {
+                // Fails as well if duplicate pages were written before the constraint existed
+                logger.error("Failed to apply Neo4j schema: " + query, e);
+                return;
+            }
+        }
+        logger.info("Neo4j schema is in place");
+    }
+}
@@ -0,0 +1,60 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+import java.io.IOException;
+
+/**
+ * Destination of the links discovered during a crawl, selected by {@code crawler.graph.sink}.
+ * <p>
+ * {@link LinkGraphWriter} writes every link to Neo4j while the crawl runs. {@link LocalEdgeStore}
+ * only appends links to local files and exports the finished graph to Neo4j in bulk, so the
+ * crawl is not limited by Neo4j's transaction throughput.
+ */
+public interface GraphSink {
+
+    /**
+     * Records the edge {@code fromUrl -> toUrl}; may block to apply back pressure.
+     */
+    void submit(String fromUrl, String toUrl) throws InterruptedException;
+
+    /**
+     * Records that {@code url} is a near-duplicate of {@code originalUrl}, as the edge
+     * {@code url -[:DUPLICATE_OF]-> originalUrl}; may block like {@link #submit}.
+     */
+    void submitDuplicate(String url, String originalUrl) throws InterruptedException;
+
+    /**
+     * Records the edge {@code fromUrl -> toUrl} found by crawl job {@code crawl}. Sinks that keep
+     * the graph of every job in one namespace record it like {@link #submit(String, String)}.
+     */
+    default void submit(String crawl, String fromUrl, String toUrl) throws InterruptedException {
+        submit(fromUrl, toUrl);
+    }
+
+    /**
+     * Records a near-duplicate found by crawl job {@code crawl}, see {@link #submit(String, String, String)}.
+     */
+    default void submitDuplicate(String crawl, String url, String originalUrl) throws InterruptedException {
+        submitDuplicate(url, originalUrl);
+    }
+
+    /**
+     * Blocks until every edge submitted so far has been stored.
+     */
+    void flush() throws InterruptedException;
+
+    /**
+     * Discards the edges of earlier crawls; called when a new, not resumed, crawl job starts while
+     * no other job is running.
+     */
+    default void reset() throws IOException {
+    }
+
+    /**
+     * Called once the last running crawl job has ended, if any job completed since the previous
+     * call, and the edges are flushed. Returns whether the graph is now in Neo4j, so that it can
+     * be ranked.
+     */
+    default boolean crawlCompleted() {
+        return true;
+    }
+}
@@ -0,0 +1,11 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+/**
+ * Implementations of {@link GraphSink} selectable through {@code crawler.graph.sink}.
+ */
+public enum GraphSinkType {
+    /** Batched writes to Neo4j during the crawl, see {@link LinkGraphWriter}. */
+    NEO4J,
+    /** Local append-only edge segments, exported after the crawl, see {@link LocalEdgeStore}. */
+    LOCAL
+}
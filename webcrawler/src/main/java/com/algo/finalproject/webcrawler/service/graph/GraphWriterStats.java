@@ -0,0 +1,14 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+/**
+ * Point-in-time counters of the {@link LinkGraphWriter}.
+ */
+public record GraphWriterStats(long batchesWritten,
+                               long edgesWritten,
+                               long edgesFailed,
+                               int queueDepth,
+                               int lastBatchSize,
+                               double averageBatchSize,
+                               double averageFlushMillis,
+                               double maxFlushMillis) {
+}
@@ -0,0 +1,278 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pipelined writer for the {@code LINKS_TO} graph and its {@code DUPLICATE_OF} edges.
+ * <p>
+ * Fetch workers hand edges over through a bounded queue and return to crawling straight away.
+ * A small pool of writer threads drains the queue into batches, closing a batch once it reaches
+ * {@code batchSize} edges or its oldest edge has waited {@code maxBatchDelayMillis}, and writes
+ * each batch with a single {@code UNWIND} query, or one per relationship type if the batch
+ * holds both. A batch that fails is retried after {@code retryBackoffMillis}, doubled for each
+ * further attempt. When Neo4j falls behind the queue fills up and {@link #submit} blocks, which
+ * slows the fetchers down instead of growing the heap.
+ * <p>
+ * Pages and links the queries create are marked {@code pending} until the next PageRank pass
+ * has taken them in. Edges submitted for a crawl job add the job's id to the {@code crawls} list
+ * of both pages and of the link, so the graph of each job can be told apart while the
+ * {@code url} of a page stays unique across jobs.
+ */
+@Component
+public class LinkGraphWriter implements GraphSink {
+
+    private static final Logger logger = LogManager.getLogger(LinkGraphWriter.class);
+
+    static final String MERGE_EDGES_QUERY = """
+            UNWIND $edges AS e
+            MERGE (u1:Page {url: e.from})
+              ON CREATE SET u1.pending = true
+            MERGE (u2:Page {url: e.to})
+              ON CREATE SET u2.pending = true
+            MERGE (u1)-[r:LINKS_TO]->(u2)
+              ON CREATE SET r.pending = true
+            FOREACH (p IN CASE WHEN e.crawl IS NULL THEN [] ELSE [u1, u2] END |
+              SET p.crawls = CASE WHEN e.crawl IN coalesce(p.crawls, []) THEN p.crawls ELSE coalesce(p.crawls, []) + e.crawl END)
+            FOREACH (l IN CASE WHEN e.crawl IS NULL THEN [] ELSE [r] END |
+              SET l.crawls = CASE WHEN e.crawl IN coalesce(l.crawls, []) THEN l.crawls ELSE coalesce(l.crawls, []) + e.crawl END)
+            """;
+
+    static final String MERGE_DUPLICATES_QUERY = """
+            UNWIND $edges AS e
+            MERGE (u1:Page {url: e.from})
+              ON CREATE SET u1.pending = true
+            MERGE (u2:Page {url: e.to})
+              ON CREATE SET u2.pending = true
+            MERGE (u1)-[:DUPLICATE_OF]->(u2)
+            FOREACH (p IN CASE WHEN e.crawl IS NULL THEN [] ELSE [u1, u2] END |
+              SET p.crawls = CASE WHEN e.crawl IN coalesce(p.crawls, []) THEN p.crawls ELSE coalesce(p.crawls, []) + e.crawl END)
+            """;
+
+    /** Key that marks a queued edge as {@code DUPLICATE_OF}; it is ignored by the query. */
+    private static final String DUPLICATE = "duplicate";
+    /** Key of the crawl job that found a queued edge; edges without it are not tagged. */
+    private static final String CRAWL = "crawl";
+
+    private final Neo4jClient neo4jClient;
+    private final CrawlerProperties.GraphWriter config;
+    private final CrawlMetrics crawlMetrics;
+    private final BlockingQueue<Map<String, Object>> queue;
+    private final List<Thread> writers = new ArrayList<>();
+    private final Object flushMonitor = new Object();
+    private final AtomicLong pendingEdges = new AtomicLong();
+    private volatile boolean running = true;
+
+    private final LongAdder batchesWritten = new LongAdder();
+    private final LongAdder edgesWritten = new LongAdder();
+    private final LongAdder edgesFailed = new LongAdder();
+    private final LongAdder flushNanosTotal = new LongAdder();
+    private final LongAccumulator flushNanosMax = new LongAccumulator(Long::max, 0);
+    private final AtomicInteger lastBatchSize = new AtomicInteger();
+
+    @Autowired
+    public LinkGraphWriter(Neo4jClient neo4jClient, CrawlerProperties properties, CrawlMetrics crawlMetrics) {
+        this(neo4jClient, properties.getGraphWriter(), crawlMetrics);
+    }
+
+    public LinkGraphWriter(Neo4jClient neo4jClient, CrawlerProperties.GraphWriter config, CrawlMetrics crawlMetrics) {
+        this.neo4jClient = neo4jClient;
+        this.config = config;
+        this.crawlMetrics = crawlMetrics;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        crawlMetrics.gauge("crawler.graph.queue.depth", "Links waiting to be written to Neo4j", queue, BlockingQueue::size);
+        for (int i = 0; i < config.getWriterThreads(); i++) {
+            Thread writer = new Thread(this::writeLoop, "graph-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * Queues the edge {@code fromUrl -> toUrl}, blocking while the queue is full.
+     */
+    @Override
+    public void submit(String fromUrl, String toUrl) throws InterruptedException {
+        enqueue(Map.of("from", fromUrl, "to", toUrl));
+    }
+
+    @Override
+    public void submitDuplicate(String url, String originalUrl) throws InterruptedException {
+        enqueue(Map.of("from", url, "to", originalUrl, DUPLICATE, true));
+    }
+
+    @Override
+    public void submit(String crawl, String fromUrl, String toUrl) throws InterruptedException {
+        enqueue(Map.of("from", fromUrl, "to", toUrl, CRAWL, crawl));
+    }
+
+    @Override
+    public void submitDuplicate(String crawl, String url, String originalUrl) throws InterruptedException {
+        enqueue(Map.of("from", url, "to", originalUrl, DUPLICATE, true, CRAWL, crawl));
+    }
+
+    /**
+     * Blocks until every edge submitted so far has been written (or dropped after failing).
+     */
+    @Override
+    public void flush() throws InterruptedException {
+        synchronized (flushMonitor) {
+            while (pendingEdges.get() > 0) {
+                flushMonitor.wait(config.getMaxBatchDelayMillis());
+            }
+        }
+    }
+
+    public GraphWriterStats getStats() {
+        long batches = batchesWritten.sum();
+        long edges = edgesWritten.sum();
+        return new GraphWriterStats(
+                batches,
+                edges,
+                edgesFailed.sum(),
+                queue.size(),
+                lastBatchSize.get(),
+                batches == 0 ? 0 : (double) edges / batches,
+                batches == 0 ? 0 : flushNanosTotal.sum() / 1_000_000.0 / batches,
+                flushNanosMax.get() / 1_000_000.0);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        writers.forEach(Thread::interrupt);
+    }
+
+    private void writeLoop() {
+        List<Map<String, Object>> batch = new ArrayList<>(config.getBatchSize());
+        while (running) {
+            try {
+                Map<String, Object> first = queue.poll(config.getMaxBatchDelayMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (!batch.isEmpty()) {
+                    edgeDone(batch.size());
+                    batch.clear();
+                }
+            }
+        }
+    }
+
+    private void fillBatch(List<Map<String, Object>> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchDelayMillis());
+        while (batch.size() < config.getBatchSize()) {
+            queue.drainTo(batch, config.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= config.getBatchSize() || remaining <= 0) {
+                return;
+            }
+            Map<String, Object> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void enqueue(Map<String, Object> edge) throws InterruptedException {
+        pendingEdges.incrementAndGet();
+        try {
+            queue.put(edge);
+        } catch (InterruptedException e) {
+            edgeDone(1);
+            throw e;
+        }
+    }
+
+    private void writeBatch(List<Map<String, Object>> batch) throws InterruptedException {
+        int duplicates = 0;
+        for (Map<String, Object> edge : batch) {
+            if (edge.containsKey(DUPLICATE)) {
+                duplicates++;
+            }
+        }
+        if (duplicates == 0) {
+            writeBatch(MERGE_EDGES_QUERY, batch);
+            return;
+        }
+        List<Map<String, Object>> links = new ArrayList<>(batch.size() - duplicates);
+        List<Map<String, Object>> duplicateOf = new ArrayList<>(duplicates);
+        for (Map<String, Object> edge : batch) {
+            if (edge.containsKey(DUPLICATE)) {
+                duplicateOf.add(edge);
+            } else {
+                links.add(edge);
+            }
+        }
+        if (!links.isEmpty()) {
+            writeBatch(MERGE_EDGES_QUERY, links);
+        }
+        writeBatch(MERGE_DUPLICATES_QUERY, duplicateOf);
+    }
+
+    /**
+     * Writes one batch, retrying with exponential backoff so that a deadlock or a short outage
+     * has time to clear before the batch is given up.
+     */
+    private void writeBatch(String query, List<Map<String, Object>> batch) throws InterruptedException {
+        for (int attempt = 1; attempt <= config.getMaxAttempts(); attempt++) {
+            if (attempt > 1) {
+                TimeUnit.MILLISECONDS.sleep(config.getRetryBackoffMillis() << (attempt - 2));
+            }
+            long start = System.nanoTime();
+            try {
+                neo4jClient.query(query)
+                        .bind(batch).to("edges")
+                        .run();
+                long elapsed = System.nanoTime() - start;
+                batchesWritten.increment();
+                edgesWritten.add(batch.size());
+                flushNanosTotal.add(elapsed);
+                flushNanosMax.accumulate(elapsed);
+                lastBatchSize.set(batch.size());
+                crawlMetrics.recordGraphWrite(batch.size(), elapsed);
+                logger.debug("Wrote batch of {} edges to Neo4j in {} ms", batch.size(), elapsed / 1_000_000);
+                return;
+            } catch (Exception e) {
+                crawlMetrics.recordError("graph-write", e);
+                logger.warn("Failed to write batch of " + batch.size() + " edges (attempt " + attempt + ")", e);
+            }
+        }
+        edgesFailed.add(batch.size());
+        logger.error("Dropped batch of {} edges after {} attempts", batch.size(), config.getMaxAttempts());
+    }
+
+    private void edgeDone(int count) {
+        if (pendingEdges.addAndGet(-count) <= 0) {
+            synchronized (flushMonitor) {
+                flushMonitor.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,391 @@
+package com.algo.finalproject.webcrawler.service.graph;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * {@link GraphSink} that keeps the link graph in local files while the crawl runs and exports it
+ * to Neo4j afterwards.
+ * <p>
+ * Every URL is interned to an int id in a {@link UrlDictionary} the first time it is seen and
+ * appended to {@code nodes.bin} as {@code [int length][UTF-8 url]}; the id is the URL's position
+ * in that file, starting at 1. An edge is the pair {@code [int from][int to]} written into a
+ * memory-mapped segment file of {@code segmentBytes}, so appending one costs a hash lookup and
+ * two stores into the page cache. Segments are preallocated sparse files; node ids start at 1 so
+ * that the zero-filled tail of a segment marks its end, also after a crash. A store reopened
+ * after a restart keeps its segments and continues in a new one, which is what a resumed crawl
+ * needs; edges whose nodes did not reach {@code nodes.bin} before a crash are skipped on export.
+ * <p>
+ * The store is append-only, so the same link may be stored more than once. Exporting reads all
+ * edges into one sorted {@code long[]}, 8 bytes per edge, and skips the duplicates.
+ * {@code DUPLICATE_OF} edges of near-duplicate pages are few, so they are simply appended to
+ * {@code duplicates.bin} as id pairs and exported after the links.
+ */
+public class LocalEdgeStore implements GraphSink {
+
+    private static final Logger logger = LogManager.getLogger(LocalEdgeStore.class);
+    private static final String NODES_FILE = "nodes.bin";
+    private static final String DUPLICATES_FILE = "duplicates.bin";
+    private static final String SEGMENT_PREFIX = "edges-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+    private static final String EXPORT_DIRECTORY = "export";
+    private static final int EDGE_BYTES = Integer.BYTES * 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final GraphExportFormat exportAfterCrawl;
+    private final LinkGraphWriter neo4jWriter;
+
+    /** Dictionary id + 1 is the node id, so that 0 still ends a segment. */
+    private final UrlDictionary urls = new UrlDictionary();
+    private DataOutputStream nodesWriter;
+    private DataOutputStream duplicatesWriter;
+
+    private int segment;
+    private MappedByteBuffer edges;
+
+    public LocalEdgeStore(CrawlerProperties.Graph config, LinkGraphWriter neo4jWriter) throws IOException {
+        this.directory = Path.of(config.getDirectory());
+        this.segmentBytes = Math.max(EDGE_BYTES, config.getSegmentBytes() / EDGE_BYTES * EDGE_BYTES);
+        this.exportAfterCrawl = config.getExportAfterCrawl();
+        this.neo4jWriter = neo4jWriter;
+        Files.createDirectories(directory);
+        loadNodes();
+        openDuplicatesWriter();
+        List<Integer> existing = segments();
+        openSegment(existing.isEmpty() ? 0 : existing.get(existing.size() - 1) + 1);
+        logger.info("Opened local edge store in {} with {} pages", directory.toAbsolutePath(), urls.size());
+    }
+
+    @Override
+    public synchronized void submit(String fromUrl, String toUrl) {
+        int from = intern(fromUrl);
+        int to = intern(toUrl);
+        if (!edges.hasRemaining()) {
+            try {
+                openSegment(segment + 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to start edge segment " + (segment + 1), e);
+            }
+        }
+        edges.putInt(from);
+        edges.putInt(to);
+    }
+
+    @Override
+    public synchronized void submitDuplicate(String url, String originalUrl) {
+        int from = intern(url);
+        int to = intern(originalUrl);
+        try {
+            duplicatesWriter.writeInt(from);
+            duplicatesWriter.writeInt(to);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + DUPLICATES_FILE, e);
+        }
+    }
+
+    /**
+     * Forces the current segment and the node file to disk.
+     */
+    @Override
+    public synchronized void flush() {
+        edges.force();
+        try {
+            nodesWriter.flush();
+            duplicatesWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to flush " + NODES_FILE + " or " + DUPLICATES_FILE, e);
+        }
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        nodesWriter.close();
+        duplicatesWriter.close();
+        edges = null;
+        urls.clear();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (!Files.isDirectory(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        openNodesWriter();
+        openDuplicatesWriter();
+        openSegment(0);
+    }
+
+    /**
+     * Exports the graph as configured by {@code crawler.graph.export-after-crawl}.
+     */
+    @Override
+    public boolean crawlCompleted() {
+        if (exportAfterCrawl == GraphExportFormat.NONE) {
+            return false;
+        }
+        try {
+            GraphExportStats stats = export(exportAfterCrawl);
+            logger.info("Exported {} pages, {} links and {} near-duplicates as {} in {} ms", stats.pages(),
+                    stats.edges(), stats.duplicatePages(), stats.format(), stats.exportMillis());
+            return exportAfterCrawl == GraphExportFormat.UNWIND;
+        } catch (IOException e) {
+            logger.error("Failed to export local edge store", e);
+            return false;
+        } catch (InterruptedException e) {
+            logger.error("Interrupted while exporting local edge store", e);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Writes every distinct edge, then the {@code DUPLICATE_OF} edges, either to Neo4j or to CSV
+     * files for {@code neo4j-admin}.
+     */
+    public synchronized GraphExportStats export(GraphExportFormat format) throws IOException, InterruptedException {
+        if (format == GraphExportFormat.NONE) {
+            throw new IllegalArgumentException("No export format given");
+        }
+        long start = System.currentTimeMillis();
+        flush();
+        long[] sorted = readEdges();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        long[] duplicates = readDuplicates();
+        String location = null;
+        if (format == GraphExportFormat.UNWIND) {
+            for (int i = 0; i < distinct; i++) {
+                neo4jWriter.submit(url(from(sorted[i])), url(to(sorted[i])));
+            }
+            for (long duplicate : duplicates) {
+                neo4jWriter.submitDuplicate(url(from(duplicate)), url(to(duplicate)));
+            }
+            neo4jWriter.flush();
+        } else {
+            Path exportDirectory = directory.resolve(EXPORT_DIRECTORY);
+            writeCsv(exportDirectory, sorted, distinct, duplicates);
+            location = exportDirectory.toAbsolutePath().toString();
+        }
+        return new GraphExportStats(format, urls.size(), distinct, sorted.length - distinct, duplicates.length,
+                System.currentTimeMillis() - start, location);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        edges.force();
+        nodesWriter.close();
+        duplicatesWriter.close();
+    }
+
+    private int intern(String url) {
+        int next = urls.size();
+        int id = urls.intern(url);
+        if (id < next) {
+            return id + 1;
+        }
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        try {
+            nodesWriter.writeInt(bytes.length);
+            nodesWriter.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to " + NODES_FILE, e);
+        }
+        return id + 1;
+    }
+
+    private String url(int id) {
+        return urls.url(id - 1);
+    }
+
+    private static int from(long edge) {
+        return (int) (edge >>> 32);
+    }
+
+    private static int to(long edge) {
+        return (int) edge;
+    }
+
+    /**
+     * Reads the edges of all segments, each packed into a long that sorts by source first.
+     */
+    private long[] readEdges() throws IOException {
+        long[] edgeKeys = new long[1024];
+        int count = 0;
+        long dangling = 0;
+        int pages = urls.size();
+        for (int existing : segments()) {
+            try (FileChannel channel = FileChannel.open(segmentPath(existing), StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                while (buffer.remaining() >= EDGE_BYTES) {
+                    int from = buffer.getInt();
+                    int to = buffer.getInt();
+                    if (from == 0) {
+                        break;
+                    }
+                    if (from > pages || to > pages) {
+                        dangling++;
+                        continue;
+                    }
+                    if (count == edgeKeys.length) {
+                        edgeKeys = Arrays.copyOf(edgeKeys, count * 2);
+                    }
+                    edgeKeys[count++] = ((long) from << 32) | to;
+                }
+            }
+        }
+        if (dangling > 0) {
+            logger.warn("Skipped {} edges to pages missing from {}", dangling, NODES_FILE);
+        }
+        return Arrays.copyOf(edgeKeys, count);
+    }
+
+    /**
+     * Reads the distinct {@code DUPLICATE_OF} edges, packed like the links; a record torn by a
+     * crash or naming pages missing from {@code nodes.bin} is skipped.
+     */
+    private long[] readDuplicates() throws IOException {
+        Path file = directory.resolve(DUPLICATES_FILE);
+        if (!Files.exists(file)) {
+            return new long[0];
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] duplicates = new long[bytes.length / EDGE_BYTES];
+        int count = 0;
+        int pages = urls.size();
+        while (buffer.remaining() >= EDGE_BYTES) {
+            int from = buffer.getInt();
+            int to = buffer.getInt();
+            if (from <= pages && to <= pages) {
+                duplicates[count++] = ((long) from << 32) | to;
+            }
+        }
+        return Arrays.stream(duplicates, 0, count).sorted().distinct().toArray();
+    }
+
+    private void writeCsv(Path exportDirectory, long[] sorted, int distinct, long[] duplicates) throws IOException {
+        Files.createDirectories(exportDirectory);
+        try (Writer out = Files.newBufferedWriter(exportDirectory.resolve("pages.csv"), StandardCharsets.UTF_8)) {
+            out.write("url:ID(Page),:LABEL\n");
+            for (int id = 0, pages = urls.size(); id < pages; id++) {
+                out.write(quote(urls.url(id)));
+                out.write(",Page\n");
+            }
+        }
+        try (Writer out = Files.newBufferedWriter(exportDirectory.resolve("links.csv"), StandardCharsets.UTF_8)) {
+            out.write(":START_ID(Page),:END_ID(Page),:TYPE\n");
+            for (int i = 0; i < distinct; i++) {
+                out.write(quote(url(from(sorted[i]))));
+                out.write(',');
+                out.write(quote(url(to(sorted[i]))));
+                out.write(",LINKS_TO\n");
+            }
+            for (long duplicate : duplicates) {
+                out.write(quote(url(from(duplicate))));
+                out.write(',');
+                out.write(quote(url(to(duplicate))));
+                out.write(",DUPLICATE_OF\n");
+            }
+        }
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Reads the interned URLs back, then cuts off a torn record left at the end by a crash.
+     */
+    private void loadNodes() throws IOException {
+        Path nodes = directory.resolve(NODES_FILE);
+        if (Files.exists(nodes)) {
+            long validBytes = 0;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(nodes), BUFFER_SIZE))) {
+                while (true) {
+                    int length = in.readInt();
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    urls.add(new String(bytes, StandardCharsets.UTF_8));
+                    validBytes += Integer.BYTES + length;
+                }
+            } catch (EOFException e) {
+                // End of the file, possibly in the middle of a torn record
+            }
+            try (FileChannel channel = FileChannel.open(nodes, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+            }
+        }
+        openNodesWriter();
+    }
+
+    private void openNodesWriter() throws IOException {
+        FileOutputStream file = new FileOutputStream(directory.resolve(NODES_FILE).toFile(), true);
+        nodesWriter = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+    }
+
+    private void openDuplicatesWriter() throws IOException {
+        FileOutputStream file = new FileOutputStream(directory.resolve(DUPLICATES_FILE).toFile(), true);
+        duplicatesWriter = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+    }
+
+    private void openSegment(int next) throws IOException {
+        if (edges != null) {
+            edges.force();
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(next),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            edges = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment = next;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private List<Integer> segments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(),
+                        name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        segments.sort(Comparator.naturalOrder());
+        return segments;
+    }
+}
@@ -0,0 +1,271 @@
+package com.algo.finalproject.webcrawler.service.job;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.dedup.NearDuplicateIndex;
+import com.algo.finalproject.webcrawler.service.frontier.HostSlots;
+import com.algo.finalproject.webcrawler.service.frontier.PersistentFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.UrlDepthPair;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStore;
+import lombok.Getter;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One crawl started by {@code /crawl/start}, with its own frontier, seen URLs, near-duplicate
+ * index and depth limit. Its pages and links are tagged with its id in the graph. Jobs running
+ * side by side share the crawler's fetch slots, parse threads and caches, so a job only ever
+ * holds what it needs to decide which of its pages to fetch next. That includes the slots and
+ * delays of each host, so jobs crawling the same host are as polite together as one job.
+ * <p>
+ * With persistence enabled the frontier lives in a subdirectory of {@code persistence.directory}
+ * named after the job, so each stopped job can be resumed on its own.
+ */
+public class CrawlJob {
+
+    private static final Logger logger = LogManager.getLogger(CrawlJob.class);
+    private static final Pattern ID = Pattern.compile("[A-Za-z0-9-]+");
+
+    @Getter
+    private final String id;
+    private final List<String> seeds;
+    @Getter
+    private volatile int maxDepth;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private volatile Instant finishedAt;
+    private volatile long endNanos;
+    /** Size of the seen-URL store when the job ended and the store was emptied, -1 before. */
+    private volatile long visitedAtEnd = -1;
+    private volatile CrawlJobState state = CrawlJobState.RUNNING;
+
+    private final Path directory;
+    private final boolean persistent;
+    @Getter
+    private final PersistentFrontier frontier;
+    @Getter
+    private final SeenUrlStore visitedUrls;
+    @Getter
+    private final NearDuplicateIndex nearDuplicates;
+
+    /** Pages dispatched and not yet completely processed, and seed hosts whose sitemaps are being read. */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object inFlightMonitor = new Object();
+    @Getter
+    private volatile boolean stopRequested;
+    @Getter
+    private volatile boolean cancelRequested;
+    /** Set when the coordinator has found every instance of the cluster idle. */
+    @Getter
+    private volatile boolean finishRequested;
+    /** Whether links forwarded by other instances can be queued in the frontier. */
+    @Getter
+    private volatile boolean acceptingLinks;
+
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder links = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder nearDuplicatePages = new LongAdder();
+    private final LongAdder robotsDisallowed = new LongAdder();
+
+    public CrawlJob(String id, List<String> seeds, int maxDepth, SeenUrlStore visitedUrls, HostSlots hostSlots,
+                    CrawlerProperties properties) {
+        this.id = id;
+        this.seeds = List.copyOf(seeds);
+        this.maxDepth = maxDepth;
+        this.directory = directory(properties, id);
+        this.persistent = properties.getPersistence().isEnabled();
+        this.frontier = new PersistentFrontier(UrlDepthPair.BY_PRIORITY, properties, directory, hostSlots);
+        this.visitedUrls = visitedUrls;
+        CrawlerProperties.Dedup dedup = properties.getDedup();
+        this.nearDuplicates = new NearDuplicateIndex(dedup.getMaxDistance(), dedup.getMaxPages());
+    }
+
+    /**
+     * Directory of the saved state of job {@code id}.
+     */
+    public static Path directory(CrawlerProperties properties, String id) {
+        return Path.of(properties.getPersistence().getDirectory()).resolve(id);
+    }
+
+    /**
+     * Deletes the saved state of job {@code id}, which is not running. Returns {@code false} if
+     * there was none, or if {@code id} could not name a job directory.
+     */
+    public static boolean discard(CrawlerProperties properties, String id) {
+        if (!properties.getPersistence().isEnabled() || !ID.matcher(id).matches()) {
+            return false;
+        }
+        Path directory = directory(properties, id);
+        try {
+            return PersistentFrontier.delete(directory);
+        } catch (IOException e) {
+            logger.error("Failed to delete crawl job directory " + directory.toAbsolutePath(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Starts the job with an empty frontier.
+     */
+    public void start() throws IOException {
+        frontier.start(maxDepth);
+        acceptingLinks = true;
+    }
+
+    /**
+     * Continues the job from its last checkpoint, with the depth limit and visited URLs it saved.
+     */
+    public void resume() throws IOException {
+        visitedUrls.clear();
+        maxDepth = frontier.resume(visitedUrls::add);
+        acceptingLinks = true;
+    }
+
+    /**
+     * Stops dispatching; the pages in flight finish and the frontier is kept for a resume.
+     */
+    public void requestStop() {
+        stopRequested = true;
+        state = CrawlJobState.STOPPING;
+        frontier.wakeUp();
+    }
+
+    /**
+     * Stops dispatching like {@link #requestStop}, but the frontier is discarded at the end. A job
+     * that already ended stopped has its frontier discarded now. Returns {@code false} if the job
+     * completed, so there is nothing left to cancel.
+     */
+    public synchronized boolean requestCancel() {
+        if (state == CrawlJobState.COMPLETED) {
+            return false;
+        }
+        cancelRequested = true;
+        if (state.isActive()) {
+            requestStop();
+        } else if (state == CrawlJobState.STOPPED) {
+            discardFrontier();
+            state = CrawlJobState.CANCELLED;
+        }
+        return true;
+    }
+
+    public void requestFinish() {
+        finishRequested = true;
+        frontier.wakeUp();
+    }
+
+    /**
+     * Ends the job once its pages in flight are done. A job that was stopped keeps its frontier
+     * so that it can be resumed; otherwise the frontier and its directory are deleted. The seen
+     * URLs are freed either way: a resume reads them back from the frontier's checkpoint.
+     */
+    public synchronized void end() {
+        acceptingLinks = false;
+        if (stopRequested && !cancelRequested) {
+            frontier.stop();
+        } else {
+            discardFrontier();
+        }
+        visitedAtEnd = visitedUrls.size();
+        visitedUrls.clear();
+        endNanos = System.nanoTime();
+        finishedAt = Instant.now();
+        state = cancelRequested ? CrawlJobState.CANCELLED
+                : stopRequested ? CrawlJobState.STOPPED
+                : CrawlJobState.COMPLETED;
+    }
+
+    private void discardFrontier() {
+        frontier.finish();
+        if (persistent) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                logger.error("Failed to delete crawl job directory " + directory.toAbsolutePath(), e);
+            }
+        }
+    }
+
+    public void pageStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    public void pageDone() {
+        if (inFlight.decrementAndGet() == 0) {
+            frontier.wakeUp();
+            synchronized (inFlightMonitor) {
+                inFlightMonitor.notifyAll();
+            }
+        }
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public void awaitInFlight() throws InterruptedException {
+        synchronized (inFlightMonitor) {
+            while (inFlight.get() > 0) {
+                inFlightMonitor.wait();
+            }
+        }
+    }
+
+    /**
+     * No page of the job in flight and nothing queued.
+     */
+    public boolean isIdle() {
+        return inFlight.get() == 0 && frontier.isEmpty();
+    }
+
+    public CrawlJobState state() {
+        return state;
+    }
+
+    public void recordPage() {
+        pages.increment();
+    }
+
+    public void recordLink() {
+        links.increment();
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public void recordRetry() {
+        retries.increment();
+    }
+
+    public void recordNearDuplicate() {
+        nearDuplicatePages.increment();
+    }
+
+    public void recordRobotsDisallowed() {
+        robotsDisallowed.increment();
+    }
+
+    public CrawlJobStatus status() {
+        return new CrawlJobStatus(id, state, seeds, maxDepth, startedAt, finishedAt);
+    }
+
+    public CrawlJobStats stats() {
+        long processed = pages.sum();
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        double seconds = (end - startNanos) / 1e9;
+        return new CrawlJobStats(processed, seconds > 0 ? processed / seconds : 0, links.sum(),
+                frontier.size(), visitedAtEnd >= 0 ? visitedAtEnd : visitedUrls.size(), inFlight.get(), errors.sum(), retries.sum(),
+                nearDuplicatePages.sum(), robotsDisallowed.sum());
+    }
+}
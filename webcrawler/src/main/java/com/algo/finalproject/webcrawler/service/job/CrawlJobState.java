@@ -0,0 +1,21 @@
+package com.algo.finalproject.webcrawler.service.job;
+
+/**
+ * Life cycle of a {@link CrawlJob}.
+ */
+public enum CrawlJobState {
+    /** Dispatching pages. */
+    RUNNING,
+    /** Stopped or cancelled, waiting for the pages in flight. */
+    STOPPING,
+    /** Ran out of pages within its depth limit. */
+    COMPLETED,
+    /** Stopped early; with persistence its frontier is kept for {@code /crawl/resume}. */
+    STOPPED,
+    /** Cancelled; its frontier is discarded, the pages it found stay in the graph. */
+    CANCELLED;
+
+    public boolean isActive() {
+        return this == RUNNING || this == STOPPING;
+    }
+}
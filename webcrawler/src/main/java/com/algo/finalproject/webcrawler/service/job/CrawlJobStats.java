@@ -0,0 +1,26 @@
+package com.algo.finalproject.webcrawler.service.job;
+
+/**
+ * Progress of one crawl job; the crawler-wide view is {@code /crawl/stats}.
+ *
+ * @param pagesPerSecond   pages processed per second since the job started, until it ended
+ * @param links            links of the job's pages recorded in the graph
+ * @param frontierSize     entries of the job waiting in memory
+ * @param seenUrls         URLs the job fetched or claimed for fetching
+ * @param inFlight         pages of the job being fetched or processed
+ * @param errors           failed fetches, parses and graph writes
+ * @param retries          fetches queued again after the host declined or timed out
+ * @param nearDuplicates   pages whose links were skipped as near-duplicates of an earlier page of the job
+ * @param robotsDisallowed URLs skipped because robots.txt disallows them
+ */
+public record CrawlJobStats(long pagesProcessed,
+                            double pagesPerSecond,
+                            long links,
+                            long frontierSize,
+                            long seenUrls,
+                            long inFlight,
+                            long errors,
+                            long retries,
+                            long nearDuplicates,
+                            long robotsDisallowed) {
+}
@@ -0,0 +1,22 @@
+package com.algo.finalproject.webcrawler.service.job;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a crawl job was started with and where it is in its life cycle.
+ *
+ * @param seeds      canonical seed URLs; empty for a job resumed from its checkpoint
+ * @param finishedAt when the job ended, {@code null} while it is active
+ */
+public record CrawlJobStatus(String id,
+                             CrawlJobState state,
+                             List<String> seeds,
+                             int maxDepth,
+                             Instant startedAt,
+                             Instant finishedAt) {
+
+    public CrawlJobStatus withState(CrawlJobState state) {
+        return new CrawlJobStatus(id, state, seeds, maxDepth, startedAt, finishedAt);
+    }
+}
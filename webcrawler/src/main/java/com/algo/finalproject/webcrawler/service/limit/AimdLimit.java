@@ -0,0 +1,76 @@
+package com.algo.finalproject.webcrawler.service.limit;
+
+/**
+ * Concurrency limit adjusted by additive increase and multiplicative decrease, as in TCP.
+ * <p>
+ * Every successful request raises the limit by {@code 1/limit}, so a full window of successes
+ * raises it by one. A request slower than {@code tolerance} times the lowest latency seen means
+ * that requests queue up at the server and lowers the limit a little, as in TCP Vegas. An
+ * overload signal such as a 429, a 503 or a timeout cuts it by {@code backoffRatio}, at most once
+ * per window so that one burst of failures does not collapse it to the minimum.
+ * Not thread-safe.
+ */
+public class AimdLimit {
+
+    private static final double LATENCY_DECREASE = 0.95;
+    /** Share of the gap by which the baseline moves up to a slower latency, so it follows a host that got slower. */
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final double backoffRatio;
+    private double limit;
+    private double baselineNanos;
+    private double successesSinceDecrease;
+
+    public AimdLimit(int initial, int min, int max, double tolerance, double backoffRatio) {
+        this.min = Math.max(1, min);
+        this.max = Math.max(this.min, max);
+        this.tolerance = tolerance;
+        this.backoffRatio = backoffRatio;
+        this.limit = clamp(initial);
+        this.successesSinceDecrease = this.limit;
+    }
+
+    /**
+     * Records a request that succeeded without a latency to compare.
+     */
+    public void onSuccess() {
+        successesSinceDecrease++;
+        limit = clamp(limit + 1 / limit);
+    }
+
+    /**
+     * Records a request that succeeded with the given, preferably smoothed, latency.
+     */
+    public void onSuccess(long latencyNanos) {
+        successesSinceDecrease++;
+        if (baselineNanos == 0 || latencyNanos < baselineNanos) {
+            baselineNanos = latencyNanos;
+        } else {
+            baselineNanos += (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+        }
+        if (latencyNanos > tolerance * baselineNanos) {
+            limit = clamp(limit * LATENCY_DECREASE);
+        } else {
+            limit = clamp(limit + 1 / limit);
+        }
+    }
+
+    public void onOverload() {
+        if (successesSinceDecrease < limit) {
+            return;
+        }
+        successesSinceDecrease = 0;
+        limit = clamp(limit * backoffRatio);
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
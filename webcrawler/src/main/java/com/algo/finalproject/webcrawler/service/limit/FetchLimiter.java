@@ -0,0 +1,261 @@
+package com.algo.finalproject.webcrawler.service.limit;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.fetch.FetchStatusException;
+
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Adapts how many fetches run at once, overall and per host, and how long each may take.
+ * <p>
+ * Each host has an {@link AimdLimit} fed with its smoothed latency, which the crawler applies
+ * as the host's fetch slots in every job. It starts at {@code frontier.maxRequestsPerHost}, which stays the
+ * ceiling so that adapting never makes the crawler less polite than configured: hosts that slow
+ * down, rate-limit or time out shrink towards one, and grow back once they recover. The overall
+ * number of fetches in flight is an {@link AimdLimit} too, between {@code minInFlight} and
+ * {@code fetch.maxInFlight}, cut only by timeouts and connection failures, which are the
+ * overload signals that are not host-specific.
+ * A host's fetch timeout follows its latency, see {@link LatencyEstimator}, and doubles after
+ * each timeout until the next success. Failed fetches are retried after the delay of the
+ * server's {@code Retry-After} or an exponential, jittered backoff.
+ * <p>
+ * Fetch slots are handed out in the order they were asked for, so the dispatchers of crawl jobs
+ * running side by side take turns instead of the one that just got a slot taking the next too.
+ * <p>
+ * With {@code adaptive} off the limits and the timeout stay at their configured values, and
+ * only the retries remain.
+ */
+public class FetchLimiter {
+
+    private final CrawlerProperties.Limiter config;
+    private final int maxPerHost;
+    private final long maxTimeoutNanos;
+    private final long minTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** Threads waiting for a slot, in arrival order; only the head may take one. */
+    private final ArrayDeque<Condition> waiters = new ArrayDeque<>();
+    private final AimdLimit globalLimit;
+    private int inFlight;
+
+    private final ConcurrentHashMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public FetchLimiter(CrawlerProperties properties) {
+        this.config = properties.getLimiter();
+        int maxInFlight = properties.getFetch().getMaxInFlight();
+        this.maxPerHost = properties.getFrontier().getMaxRequestsPerHost();
+        this.maxTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFetch().getTimeoutMillis());
+        this.minTimeoutNanos = Math.min(maxTimeoutNanos, TimeUnit.MILLISECONDS.toNanos(config.getMinTimeoutMillis()));
+        this.globalLimit = new AimdLimit(maxInFlight, Math.min(config.getMinInFlight(), maxInFlight), maxInFlight,
+                Double.MAX_VALUE, config.getBackoffRatio());
+    }
+
+    /**
+     * Waits until fewer fetches than the current limit are in flight and every earlier caller has
+     * been served, then takes a slot.
+     */
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (waiters.isEmpty() && inFlight < globalLimit.limit()) {
+                inFlight++;
+                return;
+            }
+            Condition turn = lock.newCondition();
+            waiters.addLast(turn);
+            try {
+                while (waiters.peekFirst() != turn || inFlight >= globalLimit.limit()) {
+                    turn.await();
+                }
+            } finally {
+                waiters.remove(turn);
+                signalNext();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wakes the longest waiting caller; called with the lock held.
+     */
+    private void signalNext() {
+        Condition next = waiters.peekFirst();
+        if (next != null) {
+            next.signal();
+        }
+    }
+
+    /**
+     * Current limit on fetches in flight across all hosts.
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return globalLimit.limit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int maxRetries() {
+        return config.getMaxRetries();
+    }
+
+    public int timeoutMillis(String host) {
+        if (!config.isAdaptive()) {
+            return (int) TimeUnit.NANOSECONDS.toMillis(maxTimeoutNanos);
+        }
+        HostState state = host(host);
+        synchronized (state) {
+            long timeout = state.latency.timeoutNanos(minTimeoutNanos, maxTimeoutNanos) << state.timeoutBackoff;
+            return (int) TimeUnit.NANOSECONDS.toMillis(Math.min(maxTimeoutNanos, timeout));
+        }
+    }
+
+    /**
+     * Records a completed fetch of {@code host} and returns the host's new limit.
+     */
+    public int onSuccess(String host, long latencyNanos) {
+        if (!config.isAdaptive()) {
+            return maxPerHost;
+        }
+        HostState state = host(host);
+        int limit;
+        synchronized (state) {
+            state.latency.record(latencyNanos);
+            state.limit.onSuccess(state.latency.smoothedNanos());
+            state.timeoutBackoff = 0;
+            limit = state.limit.limit();
+        }
+        lock.lock();
+        try {
+            globalLimit.onSuccess();
+            signalNext();
+        } finally {
+            lock.unlock();
+        }
+        return limit;
+    }
+
+    /**
+     * Records a fetch of {@code host} that was declined or timed out and returns the host's new
+     * limit. Only a timeout also lowers the overall limit.
+     */
+    public int onOverload(String host, boolean timeout) {
+        if (!config.isAdaptive()) {
+            return maxPerHost;
+        }
+        HostState state = host(host);
+        int limit;
+        synchronized (state) {
+            state.limit.onOverload();
+            long timeoutNanos = state.latency.timeoutNanos(minTimeoutNanos, maxTimeoutNanos) << state.timeoutBackoff;
+            if (timeout && timeoutNanos < maxTimeoutNanos) {
+                state.timeoutBackoff++;
+            }
+            limit = state.limit.limit();
+        }
+        if (timeout) {
+            lock.lock();
+            try {
+                globalLimit.onOverload();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Delay before attempt {@code attempt} (1 for the first retry): the server's
+     * {@code Retry-After} if it sent one, otherwise half of the exponential backoff plus a random
+     * share of the other half, so that retries of many pages do not arrive together.
+     */
+    public long retryDelayMillis(long retryAfterMillis, int attempt) {
+        if (retryAfterMillis >= 0) {
+            return Math.min(config.getMaxRetryDelayMillis(), retryAfterMillis);
+        }
+        long backoff = Math.min(config.getMaxRetryDelayMillis(),
+                config.getRetryBaseDelayMillis() << Math.min(attempt - 1, 20));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    /**
+     * Whether a failed fetch is worth retrying: a 429 or a 503 from the server, or a timeout or
+     * refused connection.
+     */
+    public static boolean isOverload(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof FetchStatusException status ? status.isOverload() : isTimeout(cause);
+    }
+
+    public static boolean isTimeout(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof HttpTimeoutException || cause instanceof SocketTimeoutException
+                || cause instanceof ConnectException;
+    }
+
+    /**
+     * The status code of a declined fetch, or the type of its network error.
+     */
+    public static String overloadReason(Throwable error) {
+        Throwable cause = unwrap(error);
+        return cause instanceof FetchStatusException status
+                ? Integer.toString(status.getStatusCode())
+                : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * The {@code Retry-After} delay of a declined fetch, or -1.
+     */
+    public static long retryAfterMillis(Throwable error) {
+        return unwrap(error) instanceof FetchStatusException status ? status.getRetryAfterMillis() : -1;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException
+                || error instanceof UncheckedIOException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    private HostState host(String host) {
+        return hosts.computeIfAbsent(host, ignored -> new HostState(new AimdLimit(maxPerHost, 1, maxPerHost,
+                config.getLatencyTolerance(), config.getBackoffRatio())));
+    }
+
+    private static final class HostState {
+        final AimdLimit limit;
+        final LatencyEstimator latency = new LatencyEstimator();
+        /** Doublings of the timeout since the last success. */
+        int timeoutBackoff;
+
+        HostState(AimdLimit limit) {
+            this.limit = limit;
+        }
+    }
+}
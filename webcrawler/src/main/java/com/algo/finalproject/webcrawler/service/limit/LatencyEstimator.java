@@ -0,0 +1,47 @@
+package com.algo.finalproject.webcrawler.service.limit;
+
+/**
+ * Smoothed latency and its mean deviation, estimated like the TCP round-trip time (RFC 6298).
+ * The smoothed latency plus four deviations lies above nearly all latencies of a host, which
+ * makes it a timeout that adapts to the host without keeping a histogram per host.
+ * Not thread-safe.
+ */
+public class LatencyEstimator {
+
+    private static final double ALPHA = 0.125;
+    private static final double BETA = 0.25;
+
+    private double smoothedNanos;
+    private double deviationNanos;
+    private boolean sampled;
+
+    public void record(long latencyNanos) {
+        if (!sampled) {
+            smoothedNanos = latencyNanos;
+            deviationNanos = latencyNanos / 2.0;
+            sampled = true;
+            return;
+        }
+        deviationNanos = (1 - BETA) * deviationNanos + BETA * Math.abs(smoothedNanos - latencyNanos);
+        smoothedNanos = (1 - ALPHA) * smoothedNanos + ALPHA * latencyNanos;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    public long smoothedNanos() {
+        return (long) smoothedNanos;
+    }
+
+    /**
+     * The smoothed latency plus four deviations, within {@code [minNanos, maxNanos]}; {@code maxNanos}
+     * before the first sample.
+     */
+    public long timeoutNanos(long minNanos, long maxNanos) {
+        if (!sampled) {
+            return maxNanos;
+        }
+        return Math.max(minNanos, Math.min(maxNanos, (long) (smoothedNanos + 4 * deviationNanos)));
+    }
+}
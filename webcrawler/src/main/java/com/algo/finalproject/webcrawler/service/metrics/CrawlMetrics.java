@@ -0,0 +1,282 @@
+package com.algo.finalproject.webcrawler.service.metrics;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.frontier.HostFrontier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Micrometer meters of the crawl, exported through Spring Boot Actuator under {@code crawler.*}
+ * and summarised by {@link #getStats} for {@code GET /crawl/stats}.
+ * <p>
+ * Meters that are updated per page are created once and kept in fields, so recording costs a
+ * few atomic updates and no registry lookup. Fetch latency is recorded twice: once in an
+ * untagged timer with client-side percentiles, and once per host for the first
+ * {@code maxTaggedHosts} hosts, after which hosts share the {@code other} timer so that the
+ * number of time series stays bounded.
+ */
+@Component
+public class CrawlMetrics {
+
+    static final String OTHER_HOST = "other";
+    private static final int SLOWEST_HOSTS = 10;
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final int maxTaggedHosts;
+    private final boolean percentileHistograms;
+
+    private final Counter pages;
+    private final Counter[] responses = new Counter[6];
+    private final Counter robotsDisallowed;
+    private final Counter sitemapUrls;
+    private final Counter nearDuplicates;
+    private final Timer fetch;
+    private final ConcurrentHashMap<String, Timer> hostFetch = new ConcurrentHashMap<>();
+    private final Timer otherHostFetch;
+    private final Timer parse;
+    private final Timer semaphoreWait;
+    private final Timer graphWrite;
+    private final DistributionSummary graphBatchSize;
+
+    private volatile long crawlStartNanos;
+    private volatile long crawlEndNanos;
+    private volatile double pagesAtStart;
+
+    @Autowired
+    public CrawlMetrics(MeterRegistry registry, CrawlerProperties properties) {
+        this(registry, properties.getMetrics());
+    }
+
+    public CrawlMetrics(MeterRegistry registry, CrawlerProperties.Metrics config) {
+        this.registry = registry;
+        this.maxTaggedHosts = config.getMaxTaggedHosts();
+        this.percentileHistograms = config.isPercentileHistograms();
+        this.pages = Counter.builder("crawler.pages")
+                .description("Pages fetched and processed")
+                .register(registry);
+        for (int statusClass = 1; statusClass < responses.length; statusClass++) {
+            responses[statusClass] = Counter.builder("crawler.fetch.responses")
+                    .description("Fetched pages by HTTP status class")
+                    .tag("status", statusClass + "xx")
+                    .register(registry);
+        }
+        this.robotsDisallowed = Counter.builder("crawler.robots.disallowed")
+                .description("URLs skipped because robots.txt disallows them")
+                .register(registry);
+        this.sitemapUrls = Counter.builder("crawler.sitemap.urls")
+                .description("Pages queued from the sitemaps of the seed hosts")
+                .register(registry);
+        this.nearDuplicates = Counter.builder("crawler.pages.near.duplicate")
+                .description("Pages whose links were not followed because they nearly duplicate an earlier page")
+                .register(registry);
+        this.fetch = timer("crawler.fetch", "Time from sending a request to receiving the whole page");
+        this.otherHostFetch = hostTimer(OTHER_HOST);
+        this.parse = timer("crawler.parse", "Time spent extracting the links of a page");
+        this.semaphoreWait = timer("crawler.fetch.permit.wait", "Time the crawl loop waits for a free fetch slot");
+        this.graphWrite = timer("crawler.graph.write", "Time to write one batch of links to Neo4j");
+        this.graphBatchSize = DistributionSummary.builder("crawler.graph.batch.size")
+                .description("Links written to Neo4j per batch")
+                .baseUnit("links")
+                .register(registry);
+    }
+
+    /**
+     * Registers a gauge sampled from {@code source} whenever metrics are read.
+     */
+    public <T> void gauge(String name, String description, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value)
+                .description(description)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    public void crawlStarted() {
+        pagesAtStart = pages.count();
+        crawlStartNanos = System.nanoTime();
+        crawlEndNanos = 0;
+    }
+
+    public void crawlFinished() {
+        crawlEndNanos = System.nanoTime();
+    }
+
+    public void recordPage() {
+        pages.increment();
+    }
+
+    public void recordResponse(int statusCode) {
+        int statusClass = statusCode / 100;
+        if (statusClass > 0 && statusClass < responses.length) {
+            responses[statusClass].increment();
+        }
+    }
+
+    public void recordFetch(String url, long nanos) {
+        fetch.record(nanos, TimeUnit.NANOSECONDS);
+        String host = HostFrontier.hostOf(url);
+        Timer hostTimer = hostFetch.get(host);
+        if (hostTimer == null) {
+            hostTimer = hostFetch.size() < maxTaggedHosts
+                    ? hostFetch.computeIfAbsent(host, this::hostTimer)
+                    : otherHostFetch;
+        }
+        hostTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordParse(long nanos) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSemaphoreWait(long nanos) {
+        semaphoreWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordGraphWrite(int batchSize, long nanos) {
+        graphWrite.record(nanos, TimeUnit.NANOSECONDS);
+        graphBatchSize.record(batchSize);
+    }
+
+    /**
+     * Counts an error of the given crawl stage, tagged with the type of its underlying cause.
+     */
+    public void recordError(String stage, Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && error.getCause() != null) {
+            error = error.getCause();
+        }
+        registry.counter("crawler.errors", "stage", stage, "type", error.getClass().getSimpleName()).increment();
+    }
+
+    /**
+     * Counts a fetch that is tried again, tagged with the reason, e.g. {@code 429} or {@code timeout}.
+     */
+    public void recordRetry(String reason) {
+        registry.counter("crawler.fetch.retries", "reason", reason).increment();
+    }
+
+    public void recordRobotsDisallowed() {
+        robotsDisallowed.increment();
+    }
+
+    public void recordSitemapUrls(long count) {
+        sitemapUrls.increment(count);
+    }
+
+    public void recordNearDuplicate() {
+        nearDuplicates.increment();
+    }
+
+    public CrawlStats getStats(boolean crawlInProgress) {
+        double processed = pages.count();
+        long start = crawlStartNanos;
+        long end = crawlEndNanos != 0 ? crawlEndNanos : System.nanoTime();
+        double seconds = start == 0 ? 0 : (end - start) / 1e9;
+
+        Map<String, Long> responseCounts = new TreeMap<>();
+        for (int statusClass = 1; statusClass < responses.length; statusClass++) {
+            long count = (long) responses[statusClass].count();
+            if (count > 0) {
+                responseCounts.put(statusClass + "xx", count);
+            }
+        }
+        Map<String, Long> errorCounts = new TreeMap<>();
+        for (Counter counter : registry.find("crawler.errors").counters()) {
+            Meter.Id id = counter.getId();
+            errorCounts.merge(id.getTag("stage") + "/" + id.getTag("type"), (long) counter.count(), Long::sum);
+        }
+        Map<String, Long> retryCounts = new TreeMap<>();
+        for (Counter counter : registry.find("crawler.fetch.retries").counters()) {
+            retryCounts.merge(counter.getId().getTag("reason"), (long) counter.count(), Long::sum);
+        }
+        List<HostLatency> slowestHosts = Stream.concat(hostFetch.values().stream(), Stream.of(otherHostFetch))
+                .filter(timer -> timer.count() > 0)
+                .map(timer -> new HostLatency(timer.getId().getTag("host"), timer.count(),
+                        timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)))
+                .sorted(Comparator.comparingDouble(HostLatency::meanMillis).reversed())
+                .limit(SLOWEST_HOSTS)
+                .toList();
+
+        return new CrawlStats(
+                crawlInProgress,
+                (long) processed,
+                seconds <= 0 ? 0 : (processed - pagesAtStart) / seconds,
+                (long) gaugeValue("crawler.frontier.size"),
+                (long) gaugeValue("crawler.frontier.backlog.bytes"),
+                (long) gaugeValue("crawler.seen.urls"),
+                (long) gaugeValue("crawler.fetch.in.flight"),
+                (long) gaugeValue("crawler.fetch.limit"),
+                (long) gaugeValue("crawler.graph.queue.depth"),
+                timerStats(fetch),
+                timerStats(parse),
+                timerStats(semaphoreWait),
+                timerStats(graphWrite),
+                graphBatchSize.mean(),
+                responseCounts,
+                errorCounts,
+                retryCounts,
+                (long) robotsDisallowed.count(),
+                (long) sitemapUrls.count(),
+                (long) nearDuplicates.count(),
+                slowestHosts);
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(registry);
+    }
+
+    private Timer hostTimer(String host) {
+        return Timer.builder("crawler.fetch.host")
+                .description("Fetch latency per host")
+                .tag("host", host)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(registry);
+    }
+
+    private double gaugeValue(String name) {
+        Gauge gauge = registry.find(name).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private static TimerStats timerStats(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        double p50 = 0;
+        double p95 = 0;
+        double p99 = 0;
+        for (ValueAtPercentile value : snapshot.percentileValues()) {
+            double millis = value.value(TimeUnit.MILLISECONDS);
+            if (value.percentile() == 0.5) {
+                p50 = millis;
+            } else if (value.percentile() == 0.95) {
+                p95 = millis;
+            } else if (value.percentile() == 0.99) {
+                p99 = millis;
+            }
+        }
+        return new TimerStats(snapshot.count(), snapshot.mean(TimeUnit.MILLISECONDS), p50, p95, p99,
+                snapshot.max(TimeUnit.MILLISECONDS));
+    }
+}
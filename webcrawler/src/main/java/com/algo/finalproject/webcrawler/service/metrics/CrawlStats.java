@@ -0,0 +1,42 @@
+package com.algo.finalproject.webcrawler.service.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Live view of the crawl, read from the meters of {@link CrawlMetrics}.
+ *
+ * @param pagesPerSecond       pages processed per second since the current or last crawl started
+ * @param frontierSize         entries waiting in memory
+ * @param frontierBacklogBytes approximate size of the entries still on disk
+ * @param responses            fetched pages by status class, e.g. {@code 2xx}
+ * @param fetchLimit           current limit on fetches in flight, set by the adaptive limiter
+ * @param errors               errors keyed by {@code stage/ExceptionType}
+ * @param retries              retried fetches keyed by reason
+ * @param robotsDisallowed     URLs skipped because robots.txt disallows them
+ * @param sitemapUrls          pages queued from the sitemaps of the seed hosts
+ * @param nearDuplicates       pages whose links were skipped as near-duplicates of an earlier page
+ * @param slowestHosts         hosts with the highest mean fetch latency
+ */
+public record CrawlStats(boolean crawlInProgress,
+                         long pagesProcessed,
+                         double pagesPerSecond,
+                         long frontierSize,
+                         long frontierBacklogBytes,
+                         long seenUrls,
+                         long fetchesInFlight,
+                         long fetchLimit,
+                         long graphQueueDepth,
+                         TimerStats fetch,
+                         TimerStats parse,
+                         TimerStats semaphoreWait,
+                         TimerStats graphWrite,
+                         double averageGraphBatchSize,
+                         Map<String, Long> responses,
+                         Map<String, Long> errors,
+                         Map<String, Long> retries,
+                         long robotsDisallowed,
+                         long sitemapUrls,
+                         long nearDuplicates,
+                         List<HostLatency> slowestHosts) {
+}
@@ -0,0 +1,7 @@
+package com.algo.finalproject.webcrawler.service.metrics;
+
+/**
+ * Fetch latency of a single host, or of all hosts beyond the tagged ones under {@code other}.
+ */
+public record HostLatency(String host, long fetches, double meanMillis, double maxMillis) {
+}
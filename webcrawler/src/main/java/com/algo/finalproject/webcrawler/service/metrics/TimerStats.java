@@ -0,0 +1,13 @@
+package com.algo.finalproject.webcrawler.service.metrics;
+
+/**
+ * Summary of a latency timer. The count and mean cover the whole run; the percentiles and the
+ * maximum cover roughly the last two minutes.
+ */
+public record TimerStats(long count,
+                         double meanMillis,
+                         double p50Millis,
+                         double p95Millis,
+                         double p99Millis,
+                         double maxMillis) {
+}
@@ -0,0 +1,44 @@
+package com.algo.finalproject.webcrawler.service.parse;
+
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Parses the whole page into a Jsoup {@link Document} and selects its {@code a[href]} elements.
+ * Only the first {@code maxBytes} of the body are parsed and at most {@code maxLinks} links emitted.
+ */
+public class DomLinkExtractor implements LinkExtractor {
+
+    private final int maxBytes;
+    private final int maxLinks;
+
+    public DomLinkExtractor(int maxBytes, int maxLinks) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : Integer.MAX_VALUE;
+        this.maxLinks = maxLinks > 0 ? maxLinks : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void extract(FetchedPage page, Consumer<String> links, SimHash text) throws IOException {
+        byte[] body = page.body();
+        // A null charset makes Jsoup detect it from the BOM or <meta charset>
+        Document doc = Jsoup.parse(new ByteArrayInputStream(body, 0, Math.min(body.length, maxBytes)),
+                page.charset(), page.url());
+        if (text != null) {
+            text.append(doc.body().text());
+        }
+        int emitted = 0;
+        for (Element link : doc.select("a[href]")) {
+            if (emitted++ == maxLinks) {
+                return;
+            }
+            links.accept(link.absUrl("href"));
+        }
+    }
+}
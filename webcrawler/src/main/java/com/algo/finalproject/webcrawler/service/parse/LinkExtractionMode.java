@@ -0,0 +1,11 @@
+package com.algo.finalproject.webcrawler.service.parse;
+
+/**
+ * Implementations of {@link LinkExtractor} selectable through {@code crawler.parse.mode}.
+ */
+public enum LinkExtractionMode {
+    /** Full Jsoup document, queried with {@code a[href]}. */
+    DOM,
+    /** Incremental tag scanner that never builds a document. */
+    STREAMING
+}
@@ -0,0 +1,25 @@
+package com.algo.finalproject.webcrawler.service.parse;
+
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Pulls the outgoing links out of a fetched page.
+ */
+public interface LinkExtractor {
+
+    /**
+     * Passes the absolute URL of every {@code <a href>} in {@code page} to {@code links}, in
+     * document order. Links that cannot be resolved are passed as empty strings. The text of the
+     * page read along the way, without markup, scripts and styles, is appended to {@code text}
+     * unless it is {@code null}.
+     */
+    void extract(FetchedPage page, Consumer<String> links, SimHash text) throws IOException;
+
+    default void extract(FetchedPage page, Consumer<String> links) throws IOException {
+        extract(page, links, null);
+    }
+}
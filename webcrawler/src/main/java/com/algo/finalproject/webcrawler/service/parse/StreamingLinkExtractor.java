@@ -0,0 +1,679 @@
+package com.algo.finalproject.webcrawler.service.parse;
+
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import org.jsoup.nodes.Entities;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Extracts links with a single pass over the decoded character stream, without building a document.
+ * <p>
+ * The scanner recognises start tags with their quoted and unquoted attributes, end tags, comments,
+ * doctypes and the raw text of {@code script}, {@code style}, {@code textarea} and {@code title},
+ * so markup inside those never yields links. Only {@code a} and {@code base} tags have their
+ * {@code href} captured; character references in it are decoded with Jsoup's entity table. The
+ * first {@code <base href>} becomes the base URL; links seen before it and before {@code <body>}
+ * are held back so they resolve against it too. Text outside tags is passed on as it is read,
+ * with every tag counted as a word break and character references left undecoded. Scanning stops
+ * after {@code maxBytes} of the body or once {@code maxLinks} links have been emitted.
+ * <p>
+ * Links are resolved with {@link URI}, which rejects characters that {@code absUrl} lets through;
+ * spaces, quotes, braces, stray {@code %} and the like are percent-encoded first, as browsers do,
+ * so such links are kept in the encoded form the fetcher needs anyway. A link that still does not
+ * parse is dropped, or kept as it is if it has a scheme, like {@code absUrl} does.
+ */
+public class StreamingLinkExtractor implements LinkExtractor {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int CHARSET_SNIFF_BYTES = 1024;
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final int maxBytes;
+    private final int maxLinks;
+
+    public StreamingLinkExtractor(int maxBytes, int maxLinks) {
+        this.maxBytes = maxBytes > 0 ? maxBytes : Integer.MAX_VALUE;
+        this.maxLinks = maxLinks > 0 ? maxLinks : Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void extract(FetchedPage page, Consumer<String> links, SimHash text) throws IOException {
+        byte[] body = page.body();
+        int length = Math.min(body.length, maxBytes);
+        Charset charset = charsetOf(page.charset(), body, length);
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(body, 0, length), charset)) {
+            new Scan(reader, page.url(), links, text).run();
+        }
+    }
+
+    /**
+     * The declared charset, else one from a byte order mark or a {@code charset=} in the first
+     * kilobyte, else UTF-8.
+     */
+    static Charset charsetOf(String declared, byte[] body, int length) {
+        Charset charset = forName(declared);
+        if (charset != null) {
+            return charset;
+        }
+        if (length >= 3 && (body[0] & 0xff) == 0xef && (body[1] & 0xff) == 0xbb && (body[2] & 0xff) == 0xbf) {
+            return StandardCharsets.UTF_8;
+        }
+        if (length >= 2 && (body[0] & 0xff) == 0xfe && (body[1] & 0xff) == 0xff) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (length >= 2 && (body[0] & 0xff) == 0xff && (body[1] & 0xff) == 0xfe) {
+            return StandardCharsets.UTF_16LE;
+        }
+        String head = new String(body, 0, Math.min(length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+        int index = indexOfIgnoreCase(head, "charset=");
+        if (index >= 0) {
+            int start = index + "charset=".length();
+            while (start < head.length() && (head.charAt(start) == '"' || head.charAt(start) == '\'')) {
+                start++;
+            }
+            int end = start;
+            while (end < head.length() && isCharsetNameChar(head.charAt(end))) {
+                end++;
+            }
+            charset = forName(head.substring(start, end));
+        }
+        return charset != null ? charset : StandardCharsets.UTF_8;
+    }
+
+    private static Charset forName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        try {
+            return Charset.isSupported(name) ? Charset.forName(name) : null;
+        } catch (IllegalCharsetNameException e) {
+            return null;
+        }
+    }
+
+    private static boolean isCharsetNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == '.' || c == ':';
+    }
+
+    private static int indexOfIgnoreCase(String text, String lowerCaseNeedle) {
+        for (int i = 0; i + lowerCaseNeedle.length() <= text.length(); i++) {
+            if (text.regionMatches(true, i, lowerCaseNeedle, 0, lowerCaseNeedle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private enum TagKind { A, BASE, BODY, RAW_TEXT, OTHER }
+
+    /**
+     * State of one page scan.
+     */
+    private final class Scan {
+
+        private final Reader reader;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        private final Consumer<String> links;
+        private final SimHash text;
+        private final StringBuilder name = new StringBuilder(16);
+        private final StringBuilder attribute = new StringBuilder(16);
+        private final StringBuilder value = new StringBuilder(128);
+        private URI base;
+        /** Scheme and authority of {@link #base}, prefixed to root-relative links directly. */
+        private String origin;
+        private boolean baseFixed;
+        /** Raw hrefs waiting for a {@code <base>} that may still follow. */
+        private List<String> pending = new ArrayList<>();
+        private int emitted;
+
+        Scan(Reader reader, String documentUrl, Consumer<String> links, SimHash text) {
+            this.reader = reader;
+            this.links = links;
+            this.text = text;
+            setBase(parseUri(documentUrl));
+        }
+
+        void run() throws IOException {
+            int c;
+            while (emitted < maxLinks && (c = read()) != -1) {
+                if (c != '<') {
+                    if (text != null) {
+                        text.append((char) c);
+                    }
+                    continue;
+                }
+                if (text != null) {
+                    text.append(' ');
+                }
+                c = read();
+                if (c == '!') {
+                    skipDeclarationOrComment();
+                } else if (c == '/' || c == '?') {
+                    skipPast('>');
+                } else if (isLetter(c)) {
+                    startTag(c);
+                } else if (c != -1) {
+                    // Not markup, but the character may open the next tag
+                    unread();
+                }
+            }
+            fixBase();
+        }
+
+        private void startTag(int first) throws IOException {
+            name.setLength(0);
+            name.append(toLower(first));
+            int c;
+            while ((c = read()) != -1 && !isWhitespace(c) && c != '/' && c != '>') {
+                name.append(toLower(c));
+            }
+            if (c != -1) {
+                unread();
+            }
+            TagKind kind = kindOf(name);
+            String href = attributes(kind == TagKind.A || kind == TagKind.BASE);
+            switch (kind) {
+                case A -> {
+                    if (href != null) {
+                        link(href);
+                    }
+                }
+                case BASE -> {
+                    if (href != null && !baseFixed) {
+                        URI resolved = parseUri(resolve(href));
+                        if (resolved != null) {
+                            setBase(resolved);
+                        }
+                        fixBase();
+                    }
+                }
+                case BODY -> fixBase();
+                case RAW_TEXT -> skipRawText(name.toString());
+                case OTHER -> {
+                }
+            }
+        }
+
+        /**
+         * Reads the attributes up to the end of the tag and returns the first {@code href}
+         * value if {@code wantHref} is set.
+         */
+        private String attributes(boolean wantHref) throws IOException {
+            String href = null;
+            while (true) {
+                int c = skipWhitespace();
+                if (c == -1 || c == '>') {
+                    return href;
+                }
+                if (c == '/') {
+                    continue;
+                }
+                attribute.setLength(0);
+                attribute.append(toLower(c));
+                while ((c = read()) != -1 && !isWhitespace(c) && c != '=' && c != '>' && c != '/') {
+                    attribute.append(toLower(c));
+                }
+                if (isWhitespace(c)) {
+                    c = skipWhitespace();
+                }
+                if (c != '=') {
+                    if (c != -1) {
+                        unread();
+                    }
+                    continue;
+                }
+                boolean capture = wantHref && href == null && attribute.length() == 4 && "href".contentEquals(attribute);
+                value.setLength(0);
+                c = skipWhitespace();
+                if (c == '"' || c == '\'') {
+                    int quote = c;
+                    while ((c = read()) != -1 && c != quote) {
+                        if (capture) {
+                            value.append((char) c);
+                        }
+                    }
+                } else if (c != -1 && c != '>') {
+                    do {
+                        if (capture) {
+                            value.append((char) c);
+                        }
+                    } while ((c = read()) != -1 && !isWhitespace(c) && c != '>');
+                    if (c == '>') {
+                        unread();
+                    }
+                } else if (c == '>') {
+                    unread();
+                }
+                if (capture) {
+                    href = value.indexOf("&") >= 0 ? decodeEntities(value) : value.toString();
+                }
+            }
+        }
+
+        private void link(String href) {
+            if (baseFixed) {
+                emit(resolve(href));
+            } else {
+                pending.add(href);
+                if (emitted + pending.size() >= maxLinks) {
+                    fixBase();
+                }
+            }
+        }
+
+        /**
+         * No later {@code <base>} can change the base URL; flushes the held-back links.
+         */
+        private void fixBase() {
+            if (baseFixed) {
+                return;
+            }
+            baseFixed = true;
+            for (String href : pending) {
+                if (emitted == maxLinks) {
+                    break;
+                }
+                emit(resolve(href));
+            }
+            pending = null;
+        }
+
+        private void emit(String url) {
+            emitted++;
+            links.accept(url);
+        }
+
+        private void setBase(URI uri) {
+            base = uri;
+            origin = uri == null ? null : uri.getScheme() + "://" + uri.getRawAuthority();
+        }
+
+        private String resolve(String href) {
+            href = stripControlChars(href);
+            if (origin != null && isPlainRootRelative(href)) {
+                return origin.concat(href);
+            }
+            try {
+                String spec = encodeIllegal(href.strip());
+                // A colon in the first segment of a relative link would be read as a scheme
+                if (!hasScheme(spec) && hasColonInFirstSegment(spec)) {
+                    spec = "./" + spec;
+                }
+                URI relative = new URI(spec);
+                URI resolved = base == null ? relative : resolveAgainstBase(relative);
+                return resolved.toURL().toExternalForm();
+            } catch (URISyntaxException | MalformedURLException | IllegalArgumentException e) {
+                // Same fallback as Jsoup's absUrl: keep links with a scheme Java has no handler for
+                return hasScheme(href) ? href : "";
+            }
+        }
+
+        /**
+         * Resolves like {@code new URL(base, href)}. {@link URI#resolve} differs from it in ways
+         * that matter for links: it drops the last base segment for a query-only link, turns
+         * {@code //} inside a path into {@code /}, keeps {@code ..} segments above the root and
+         * resolves {@code page} against {@code https://host} to {@code https://hostpage}.
+         */
+        private URI resolveAgainstBase(URI relative) throws URISyntaxException {
+            String raw = relative.toString();
+            if (raw.isEmpty()) {
+                return base;
+            }
+            if (relative.isAbsolute() || relative.getRawAuthority() != null || raw.charAt(0) == '#') {
+                return base.resolve(relative);
+            }
+            String path = relative.getRawPath();
+            String query = relative.getRawQuery();
+            String basePath = base.getRawPath().isEmpty() ? "/" : base.getRawPath();
+            if (path.isEmpty()) {
+                path = basePath;
+                if (query == null) {
+                    query = base.getRawQuery();
+                }
+            } else if (path.charAt(0) != '/') {
+                path = basePath.substring(0, basePath.lastIndexOf('/') + 1).concat(path);
+            }
+            StringBuilder resolved = new StringBuilder(raw.length() + 64).append(base.getScheme()).append(':');
+            if (base.getRawAuthority() != null) {
+                resolved.append("//").append(base.getRawAuthority());
+            }
+            resolved.append(removeDotSegments(path));
+            if (query != null) {
+                resolved.append('?').append(query);
+            }
+            if (relative.getRawFragment() != null) {
+                resolved.append('#').append(relative.getRawFragment());
+            }
+            return new URI(resolved.toString());
+        }
+
+        private void skipDeclarationOrComment() throws IOException {
+            int c = read();
+            if (c != '-') {
+                if (c != -1) {
+                    unread();
+                }
+                skipPast('>');
+                return;
+            }
+            if ((c = read()) != '-') {
+                if (c != -1) {
+                    unread();
+                }
+                skipPast('>');
+                return;
+            }
+            int dashes = 0;
+            while ((c = read()) != -1) {
+                if (c == '-') {
+                    dashes++;
+                } else if (c == '>' && dashes >= 2) {
+                    return;
+                } else {
+                    dashes = 0;
+                }
+            }
+        }
+
+        /**
+         * Skips the content of a raw text element up to and including its end tag.
+         */
+        private void skipRawText(String tag) throws IOException {
+            int c;
+            while ((c = read()) != -1) {
+                if (c != '<') {
+                    continue;
+                }
+                if ((c = read()) != '/') {
+                    if (c != -1) {
+                        unread();
+                    }
+                    continue;
+                }
+                int matched = 0;
+                while (matched < tag.length() && (c = read()) != -1 && toLower(c) == tag.charAt(matched)) {
+                    matched++;
+                }
+                if (matched == tag.length()) {
+                    c = read();
+                    if (c == -1 || c == '>' || c == '/' || isWhitespace(c)) {
+                        if (c != '>') {
+                            skipPast('>');
+                        }
+                        return;
+                    }
+                }
+                if (c != -1) {
+                    unread();
+                }
+            }
+        }
+
+        private void skipPast(char end) throws IOException {
+            int c;
+            while ((c = read()) != -1 && c != end) {
+                // skip
+            }
+        }
+
+        private int skipWhitespace() throws IOException {
+            int c;
+            while ((c = read()) != -1 && isWhitespace(c)) {
+                // skip
+            }
+            return c;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                int count = reader.read(buffer, 0, buffer.length);
+                if (count <= 0) {
+                    return -1;
+                }
+                position = 0;
+                limit = count;
+            }
+            return buffer[position++];
+        }
+
+        /**
+         * Steps back over the character just returned by {@link #read()}.
+         */
+        private void unread() {
+            position--;
+        }
+    }
+
+    private static TagKind kindOf(CharSequence tag) {
+        return switch (tag.length()) {
+            case 1 -> tag.charAt(0) == 'a' ? TagKind.A : TagKind.OTHER;
+            case 4 -> "base".contentEquals(tag) ? TagKind.BASE : "body".contentEquals(tag) ? TagKind.BODY : TagKind.OTHER;
+            case 5 -> "style".contentEquals(tag) || "title".contentEquals(tag) ? TagKind.RAW_TEXT : TagKind.OTHER;
+            case 6 -> "script".contentEquals(tag) ? TagKind.RAW_TEXT : TagKind.OTHER;
+            case 8 -> "textarea".contentEquals(tag) ? TagKind.RAW_TEXT : TagKind.OTHER;
+            default -> TagKind.OTHER;
+        };
+    }
+
+    /**
+     * Decodes numeric and named character references the way an HTML attribute value is decoded:
+     * a named reference without {@code ;} is decoded only for the legacy names like {@code amp}
+     * and only if no {@code =} follows. Unlike {@code Parser.unescapeEntities} this allocates no
+     * tokeniser, which matters because most query-string links contain {@code &amp;}.
+     */
+    static String decodeEntities(CharSequence value) {
+        StringBuilder decoded = new StringBuilder(value.length());
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            char c = value.charAt(i++);
+            if (c != '&' || i == length) {
+                decoded.append(c);
+                continue;
+            }
+            if (value.charAt(i) == '#') {
+                int start = i + 1;
+                boolean hex = start < length && (value.charAt(start) == 'x' || value.charAt(start) == 'X');
+                int digits = hex ? start + 1 : start;
+                int end = digits;
+                int codePoint = 0;
+                while (end < length && Character.digit(value.charAt(end), hex ? 16 : 10) >= 0) {
+                    codePoint = Math.min(codePoint * (hex ? 16 : 10) + Character.digit(value.charAt(end), hex ? 16 : 10),
+                            Character.MAX_CODE_POINT + 1);
+                    end++;
+                }
+                if (end == digits) {
+                    decoded.append('&');
+                    continue;
+                }
+                decoded.appendCodePoint(codePoint == 0 || codePoint > Character.MAX_CODE_POINT
+                        || (codePoint >= 0xd800 && codePoint <= 0xdfff) ? 0xfffd : codePoint);
+                i = end < length && value.charAt(end) == ';' ? end + 1 : end;
+                continue;
+            }
+            int end = i;
+            while (end < length && end - i < 32 && Character.isLetterOrDigit(value.charAt(end))) {
+                end++;
+            }
+            String name = value.subSequence(i, end).toString();
+            boolean terminated = end < length && value.charAt(end) == ';';
+            if (terminated && Entities.isNamedEntity(name)) {
+                decoded.append(Entities.getByName(name));
+                i = end + 1;
+            } else if (!terminated && Entities.isBaseNamedEntity(name) && (end == length || value.charAt(end) != '=')) {
+                decoded.append(Entities.getByName(name));
+                i = end;
+            } else {
+                decoded.append('&');
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static URI parseUri(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(encodeIllegal(url));
+            return uri.isAbsolute() && !uri.isOpaque() ? uri : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Percent-encodes the ASCII characters a URI may not contain, a {@code %} that does not start
+     * an escape, and every {@code #} after the first; returns {@code href} itself if there are none.
+     */
+    private static String encodeIllegal(String href) {
+        StringBuilder encoded = null;
+        boolean fragment = false;
+        for (int i = 0; i < href.length(); i++) {
+            char c = href.charAt(i);
+            boolean illegal = c == ' ' || c == '"' || c == '<' || c == '>' || c == '\\' || c == '^' || c == '`'
+                    || c == '{' || c == '|' || c == '}' || c == 0x7f
+                    || (c == '%' && !(i + 2 < href.length() && isHex(href.charAt(i + 1)) && isHex(href.charAt(i + 2))))
+                    || (c == '#' && fragment);
+            fragment |= c == '#';
+            if (illegal && encoded == null) {
+                encoded = new StringBuilder(href.length() + 16).append(href, 0, i);
+            }
+            if (encoded == null) {
+                continue;
+            }
+            if (illegal) {
+                encoded.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            } else {
+                encoded.append(c);
+            }
+        }
+        return encoded == null ? href : encoded.toString();
+    }
+
+    /**
+     * Removes {@code .} and {@code ..} segments from an absolute path as in RFC 3986, keeping
+     * empty segments; {@code ..} above the root is dropped.
+     */
+    static String removeDotSegments(String path) {
+        if (path.indexOf('.') < 0) {
+            return path;
+        }
+        String[] segments = path.split("/", -1);
+        List<String> out = new ArrayList<>(segments.length);
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (segment.equals(".") || segment.equals("..")) {
+                if (segment.equals("..") && !out.isEmpty()) {
+                    out.remove(out.size() - 1);
+                }
+                if (last) {
+                    out.add("");
+                }
+            } else {
+                out.add(segment);
+            }
+        }
+        return "/" + String.join("/", out);
+    }
+
+    private static boolean hasColonInFirstSegment(String href) {
+        for (int i = 0; i < href.length(); i++) {
+            char c = href.charAt(i);
+            if (c == ':') {
+                return true;
+            }
+            if (c == '/' || c == '?' || c == '#') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static String stripControlChars(String href) {
+        for (int i = 0; i < href.length(); i++) {
+            if (href.charAt(i) < 0x20) {
+                StringBuilder stripped = new StringBuilder(href.length());
+                for (int j = 0; j < href.length(); j++) {
+                    char c = href.charAt(j);
+                    if (c >= 0x20) {
+                        stripped.append(c);
+                    }
+                }
+                return stripped.toString();
+            }
+        }
+        return href;
+    }
+
+    /**
+     * Whether {@code href} is a path from the root that URL resolution would leave untouched:
+     * no protocol-relative prefix, dot segments, backslashes or surrounding whitespace.
+     */
+    private static boolean isPlainRootRelative(String href) {
+        int length = href.length();
+        if (length < 2 || href.charAt(0) != '/' || href.charAt(1) == '/' || href.charAt(length - 1) == ' ') {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            char c = href.charAt(i);
+            if (c == '\\' || (c == '.' && href.charAt(i - 1) == '/')) {
+                return false;
+            }
+            if (c == '?' || c == '#') {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasScheme(String href) {
+        if (href.isEmpty() || !isLetter(href.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < href.length(); i++) {
+            char c = href.charAt(i);
+            if (c == ':') {
+                return true;
+            }
+            if (!isLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+    }
+
+    private static char toLower(int c) {
+        return (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+    }
+}
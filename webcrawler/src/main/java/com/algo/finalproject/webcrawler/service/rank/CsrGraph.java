@@ -0,0 +1,118 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the {@code LINKS_TO} graph in compressed-sparse-row form.
+ * <p>
+ * Pages are numbered {@code 0..nodeCount-1}, their ids in a {@link UrlDictionary} that holds
+ * the URLs front-coded instead of as one String each. Incoming edges of page {@code v} are
+ * {@code inSources[inOffsets[v] .. inOffsets[v + 1])}, which is the layout a pull-based
+ * PageRank iteration reads; {@code outDegree} is kept alongside for the rank split.
+ */
+public final class CsrGraph {
+
+    private final UrlDictionary urls;
+    private final int nodeCount;
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] outDegree;
+
+    private CsrGraph(UrlDictionary urls, int nodeCount, int[] inOffsets, int[] inSources, int[] outDegree) {
+        this.urls = urls;
+        this.nodeCount = nodeCount;
+        this.inOffsets = inOffsets;
+        this.inSources = inSources;
+        this.outDegree = outDegree;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return inSources.length;
+    }
+
+    public String url(int node) {
+        return urls.url(node);
+    }
+
+    /**
+     * The dictionary of the graph's URLs, for {@link IncrementalPageRank} to continue.
+     */
+    UrlDictionary urls() {
+        return urls;
+    }
+
+    public int outDegree(int node) {
+        return outDegree[node];
+    }
+
+    int inStart(int node) {
+        return inOffsets[node];
+    }
+
+    int inEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    int inSource(int index) {
+        return inSources[index];
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects pages and edges in arrival order and lays them out as CSR on {@link #build()}.
+     */
+    public static final class Builder {
+
+        private final UrlDictionary urls = new UrlDictionary();
+        private int[] edgeFrom = new int[4096];
+        private int[] edgeTo = new int[4096];
+        private int edgeCount;
+
+        private Builder() {
+        }
+
+        public int addNode(String url) {
+            return urls.intern(url);
+        }
+
+        public void addEdge(String fromUrl, String toUrl) {
+            int from = addNode(fromUrl);
+            int to = addNode(toUrl);
+            if (edgeCount == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, edgeCount * 2);
+                edgeTo = Arrays.copyOf(edgeTo, edgeCount * 2);
+            }
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeCount++;
+        }
+
+        public CsrGraph build() {
+            int nodeCount = urls.size();
+            int[] outDegree = new int[nodeCount];
+            int[] inOffsets = new int[nodeCount + 1];
+            for (int i = 0; i < edgeCount; i++) {
+                outDegree[edgeFrom[i]]++;
+                inOffsets[edgeTo[i] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                inOffsets[v + 1] += inOffsets[v];
+            }
+            int[] cursor = Arrays.copyOf(inOffsets, nodeCount);
+            int[] inSources = new int[edgeCount];
+            for (int i = 0; i < edgeCount; i++) {
+                inSources[cursor[edgeTo[i]]++] = edgeFrom[i];
+            }
+            return new CsrGraph(urls, nodeCount, inOffsets, inSources, outDegree);
+        }
+    }
+}
@@ -0,0 +1,340 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the PageRank of a growing graph up to date by pushing only the change that new pages and
+ * links cause, instead of iterating over the whole graph again.
+ * <p>
+ * It works on the unnormalized score {@code y = 1 + d * P^T * y}, in which every page starts with
+ * one unit and rank on dangling pages is simply lost. Because the random jump and the dangling
+ * rank both spread evenly over all pages, {@code y / sum(y)} is exactly the PageRank computed by
+ * {@link PageRankEngine}. Besides its score, each page holds a residual: the part of the equation
+ * its score does not yet satisfy. A new link changes the share its source passes on, which moves
+ * residual to the source's old and new targets; a new page starts with a residual of one. A push
+ * then adds a page's residual to its score and passes {@code d} times it on along its links, until
+ * no residual is above {@code tolerance} times the average score. The work depends on the amount
+ * of residual the new links create, not on the size of the graph.
+ * <p>
+ * The residuals left over bound the L1 distance to the exact ranks at
+ * {@code tolerance / (1 - d)}. Links are only ever added; the crawler never removes any.
+ * New pages are added to the {@link UrlDictionary} of the graph the state started from, which
+ * must not be built on any further. Not thread-safe.
+ */
+public class IncrementalPageRank {
+
+    private final double dampingFactor;
+    private final double tolerance;
+    private final UrlDictionary urls;
+    private final int snapshotNodes;
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int snapshotEdges;
+    private int nodeCount;
+    private int[][] addedTargets;
+    private int[] addedCount;
+    private int addedEdges;
+    private double[] score;
+    private double[] residual;
+    private double totalScore;
+    private final double scale;
+
+    /** Sources of links added since the last propagation, with their out-degree before. */
+    private final Map<Integer, Integer> changedSources = new LinkedHashMap<>();
+    private int newPages;
+    private int newLinks;
+
+    private int[] queue = new int[1024];
+    private int queueHead;
+    private int queueSize;
+    private boolean[] queued;
+    private int[] changed = new int[1024];
+    private int changedCount;
+    private boolean[] isChanged;
+
+    /**
+     * Starts from the ranks a full pass computed for {@code graph}, taking them as exact.
+     */
+    public IncrementalPageRank(CsrGraph graph, double[] ranks, double dampingFactor, double tolerance) {
+        this.dampingFactor = dampingFactor;
+        this.tolerance = tolerance;
+        int n = graph.nodeCount();
+        this.snapshotNodes = n;
+        this.snapshotEdges = graph.edgeCount();
+        this.nodeCount = n;
+        this.urls = graph.urls();
+
+        // The pull-based CSR only has incoming edges; pushes need the outgoing ones
+        this.outOffsets = new int[n + 1];
+        for (int node = 0; node < n; node++) {
+            outOffsets[node + 1] = outOffsets[node] + graph.outDegree(node);
+        }
+        this.outTargets = new int[graph.edgeCount()];
+        int[] cursor = Arrays.copyOf(outOffsets, n);
+        for (int v = 0; v < n; v++) {
+            for (int i = graph.inStart(v), end = graph.inEnd(v); i < end; i++) {
+                outTargets[cursor[graph.inSource(i)]++] = v;
+            }
+        }
+
+        int capacity = Math.max(16, n);
+        this.addedTargets = new int[capacity][];
+        this.addedCount = new int[capacity];
+        this.score = new double[capacity];
+        this.residual = new double[capacity];
+        this.queued = new boolean[capacity];
+        this.isChanged = new boolean[capacity];
+        // ranks = c * y, where c is the even share of the jump and of the dangling rank
+        double dangling = 0;
+        for (int node = 0; node < n; node++) {
+            if (graph.outDegree(node) == 0) {
+                dangling += ranks[node];
+            }
+        }
+        this.scale = n == 0 ? 1 : ((1 - dampingFactor) + dampingFactor * dangling) / n;
+        for (int node = 0; node < n; node++) {
+            score[node] = ranks[node] / scale;
+            totalScore += score[node];
+        }
+    }
+
+    /**
+     * Adds a page without links; a page already known is left as it is.
+     */
+    public void addPage(String url) {
+        id(url);
+    }
+
+    /**
+     * Adds a link, and its pages if they are new. A link already known is ignored.
+     */
+    public void addLink(String fromUrl, String toUrl) {
+        int from = id(fromUrl);
+        int to = id(toUrl);
+        int degree = outDegree(from);
+        for (int i = 0; i < degree; i++) {
+            if (target(from, i) == to) {
+                return;
+            }
+        }
+        changedSources.putIfAbsent(from, degree);
+        if (addedTargets[from] == null) {
+            addedTargets[from] = new int[4];
+        } else if (addedCount[from] == addedTargets[from].length) {
+            addedTargets[from] = Arrays.copyOf(addedTargets[from], addedCount[from] * 2);
+        }
+        addedTargets[from][addedCount[from]++] = to;
+        addedEdges++;
+        newLinks++;
+    }
+
+    /**
+     * Pushes the rank changes of the pages and links added since the last call through the graph.
+     */
+    public Update propagate() {
+        double threshold = threshold();
+        for (Map.Entry<Integer, Integer> entry : changedSources.entrySet()) {
+            int source = entry.getKey();
+            int oldDegree = entry.getValue();
+            int degree = outDegree(source);
+            double passed = dampingFactor * score[source];
+            if (passed == 0) {
+                continue;
+            }
+            // Old targets now get a smaller share, new targets get one for the first time
+            double oldShareChange = oldDegree == 0 ? 0 : passed / degree - passed / oldDegree;
+            for (int i = 0; i < degree; i++) {
+                int target = target(source, i);
+                residual[target] += i < oldDegree ? oldShareChange : passed / degree;
+                enqueueAbove(target, threshold);
+            }
+        }
+
+        long pushes = 0;
+        while (queueSize > 0) {
+            int node = queue[queueHead];
+            queueHead = (queueHead + 1) % queue.length;
+            queueSize--;
+            queued[node] = false;
+            double r = residual[node];
+            if (Math.abs(r) <= threshold) {
+                continue;
+            }
+            residual[node] = 0;
+            score[node] += r;
+            totalScore += r;
+            markChanged(node);
+            pushes++;
+            int degree = outDegree(node);
+            if (degree == 0) {
+                continue;
+            }
+            double share = dampingFactor * r / degree;
+            for (int i = 0; i < degree; i++) {
+                int target = target(node, i);
+                residual[target] += share;
+                enqueueAbove(target, threshold);
+            }
+        }
+
+        int[] changedNodes = Arrays.copyOf(changed, changedCount);
+        for (int node : changedNodes) {
+            isChanged[node] = false;
+        }
+        Update update = new Update(newPages, newLinks, pushes, changedNodes);
+        changedSources.clear();
+        changedCount = 0;
+        newPages = 0;
+        newLinks = 0;
+        return update;
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public int edgeCount() {
+        return snapshotEdges + addedEdges;
+    }
+
+    /**
+     * Pages and links added since the full pass this state started from.
+     */
+    public int addedSinceSnapshot() {
+        return nodeCount - snapshotNodes + addedEdges;
+    }
+
+    public String url(int node) {
+        return urls.url(node);
+    }
+
+    /**
+     * Unnormalized score of a page; {@code score / totalScore} is its PageRank.
+     */
+    public double score(int node) {
+        return score[node];
+    }
+
+    public double totalScore() {
+        return totalScore;
+    }
+
+    /**
+     * Factor that turns scores back into the ranks of the full pass this state started from.
+     * Scores stored on that scale stay comparable with the ranks the pass stored, so a page
+     * whose score did not change need not be written again.
+     */
+    public double scale() {
+        return scale;
+    }
+
+    /**
+     * The PageRank of a page: its score normalized by the current total.
+     */
+    public double rank(int node) {
+        return score[node] / totalScore;
+    }
+
+    /**
+     * The PageRank of every page, indexed by node id.
+     */
+    public double[] ranks() {
+        double[] ranks = new double[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            ranks[node] = rank(node);
+        }
+        return ranks;
+    }
+
+    /**
+     * Residual above which a page is pushed: {@code tolerance} times the average score, so the
+     * residual left over is at most {@code tolerance} of the total in L1. Every score converges
+     * to at least 1, which keeps the threshold positive while new pages have none yet.
+     */
+    private double threshold() {
+        return nodeCount == 0 ? tolerance : tolerance * Math.max(totalScore, nodeCount) / nodeCount;
+    }
+
+    private int id(String url) {
+        int node = urls.intern(url);
+        if (node < nodeCount) {
+            return node;
+        }
+        nodeCount++;
+        if (node == score.length) {
+            grow(node * 2);
+        }
+        // y = 0 leaves the jump's unit unpaid
+        residual[node] = 1;
+        enqueueAbove(node, 0);
+        newPages++;
+        return node;
+    }
+
+    private int outDegree(int node) {
+        int snapshotDegree = node < snapshotNodes ? outOffsets[node + 1] - outOffsets[node] : 0;
+        return snapshotDegree + addedCount[node];
+    }
+
+    /**
+     * The {@code i}-th target of {@code node}: the snapshot's links first, then the added ones.
+     */
+    private int target(int node, int i) {
+        if (node < snapshotNodes) {
+            int snapshotDegree = outOffsets[node + 1] - outOffsets[node];
+            if (i < snapshotDegree) {
+                return outTargets[outOffsets[node] + i];
+            }
+            i -= snapshotDegree;
+        }
+        return addedTargets[node][i];
+    }
+
+    private void enqueueAbove(int node, double threshold) {
+        if (queued[node] || Math.abs(residual[node]) <= threshold) {
+            return;
+        }
+        if (queueSize == queue.length) {
+            int[] larger = new int[queue.length * 2];
+            for (int i = 0; i < queueSize; i++) {
+                larger[i] = queue[(queueHead + i) % queue.length];
+            }
+            queue = larger;
+            queueHead = 0;
+        }
+        queue[(queueHead + queueSize) % queue.length] = node;
+        queueSize++;
+        queued[node] = true;
+    }
+
+    private void markChanged(int node) {
+        if (isChanged[node]) {
+            return;
+        }
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changedCount * 2);
+        }
+        changed[changedCount++] = node;
+        isChanged[node] = true;
+    }
+
+    private void grow(int capacity) {
+        addedTargets = Arrays.copyOf(addedTargets, capacity);
+        addedCount = Arrays.copyOf(addedCount, capacity);
+        score = Arrays.copyOf(score, capacity);
+        residual = Arrays.copyOf(residual, capacity);
+        queued = Arrays.copyOf(queued, capacity);
+        isChanged = Arrays.copyOf(isChanged, capacity);
+    }
+
+    /**
+     * What one propagation did: the pages and links it took in, the pushes it needed and the
+     * pages whose score changed.
+     */
+    public record Update(int newPages, int newLinks, long pushes, int[] changedNodes) {
+    }
+}
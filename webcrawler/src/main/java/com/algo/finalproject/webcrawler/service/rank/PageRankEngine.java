@@ -0,0 +1,120 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Power-iteration PageRank over a {@link CsrGraph}.
+ * <p>
+ * Each iteration first spreads every page's rank over its out-links, then pulls the
+ * contributions along the incoming edges. Both passes are split into node ranges on a
+ * {@link ForkJoinPool}. Rank held by dangling pages (no out-links) is redistributed evenly,
+ * so the scores always sum to 1.
+ */
+public class PageRankEngine {
+
+    private static final int CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+    private final double dampingFactor;
+    private final double tolerance;
+    private final int maxIterations;
+
+    public PageRankEngine(ForkJoinPool pool, double dampingFactor, double tolerance, int maxIterations) {
+        if (dampingFactor < 0 || dampingFactor >= 1) {
+            throw new IllegalArgumentException("Damping factor must be in [0, 1): " + dampingFactor);
+        }
+        this.pool = pool;
+        this.dampingFactor = dampingFactor;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+    }
+
+    public Result run(CsrGraph graph) {
+        int n = graph.nodeCount();
+        if (n == 0) {
+            return new Result(new double[0], 0, 0, true);
+        }
+        double[] rank = new double[n];
+        double[] next = new double[n];
+        double[] contribution = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+
+        double delta = Double.MAX_VALUE;
+        int iteration = 0;
+        while (iteration < maxIterations && delta >= tolerance) {
+            double[] current = rank;
+            double danglingRank = pool.invoke(new RangeTask(0, n, (from, to) -> {
+                double dangling = 0;
+                for (int u = from; u < to; u++) {
+                    int degree = graph.outDegree(u);
+                    if (degree == 0) {
+                        dangling += current[u];
+                        contribution[u] = 0;
+                    } else {
+                        contribution[u] = current[u] / degree;
+                    }
+                }
+                return dangling;
+            }));
+
+            double base = (1 - dampingFactor) / n + dampingFactor * danglingRank / n;
+            double[] target = next;
+            delta = pool.invoke(new RangeTask(0, n, (from, to) -> {
+                double change = 0;
+                for (int v = from; v < to; v++) {
+                    double sum = 0;
+                    for (int i = graph.inStart(v), end = graph.inEnd(v); i < end; i++) {
+                        sum += contribution[graph.inSource(i)];
+                    }
+                    target[v] = base + dampingFactor * sum;
+                    change += Math.abs(target[v] - current[v]);
+                }
+                return change;
+            }));
+
+            next = rank;
+            rank = target;
+            iteration++;
+        }
+        return new Result(rank, iteration, delta, delta < tolerance);
+    }
+
+    /**
+     * Final scores indexed by node id, with the iteration count and the last L1 change.
+     */
+    public record Result(double[] ranks, int iterations, double delta, boolean converged) {
+    }
+
+    @FunctionalInterface
+    private interface RangeSum {
+        double apply(int from, int to);
+    }
+
+    /**
+     * Sums {@code body} over {@code [from, to)}, splitting in halves down to {@link #CHUNK_SIZE} nodes.
+     */
+    private static class RangeTask extends RecursiveTask<Double> {
+        private final int from;
+        private final int to;
+        private final RangeSum body;
+
+        RangeTask(int from, int to, RangeSum body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return body.apply(from, to);
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, body);
+            left.fork();
+            return new RangeTask(mid, to, body).compute() + left.join();
+        }
+    }
+}
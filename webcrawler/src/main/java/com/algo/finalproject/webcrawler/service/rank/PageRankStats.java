@@ -0,0 +1,23 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+/**
+ * Summary of one offline PageRank pass.
+ * <p>
+ * An incremental pass reports the pages and links it took in, the pushes it needed and the
+ * ranks it wrote, those of the pages whose score changed; it has no iterations, and
+ * {@code delta} is the bound on its L1 distance to a full pass. A full pass writes every page.
+ */
+public record PageRankStats(int nodes,
+                            int edges,
+                            int iterations,
+                            double delta,
+                            boolean converged,
+                            long loadMillis,
+                            long computeMillis,
+                            long writeMillis,
+                            boolean incremental,
+                            int newPages,
+                            int newLinks,
+                            long pushes,
+                            int pagesWritten) {
+}
@@ -0,0 +1,7 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+/**
+ * A crawled page and its PageRank score.
+ */
+public record RankedPage(String url, double pageRank) {
+}
@@ -0,0 +1,13 @@
+package com.algo.finalproject.webcrawler.service.rank;
+
+import java.util.List;
+
+/**
+ * One page of the ranking, best first. The next page starts after {@code nextAfterRank} and
+ * {@code nextAfterUrl}, which are {@code null} once the ranking is exhausted. The cursor holds
+ * the stored score of the last page, which the PageRank of that page is normalized from.
+ */
+public record RankedPages(List<RankedPage> pages,
+                          Double nextAfterRank,
+                          String nextAfterUrl) {
+}
@@ -0,0 +1,192 @@
+package com.algo.finalproject.webcrawler.service.robots;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * The robots.txt rules of every host the crawl touches, fetched once per host and kept for
+ * {@code ttlMillis}. As in RFC 9309 a host is an origin: scheme, host name and port.
+ * <p>
+ * Concurrent requests for a host that is not cached yet share one fetch. A missing robots.txt
+ * (4xx) allows everything, while a server error, a 429 or an unreachable host disallows
+ * everything, for {@code errorTtlMillis} only. Only the first 512 KiB are parsed.
+ * <p>
+ * Once more than {@code maxHosts} hosts are cached, expired entries are dropped, and if that is not
+ * enough, arbitrary ones; a dropped host is simply fetched again.
+ */
+public class RobotsCache {
+
+    private static final Logger logger = LogManager.getLogger(RobotsCache.class);
+    private static final int MAX_ROBOTS_BYTES = 512 * 1024;
+    private static final CompletableFuture<RobotsRules> NO_RULES = CompletableFuture.completedFuture(RobotsRules.ALLOW_ALL);
+
+    private final CrawlerProperties.Robots config;
+    private final Duration timeout;
+    private final String userAgent;
+    private final HttpClient client;
+    private final SitemapReader sitemapReader;
+    /** Keyed by origin. */
+    private final ConcurrentHashMap<String, Entry> hosts = new ConcurrentHashMap<>();
+
+    public RobotsCache(CrawlerProperties properties) {
+        this.config = properties.getRobots();
+        this.timeout = Duration.ofMillis(properties.getFetch().getTimeoutMillis());
+        this.userAgent = properties.getFetch().getUserAgent();
+        this.client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(timeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        this.sitemapReader = new SitemapReader(client, timeout, userAgent, config.getMaxSitemaps());
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * The rules for the host of {@code url}, fetching its robots.txt if they are not cached.
+     */
+    public CompletableFuture<RobotsRules> rules(String url) {
+        if (!config.isEnabled()) {
+            return NO_RULES;
+        }
+        String origin = originOf(url);
+        long now = System.currentTimeMillis();
+        Entry entry = hosts.get(origin);
+        if (entry != null && entry.expiresAt > now) {
+            return entry.rules;
+        }
+        Entry candidate = new Entry(now + config.getTtlMillis());
+        entry = hosts.compute(origin, (key, existing) -> existing != null && existing.expiresAt > now ? existing : candidate);
+        if (entry == candidate) {
+            fetch(origin, candidate);
+            if (hosts.size() > config.getMaxHosts()) {
+                evict(now);
+            }
+        }
+        return entry.rules;
+    }
+
+    /**
+     * The rules for the host of {@code url} if they are cached and loaded, otherwise {@code null}.
+     * Never fetches, so it can be called for every discovered link.
+     */
+    public RobotsRules cachedRules(String url) {
+        if (!config.isEnabled()) {
+            return RobotsRules.ALLOW_ALL;
+        }
+        Entry entry = hosts.get(originOf(url));
+        if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.rules.getNow(null);
+    }
+
+    /**
+     * The {@code Crawl-delay} of {@code rules}, cut to {@code maxCrawlDelayMillis}.
+     */
+    public long crawlDelayMillis(RobotsRules rules) {
+        return Math.min(rules.crawlDelayMillis(), config.getMaxCrawlDelayMillis());
+    }
+
+    public SitemapReader sitemapReader() {
+        return sitemapReader;
+    }
+
+    public int size() {
+        return hosts.size();
+    }
+
+    /**
+     * The lower-cased {@code scheme://host[:port]} of an absolute URL, without user info.
+     */
+    public static String originOf(String url) {
+        int schemeEnd = url.indexOf("://");
+        int start = schemeEnd < 0 ? 0 : schemeEnd + 3;
+        int end = start;
+        while (end < url.length()) {
+            char c = url.charAt(end);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            end++;
+        }
+        int at = url.lastIndexOf('@', end - 1);
+        String scheme = schemeEnd < 0 ? "https" : url.substring(0, schemeEnd);
+        return (scheme + "://" + url.substring(Math.max(start, at + 1), end)).toLowerCase();
+    }
+
+    private void fetch(String origin, Entry entry) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(origin + "/robots.txt"))
+                    .timeout(timeout)
+                    .header("User-Agent", userAgent)
+                    .GET()
+                    .build();
+        } catch (IllegalArgumentException e) {
+            entry.rules.complete(RobotsRules.ALLOW_ALL);
+            return;
+        }
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, ex) -> {
+            RobotsRules rules;
+            if (ex != null) {
+                logger.warn("Failed to fetch robots.txt of {}: {}", origin, ex.toString());
+                rules = unreachable(entry);
+            } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                rules = parse(origin, response.body());
+            } else if (response.statusCode() >= 400 && response.statusCode() < 500 && response.statusCode() != 429) {
+                rules = RobotsRules.ALLOW_ALL;
+            } else {
+                logger.warn("Fetching robots.txt of {} returned HTTP {}", origin, response.statusCode());
+                rules = unreachable(entry);
+            }
+            entry.rules.complete(rules);
+        });
+    }
+
+    private RobotsRules parse(String origin, byte[] body) {
+        byte[] content = body.length > MAX_ROBOTS_BYTES ? Arrays.copyOf(body, MAX_ROBOTS_BYTES) : body;
+        RobotsRules rules = RobotsParser.parse(new String(content, StandardCharsets.UTF_8), config.getAgent());
+        logger.debug("Loaded {} robots.txt rules of {}", rules.ruleCount(), origin);
+        return rules;
+    }
+
+    private RobotsRules unreachable(Entry entry) {
+        entry.expiresAt = System.currentTimeMillis() + config.getErrorTtlMillis();
+        return RobotsRules.DISALLOW_ALL;
+    }
+
+    private void evict(long now) {
+        hosts.values().removeIf(entry -> entry.expiresAt <= now);
+        int target = config.getMaxHosts() - config.getMaxHosts() / 10;
+        Iterator<String> keys = hosts.keySet().iterator();
+        while (hosts.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<RobotsRules> rules = new CompletableFuture<>();
+        volatile long expiresAt;
+
+        Entry(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.algo.finalproject.webcrawler.service.robots;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses robots.txt as defined by RFC 9309.
+ * <p>
+ * Rules are taken from the groups whose {@code User-agent} line names this crawler's product
+ * token, compared without case; groups that name the same token are merged. Without such a group
+ * the {@code *} group applies, and without that everything is allowed. {@code Sitemap} lines
+ * count wherever they appear. Unknown lines and malformed values are skipped.
+ */
+public final class RobotsParser {
+
+    private RobotsParser() {
+    }
+
+    public static RobotsRules parse(String content, String agent) {
+        RobotsRules.Builder own = new RobotsRules.Builder();
+        RobotsRules.Builder wildcard = new RobotsRules.Builder();
+        boolean ownFound = false;
+        // Group the current rule lines belong to, and whether its user-agent lines have ended
+        boolean inOwnGroup = false;
+        boolean inWildcardGroup = false;
+        boolean groupStarted = false;
+        List<String> sitemaps = new ArrayList<>();
+
+        for (String rawLine : content.split("\r\n|\r|\n")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String key = line.substring(0, colon).trim().toLowerCase();
+            String value = line.substring(colon + 1).trim();
+            switch (key) {
+                case "user-agent" -> {
+                    if (groupStarted) {
+                        inOwnGroup = false;
+                        inWildcardGroup = false;
+                        groupStarted = false;
+                    }
+                    if (value.equalsIgnoreCase(agent)) {
+                        inOwnGroup = true;
+                        ownFound = true;
+                    } else if (value.equals("*")) {
+                        inWildcardGroup = true;
+                    }
+                }
+                case "allow", "disallow" -> {
+                    groupStarted = true;
+                    boolean allow = key.equals("allow");
+                    if (inOwnGroup) {
+                        add(own, value, allow);
+                    }
+                    if (inWildcardGroup) {
+                        add(wildcard, value, allow);
+                    }
+                }
+                case "crawl-delay" -> {
+                    groupStarted = true;
+                    long delayMillis = parseDelay(value);
+                    if (delayMillis >= 0 && inOwnGroup) {
+                        own.crawlDelayMillis(delayMillis);
+                    }
+                    if (delayMillis >= 0 && inWildcardGroup) {
+                        wildcard.crawlDelayMillis(delayMillis);
+                    }
+                }
+                case "sitemap" -> {
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                }
+                default -> {
+                    // Other lines, e.g. Host or Clean-param, do not apply
+                }
+            }
+        }
+        RobotsRules.Builder rules = ownFound ? own : wildcard;
+        sitemaps.forEach(rules::sitemap);
+        return rules.build();
+    }
+
+    private static void add(RobotsRules.Builder rules, String pattern, boolean allow) {
+        if (allow) {
+            rules.allow(pattern);
+        } else {
+            rules.disallow(pattern);
+        }
+    }
+
+    private static long parseDelay(String value) {
+        try {
+            double seconds = Double.parseDouble(value);
+            return seconds >= 0 && Double.isFinite(seconds) ? (long) (seconds * 1000) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.algo.finalproject.webcrawler.service.robots;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The robots.txt rules of one host that apply to this crawler, as defined by RFC 9309.
+ * <p>
+ * The most specific rule wins, that is the one with the longest pattern; between an allow and a
+ * disallow rule of the same length the allow rule wins. Plain path prefixes, nearly all rules in
+ * practice, are stored in a character trie flattened into arrays: a node's children are a sorted
+ * run of {@code edgeChars}, found by binary search. A lookup walks the path of the URL in place
+ * and remembers the deepest node that ends a rule, so it allocates nothing and costs one step per
+ * matched character. Patterns with {@code *} or a trailing {@code $} are matched one by one.
+ * <p>
+ * Instances are immutable and shared between threads.
+ */
+public final class RobotsRules {
+
+    private static final byte NONE = 0;
+    private static final byte ALLOW = 1;
+    private static final byte DISALLOW = 2;
+    private static final String ROBOTS_PATH = "/robots.txt";
+
+    /** No rules: everything may be fetched, as when robots.txt does not exist. */
+    public static final RobotsRules ALLOW_ALL = new Builder().build();
+    /** Nothing may be fetched, as while robots.txt cannot be read. */
+    public static final RobotsRules DISALLOW_ALL = new Builder().disallow("/").build();
+
+    private final int[] firstEdge;
+    private final int[] edgeCount;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final byte[] nodeRules;
+    private final WildcardRule[] wildcardRules;
+    private final long crawlDelayMillis;
+    private final List<String> sitemaps;
+
+    private RobotsRules(int[] firstEdge, int[] edgeCount, char[] edgeChars, int[] edgeTargets, byte[] nodeRules,
+                        WildcardRule[] wildcardRules, long crawlDelayMillis, List<String> sitemaps) {
+        this.firstEdge = firstEdge;
+        this.edgeCount = edgeCount;
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.nodeRules = nodeRules;
+        this.wildcardRules = wildcardRules;
+        this.crawlDelayMillis = crawlDelayMillis;
+        this.sitemaps = sitemaps;
+    }
+
+    /**
+     * Whether the absolute {@code url} may be fetched. Its path and query are matched, without
+     * the fragment.
+     */
+    public boolean isAllowed(String url) {
+        int start = pathStart(url);
+        int end = url.indexOf('#', start);
+        if (end < 0) {
+            end = url.length();
+        }
+        if (start == end) {
+            // An empty path is the root
+            return isAllowed("/", 0, 1);
+        }
+        return isAllowed(url, start, end);
+    }
+
+    /**
+     * Seconds of the {@code Crawl-delay} line in milliseconds, 0 if there is none.
+     */
+    public long crawlDelayMillis() {
+        return crawlDelayMillis;
+    }
+
+    /**
+     * URLs of the {@code Sitemap} lines, in file order.
+     */
+    public List<String> sitemaps() {
+        return sitemaps;
+    }
+
+    public int ruleCount() {
+        int count = wildcardRules.length;
+        for (byte rule : nodeRules) {
+            if (rule != NONE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean isAllowed(String url, int start, int end) {
+        if (url.startsWith(ROBOTS_PATH, start) && end - start == ROBOTS_PATH.length()) {
+            return true;
+        }
+        byte best = NONE;
+        int bestLength = 0;
+        int node = 0;
+        for (int i = start; i < end; i++) {
+            node = child(node, url.charAt(i));
+            if (node < 0) {
+                break;
+            }
+            if (nodeRules[node] != NONE) {
+                best = nodeRules[node];
+                bestLength = i - start + 1;
+            }
+        }
+        for (WildcardRule rule : wildcardRules) {
+            int length = rule.pattern.length();
+            if (length < bestLength || (length == bestLength && best == ALLOW)) {
+                continue;
+            }
+            if (rule.matches(url, start, end)) {
+                best = rule.allow ? ALLOW : DISALLOW;
+                bestLength = length;
+            }
+        }
+        return best != DISALLOW;
+    }
+
+    private int child(int node, char c) {
+        int low = firstEdge[node];
+        int high = low + edgeCount[node] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = edgeChars[mid];
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static int pathStart(String url) {
+        int scheme = url.indexOf("://");
+        int hostStart = scheme < 0 ? 0 : scheme + 3;
+        for (int i = hostStart; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    /**
+     * A pattern with {@code *} wildcards, optionally anchored to the end of the path with
+     * {@code $}.
+     */
+    private record WildcardRule(String pattern, boolean allow, boolean anchored) {
+
+        boolean matches(String url, int start, int end) {
+            int patternEnd = anchored ? pattern.length() - 1 : pattern.length();
+            return matches(url, start, end, 0, patternEnd);
+        }
+
+        private boolean matches(String url, int position, int end, int patternIndex, int patternEnd) {
+            while (patternIndex < patternEnd) {
+                char p = pattern.charAt(patternIndex);
+                if (p == '*') {
+                    // Collapse consecutive wildcards, then try every split point
+                    while (patternIndex < patternEnd && pattern.charAt(patternIndex) == '*') {
+                        patternIndex++;
+                    }
+                    if (patternIndex == patternEnd) {
+                        return true;
+                    }
+                    // Only split where the next literal character occurs
+                    char literal = pattern.charAt(patternIndex);
+                    for (int i = position; i < end; i++) {
+                        if (url.charAt(i) == literal && matches(url, i, end, patternIndex, patternEnd)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                if (position >= end || url.charAt(position) != p) {
+                    return false;
+                }
+                position++;
+                patternIndex++;
+            }
+            return !anchored || position == end;
+        }
+    }
+
+    /**
+     * Collects the rules of a group while parsing and flattens them into a {@link RobotsRules}.
+     */
+    static final class Builder {
+
+        private final List<TrieNode> nodes = new ArrayList<>(List.of(new TrieNode()));
+        private final List<WildcardRule> wildcardRules = new ArrayList<>();
+        private final List<String> sitemaps = new ArrayList<>();
+        private long crawlDelayMillis;
+
+        Builder allow(String pattern) {
+            return add(pattern, true);
+        }
+
+        Builder disallow(String pattern) {
+            return add(pattern, false);
+        }
+
+        Builder crawlDelayMillis(long crawlDelayMillis) {
+            this.crawlDelayMillis = crawlDelayMillis;
+            return this;
+        }
+
+        Builder sitemap(String url) {
+            sitemaps.add(url);
+            return this;
+        }
+
+        private Builder add(String pattern, boolean allow) {
+            // An empty pattern matches nothing
+            if (pattern.isEmpty()) {
+                return this;
+            }
+            if (pattern.indexOf('*') >= 0 || pattern.endsWith("$")) {
+                wildcardRules.add(new WildcardRule(pattern, allow, pattern.endsWith("$")));
+                return this;
+            }
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                Integer next = nodes.get(node).children.get(c);
+                if (next == null) {
+                    next = nodes.size();
+                    nodes.add(new TrieNode());
+                    nodes.get(node).children.put(c, next);
+                }
+                node = next;
+            }
+            TrieNode target = nodes.get(node);
+            // Allow wins over a disallow rule with the same pattern
+            target.rule = allow || target.rule == ALLOW ? ALLOW : DISALLOW;
+            return this;
+        }
+
+        RobotsRules build() {
+            int nodeCount = nodes.size();
+            int[] firstEdge = new int[nodeCount];
+            int[] edgeCount = new int[nodeCount];
+            char[] edgeChars = new char[nodeCount - 1];
+            int[] edgeTargets = new int[nodeCount - 1];
+            byte[] nodeRules = new byte[nodeCount];
+            int edge = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                TrieNode trieNode = nodes.get(node);
+                nodeRules[node] = trieNode.rule;
+                firstEdge[node] = edge;
+                edgeCount[node] = trieNode.children.size();
+                for (Map.Entry<Character, Integer> child : trieNode.children.entrySet()) {
+                    edgeChars[edge] = child.getKey();
+                    edgeTargets[edge] = child.getValue();
+                    edge++;
+                }
+            }
+            return new RobotsRules(firstEdge, edgeCount, edgeChars, edgeTargets, nodeRules,
+                    wildcardRules.toArray(WildcardRule[]::new), crawlDelayMillis, List.copyOf(sitemaps));
+        }
+
+        private static final class TrieNode {
+            /** Sorted, so that each node's edges come out ordered for the binary search. */
+            final TreeMap<Character, Integer> children = new TreeMap<>();
+            byte rule = NONE;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.algo.finalproject.webcrawler.service.robots;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads sitemaps and sitemap indexes with a streaming XML parser, so a sitemap of 50,000 URLs
+ * is never held in memory. Gzipped sitemaps are recognised by their magic bytes, whatever their
+ * name or content type. Sitemaps listed by an index are read breadth-first, up to
+ * {@code maxSitemaps} files in total.
+ */
+public class SitemapReader {
+
+    private static final Logger logger = LogManager.getLogger(SitemapReader.class);
+    private static final int GZIP_MAGIC = 0x1f8b;
+
+    private final HttpClient client;
+    private final Duration timeout;
+    private final String userAgent;
+    private final int maxSitemaps;
+    private final XMLInputFactory xmlInputFactory;
+
+    public SitemapReader(HttpClient client, Duration timeout, String userAgent, int maxSitemaps) {
+        this.client = client;
+        this.timeout = timeout;
+        this.userAgent = userAgent;
+        this.maxSitemaps = maxSitemaps;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        // Sitemaps come from untrusted hosts
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Passes the page URLs of the sitemap at {@code url}, and of the sitemaps it lists if it is an
+     * index, to {@code pages} until it returns {@code false}. Sitemaps that cannot be read are
+     * logged and skipped. Returns the number of page URLs passed.
+     */
+    public long read(String url, Predicate<String> pages) throws InterruptedException {
+        Queue<String> pending = new ArrayDeque<>();
+        Set<String> queued = new HashSet<>();
+        pending.add(url);
+        queued.add(url);
+        long count = 0;
+        int read = 0;
+        while (!pending.isEmpty() && read < maxSitemaps) {
+            String sitemap = pending.poll();
+            read++;
+            try (InputStream in = open(sitemap)) {
+                long[] passed = {0};
+                boolean more = parse(in, page -> {
+                    passed[0]++;
+                    return pages.test(page);
+                }, child -> {
+                    if (queued.size() < maxSitemaps && queued.add(child)) {
+                        pending.add(child);
+                    }
+                });
+                count += passed[0];
+                if (!more) {
+                    break;
+                }
+            } catch (IOException | XMLStreamException e) {
+                logger.warn("Failed to read sitemap {}: {}", sitemap, e.toString());
+            }
+        }
+        return count;
+    }
+
+    private InputStream open(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(timeout)
+                .header("User-Agent", userAgent)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("HTTP " + response.statusCode());
+        }
+        InputStream in = new BufferedInputStream(response.body());
+        in.mark(2);
+        int magic = (in.read() << 8) | in.read();
+        in.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * Streams one sitemap file. Returns {@code false} once {@code pages} asked to stop.
+     */
+    private boolean parse(InputStream in, Predicate<String> pages, Consumer<String> sitemaps)
+            throws XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(in);
+        try {
+            // Whether the current <loc> belongs to a <url> or to a <sitemap> entry
+            boolean inSitemapEntry = false;
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("sitemap")) {
+                    inSitemapEntry = true;
+                } else if (name.equals("url")) {
+                    inSitemapEntry = false;
+                } else if (name.equals("loc")) {
+                    String loc = reader.getElementText().trim();
+                    if (loc.isEmpty()) {
+                        continue;
+                    }
+                    if (inSitemapEntry) {
+                        sitemaps.accept(loc);
+                    } else if (!pages.test(loc)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.algo.finalproject.webcrawler.service.score;
+
+import com.algo.finalproject.webcrawler.service.seen.UrlFingerprint;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-min sketch of how often each URL has been linked to during the crawl. Memory is fixed
+ * at {@code DEPTH * width} counters however many URLs are discovered; estimates never undercount
+ * and overcount only when all rows collide.
+ */
+final class InlinkSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+
+    InlinkSketch(int width) {
+        int rowWidth = Integer.highestOneBit(Math.max(width, 64));
+        this.counters = new AtomicIntegerArray(DEPTH * rowWidth);
+        this.mask = rowWidth - 1;
+    }
+
+    /**
+     * Counts one more inlink to {@code url} and returns its estimated inlink count.
+     */
+    int increment(String url) {
+        long hash = UrlFingerprint.of(url);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(long hash, int row) {
+        // Each row takes a different 16-bit slice of the fingerprint mixed with its lower half
+        int rowHash = (int) (hash >>> (16 * row)) ^ (int) hash * (2 * row + 1);
+        return (row * (mask + 1)) + (rowHash & mask);
+    }
+}
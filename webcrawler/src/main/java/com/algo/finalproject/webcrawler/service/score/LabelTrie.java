@@ -0,0 +1,108 @@
+package com.algo.finalproject.webcrawler.service.score;
+
+import java.util.Arrays;
+
+/**
+ * Trie over dot-separated host labels or slash-separated path segments, mapping rule prefixes to
+ * a boost. Lookups walk the labels of a region of the URL in place, comparing them with
+ * {@link String#regionMatches}, so scoring a URL allocates nothing.
+ */
+final class LabelTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final class Node {
+        private final String label;
+        private Node[] children = NO_CHILDREN;
+        private boolean terminal;
+        private int value;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private Node child(String url, int start, int end) {
+            for (Node child : children) {
+                if (child.label.length() == end - start && url.regionMatches(start, child.label, 0, end - start)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private Node addChild(String label) {
+            Node child = new Node(label);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+
+    private final Node root = new Node("");
+    private boolean empty = true;
+
+    void put(String[] labels, int value) {
+        Node node = root;
+        for (String label : labels) {
+            Node child = node.child(label, 0, label.length());
+            node = child != null ? child : node.addChild(label);
+        }
+        node.terminal = true;
+        node.value = value;
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Value of the longest rule matching the labels of {@code url[start, end)} read from right to
+     * left, i.e. the longest host suffix ending on a label boundary; 0 if none matches.
+     */
+    int longestSuffix(String url, int start, int end) {
+        Node node = root;
+        int value = 0;
+        int labelEnd = end;
+        while (labelEnd > start) {
+            int dot = url.lastIndexOf('.', labelEnd - 1);
+            int labelStart = dot < start ? start : dot + 1;
+            node = node.child(url, labelStart, labelEnd);
+            if (node == null) {
+                break;
+            }
+            if (node.terminal) {
+                value = node.value;
+            }
+            labelEnd = labelStart - 1;
+        }
+        return value;
+    }
+
+    /**
+     * Value of the longest rule matching the segments of {@code url[start, end)} read from left to
+     * right, i.e. the longest path prefix ending on a segment boundary; 0 if none matches.
+     */
+    int longestPrefix(String url, int start, int end) {
+        Node node = root;
+        int value = 0;
+        int segmentStart = start;
+        while (segmentStart < end) {
+            if (url.charAt(segmentStart) == '/') {
+                segmentStart++;
+                continue;
+            }
+            int slash = url.indexOf('/', segmentStart);
+            int segmentEnd = slash < 0 || slash > end ? end : slash;
+            node = node.child(url, segmentStart, segmentEnd);
+            if (node == null) {
+                break;
+            }
+            if (node.terminal) {
+                value = node.value;
+            }
+            segmentStart = segmentEnd;
+        }
+        return value;
+    }
+}
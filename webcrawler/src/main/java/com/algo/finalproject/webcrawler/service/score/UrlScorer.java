@@ -0,0 +1,130 @@
+package com.algo.finalproject.webcrawler.service.score;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Computes the frontier priority of a URL once, when it is discovered, so the frontier orders
+ * entries by a stored integer instead of re-deriving it on every comparison.
+ * <p>
+ * The score is the base priority, plus the boost of the longest matching host suffix, plus the
+ * boost of the longest matching path prefix, minus a penalty per path segment, plus a bonus per
+ * doubling of the inlinks seen so far. Host and path rules are kept in {@link LabelTrie}s, and
+ * inlinks are counted in a fixed-size {@link InlinkSketch}, allocated only if they are weighted.
+ */
+@Component
+public class UrlScorer {
+
+    private final int basePriority;
+    private final int segmentPenalty;
+    private final double inlinkWeight;
+    private final LabelTrie hosts = new LabelTrie();
+    private final LabelTrie paths = new LabelTrie();
+    private final InlinkSketch inlinks;
+
+    @Autowired
+    public UrlScorer(CrawlerProperties properties) {
+        this(properties.getScoring());
+    }
+
+    public UrlScorer(CrawlerProperties.Scoring config) {
+        this.basePriority = config.getBasePriority();
+        this.segmentPenalty = config.getSegmentPenalty();
+        this.inlinkWeight = config.getInlinkWeight();
+        config.getHosts().forEach((suffix, boost) -> hosts.put(reversedLabels(suffix), boost));
+        config.getPaths().forEach((prefix, boost) -> paths.put(segments(prefix), boost));
+        this.inlinks = inlinkWeight > 0 ? new InlinkSketch(config.getInlinkSketchWidth()) : null;
+    }
+
+    /**
+     * Priority of a URL that is not reached through a link, such as a seed.
+     */
+    public int score(String url) {
+        return score(url, 0);
+    }
+
+    /**
+     * Counts one more inlink to {@code url}, which must be canonical, and returns its priority.
+     */
+    public int scoreLink(String url) {
+        return score(url, inlinks == null ? 0 : inlinks.increment(url));
+    }
+
+    /**
+     * Forgets the inlink counts of the previous crawl.
+     */
+    public void reset() {
+        if (inlinks != null) {
+            inlinks.clear();
+        }
+    }
+
+    private int score(String url, int inlinkCount) {
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd < 0) {
+            return basePriority;
+        }
+        int length = url.length();
+        int authorityStart = schemeEnd + 3;
+        int pathStart = authorityStart;
+        while (pathStart < length) {
+            char c = url.charAt(pathStart);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            pathStart++;
+        }
+        int pathEnd = pathStart;
+        while (pathEnd < length && url.charAt(pathEnd) != '?' && url.charAt(pathEnd) != '#') {
+            pathEnd++;
+        }
+
+        int priority = basePriority;
+        if (!hosts.isEmpty()) {
+            int hostStart = Math.max(authorityStart, url.lastIndexOf('@', pathStart - 1) + 1);
+            int port = url.indexOf(':', hostStart);
+            int hostEnd = port >= 0 && port < pathStart ? port : pathStart;
+            priority += hosts.longestSuffix(url, hostStart, hostEnd);
+        }
+        if (!paths.isEmpty()) {
+            priority += paths.longestPrefix(url, pathStart, pathEnd);
+        }
+        priority -= segmentPenalty * segmentCount(url, pathStart, pathEnd);
+        if (inlinkCount > 0) {
+            // One step per doubling: 1 inlink counts 1, 2-3 count 2, 4-7 count 3, ...
+            priority += (int) (inlinkWeight * (Integer.SIZE - Integer.numberOfLeadingZeros(inlinkCount)));
+        }
+        return priority;
+    }
+
+    private static int segmentCount(String url, int start, int end) {
+        int segments = 0;
+        boolean inSegment = false;
+        for (int i = start; i < end; i++) {
+            boolean slash = url.charAt(i) == '/';
+            if (!slash && !inSegment) {
+                segments++;
+            }
+            inSegment = !slash;
+        }
+        return segments;
+    }
+
+    private static String[] reversedLabels(String suffix) {
+        String[] labels = suffix.toLowerCase(Locale.ROOT).split("\\.");
+        for (int i = 0, j = labels.length - 1; i < j; i++, j--) {
+            String label = labels[i];
+            labels[i] = labels[j];
+            labels[j] = label;
+        }
+        return labels;
+    }
+
+    private static String[] segments(String prefix) {
+        return Arrays.stream(prefix.split("/")).filter(segment -> !segment.isEmpty()).toArray(String[]::new);
+    }
+}
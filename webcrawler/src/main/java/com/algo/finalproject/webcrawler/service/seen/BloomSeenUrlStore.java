@@ -0,0 +1,150 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Scalable Bloom filter of seen URLs.
+ * <p>
+ * Starts with one filter sized for {@code expectedUrls}; whenever the newest filter is full a
+ * new one with twice the capacity and half the false-positive rate is added, so the overall
+ * rate stays below the configured bound however large the crawl grows. Bits are set with CAS,
+ * so adds never lock. A false positive means a new URL is reported as seen and skipped.
+ */
+public class BloomSeenUrlStore implements SeenUrlStore {
+
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final long expectedUrls;
+    private final double falsePositiveRate;
+    /** Replaced, never mutated, so readers can iterate a snapshot without locking. */
+    private volatile Stage[] stages;
+    private final AtomicLong size = new AtomicLong();
+
+    public BloomSeenUrlStore(long expectedUrls, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+        this.expectedUrls = Math.max(expectedUrls, 1024);
+        this.falsePositiveRate = falsePositiveRate;
+        this.stages = new Stage[]{firstStage()};
+    }
+
+    @Override
+    public boolean add(String url) {
+        long h1 = UrlFingerprint.of(url);
+        long h2 = UrlFingerprint.mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        Stage[] current = stages;
+        for (int i = 0; i < current.length - 1; i++) {
+            if (current[i].mightContain(h1, h2)) {
+                return false;
+            }
+        }
+        Stage newest = current[current.length - 1];
+        if (!newest.put(h1, h2)) {
+            return false;
+        }
+        size.incrementAndGet();
+        if (newest.count.incrementAndGet() >= newest.capacity) {
+            grow(newest);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long h1 = UrlFingerprint.of(url);
+        long h2 = UrlFingerprint.mix(h1 ^ 0x9e3779b97f4a7c15L) | 1;
+        for (Stage stage : stages) {
+            if (stage.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += (long) stage.bits.length() * Long.BYTES;
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized void clear() {
+        stages = new Stage[]{firstStage()};
+        size.set(0);
+    }
+
+    private Stage firstStage() {
+        return new Stage(expectedUrls, falsePositiveRate * (1 - TIGHTENING_RATIO));
+    }
+
+    private synchronized void grow(Stage full) {
+        Stage[] current = stages;
+        if (current[current.length - 1] != full) {
+            return;
+        }
+        Stage[] grown = Arrays.copyOf(current, current.length + 1);
+        grown[current.length] = new Stage(full.capacity * 2, full.falsePositiveRate * TIGHTENING_RATIO);
+        stages = grown;
+    }
+
+    private static final class Stage {
+        final long capacity;
+        final double falsePositiveRate;
+        final AtomicLongArray bits;
+        final long bitCount;
+        final int hashCount;
+        final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            double ln2 = Math.log(2);
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+        }
+
+        /**
+         * Sets the URL's bits and returns {@code true} if at least one of them was clear before.
+         */
+        boolean put(long h1, long h2) {
+            boolean changed = false;
+            long hash = h1;
+            for (int i = 0; i < hashCount; i++, hash += h2) {
+                long bit = Long.remainderUnsigned(hash, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((bits.get(word) & mask) != 0) {
+                    continue;
+                }
+                long previous = bits.getAndAccumulate(word, mask, (value, m) -> value | m);
+                changed |= (previous & mask) == 0;
+            }
+            return changed;
+        }
+
+        boolean mightContain(long h1, long h2) {
+            long hash = h1;
+            for (int i = 0; i < hashCount; i++, hash += h2) {
+                long bit = Long.remainderUnsigned(hash, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+
+/**
+ * Keeps every URL, exactly like the original set of URL strings, but front-coded in a
+ * {@link UrlDictionary} at a fraction of the memory.
+ */
+public class ExactSeenUrlStore implements SeenUrlStore {
+
+    private final UrlDictionary urls = new UrlDictionary();
+
+    @Override
+    public boolean add(String url) {
+        return urls.add(url);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        return urls.find(url) >= 0;
+    }
+
+    @Override
+    public long size() {
+        return urls.size();
+    }
+
+    @Override
+    public long memoryBytes() {
+        return urls.memoryBytes();
+    }
+
+    @Override
+    public void clear() {
+        urls.clear();
+    }
+}
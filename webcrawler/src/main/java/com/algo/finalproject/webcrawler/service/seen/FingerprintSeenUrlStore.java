@@ -0,0 +1,136 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+/**
+ * Stores 64-bit {@link UrlFingerprint}s instead of URL strings.
+ * <p>
+ * The fingerprints are spread over independently locked segments by their top bits; each
+ * segment is an open-addressing {@code long[]} table with linear probing that doubles once it
+ * is three quarters full. Zero marks an empty slot, so a zero fingerprint is stored as one.
+ */
+public class FingerprintSeenUrlStore implements SeenUrlStore {
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final int initialSegmentCapacity;
+
+    public FingerprintSeenUrlStore(long expectedUrls) {
+        long perSegment = expectedUrls / segments.length * 4 / 3 + 1;
+        this.initialSegmentCapacity = (int) Math.max(MIN_SEGMENT_CAPACITY,
+                Long.highestOneBit(Math.min(perSegment, 1 << 29) - 1) << 1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(initialSegmentCapacity);
+        }
+    }
+
+    @Override
+    public boolean add(String url) {
+        long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).add(fingerprint);
+    }
+
+    @Override
+    public boolean contains(String url) {
+        long fingerprint = fingerprint(url);
+        return segmentFor(fingerprint).contains(fingerprint);
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.count;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += (long) segment.table.length * Long.BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.table = new long[initialSegmentCapacity];
+                segment.count = 0;
+            }
+        }
+    }
+
+    private static long fingerprint(String url) {
+        long fingerprint = UrlFingerprint.of(url);
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> (Long.SIZE - SEGMENT_BITS))];
+    }
+
+    private static final class Segment {
+        long[] table;
+        int count;
+
+        Segment(int capacity) {
+            this.table = new long[capacity];
+        }
+
+        synchronized boolean add(long fingerprint) {
+            if (!insert(table, fingerprint)) {
+                return false;
+            }
+            if (++count * 4L >= table.length * 3L) {
+                resize();
+            }
+            return true;
+        }
+
+        synchronized boolean contains(long fingerprint) {
+            long[] slots = table;
+            int mask = slots.length - 1;
+            for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == fingerprint) {
+                    return true;
+                }
+                if (slot == 0) {
+                    return false;
+                }
+            }
+        }
+
+        private void resize() {
+            long[] grown = new long[table.length * 2];
+            for (long fingerprint : table) {
+                if (fingerprint != 0) {
+                    insert(grown, fingerprint);
+                }
+            }
+            table = grown;
+        }
+
+        private static boolean insert(long[] slots, long fingerprint) {
+            int mask = slots.length - 1;
+            for (int i = (int) fingerprint & mask; ; i = (i + 1) & mask) {
+                long slot = slots[i];
+                if (slot == fingerprint) {
+                    return false;
+                }
+                if (slot == 0) {
+                    slots[i] = fingerprint;
+                    return true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+/**
+ * Set of URLs the crawler has already scheduled, shared by all workers.
+ */
+public interface SeenUrlStore {
+
+    /**
+     * Records {@code url} and returns {@code true} if it had not been seen before.
+     */
+    boolean add(String url);
+
+    boolean contains(String url);
+
+    /**
+     * Number of URLs recorded so far.
+     */
+    long size();
+
+    /**
+     * Approximate heap used by the store, for comparing implementations.
+     */
+    long memoryBytes();
+
+    void clear();
+}
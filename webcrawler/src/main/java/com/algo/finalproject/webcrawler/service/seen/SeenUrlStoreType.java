@@ -0,0 +1,13 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+/**
+ * Implementations of {@link SeenUrlStore} selectable through {@code crawler.seen-urls.store}.
+ */
+public enum SeenUrlStoreType {
+    /** Every URL, front-coded by host in a URL dictionary; exact, about 40-70 bytes per URL. */
+    EXACT,
+    /** 64-bit fingerprints in a striped open-addressing table; about 11-21 bytes per URL. */
+    FINGERPRINT,
+    /** Scalable Bloom filter; a few bytes per URL with a configurable false-positive rate. */
+    BLOOM
+}
@@ -0,0 +1,29 @@
+package com.algo.finalproject.webcrawler.service.seen;
+
+/**
+ * 64-bit URL fingerprints: FNV-1a over the UTF-16 chars followed by the MurmurHash3 finalizer,
+ * so that similar URLs spread over all bits. Collisions become likely only after billions of URLs.
+ */
+public final class UrlFingerprint {
+
+    private UrlFingerprint() {
+    }
+
+    public static long of(String url) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < url.length(); i++) {
+            hash ^= url.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,9 @@
+package com.algo.finalproject.webcrawler.service.url;
+
+/**
+ * Counters of the {@link UrlCanonicalizer}.
+ *
+ * @param duplicatesSkipped rewritten URLs that were already seen, i.e. fetches saved
+ */
+public record CanonicalizationStats(long urlsSeen, long urlsRewritten, long duplicatesSkipped) {
+}
@@ -0,0 +1,244 @@
+package com.algo.finalproject.webcrawler.service.url;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rewrites absolute URLs into one canonical form before they are checked against the seen set,
+ * so that variants of the same page are fetched, stored and ranked once.
+ * <p>
+ * Scheme and host are lower-cased, fragments and default ports dropped, tracking parameters
+ * removed and the remaining query parameters sorted by key. A trailing slash on the path can be
+ * removed, and per-host rules can drop further parameters, the whole query, or lower-case the
+ * path. URLs that are already canonical are returned as the same instance without allocating.
+ */
+@Component
+public class UrlCanonicalizer {
+
+    private final boolean removeTrailingSlash;
+    private final Set<String> trackingParams = new HashSet<>();
+    private final List<String> trackingPrefixes = new ArrayList<>();
+    private final Map<String, CrawlerProperties.Canonicalization.HostRule> hostRules = new HashMap<>();
+
+    private final LongAdder urlsSeen = new LongAdder();
+    private final LongAdder urlsRewritten = new LongAdder();
+    private final LongAdder duplicatesSkipped = new LongAdder();
+
+    @Autowired
+    public UrlCanonicalizer(CrawlerProperties properties) {
+        this(properties.getCanonicalization());
+    }
+
+    public UrlCanonicalizer(CrawlerProperties.Canonicalization config) {
+        this.removeTrailingSlash = config.isRemoveTrailingSlash();
+        for (String param : config.getTrackingParams()) {
+            String key = param.toLowerCase(Locale.ROOT);
+            if (key.endsWith("*")) {
+                trackingPrefixes.add(key.substring(0, key.length() - 1));
+            } else {
+                trackingParams.add(key);
+            }
+        }
+        config.getHosts().forEach((host, rule) -> hostRules.put(host.toLowerCase(Locale.ROOT), rule));
+    }
+
+    public String canonicalize(String url) {
+        urlsSeen.increment();
+        int schemeEnd = url.indexOf("://");
+        if (schemeEnd <= 0) {
+            return url;
+        }
+        int length = url.length();
+        int authorityStart = schemeEnd + 3;
+        int authorityEnd = authorityStart;
+        while (authorityEnd < length) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            authorityEnd++;
+        }
+        int fragment = url.indexOf('#', authorityEnd);
+        int end = fragment < 0 ? length : fragment;
+        int query = url.indexOf('?', authorityEnd);
+        if (query >= end) {
+            query = -1;
+        }
+        int pathEnd = query < 0 ? end : query;
+
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        if (hostStart <= authorityStart) {
+            hostStart = authorityStart;
+        }
+        int portStart = url.indexOf(':', hostStart);
+        int hostEnd = portStart >= 0 && portStart < authorityEnd ? portStart : authorityEnd;
+
+        // Most anchors are already canonical; recognise them from the indices alone
+        if (fragment < 0 && query < 0 && hostEnd == authorityEnd && hostRules.isEmpty()
+                && pathEnd > authorityEnd && !(removeTrailingSlash && hasTrailingSlash(url, authorityEnd, pathEnd))
+                && !hasUpperCase(url, 0, schemeEnd) && !hasUpperCase(url, hostStart, hostEnd)) {
+            return url;
+        }
+
+        String scheme = lowerCase(url, 0, schemeEnd);
+        String host = lowerCase(url, hostStart, hostEnd);
+        boolean dropPort = hostEnd < authorityEnd && isDefaultPort(scheme, url, hostEnd + 1, authorityEnd);
+        CrawlerProperties.Canonicalization.HostRule rule = hostRules.get(host);
+
+        String path = url.substring(authorityEnd, pathEnd);
+        if (path.isEmpty()) {
+            path = "/";
+        } else if (removeTrailingSlash && hasTrailingSlash(path, 0, path.length())) {
+            path = path.substring(0, path.length() - 1);
+        }
+        if (rule != null && rule.isLowercasePath()) {
+            path = path.toLowerCase(Locale.ROOT);
+        }
+        String queryString = query < 0 || (rule != null && rule.isDropQuery())
+                ? ""
+                : canonicalQuery(url.substring(query + 1, end), rule);
+
+        boolean unchanged = fragment < 0
+                && !dropPort
+                && scheme.regionMatches(0, url, 0, schemeEnd)
+                && host.regionMatches(0, url, hostStart, hostEnd - hostStart)
+                && path.regionMatches(0, url, authorityEnd, pathEnd - authorityEnd)
+                && path.length() == pathEnd - authorityEnd
+                && (query < 0 ? queryString.isEmpty()
+                : queryString.length() == end - query - 1 && queryString.regionMatches(0, url, query + 1, queryString.length()));
+        if (unchanged) {
+            return url;
+        }
+
+        StringBuilder canonical = new StringBuilder(length)
+                .append(scheme).append("://")
+                .append(url, authorityStart, hostStart)
+                .append(host);
+        if (hostEnd < authorityEnd && !dropPort) {
+            canonical.append(url, hostEnd, authorityEnd);
+        }
+        canonical.append(path);
+        if (!queryString.isEmpty()) {
+            canonical.append('?').append(queryString);
+        }
+        urlsRewritten.increment();
+        return canonical.toString();
+    }
+
+    /**
+     * Records that a rewritten URL turned out to be already seen, i.e. one fetch was saved.
+     */
+    public void recordDuplicateSkipped() {
+        duplicatesSkipped.increment();
+    }
+
+    public CanonicalizationStats getStats() {
+        return new CanonicalizationStats(urlsSeen.sum(), urlsRewritten.sum(), duplicatesSkipped.sum());
+    }
+
+    private String canonicalQuery(String query, CrawlerProperties.Canonicalization.HostRule rule) {
+        if (query.isEmpty()) {
+            return query;
+        }
+        List<String> params = new ArrayList<>();
+        boolean changed = false;
+        int start = 0;
+        while (start <= query.length()) {
+            int next = query.indexOf('&', start);
+            if (next < 0) {
+                next = query.length();
+            }
+            if (next > start) {
+                String param = query.substring(start, next);
+                if (isDropped(param, rule)) {
+                    changed = true;
+                } else {
+                    if (!params.isEmpty() && compareKeys(params.get(params.size() - 1), param) > 0) {
+                        changed = true;
+                    }
+                    params.add(param);
+                }
+            } else {
+                changed = true;
+            }
+            start = next + 1;
+        }
+        if (!changed) {
+            return query;
+        }
+        params.sort(UrlCanonicalizer::compareKeys);
+        return String.join("&", params);
+    }
+
+    private boolean isDropped(String param, CrawlerProperties.Canonicalization.HostRule rule) {
+        String key = keyOf(param).toLowerCase(Locale.ROOT);
+        if (trackingParams.contains(key)) {
+            return true;
+        }
+        for (String prefix : trackingPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return rule != null && rule.getDropParams().contains(key);
+    }
+
+    private static int compareKeys(String a, String b) {
+        int aEnd = keyEnd(a);
+        int bEnd = keyEnd(b);
+        for (int i = 0; i < aEnd && i < bEnd; i++) {
+            int diff = a.charAt(i) - b.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return aEnd - bEnd;
+    }
+
+    private static int keyEnd(String param) {
+        int equals = param.indexOf('=');
+        return equals < 0 ? param.length() : equals;
+    }
+
+    private static String keyOf(String param) {
+        int equals = param.indexOf('=');
+        return equals < 0 ? param : param.substring(0, equals);
+    }
+
+    private static boolean isDefaultPort(String scheme, String url, int start, int end) {
+        if (start == end) {
+            return true;
+        }
+        return ("https".equals(scheme) && url.regionMatches(start, "443", 0, 3) && end - start == 3)
+                || ("http".equals(scheme) && url.regionMatches(start, "80", 0, 2) && end - start == 2);
+    }
+
+    private static boolean hasTrailingSlash(String url, int pathStart, int pathEnd) {
+        return pathEnd - pathStart > 1 && url.charAt(pathEnd - 1) == '/';
+    }
+
+    private static boolean hasUpperCase(String url, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String lowerCase(String url, int start, int end) {
+        String part = url.substring(start, end);
+        return hasUpperCase(url, start, end) ? part.toLowerCase(Locale.ROOT) : part;
+    }
+}
@@ -0,0 +1,547 @@
+package com.algo.finalproject.webcrawler.service.url;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Maps URLs to dense int ids, {@code 0, 1, 2, ...} in the order they are first interned, and back.
+ * <p>
+ * URLs are not kept as Strings. The host prefix of a URL, {@code scheme://authority}, is stored
+ * once per host; the rest of it is appended as UTF-8 to an arena of byte arrays of up to
+ * {@value #CHUNK_SIZE} bytes. That rest is front-coded against the previous URL of the same host,
+ * with which it mostly shares a long path on a crawled site: a record holds the host id, how many
+ * records back that URL is, the length of the shared prefix and the remaining bytes, the numbers
+ * as varints. Every {@value #RESTART_INTERVAL}th URL of a host is stored in full, so decoding one
+ * follows at most {@value #RESTART_INTERVAL} records. An open-addressing table keyed by the URL's
+ * hash finds the record of a URL, whose bytes are compared with the URL in place. A URL costs its
+ * record plus 20 to 33 bytes of table, offsets and directory, depending on how full they are, where a
+ * String in a hash set costs around 200.
+ * <p>
+ * The URLs are spread over {@value #SHARDS} shards by hash, each with its own arena, table and
+ * read-write lock, so threads adding different URLs rarely wait for each other. Spreading by host
+ * would compress a little better but put a crawl of a single site behind one lock. Ids come from
+ * one counter and a paged directory leads from an id to its shard and record.
+ */
+public class UrlDictionary {
+
+    private static final int SHARD_BITS = 5;
+    private static final int SHARDS = 1 << SHARD_BITS;
+    private static final int MAX_SHARD_SIZE = 1 << (Integer.SIZE - 1 - SHARD_BITS);
+    private static final int CHUNK_BITS = 20;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int FIRST_CHUNK_SIZE = 4096;
+    private static final int MAX_CHUNKS = 1 << (Integer.SIZE - CHUNK_BITS);
+    private static final int RESTART_INTERVAL = 16;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final AtomicInteger nextId = new AtomicInteger();
+    /** Shard and record of each id, {@code (record << SHARD_BITS | shard) + 1}, in pages of ids. */
+    private volatile AtomicIntegerArray[] directory = new AtomicIntegerArray[16];
+    private final Object directoryLock = new Object();
+
+    public UrlDictionary() {
+        for (int shard = 0; shard < SHARDS; shard++) {
+            shards[shard] = new Shard(shard);
+        }
+    }
+
+    /**
+     * The id of {@code url}, adding it if it is new.
+     */
+    public int intern(String url) {
+        int hash = url.hashCode();
+        Shard shard = shard(hash);
+        int id = shard.find(url, hash);
+        if (id >= 0) {
+            return id;
+        }
+        id = shard.insert(url, hash);
+        return id >= 0 ? id : -1 - id;
+    }
+
+    /**
+     * Adds {@code url} and returns {@code true} if it was not in the dictionary yet.
+     */
+    public boolean add(String url) {
+        int hash = url.hashCode();
+        Shard shard = shard(hash);
+        return shard.find(url, hash) < 0 && shard.insert(url, hash) >= 0;
+    }
+
+    /**
+     * The id of {@code url}, or -1 if it was never added.
+     */
+    public int find(String url) {
+        int hash = url.hashCode();
+        return shard(hash).find(url, hash);
+    }
+
+    public String url(int id) {
+        if (id < 0 || id >= nextId.get()) {
+            throw new IndexOutOfBoundsException("No URL with id " + id + " in a dictionary of " + nextId.get());
+        }
+        int location;
+        // An id is taken just before its record is published; wait for the thread adding it
+        while ((location = location(id)) == 0) {
+            Thread.onSpinWait();
+        }
+        location--;
+        return shards[location & (SHARDS - 1)].url(location >>> SHARD_BITS);
+    }
+
+    /**
+     * Number of URLs; also the id the next new URL gets.
+     */
+    public int size() {
+        return nextId.get();
+    }
+
+    /**
+     * Heap held by the arenas, the tables, the directory and the host prefixes.
+     */
+    public long memoryBytes() {
+        long bytes = (long) directory.length * Long.BYTES;
+        for (AtomicIntegerArray page : directory) {
+            bytes += page == null ? 0 : (long) PAGE_SIZE * Integer.BYTES;
+        }
+        for (Shard shard : shards) {
+            bytes += shard.memoryBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Removes every URL and frees the arenas and tables. It holds the write lock of every shard,
+     * so no URL is half added meanwhile; ids taken before are no longer valid.
+     */
+    public void clear() {
+        for (Shard shard : shards) {
+            shard.lock.writeLock().lock();
+        }
+        try {
+            for (Shard shard : shards) {
+                shard.reset();
+            }
+            synchronized (directoryLock) {
+                directory = new AtomicIntegerArray[16];
+                nextId.set(0);
+            }
+        } finally {
+            for (Shard shard : shards) {
+                shard.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Shard shard(int hash) {
+        // The high bits pick the shard, the low ones the slot in its table
+        return shards[spread(hash) >>> (Integer.SIZE - SHARD_BITS)];
+    }
+
+    private int location(int id) {
+        AtomicIntegerArray[] pages = directory;
+        int page = id >>> PAGE_BITS;
+        return page < pages.length && pages[page] != null ? pages[page].get(id & (PAGE_SIZE - 1)) : 0;
+    }
+
+    private void publish(int id, int shard, int record) {
+        int page = id >>> PAGE_BITS;
+        AtomicIntegerArray[] pages = directory;
+        if (page >= pages.length || pages[page] == null) {
+            synchronized (directoryLock) {
+                pages = directory;
+                if (page >= pages.length) {
+                    pages = Arrays.copyOf(pages, Math.max(page + 1, pages.length * 2));
+                }
+                if (pages[page] == null) {
+                    pages = pages == directory ? pages.clone() : pages;
+                    pages[page] = new AtomicIntegerArray(PAGE_SIZE);
+                }
+                directory = pages;
+            }
+        }
+        pages[page].set(id & (PAGE_SIZE - 1), (record << SHARD_BITS | shard) + 1);
+    }
+
+    /**
+     * Length of {@code scheme://authority}, or 0 for URLs without an authority.
+     */
+    static int prefixLength(String url) {
+        int start = url.indexOf("://");
+        if (start < 0) {
+            return 0;
+        }
+        for (int i = start + 3; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    private static int spread(int hash) {
+        return hash * 0x9e3779b9 ^ (hash >>> 16);
+    }
+
+    private static boolean isAscii(String s, int from) {
+        for (int i = from; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int varintSize(int value) {
+        return value < 1 << 7 ? 1 : value < 1 << 14 ? 2 : value < 1 << 21 ? 3 : value < 1 << 28 ? 4 : 5;
+    }
+
+    private static int writeVarint(byte[] chunk, int at, int value) {
+        while ((value & ~0x7f) != 0) {
+            chunk[at++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        chunk[at++] = (byte) value;
+        return at;
+    }
+
+    /**
+     * Reads the varint at {@code at}; returns its value in the low half and where the next field
+     * starts in the high half.
+     */
+    private static long readVarint(byte[] chunk, int at) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = chunk[at++];
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return (long) at << 32 | value;
+            }
+        }
+    }
+
+    /**
+     * One slice of the dictionary. Record numbers count the URLs of the shard. A table slot holds
+     * the id + 1 of a URL, 0 for an empty slot, with its hash alongside; the directory leads from
+     * the id to the record.
+     */
+    private final class Shard {
+
+        private final int index;
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        private byte[][] chunks;
+        private int chunkCount;
+        private int position;
+        private long arenaBytes;
+        /** Arena position of each record: the chunk in the high bits, the offset in the low. */
+        private int[] offsets;
+        private int size;
+
+        private int[] slots;
+        private int[] slotHashes;
+
+        private final Map<String, Host> hosts = new HashMap<>();
+        private final List<String> hostPrefixes = new ArrayList<>();
+
+        Shard(int index) {
+            this.index = index;
+            reset();
+        }
+
+        int find(String url, int hash) {
+            lock.readLock().lock();
+            try {
+                return lookup(url, hash);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Adds {@code url} under the write lock and returns its id, or {@code -1 - id} if another
+         * thread added it first.
+         */
+        int insert(String url, int hash) {
+            lock.writeLock().lock();
+            try {
+                int existing = lookup(url, hash);
+                if (existing >= 0) {
+                    return -1 - existing;
+                }
+                if (size == MAX_SHARD_SIZE) {
+                    throw new IllegalStateException("URL dictionary is full at " + nextId.get() + " URLs");
+                }
+                int record = size;
+                int prefixLength = prefixLength(url);
+                String prefix = url.substring(0, prefixLength);
+                Host host = hosts.get(prefix);
+                if (host == null) {
+                    host = new Host(hostPrefixes.size());
+                    hosts.put(prefix, host);
+                    hostPrefixes.add(prefix);
+                }
+                byte[] rest = url.substring(prefixLength).getBytes(StandardCharsets.UTF_8);
+
+                int back = 0;
+                int shared = 0;
+                if (host.lastRecord >= 0 && host.sinceRestart < RESTART_INTERVAL - 1) {
+                    back = record - host.lastRecord;
+                    shared = Arrays.mismatch(host.lastRest, rest);
+                    shared = shared < 0 ? rest.length : shared;
+                    host.sinceRestart++;
+                } else {
+                    host.sinceRestart = 0;
+                }
+                int suffix = rest.length - shared;
+                int recordSize = varintSize(host.id) + varintSize(back) + (back > 0 ? varintSize(shared) : 0)
+                        + varintSize(suffix) + suffix;
+                byte[] chunk = reserve(recordSize);
+                if (record == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, record * 2);
+                }
+                offsets[record] = ((chunkCount - 1) << CHUNK_BITS) | position;
+                int at = writeVarint(chunk, position, host.id);
+                at = writeVarint(chunk, at, back);
+                if (back > 0) {
+                    at = writeVarint(chunk, at, shared);
+                }
+                at = writeVarint(chunk, at, suffix);
+                System.arraycopy(rest, shared, chunk, at, suffix);
+                position = at + suffix;
+
+                host.lastRecord = record;
+                host.lastRest = rest;
+                int id = nextId.getAndIncrement();
+                publish(id, index, record);
+                size++;
+                if (size * 4L > slots.length * 3L) {
+                    rehash(slots.length * 2);
+                }
+                place(id, hash);
+                return id;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        String url(int record) {
+            lock.readLock().lock();
+            try {
+                return decode(record);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        long memoryBytes() {
+            lock.readLock().lock();
+            try {
+                long hostBytes = 0;
+                for (Map.Entry<String, Host> host : hosts.entrySet()) {
+                    // Map entry, Host and both strings, roughly
+                    hostBytes += 120 + 2L * host.getKey().length() + host.getValue().lastRest.length;
+                }
+                return arenaBytes + (long) offsets.length * Integer.BYTES
+                        + (long) slots.length * 2 * Integer.BYTES + hostBytes;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void reset() {
+            chunks = new byte[16][];
+            chunks[0] = new byte[FIRST_CHUNK_SIZE];
+            chunkCount = 1;
+            position = 0;
+            arenaBytes = FIRST_CHUNK_SIZE;
+            offsets = new int[INITIAL_CAPACITY];
+            size = 0;
+            slots = new int[INITIAL_CAPACITY * 2];
+            slotHashes = new int[INITIAL_CAPACITY * 2];
+            hosts.clear();
+            hostPrefixes.clear();
+        }
+
+        /**
+         * The id of {@code url}, or -1. Called under the lock, which orders the directory entry
+         * of every id in the table before it.
+         */
+        private int lookup(String url, int hash) {
+            int mask = slots.length - 1;
+            for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot];
+                if (entry == 0) {
+                    return -1;
+                }
+                if (slotHashes[slot] == hash && matches((location(entry - 1) - 1) >>> SHARD_BITS, url)) {
+                    return entry - 1;
+                }
+            }
+        }
+
+        /**
+         * Compares {@code url} with the bytes of a record and those it shares a prefix with,
+         * newest first, without decoding it. A URL that is plain ASCII, as canonical URLs are, is
+         * compared char by byte; only others are encoded first.
+         */
+        private boolean matches(int record, String url) {
+            int offset = offsets[record];
+            byte[] chunk = chunks[offset >>> CHUNK_BITS];
+            long field = readVarint(chunk, offset & (CHUNK_SIZE - 1));
+            String prefix = hostPrefixes.get((int) field);
+            int prefixLength = prefix.length();
+            if (prefixLength(url) != prefixLength || !url.startsWith(prefix)) {
+                return false;
+            }
+            byte[] rest = isAscii(url, prefixLength) ? null
+                    : url.substring(prefixLength).getBytes(StandardCharsets.UTF_8);
+            int restLength = rest == null ? url.length() - prefixLength : rest.length;
+            // Bytes [0, needed) of the rest are still to be compared
+            int needed = restLength;
+            boolean newest = true;
+            while (true) {
+                field = readVarint(chunk, (int) (field >>> 32));
+                int back = (int) field;
+                int shared = 0;
+                if (back > 0) {
+                    field = readVarint(chunk, (int) (field >>> 32));
+                    shared = (int) field;
+                }
+                field = readVarint(chunk, (int) (field >>> 32));
+                int suffix = (int) field;
+                int start = (int) (field >>> 32);
+                if (newest && shared + suffix != restLength) {
+                    return false;
+                }
+                newest = false;
+                for (int i = shared, end = Math.min(shared + suffix, needed); i < end; i++) {
+                    byte expected = rest == null ? (byte) url.charAt(prefixLength + i) : rest[i];
+                    if (chunk[start + i - shared] != expected) {
+                        return false;
+                    }
+                }
+                needed = Math.min(needed, shared);
+                if (needed == 0) {
+                    return true;
+                }
+                record -= back;
+                offset = offsets[record];
+                chunk = chunks[offset >>> CHUNK_BITS];
+                field = readVarint(chunk, offset & (CHUNK_SIZE - 1));
+            }
+        }
+
+        private void place(int id, int hash) {
+            int mask = slots.length - 1;
+            int slot = spread(hash) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+            slotHashes[slot] = hash;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldSlots = slots;
+            int[] oldHashes = slotHashes;
+            slots = new int[capacity];
+            slotHashes = new int[capacity];
+            for (int slot = 0; slot < oldSlots.length; slot++) {
+                if (oldSlots[slot] != 0) {
+                    place(oldSlots[slot] - 1, oldHashes[slot]);
+                }
+            }
+        }
+
+        /**
+         * Makes room for a record of {@code bytes} in one chunk. Chunks double in size up to
+         * {@code CHUNK_SIZE}, so a shard that holds few URLs stays small. A record larger than
+         * that gets a chunk of its own, which then counts as full, so offsets always fit in
+         * {@code CHUNK_BITS}.
+         */
+        private byte[] reserve(int bytes) {
+            byte[] chunk = chunks[chunkCount - 1];
+            if (position + bytes <= chunk.length) {
+                return chunk;
+            }
+            if (chunkCount == MAX_CHUNKS) {
+                throw new IllegalStateException("URL dictionary is full at " + nextId.get() + " URLs");
+            }
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunk = new byte[Math.max(Math.min(CHUNK_SIZE, chunk.length * 2), bytes)];
+            chunks[chunkCount++] = chunk;
+            arenaBytes += chunk.length;
+            position = 0;
+            return chunk;
+        }
+
+        /**
+         * Rebuilds a URL from the full record its chain starts at and the shared prefixes after it.
+         */
+        private String decode(int record) {
+            int[] chain = new int[RESTART_INTERVAL];
+            int length = 0;
+            int current = record;
+            while (true) {
+                chain[length++] = current;
+                int offset = offsets[current];
+                byte[] chunk = chunks[offset >>> CHUNK_BITS];
+                long field = readVarint(chunk, offset & (CHUNK_SIZE - 1));
+                int back = (int) readVarint(chunk, (int) (field >>> 32));
+                if (back == 0) {
+                    break;
+                }
+                current -= back;
+            }
+            byte[] rest = null;
+            int restLength = 0;
+            int host = 0;
+            for (int i = length - 1; i >= 0; i--) {
+                int offset = offsets[chain[i]];
+                byte[] chunk = chunks[offset >>> CHUNK_BITS];
+                long field = readVarint(chunk, offset & (CHUNK_SIZE - 1));
+                host = (int) field;
+                field = readVarint(chunk, (int) (field >>> 32));
+                int shared = 0;
+                if ((int) field > 0) {
+                    field = readVarint(chunk, (int) (field >>> 32));
+                    shared = (int) field;
+                }
+                field = readVarint(chunk, (int) (field >>> 32));
+                int suffix = (int) field;
+                int total = shared + suffix;
+                if (rest == null || rest.length < total) {
+                    rest = rest == null ? new byte[total] : Arrays.copyOf(rest, Math.max(total, rest.length * 2));
+                }
+                System.arraycopy(chunk, (int) (field >>> 32), rest, shared, suffix);
+                restLength = total;
+            }
+            return hostPrefixes.get(host) + new String(rest, 0, restLength, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Host {
+        final int id;
+        int lastRecord = -1;
+        byte[] lastRest = new byte[0];
+        int sinceRestart;
+
+        Host(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.cluster.ClusterClient;
+import com.algo.finalproject.webcrawler.service.cluster.ForwardedLink;
+import com.algo.finalproject.webcrawler.service.cluster.NodeStatus;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusterClientTest {
+
+    private static final NodeStatus LOCAL_IDLE = new NodeStatus(0, true, true, 10, 0, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<List<ForwardedLink>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicInteger rejections = new AtomicInteger();
+    private final AtomicInteger statusRequests = new AtomicInteger();
+    /** Status requests the peer answers as busy before it reports being idle. */
+    private volatile int busyRounds;
+    private HttpServer peer;
+    private CrawlerProperties.Cluster config;
+    private ClusterClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/cluster/links", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                List<ForwardedLink> links = objectMapper.readValue(body, new TypeReference<>() {});
+                if (rejections.getAndDecrement() > 0) {
+                    exchange.sendResponseHeaders(409, -1);
+                } else {
+                    batches.add(links);
+                    exchange.sendResponseHeaders(200, -1);
+                }
+            }
+            exchange.close();
+        });
+        peer.createContext("/cluster/status", exchange -> {
+            boolean busy = statusRequests.incrementAndGet() <= busyRounds;
+            byte[] status = objectMapper.writeValueAsBytes(new NodeStatus(1, true, !busy, busy ? statusRequests.get() : 100, 0, 0));
+            exchange.sendResponseHeaders(200, status.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(status);
+            }
+        });
+        peer.start();
+        config = new CrawlerProperties.Cluster();
+        config.setEnabled(true);
+        config.setNodes(List.of("http://127.0.0.1:1", "http://127.0.0.1:" + peer.getAddress().getPort()));
+        config.setBatchSize(3);
+        config.setMaxBatchDelayMillis(20);
+        config.setTerminationCheckMillis(10);
+        client = new ClusterClient(config, objectMapper);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.shutdown();
+        peer.stop(0);
+    }
+
+    @Test
+    public void testLinksAreForwardedInBatches() throws Exception {
+        for (int i = 0; i < 7; i++) {
+            client.forward(1, "https://www.nps.gov/park" + i, 2);
+        }
+        awaitNoPendingLinks();
+
+        assertEquals(7, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.size() >= 3);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 3));
+        assertEquals(new ForwardedLink("https://www.nps.gov/park0", 2), batches.get(0).get(0));
+        assertEquals(7, client.linksSent());
+    }
+
+    @Test
+    public void testRejectedBatchIsRetried() throws Exception {
+        rejections.set(2);
+
+        client.forward(1, "https://www.nps.gov/", 1);
+        awaitNoPendingLinks();
+
+        assertEquals(List.of(List.of(new ForwardedLink("https://www.nps.gov/", 1))), batches);
+        assertEquals(1, client.linksSent());
+        assertEquals(0, client.linksDropped());
+    }
+
+    @Test
+    public void testClusterIsIdleOnceCountersSettle() throws Exception {
+        busyRounds = 3;
+
+        assertTrue(client.awaitClusterIdle(() -> LOCAL_IDLE, () -> false));
+        // Three busy rounds, then two idle ones with the same counters
+        assertEquals(5, statusRequests.get());
+    }
+
+    @Test
+    public void testIdleCheckCanBeCancelled() throws Exception {
+        busyRounds = Integer.MAX_VALUE;
+
+        assertFalse(client.awaitClusterIdle(() -> LOCAL_IDLE, () -> statusRequests.get() >= 3));
+    }
+
+    private void awaitNoPendingLinks() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (client.pendingLinks() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.pendingLinks());
+    }
+}
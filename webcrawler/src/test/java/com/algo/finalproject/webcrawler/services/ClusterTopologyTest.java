@@ -0,0 +1,55 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.cluster.ClusterTopology;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClusterTopologyTest {
+
+    private static final List<String> NODES = List.of("http://localhost:8080", "http://localhost:8081",
+            "http://localhost:8082", "http://localhost:8083");
+
+    @Test
+    public void testStandaloneOwnsEverything() {
+        ClusterTopology topology = ClusterTopology.standalone();
+
+        assertEquals(1, topology.size());
+        assertTrue(topology.isCoordinator());
+        assertTrue(topology.isLocal("https://www.nps.gov/"));
+        assertTrue(topology.isLocal("https://www.metmuseum.org/art"));
+    }
+
+    @Test
+    public void testPagesOfAHostHaveOneOwner() {
+        ClusterTopology topology = new ClusterTopology(1, NODES);
+
+        int owner = topology.owner("https://www.nps.gov/");
+        assertEquals(owner, topology.owner("https://www.nps.gov/parks"));
+        assertEquals(owner, topology.owner("https://www.nps.gov/news?page=2"));
+        // Every instance computes the same owner
+        assertEquals(owner, new ClusterTopology(3, NODES).owner("https://www.nps.gov/parks"));
+    }
+
+    @Test
+    public void testHostsAreSpreadOverAllNodes() {
+        ClusterTopology topology = new ClusterTopology(0, NODES);
+        int[] hosts = new int[NODES.size()];
+        for (int i = 0; i < 10_000; i++) {
+            hosts[topology.owner("https://site" + i + ".example.org/index.html")]++;
+        }
+
+        for (int count : hosts) {
+            assertTrue(count > 2_250 && count < 2_750, "Uneven share of hosts: " + count);
+        }
+    }
+
+    @Test
+    public void testRejectsUnknownNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new ClusterTopology(4, NODES));
+    }
+}
@@ -0,0 +1,85 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlStats;
+import com.algo.finalproject.webcrawler.service.metrics.HostLatency;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CrawlMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private CrawlMetrics crawlMetrics;
+
+    @BeforeEach
+    public void setUp() {
+        CrawlerProperties.Metrics config = new CrawlerProperties.Metrics();
+        config.setMaxTaggedHosts(2);
+        registry = new SimpleMeterRegistry();
+        crawlMetrics = new CrawlMetrics(registry, config);
+    }
+
+    @Test
+    public void testHostsBeyondLimitShareOneTimer() {
+        crawlMetrics.recordFetch("https://a.org/1", TimeUnit.MILLISECONDS.toNanos(10));
+        crawlMetrics.recordFetch("https://b.org/1", TimeUnit.MILLISECONDS.toNanos(30));
+        crawlMetrics.recordFetch("https://c.org/1", TimeUnit.MILLISECONDS.toNanos(50));
+        crawlMetrics.recordFetch("https://d.org/1", TimeUnit.MILLISECONDS.toNanos(70));
+
+        assertEquals(3, registry.find("crawler.fetch.host").timers().size());
+        assertEquals(4, registry.get("crawler.fetch").timer().count());
+
+        List<HostLatency> slowest = crawlMetrics.getStats(false).slowestHosts();
+        assertEquals(List.of("other", "b.org", "a.org"), slowest.stream().map(HostLatency::host).toList());
+        assertEquals(2, slowest.get(0).fetches());
+        assertEquals(60, slowest.get(0).meanMillis(), 0.001);
+    }
+
+    @Test
+    public void testErrorsAreCountedByStageAndCause() {
+        crawlMetrics.recordError("fetch", new CompletionException(new SocketTimeoutException()));
+        crawlMetrics.recordError("fetch", new SocketTimeoutException());
+        crawlMetrics.recordError("parse", new IOException());
+
+        assertEquals(Map.of("fetch/SocketTimeoutException", 2L, "parse/IOException", 1L),
+                crawlMetrics.getStats(false).errors());
+    }
+
+    @Test
+    public void testStatsReadGaugesAndCounters() {
+        AtomicInteger frontier = new AtomicInteger(42);
+        crawlMetrics.gauge("crawler.frontier.size", "test", frontier, AtomicInteger::get);
+        crawlMetrics.crawlStarted();
+        for (int i = 0; i < 5; i++) {
+            crawlMetrics.recordPage();
+            crawlMetrics.recordResponse(i < 4 ? 200 : 404);
+        }
+        crawlMetrics.recordGraphWrite(100, TimeUnit.MILLISECONDS.toNanos(4));
+        crawlMetrics.recordGraphWrite(300, TimeUnit.MILLISECONDS.toNanos(8));
+        crawlMetrics.crawlFinished();
+
+        CrawlStats stats = crawlMetrics.getStats(true);
+        assertTrue(stats.crawlInProgress());
+        assertEquals(5, stats.pagesProcessed());
+        assertTrue(stats.pagesPerSecond() > 0);
+        assertEquals(42, stats.frontierSize());
+        assertEquals(0, stats.seenUrls());
+        assertEquals(Map.of("2xx", 4L, "4xx", 1L), stats.responses());
+        assertEquals(2, stats.graphWrite().count());
+        assertEquals(6, stats.graphWrite().meanMillis(), 0.001);
+        assertEquals(200, stats.averageGraphBatchSize(), 0.001);
+    }
+}
@@ -1,10 +1,25 @@
 package com.algo.finalproject.webcrawler.services;
 
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
 import com.algo.finalproject.webcrawler.service.CrawlerService;
 import com.algo.finalproject.webcrawler.service.PageRankingService;
+import com.algo.finalproject.webcrawler.service.cache.FetchCache;
+import com.algo.finalproject.webcrawler.service.cluster.ClusterClient;
+import com.algo.finalproject.webcrawler.service.fetch.FetchStatusException;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.fetch.PageFetcher;
+import com.algo.finalproject.webcrawler.service.graph.GraphSink;
+import com.algo.finalproject.webcrawler.service.job.CrawlJobState;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import com.algo.finalproject.webcrawler.service.parse.DomLinkExtractor;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import com.algo.finalproject.webcrawler.service.url.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.jsoup.nodes.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -12,11 +27,29 @@ import org.neo4j.driver.summary.ResultSummary;
 import org.springframework.data.neo4j.core.Neo4jClient;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -31,13 +64,30 @@ public class CrawlerServiceTest {
     @Mock
     private PageRankingService pageRankingService;
 
+    @Mock
+    private GraphSink graphSink;
+
+    @Mock
+    private PageFetcher pageFetcher;
+
     @Mock
     private Document mockDocument;
 
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        crawlerService = new CrawlerService(neo4jClient, pageRankingService,2);
+        // Pages stay in flight, so a started crawl cannot finish before it is checked
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt())).thenReturn(new CompletableFuture<>());
+        crawlerService = createService(new CrawlerProperties());
+    }
+
+    private CrawlerService createService(CrawlerProperties properties) {
+        // The test URLs are not served, so neither robots.txt nor sitemaps are read
+        properties.getRobots().setEnabled(false);
+        return new CrawlerService(neo4jClient, pageRankingService, graphSink, pageFetcher,
+                new DomLinkExtractor(0, 0), new UrlCanonicalizer(properties), new UrlScorer(properties), new FetchCache(properties),
+                new CrawlMetrics(new SimpleMeterRegistry(), properties),
+                new ClusterClient(properties, new ObjectMapper()), properties);
     }
 
     @Test
@@ -51,7 +101,8 @@ public class CrawlerServiceTest {
 
         String cypherQuery1 = """
                   MERGE (u1:Page {url: $currentUrl})
-                  SET u1.pageRank = $initialPageRank
+                    ON CREATE SET u1.pageRank = $initialPageRank, u1.pending = true
+                  SET u1.crawls = CASE WHEN $crawl IN coalesce(u1.crawls, []) THEN u1.crawls ELSE coalesce(u1.crawls, []) + $crawl END
                 """;
 
         String cypherQuery2 = """
@@ -71,6 +122,8 @@ public class CrawlerServiceTest {
         when(ongoingBindSpec.to("currentUrl")).thenReturn(runnableSpec1);
         when(runnableSpec1.bind(anyFloat())).thenReturn(ongoingBindSpec);
         when(ongoingBindSpec.to("initialPageRank")).thenReturn(runnableSpec1);
+        when(runnableSpec1.bind(anyString())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("crawl")).thenReturn(runnableSpec1);
         when(runnableSpec1.run()).thenReturn(resultSummary);
         crawlerService.startCrawling(urls,1);
 
@@ -85,7 +138,8 @@ public class CrawlerServiceTest {
 
         String cypherQuery1 = """
                   MERGE (u1:Page {url: $currentUrl})
-                  SET u1.pageRank = $initialPageRank
+                    ON CREATE SET u1.pageRank = $initialPageRank, u1.pending = true
+                  SET u1.crawls = CASE WHEN $crawl IN coalesce(u1.crawls, []) THEN u1.crawls ELSE coalesce(u1.crawls, []) + $crawl END
                 """;
 
         String cypherQuery2 = """
@@ -107,10 +161,207 @@ public class CrawlerServiceTest {
         when(ongoingBindSpec.to("currentUrl")).thenReturn(runnableSpec1);
         when(runnableSpec1.bind(anyFloat())).thenReturn(ongoingBindSpec);
         when(ongoingBindSpec.to("initialPageRank")).thenReturn(runnableSpec1);
+        when(runnableSpec1.bind(anyString())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("crawl")).thenReturn(runnableSpec1);
         when(runnableSpec1.run()).thenReturn(resultSummary);
 
         crawlerService.startCrawling(urls,2);
         assert(crawlerService.isCrawlInProgress());
     }
 
+    @Test
+    public void testCrawlCompletesWhenLastPageFinishes() throws Exception {
+        stubNeo4j();
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("offline")));
+        when(graphSink.crawlCompleted()).thenReturn(true);
+
+        crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+
+        awaitCrawlEnd();
+        verify(pageRankingService).onCrawlCompleted();
+    }
+
+    @Test
+    public void testThrottledPageIsRetried() throws Exception {
+        stubNeo4j();
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt()))
+                .thenReturn(CompletableFuture.failedFuture(new FetchStatusException("https://www.nps.gov/", 429, 0)))
+                .thenReturn(CompletableFuture.failedFuture(new IOException("offline")));
+
+        crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+
+        awaitCrawlEnd();
+        verify(pageFetcher, times(2)).fetch(eq("https://www.nps.gov/"), isNull(), isNull(), anyInt());
+    }
+
+    @Test
+    public void testStopDrainsPagesInFlight() throws Exception {
+        stubNeo4j();
+        CompletableFuture<FetchedPage> fetch = new CompletableFuture<>();
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt())).thenReturn(fetch);
+
+        crawlerService.startCrawling(List.of("https://www.nps.gov/"), 3);
+        verify(pageFetcher, timeout(5_000)).fetch(eq("https://www.nps.gov/"), isNull(), isNull(), anyInt());
+
+        assertTrue(crawlerService.stopCrawling());
+        Thread.sleep(50);
+        assertTrue(crawlerService.isCrawlInProgress());
+
+        fetch.completeExceptionally(new IOException("offline"));
+        awaitCrawlEnd();
+        verify(pageRankingService, never()).onCrawlCompleted();
+        assertFalse(crawlerService.stopCrawling());
+    }
+
+    @Test
+    public void testJobsRunSideBySide() throws Exception {
+        stubNeo4j();
+        CompletableFuture<FetchedPage> nps = new CompletableFuture<>();
+        CompletableFuture<FetchedPage> met = new CompletableFuture<>();
+        when(pageFetcher.fetch(eq("https://www.nps.gov/"), any(), any(), anyInt())).thenReturn(nps);
+        when(pageFetcher.fetch(eq("https://www.metmuseum.org/"), any(), any(), anyInt())).thenReturn(met);
+        when(graphSink.crawlCompleted()).thenReturn(true);
+
+        String first = crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+        String second = crawlerService.startCrawling(List.of("https://www.metmuseum.org/"), 3);
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotEquals(first, second);
+        verify(pageFetcher, timeout(5_000)).fetch(eq("https://www.nps.gov/"), isNull(), isNull(), anyInt());
+        verify(pageFetcher, timeout(5_000)).fetch(eq("https://www.metmuseum.org/"), isNull(), isNull(), anyInt());
+        assertEquals(2, crawlerService.getJobs().size());
+        assertEquals(3, crawlerService.getJobStatus(second).maxDepth());
+        assertEquals(1, crawlerService.getJobStats(first).inFlight());
+
+        nps.completeExceptionally(new IOException("offline"));
+        awaitJobEnd(first);
+        assertEquals(CrawlJobState.COMPLETED, crawlerService.getJobStatus(first).state());
+        assertEquals(1, crawlerService.getJobStats(first).errors());
+        assertEquals(CrawlJobState.RUNNING, crawlerService.getJobStatus(second).state());
+        // The graph is ranked once no job is running any more
+        verify(pageRankingService, never()).onCrawlCompleted();
+
+        met.completeExceptionally(new IOException("offline"));
+        awaitCrawlEnd();
+        verify(pageRankingService).onCrawlCompleted();
+    }
+
+    @Test
+    public void testJobsShareTheSlotsOfAHost() throws Exception {
+        CrawlerProperties properties = new CrawlerProperties();
+        properties.getFrontier().setMaxRequestsPerHost(1);
+        properties.getFrontier().setMinDelayMillis(0);
+        crawlerService = createService(properties);
+        stubNeo4j();
+        CompletableFuture<FetchedPage> fetch = new CompletableFuture<>();
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt())).thenReturn(fetch);
+
+        crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+        crawlerService.startCrawling(List.of("https://www.nps.gov/subjects/"), 2);
+        verify(pageFetcher, timeout(5_000)).fetch(anyString(), isNull(), isNull(), anyInt());
+        // The job that came second waits for the host's only slot
+        Thread.sleep(200);
+        verify(pageFetcher, times(1)).fetch(anyString(), any(), any(), anyInt());
+
+        fetch.completeExceptionally(new IOException("offline"));
+        verify(pageFetcher, timeout(5_000).times(2)).fetch(anyString(), isNull(), isNull(), anyInt());
+        awaitCrawlEnd();
+    }
+
+    @Test
+    public void testCancelEndsOnlyThatJob() throws Exception {
+        stubNeo4j();
+        CompletableFuture<FetchedPage> nps = new CompletableFuture<>();
+        when(pageFetcher.fetch(eq("https://www.nps.gov/"), any(), any(), anyInt())).thenReturn(nps);
+
+        String cancelled = crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+        String running = crawlerService.startCrawling(List.of("https://www.metmuseum.org/"), 2);
+        verify(pageFetcher, timeout(5_000)).fetch(eq("https://www.nps.gov/"), isNull(), isNull(), anyInt());
+
+        assertTrue(crawlerService.cancelJob(cancelled));
+        assertTrue(crawlerService.cancelJob(cancelled));
+        assertEquals(CrawlJobState.STOPPING, crawlerService.getJobStatus(cancelled).state());
+        nps.completeExceptionally(new IOException("offline"));
+        awaitJobEnd(cancelled);
+
+        assertEquals(CrawlJobState.CANCELLED, crawlerService.getJobStatus(cancelled).state());
+        assertEquals(CrawlJobState.RUNNING, crawlerService.getJobStatus(running).state());
+        assertTrue(crawlerService.isCrawlInProgress());
+        assertNull(crawlerService.getJobStatus("unknown"));
+        assertFalse(crawlerService.cancelJob("unknown"));
+    }
+
+    @Test
+    public void testStoppedJobCanBeCancelled(@TempDir Path directory) throws Exception {
+        stubNeo4j();
+        CrawlerProperties properties = new CrawlerProperties();
+        properties.getPersistence().setEnabled(true);
+        properties.getPersistence().setDirectory(directory.toString());
+        crawlerService = createService(properties);
+        CompletableFuture<FetchedPage> fetch = new CompletableFuture<>();
+        when(pageFetcher.fetch(anyString(), any(), any(), anyInt())).thenReturn(fetch);
+
+        String id = crawlerService.startCrawling(List.of("https://www.nps.gov/"), 2);
+        verify(pageFetcher, timeout(5_000)).fetch(eq("https://www.nps.gov/"), isNull(), isNull(), anyInt());
+        assertTrue(crawlerService.stopCrawling());
+        fetch.completeExceptionally(new IOException("offline"));
+        awaitCrawlEnd();
+        assertEquals(CrawlJobState.STOPPED, crawlerService.getJobStatus(id).state());
+        assertTrue(Files.isDirectory(directory.resolve(id)));
+
+        assertTrue(crawlerService.cancelJob(id));
+        assertEquals(CrawlJobState.CANCELLED, crawlerService.getJobStatus(id).state());
+        assertFalse(Files.exists(directory.resolve(id)));
+        assertFalse(crawlerService.resumeCrawling());
+    }
+
+    @Test
+    public void testSavedJobIsCancelledAfterRestart(@TempDir Path directory) throws Exception {
+        CrawlerProperties properties = new CrawlerProperties();
+        properties.getPersistence().setEnabled(true);
+        properties.getPersistence().setDirectory(directory.toString());
+        crawlerService = createService(properties);
+        Files.createDirectories(directory.resolve("saved-job"));
+        Files.writeString(directory.resolve("saved-job").resolve("frontier.properties"), "maxDepth=2");
+
+        assertTrue(crawlerService.cancelJob("saved-job"));
+        assertFalse(Files.exists(directory.resolve("saved-job")));
+        assertFalse(crawlerService.cancelJob("saved-job"));
+        assertFalse(crawlerService.cancelJob(".."));
+        assertTrue(Files.isDirectory(directory));
+    }
+
+    private void stubNeo4j() {
+        Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
+        Neo4jClient.OngoingBindSpec ongoingBindSpec = mock(Neo4jClient.OngoingBindSpec.class);
+        Neo4jClient.RunnableSpec runnableSpec1 = mock(Neo4jClient.RunnableSpec.class);
+        ResultSummary resultSummary = mock(ResultSummary.class);
+
+        when(neo4jClient.query(anyString())).thenReturn(runnableSpec);
+        when(runnableSpec.run()).thenReturn(resultSummary);
+        when(runnableSpec.bind(anyString())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("currentUrl")).thenReturn(runnableSpec1);
+        when(runnableSpec1.bind(anyFloat())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("initialPageRank")).thenReturn(runnableSpec1);
+        when(runnableSpec1.bind(anyString())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("crawl")).thenReturn(runnableSpec1);
+        when(runnableSpec1.run()).thenReturn(resultSummary);
+    }
+
+    private void awaitJobEnd(String id) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (crawlerService.getJobStatus(id).finishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNotNull(crawlerService.getJobStatus(id).finishedAt());
+    }
+
+    private void awaitCrawlEnd() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (crawlerService.isCrawlInProgress() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(crawlerService.isCrawlInProgress());
+    }
 }
@@ -0,0 +1,89 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.cache.CachedPage;
+import com.algo.finalproject.webcrawler.service.cache.FetchCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FetchCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private CrawlerProperties.FetchCache config;
+
+    @BeforeEach
+    public void setUp() {
+        config = new CrawlerProperties.FetchCache();
+        config.setEnabled(true);
+        config.setFile(directory.resolve("fetch-cache.bin").toString());
+    }
+
+    @Test
+    public void testSavedEntriesSurviveRestart() {
+        FetchCache cache = new FetchCache(config);
+        cache.put("https://www.nps.gov/", new CachedPage("\"v1\"", "Tue, 01 Oct 2024 10:00:00 GMT", 42L, 0x5eedL,
+                List.of("https://www.nps.gov/parks", "https://www.nps.gov/about")));
+        cache.put("https://www.mfa.org/", new CachedPage(null, null, 7L, 0L, List.of()));
+        cache.save();
+
+        FetchCache restarted = new FetchCache(config);
+        CachedPage page = restarted.get("https://www.nps.gov/");
+        assertNotNull(page);
+        assertEquals("\"v1\"", page.etag());
+        assertEquals(42L, page.contentHash());
+        assertEquals(0x5eedL, page.fingerprint());
+        assertEquals(List.of("https://www.nps.gov/parks", "https://www.nps.gov/about"), page.outlinks());
+        assertNull(restarted.get("https://www.mfa.org/").etag());
+        assertEquals(2, restarted.getStats().entries());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntriesAreEvicted() {
+        config.setMaxBytes(2_000);
+        FetchCache cache = new FetchCache(config);
+        for (int i = 0; i < 50; i++) {
+            cache.put("https://www.metmuseum.org/art/" + i, new CachedPage(null, null, i, 0L,
+                    List.of("https://www.metmuseum.org/art/" + (i + 1))));
+            // Keep the first page hot so it outlives the others
+            cache.get("https://www.metmuseum.org/art/0");
+        }
+
+        assertTrue(cache.getStats().sizeBytes() <= 2_000);
+        assertTrue(cache.getStats().evictions() > 0);
+        assertNotNull(cache.get("https://www.metmuseum.org/art/0"));
+        assertNull(cache.get("https://www.metmuseum.org/art/1"));
+        assertNotNull(cache.get("https://www.metmuseum.org/art/49"));
+    }
+
+    @Test
+    public void testDisabledCacheStoresNothing() {
+        config.setEnabled(false);
+        FetchCache cache = new FetchCache(config);
+        cache.put("https://www.nps.gov/", new CachedPage("\"v1\"", null, 1L, 0L, List.of()));
+
+        assertNull(cache.get("https://www.nps.gov/"));
+    }
+
+    @Test
+    public void testContentHashDetectsChanges() {
+        byte[] page = "<html><body><a href=\"/a\">a</a></body></html>".getBytes(StandardCharsets.UTF_8);
+        byte[] edited = "<html><body><a href=\"/b\">a</a></body></html>".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(FetchCache.contentHash(page), FetchCache.contentHash(page.clone()));
+        assertNotEquals(FetchCache.contentHash(page), FetchCache.contentHash(edited));
+        assertNotEquals(FetchCache.contentHash(new byte[0]), FetchCache.contentHash(new byte[1]));
+    }
+}
@@ -0,0 +1,149 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.fetch.FetchStatusException;
+import com.algo.finalproject.webcrawler.service.limit.FetchLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FetchLimiterTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private CrawlerProperties properties;
+    private FetchLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new CrawlerProperties();
+        properties.getFrontier().setMaxRequestsPerHost(8);
+        properties.getFetch().setMaxInFlight(64);
+        properties.getFetch().setTimeoutMillis(10_000);
+        properties.getLimiter().setMinTimeoutMillis(500);
+        limiter = new FetchLimiter(properties);
+    }
+
+    @Test
+    public void testOverloadedHostShrinksAndRecoversUpToTheConfiguredMaximum() {
+        int limit = 0;
+        for (int i = 0; i < 100; i++) {
+            limit = limiter.onSuccess("fast.org", 50 * MILLIS);
+        }
+        assertEquals(8, limit);
+
+        assertEquals(4, limiter.onOverload("fast.org", false));
+        // One cut per window of successes
+        assertEquals(4, limiter.onOverload("fast.org", false));
+        assertEquals(64, limiter.limit());
+
+        for (int i = 0; i < 200; i++) {
+            limit = limiter.onSuccess("fast.org", 50 * MILLIS);
+        }
+        assertEquals(8, limit);
+    }
+
+    @Test
+    public void testSlowingHostShrinks() {
+        for (int i = 0; i < 20; i++) {
+            limiter.onSuccess("slowing.org", 50 * MILLIS);
+        }
+        int limit = 0;
+        for (int i = 0; i < 50; i++) {
+            limit = limiter.onSuccess("slowing.org", 1_000 * MILLIS);
+        }
+        assertEquals(1, limit);
+    }
+
+    @Test
+    public void testTimeoutFollowsLatency() {
+        assertEquals(10_000, limiter.timeoutMillis("new.org"));
+        for (int i = 0; i < 50; i++) {
+            limiter.onSuccess("steady.org", 100 * MILLIS);
+        }
+        assertEquals(500, limiter.timeoutMillis("steady.org"));
+
+        limiter.onOverload("steady.org", true);
+        assertEquals(1_000, limiter.timeoutMillis("steady.org"));
+        assertEquals(32, limiter.limit());
+    }
+
+    @Test
+    public void testFixedLimitsWhenNotAdaptive() {
+        properties.getLimiter().setAdaptive(false);
+        limiter = new FetchLimiter(properties);
+
+        assertEquals(8, limiter.onOverload("a.org", true));
+        assertEquals(10_000, limiter.timeoutMillis("a.org"));
+        assertEquals(64, limiter.limit());
+    }
+
+    @Test
+    public void testSlotsGoToWaitersInArrivalOrder() throws InterruptedException {
+        properties.getFetch().setMaxInFlight(1);
+        limiter = new FetchLimiter(properties);
+        limiter.acquire();
+
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> waiters = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            int id = i;
+            Thread waiter = Thread.ofPlatform().start(() -> {
+                try {
+                    limiter.acquire();
+                    order.add(id);
+                    limiter.release();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            while (waiter.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+            waiters.add(waiter);
+        }
+
+        limiter.release();
+        for (Thread waiter : waiters) {
+            waiter.join(5_000);
+        }
+        assertEquals(List.of(0, 1, 2), order);
+    }
+
+    @Test
+    public void testRetryDelay() {
+        assertEquals(3_000, limiter.retryDelayMillis(3_000, 1));
+        assertEquals(60_000, limiter.retryDelayMillis(3_600_000, 1));
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            long backoff = 1_000L << (attempt - 1);
+            long delay = limiter.retryDelayMillis(-1, attempt);
+            assertTrue(delay >= backoff / 2 && delay <= backoff, "Delay " + delay + " for attempt " + attempt);
+        }
+    }
+
+    @Test
+    public void testClassifiesFailures() {
+        FetchStatusException throttled = new FetchStatusException("https://a.org/", 429, 2_000);
+        assertTrue(FetchLimiter.isOverload(new CompletionException(throttled)));
+        assertEquals(2_000, FetchLimiter.retryAfterMillis(new CompletionException(throttled)));
+        assertTrue(FetchLimiter.isTimeout(new CompletionException(new UncheckedIOException(new HttpTimeoutException("slow")))));
+        assertFalse(FetchLimiter.isOverload(new FetchStatusException("https://a.org/", 404, -1)));
+        assertFalse(FetchLimiter.isOverload(new IOException("Skipped")));
+
+        assertEquals(120_000, FetchStatusException.parseRetryAfter("120", 0));
+        assertEquals(5_000, FetchStatusException.parseRetryAfter("Thu, 01 Jan 1970 00:00:10 GMT", 5_000));
+        assertEquals(-1, FetchStatusException.parseRetryAfter("soon", 0));
+    }
+}
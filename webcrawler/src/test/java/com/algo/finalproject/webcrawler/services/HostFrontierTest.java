@@ -0,0 +1,132 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.frontier.HostFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.HostSlots;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HostFrontierTest {
+
+    private static HostFrontier<String> newFrontier(int maxPerHost, long minDelayMillis) {
+        return new HostFrontier<>(HostFrontier::hostOf, Comparator.<String>naturalOrder(), maxPerHost, minDelayMillis);
+    }
+
+    private static HostFrontier<String> newFrontier(HostSlots slots) {
+        return new HostFrontier<>(HostFrontier::hostOf, Comparator.<String>naturalOrder(), slots);
+    }
+
+    @Test
+    public void testHostOf() {
+        assertEquals("www.metmuseum.org", HostFrontier.hostOf("https://www.metmuseum.org/art/collection"));
+        assertEquals("nps.gov", HostFrontier.hostOf("https://NPS.gov:443?q=1"));
+        assertEquals("mfa.org", HostFrontier.hostOf("https://user@mfa.org#top"));
+    }
+
+    @Test
+    public void testLimitsConcurrentFetchesPerHost() throws InterruptedException {
+        HostFrontier<String> frontier = newFrontier(1, 0);
+        frontier.offer("https://a.org/1");
+        frontier.offer("https://a.org/2");
+
+        String first = frontier.poll(10, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.org/1", first);
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+
+        frontier.release(first);
+        assertEquals("https://a.org/2", frontier.poll(10, TimeUnit.MILLISECONDS));
+        assertTrue(frontier.isEmpty());
+    }
+
+    @Test
+    public void testAlternatesHostsWhileOneIsDelayed() throws InterruptedException {
+        HostFrontier<String> frontier = newFrontier(4, 10_000);
+        frontier.offer("https://a.org/1");
+        frontier.offer("https://a.org/2");
+        frontier.offer("https://b.org/1");
+
+        String first = frontier.poll(10, TimeUnit.MILLISECONDS);
+        String second = frontier.poll(10, TimeUnit.MILLISECONDS);
+
+        assertNotEquals(HostFrontier.hostOf(first), HostFrontier.hostOf(second));
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, frontier.size());
+        assertEquals(2, frontier.hostCount());
+    }
+
+    @Test
+    public void testHostLimitAndDelayChangeWhileQueued() throws InterruptedException {
+        HostFrontier<String> frontier = newFrontier(1, 0);
+        frontier.offer("https://a.org/1");
+        frontier.offer("https://a.org/2");
+        frontier.offer("https://b.org/1");
+
+        assertEquals("https://a.org/1", frontier.poll(10, TimeUnit.MILLISECONDS));
+        frontier.setLimit("a.org", 2);
+        // b.org is pushed back behind a.org, which has a second slot now
+        frontier.delay("b.org", 200);
+        assertEquals("https://a.org/2", frontier.poll(10, TimeUnit.MILLISECONDS));
+        assertNull(frontier.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals("https://b.org/1", frontier.poll(1_000, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testFrontiersShareTheSlotsOfAHost() throws InterruptedException {
+        HostSlots slots = new HostSlots(1, 0);
+        HostFrontier<String> first = newFrontier(slots);
+        HostFrontier<String> second = newFrontier(slots);
+        first.offer("https://a.org/1");
+        second.offer("https://a.org/2");
+        second.offer("https://b.org/1");
+
+        String taken = first.poll(10, TimeUnit.MILLISECONDS);
+        assertEquals("https://a.org/1", taken);
+        // a.org's only slot is held by the other frontier
+        assertEquals("https://b.org/1", second.poll(10, TimeUnit.MILLISECONDS));
+        assertNull(second.poll(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, slots.inFlight("a.org"));
+
+        first.release(taken);
+        assertEquals("https://a.org/2", second.poll(10, TimeUnit.MILLISECONDS));
+        assertEquals(1, slots.inFlight("a.org"));
+    }
+
+    @Test
+    public void testFrontiersShareTheDelayOfAHost() throws InterruptedException {
+        HostSlots slots = new HostSlots(2, 0);
+        slots.setMinDelay("a.org", 100);
+        HostFrontier<String> first = newFrontier(slots);
+        HostFrontier<String> second = newFrontier(slots);
+        first.offer("https://a.org/1");
+        second.offer("https://a.org/2");
+
+        long start = System.nanoTime();
+        assertEquals("https://a.org/1", first.poll(10, TimeUnit.MILLISECONDS));
+        String next = second.poll(1, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("https://a.org/2", next);
+        assertTrue(elapsedMillis >= 90, "second fetch started after " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testWaitsForMinimumDelay() throws InterruptedException {
+        HostFrontier<String> frontier = newFrontier(2, 100);
+        frontier.offer("https://a.org/1");
+        frontier.offer("https://a.org/2");
+
+        long start = System.nanoTime();
+        frontier.poll(10, TimeUnit.MILLISECONDS);
+        String second = frontier.poll(1, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("https://a.org/2", second);
+        assertTrue(elapsedMillis >= 90, "second fetch started after " + elapsedMillis + " ms");
+    }
+}
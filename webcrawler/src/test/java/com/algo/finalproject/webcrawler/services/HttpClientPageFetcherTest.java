@@ -0,0 +1,103 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.fetch.HttpClientPageFetcher;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientPageFetcherTest {
+
+    private static final byte[] PAGE = "<a href=\"/next\">next</a>".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private HttpClientPageFetcher fetcher;
+    private String baseUrl;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/page", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=\"UTF-8\"");
+            exchange.sendResponseHeaders(200, PAGE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(PAGE);
+            }
+        });
+        server.createContext("/cached", exchange -> {
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/html");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, PAGE.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(PAGE);
+            }
+        });
+        server.createContext("/image", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "image/png");
+            exchange.sendResponseHeaders(200, 4);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(new byte[4]);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        fetcher = new HttpClientPageFetcher(5000, "webcrawler-test");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        fetcher.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testFetchReturnsRawBytes() throws Exception {
+        FetchedPage page = fetcher.fetch(baseUrl + "/page").get();
+
+        assertEquals(200, page.statusCode());
+        assertEquals("UTF-8", page.charset());
+        assertEquals(baseUrl + "/page", page.url());
+        assertArrayEquals(PAGE, page.body());
+    }
+
+    @Test
+    public void testConditionalFetchReturnsNotModified() throws Exception {
+        FetchedPage first = fetcher.fetch(baseUrl + "/cached").get();
+        assertEquals("\"v1\"", first.etag());
+        assertFalse(first.isNotModified());
+
+        FetchedPage second = fetcher.fetch(baseUrl + "/cached", first.etag(), null).get();
+        assertTrue(second.isNotModified());
+        assertEquals(0, second.body().length);
+    }
+
+    @Test
+    public void testNonHtmlAndMissingPagesFail() {
+        ExecutionException image = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch(baseUrl + "/image").get());
+        assertInstanceOf(IOException.class, image.getCause());
+
+        ExecutionException missing = assertThrows(ExecutionException.class,
+                () -> fetcher.fetch(baseUrl + "/missing").get());
+        assertInstanceOf(IOException.class, missing.getCause());
+    }
+}
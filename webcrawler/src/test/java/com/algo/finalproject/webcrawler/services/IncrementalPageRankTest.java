@@ -0,0 +1,248 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.PageRankingService;
+import com.algo.finalproject.webcrawler.service.rank.CsrGraph;
+import com.algo.finalproject.webcrawler.service.rank.IncrementalPageRank;
+import com.algo.finalproject.webcrawler.service.rank.PageRankEngine;
+import com.algo.finalproject.webcrawler.service.rank.PageRankStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Values;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IncrementalPageRankTest {
+
+    private static final double DAMPING = 0.85;
+    /** Key of the stored total among the stored ranks. */
+    private static final String TOTAL = "total";
+
+    private ForkJoinPool pool;
+    private PageRankEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+        engine = new PageRankEngine(pool, DAMPING, 1e-12, 500);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testNewLinksAndPagesMatchFullRecomputation() {
+        Random random = new Random(11);
+        Set<String> distinct = new HashSet<>();
+        List<String[]> links = randomLinks(random, distinct, 2_000, 0, 8_000);
+        IncrementalPageRank incremental = start(links);
+        int pages = incremental.nodeCount();
+
+        // A second crawl adds pages, links among old pages and a dangling page
+        List<String[]> added = randomLinks(random, distinct, 2_200, 1_800, 400);
+        added.forEach(link -> incremental.addLink(link[0], link[1]));
+        incremental.addPage("https://x.org/isolated");
+        IncrementalPageRank.Update update = incremental.propagate();
+        links.addAll(added);
+
+        Map<String, Double> expected = fullRanks(links, "https://x.org/isolated");
+        assertEquals(expected.size(), incremental.nodeCount());
+        assertEquals(expected.size() - pages, update.newPages());
+        assertEquals(400, update.newLinks());
+        double distance = 0;
+        double[] ranks = incremental.ranks();
+        for (int node = 0; node < incremental.nodeCount(); node++) {
+            distance += Math.abs(ranks[node] - expected.get(incremental.url(node)));
+        }
+        assertTrue(distance <= 1e-4 / (1 - DAMPING), "L1 distance " + distance);
+    }
+
+    @Test
+    public void testLinkFromMinorPageTouchesFewPages() {
+        Random random = new Random(5);
+        List<String[]> links = randomLinks(random, new HashSet<>(), 20_000, 0, 60_000);
+        IncrementalPageRank incremental = start(links);
+
+        incremental.addLink("https://x.org/19995", "https://x.org/new");
+        IncrementalPageRank.Update update = incremental.propagate();
+
+        assertEquals(1, update.newPages());
+        assertEquals(1, update.newLinks());
+        assertTrue(update.changedNodes().length < 1_000, "changed " + update.changedNodes().length);
+
+        incremental.addLink("https://x.org/19995", "https://x.org/new");
+        assertEquals(0, incremental.propagate().pushes());
+    }
+
+    @Test
+    public void testLinkFromDanglingPage() {
+        List<String[]> links = new ArrayList<>(List.of(
+                new String[]{"https://a.org/", "https://b.org/"},
+                new String[]{"https://b.org/", "https://c.org/"}));
+        IncrementalPageRank incremental = start(links);
+
+        incremental.addLink("https://c.org/", "https://a.org/");
+        incremental.propagate();
+
+        for (double rank : incremental.ranks()) {
+            assertEquals(1.0 / 3, rank, 1e-3);
+        }
+    }
+
+    @Test
+    public void testIncrementalPassWritesOnlyChangedScores() {
+        Random random = new Random(3);
+        Set<String> distinct = new HashSet<>();
+        List<String[]> links = randomLinks(random, distinct, 20_000, 0, 60_000);
+        Map<String, Double> stored = new HashMap<>();
+        AtomicInteger written = new AtomicInteger();
+        List<String[]> pending = new ArrayList<>();
+        CrawlerProperties.PageRank config = new CrawlerProperties.PageRank();
+        config.setIncremental(true);
+        config.setTolerance(1e-12);
+        config.setMaxIterations(500);
+        config.setResidualTolerance(1e-4);
+        PageRankingService service = new PageRankingService(neo4j(links, pending, stored, written), config);
+        service.computePageRank();
+
+        // Two passes, so a drift in the second would show; a minor page linking to a new one
+        // changes a small part of the graph
+        for (int pass = 0; pass < 2; pass++) {
+            List<String[]> added = new ArrayList<>();
+            added.add(new String[]{"https://x.org/" + (19_995 + pass), "https://x.org/new/" + pass});
+            pending.addAll(added);
+            links.addAll(added);
+            written.set(0);
+            PageRankStats stats = service.updatePageRank();
+            assertTrue(stats.incremental());
+            assertEquals(stats.pagesWritten(), written.get());
+            assertTrue(stats.pagesWritten() < stats.nodes() / 20, "wrote " + stats.pagesWritten());
+        }
+
+        Map<String, Double> expected = fullRanks(links);
+        double total = stored.remove(TOTAL);
+        assertEquals(expected.size(), stored.size());
+        double sum = 0;
+        for (Map.Entry<String, Double> page : expected.entrySet()) {
+            double rank = stored.get(page.getKey()) / total;
+            assertEquals(page.getValue(), rank, 1e-4 / (1 - DAMPING), page.getKey());
+            sum += rank;
+        }
+        assertEquals(1, sum, 1e-9);
+    }
+
+    private IncrementalPageRank start(List<String[]> links) {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        links.forEach(link -> builder.addEdge(link[0], link[1]));
+        CsrGraph graph = builder.build();
+        return new IncrementalPageRank(graph, engine.run(graph).ranks(), DAMPING, 1e-4);
+    }
+
+    private Map<String, Double> fullRanks(List<String[]> links, String... pages) {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        links.forEach(link -> builder.addEdge(link[0], link[1]));
+        for (String page : pages) {
+            builder.addNode(page);
+        }
+        CsrGraph graph = builder.build();
+        double[] ranks = engine.run(graph).ranks();
+        Map<String, Double> byUrl = new HashMap<>();
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            byUrl.put(graph.url(node), ranks[node]);
+        }
+        return byUrl;
+    }
+
+    /**
+     * Just enough of Neo4j for the ranking queries: the pages and links of {@code links}, of which
+     * those in {@code pending} have not been ranked yet. Written ranks go to {@code stored}, and
+     * are counted in {@code written}; the total goes there under {@link #TOTAL}.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Neo4jClient neo4j(List<String[]> links, List<String[]> pending, Map<String, Double> stored,
+                                     AtomicInteger written) {
+        Neo4jClient neo4jClient = mock(Neo4jClient.class);
+        when(neo4jClient.query(anyString())).thenAnswer(query -> {
+            String cypher = query.getArgument(0);
+            Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
+            Neo4jClient.MappingSpec<Integer> mappingSpec = mock(Neo4jClient.MappingSpec.class);
+            when(runnableSpec.fetchAs(Integer.class)).thenReturn(mappingSpec);
+            when(mappingSpec.mappedBy(any())).thenAnswer(mapping -> {
+                BiFunction<Object, Record, Integer> mapper = mapping.getArgument(0);
+                Neo4jClient.RecordFetchSpec<Integer> fetchSpec = mock(Neo4jClient.RecordFetchSpec.class);
+                when(fetchSpec.all()).thenAnswer(all -> {
+                    List<Integer> rows = new ArrayList<>();
+                    // New pages come with their links, so the pending pages need not be listed
+                    boolean takePending = cypher.contains("pending");
+                    if (cypher.contains("AS from")) {
+                        List<String[]> taken = takePending ? List.copyOf(pending) : links;
+                        taken.forEach(link -> rows.add(mapper.apply(null, record(link[0], link[1]))));
+                        if (takePending) {
+                            pending.clear();
+                        }
+                    }
+                    return rows;
+                });
+                return fetchSpec;
+            });
+            when(runnableSpec.bind(any())).thenAnswer(bind -> {
+                if (bind.getArgument(0) instanceof Double total) {
+                    stored.put(TOTAL, total);
+                } else {
+                    List<Map<String, Object>> batch = bind.getArgument(0);
+                    batch.forEach(rank -> stored.put((String) rank.get("url"), (Double) rank.get("pageRank")));
+                    written.addAndGet(batch.size());
+                }
+                Neo4jClient.OngoingBindSpec bindSpec = mock(Neo4jClient.OngoingBindSpec.class);
+                when(bindSpec.to(anyString())).thenReturn(mock(Neo4jClient.RunnableSpec.class));
+                return bindSpec;
+            });
+            return runnableSpec;
+        });
+        return neo4jClient;
+    }
+
+    private static Record record(String from, String to) {
+        Record record = mock(Record.class);
+        when(record.get("from")).thenReturn(Values.value(from));
+        when(record.get("to")).thenReturn(Values.value(to));
+        return record;
+    }
+
+    /**
+     * Distinct links from pages {@code [from, pages)}, skewed towards low page numbers as on a
+     * real site. Neo4j stores every link once, so the ranks never see the same link twice.
+     */
+    private static List<String[]> randomLinks(Random random, Set<String> distinct, int pages, int from, int count) {
+        List<String[]> links = new ArrayList<>();
+        while (links.size() < count) {
+            int source = from + random.nextInt(pages - from);
+            int target = (int) (pages * Math.pow(random.nextDouble(), 3));
+            if (distinct.add(source + " " + target)) {
+                links.add(new String[]{"https://x.org/" + source, "https://x.org/" + target});
+            }
+        }
+        return links;
+    }
+}
@@ -0,0 +1,166 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import com.algo.finalproject.webcrawler.service.fetch.FetchedPage;
+import com.algo.finalproject.webcrawler.service.parse.DomLinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.LinkExtractor;
+import com.algo.finalproject.webcrawler.service.parse.StreamingLinkExtractor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LinkExtractorTest {
+
+    private static final String PAGE_URL = "https://www.metmuseum.org/art/collection";
+
+    private static final String PAGE = """
+            <!DOCTYPE html>
+            <html><head>
+            <title>Links <a href="/not-a-link">in title</a></title>
+            <script>document.write('<a href="/from-script">x</a>');</script>
+            <style>a[href="/from-style"] { color: red }</style>
+            </head>
+            <BODY>
+            <!-- <a href="/commented-out">old</a> -->
+            <A HREF="/exhibitions/">Exhibitions</A>
+            <a class=nav href=search?q=armor&amp;page=2>Search</a>
+            <a title='Say "hi" > there' href='relative/page.html'>Relative</a>
+            <a href = "https://www.nps.gov/index.htm#top" >Parks</a>
+            <a href="  /padded  ">Padded</a>
+            <a name="anchor-only">No href</a>
+            <a href="/first" href="/second">Duplicate</a>
+            <textarea><a href="/in-textarea">x</a></textarea>
+            <img src="/image.png" alt="<a href='/in-attribute'>">
+            <a href="mailto:info@metmuseum.org">Mail</a>
+            <a href="/caf&eacute;">Café</a>
+            </body></html>
+            """;
+
+    @Test
+    public void testStreamingMatchesDom() throws IOException {
+        FetchedPage page = page(PAGE, StandardCharsets.UTF_8, "UTF-8");
+
+        List<String> dom = extract(new DomLinkExtractor(0, 0), page);
+        List<String> streaming = extract(new StreamingLinkExtractor(0, 0), page);
+
+        assertEquals(dom, streaming);
+        assertEquals(List.of(
+                "https://www.metmuseum.org/exhibitions/",
+                "https://www.metmuseum.org/art/search?q=armor&page=2",
+                "https://www.metmuseum.org/art/relative/page.html",
+                "https://www.nps.gov/index.htm#top",
+                "https://www.metmuseum.org/padded",
+                "https://www.metmuseum.org/first",
+                "mailto:info@metmuseum.org",
+                "https://www.metmuseum.org/café"), streaming);
+    }
+
+    @Test
+    public void testStreamingResolvesEdgeCasesLikeDom() throws IOException {
+        FetchedPage page = page("""
+                <a href="">self</a> <a href="#part">part</a> <a href="?page=3">query</a>
+                <a href="../../../up">up</a> <a href="a//b/./c/../d">dots</a> <a href="h:x">scheme</a>
+                <a href=":colon">colon</a>
+                """, StandardCharsets.UTF_8, "UTF-8");
+
+        List<String> dom = extract(new DomLinkExtractor(0, 0), page);
+        List<String> streaming = extract(new StreamingLinkExtractor(0, 0), page);
+
+        assertEquals(dom, streaming);
+    }
+
+    @Test
+    public void testStreamingEncodesIllegalCharacters() throws IOException {
+        FetchedPage page = page("""
+                <a href="a b.html">space</a> <a href="x|y">pipe</a> <a href="100%">percent</a>
+                <a href="a#b#c">hashes</a> <a href="https://[broken">broken</a>
+                """, StandardCharsets.UTF_8, "UTF-8");
+
+        assertEquals(List.of(
+                "https://www.metmuseum.org/art/a%20b.html",
+                "https://www.metmuseum.org/art/x%7Cy",
+                "https://www.metmuseum.org/art/100%25",
+                "https://www.metmuseum.org/art/a#b%23c",
+                "https://[broken"), extract(new StreamingLinkExtractor(0, 0), page));
+    }
+
+    @Test
+    public void testBaseHrefAppliesToEarlierLinks() throws IOException {
+        String html = """
+                <html><head>
+                <a href="early.html">Before base</a>
+                <base href="https://www.mfa.org/collections/">
+                <base href="https://www.nps.gov/ignored/">
+                </head><body>
+                <a href="late.html">After base</a>
+                </body></html>
+                """;
+        FetchedPage page = page(html, StandardCharsets.UTF_8, null);
+
+        List<String> streaming = extract(new StreamingLinkExtractor(0, 0), page);
+
+        assertEquals(List.of("https://www.mfa.org/collections/early.html",
+                "https://www.mfa.org/collections/late.html"), streaming);
+        assertEquals(extract(new DomLinkExtractor(0, 0), page), streaming);
+    }
+
+    @Test
+    public void testCapsStopExtractionEarly() throws IOException {
+        StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 100; i++) {
+            html.append("<p><a href=\"/object/").append(i).append("\">Object ").append(i).append("</a></p>");
+        }
+        html.append("</body></html>");
+        FetchedPage page = page(html.toString(), StandardCharsets.UTF_8, "UTF-8");
+
+        assertEquals(10, extract(new StreamingLinkExtractor(0, 10), page).size());
+        assertEquals(10, extract(new DomLinkExtractor(0, 10), page).size());
+        int eleventhLink = html.indexOf("<p><a href=\"/object/10\"");
+        assertEquals(10, extract(new StreamingLinkExtractor(eleventhLink, 0), page).size());
+    }
+
+    @Test
+    public void testBothExtractorsFingerprintTheVisibleText() throws IOException {
+        StringBuilder html = new StringBuilder("<html><head><title>Arms and Armor</title></head><body>");
+        for (int i = 0; i < 30; i++) {
+            html.append("<p>Object <b>").append(i).append("</b> is a <a href=\"/object/").append(i)
+                    .append("\">steel helmet</a> from the collection.</p>");
+        }
+        html.append("</body></html>");
+        FetchedPage page = page(html.toString(), StandardCharsets.UTF_8, "UTF-8");
+        SimHash dom = new SimHash();
+        SimHash streaming = new SimHash();
+
+        new DomLinkExtractor(0, 0).extract(page, link -> { }, dom);
+        new StreamingLinkExtractor(0, 0).extract(page, link -> { }, streaming);
+
+        assertTrue(dom.shingles() > 200);
+        assertTrue(SimHash.distance(dom.value(), streaming.value()) <= 3);
+    }
+
+    @Test
+    public void testCharsetIsDetectedFromMeta() throws IOException {
+        String html = "<html><head><meta charset=\"ISO-8859-1\"></head>"
+                + "<body><a href=\"/musée\">Musée</a></body></html>";
+        FetchedPage page = page(html, StandardCharsets.ISO_8859_1, null);
+
+        assertEquals(List.of("https://www.metmuseum.org/musée"), extract(new StreamingLinkExtractor(0, 0), page));
+    }
+
+    private static FetchedPage page(String html, Charset encoding, String declaredCharset) {
+        return new FetchedPage(PAGE_URL, 200, "text/html", declaredCharset, html.getBytes(encoding), null, null);
+    }
+
+    private static List<String> extract(LinkExtractor extractor, FetchedPage page) throws IOException {
+        List<String> links = new ArrayList<>();
+        extractor.extract(page, links::add);
+        return links;
+    }
+}
@@ -0,0 +1,110 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.graph.GraphWriterStats;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.metrics.CrawlMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.neo4j.driver.summary.ResultSummary;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class LinkGraphWriterTest {
+
+    @Mock
+    private Neo4jClient neo4jClient;
+
+    private Neo4jClient.RunnableSpec runnableSpec1;
+    private LinkGraphWriter linkGraphWriter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
+        Neo4jClient.OngoingBindSpec ongoingBindSpec = mock(Neo4jClient.OngoingBindSpec.class);
+        runnableSpec1 = mock(Neo4jClient.RunnableSpec.class);
+        ResultSummary resultSummary = mock(ResultSummary.class);
+
+        when(neo4jClient.query(anyString())).thenReturn(runnableSpec);
+        when(runnableSpec.bind(any())).thenReturn(ongoingBindSpec);
+        when(ongoingBindSpec.to("edges")).thenReturn(runnableSpec1);
+        when(runnableSpec1.run()).thenReturn(resultSummary);
+
+        CrawlerProperties.GraphWriter config = new CrawlerProperties.GraphWriter();
+        config.setBatchSize(4);
+        config.setMaxBatchDelayMillis(20);
+        config.setWriterThreads(1);
+        linkGraphWriter = new LinkGraphWriter(neo4jClient, config,
+                new CrawlMetrics(new SimpleMeterRegistry(), new CrawlerProperties.Metrics()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        linkGraphWriter.shutdown();
+    }
+
+    @Test
+    public void testFlushWritesAllEdgesInBatches() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            linkGraphWriter.submit("https://www.metmuseum.org/", "https://www.metmuseum.org/page" + i);
+        }
+        linkGraphWriter.flush();
+
+        GraphWriterStats stats = linkGraphWriter.getStats();
+        assertEquals(10, stats.edgesWritten());
+        assertEquals(0, stats.edgesFailed());
+        assertEquals(0, stats.queueDepth());
+        assertTrue(stats.batchesWritten() >= 3);
+        assertTrue(stats.averageBatchSize() <= 4);
+    }
+
+    @Test
+    public void testDuplicateEdgesAreWrittenWithTheirOwnQuery() throws InterruptedException {
+        linkGraphWriter.submit("https://www.metmuseum.org/", "https://www.metmuseum.org/page");
+        linkGraphWriter.submitDuplicate("https://mirror.example.com/", "https://www.metmuseum.org/");
+        linkGraphWriter.flush();
+
+        verify(neo4jClient).query(contains(":LINKS_TO"));
+        verify(neo4jClient).query(contains(":DUPLICATE_OF"));
+        assertEquals(2, linkGraphWriter.getStats().edgesWritten());
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedAfterABackoff() throws InterruptedException {
+        when(runnableSpec1.run())
+                .thenThrow(new TransientDataAccessResourceException("deadlock"))
+                .thenReturn(mock(ResultSummary.class));
+
+        long start = System.nanoTime();
+        linkGraphWriter.submit("https://www.metmuseum.org/", "https://www.metmuseum.org/page");
+        linkGraphWriter.flush();
+
+        assertEquals(1, linkGraphWriter.getStats().edgesWritten());
+        assertEquals(0, linkGraphWriter.getStats().edgesFailed());
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void testFlushWithoutEdgesReturnsImmediately() throws InterruptedException {
+        linkGraphWriter.flush();
+
+        assertEquals(0, linkGraphWriter.getStats().batchesWritten());
+    }
+}
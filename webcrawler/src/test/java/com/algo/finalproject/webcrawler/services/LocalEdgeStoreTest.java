@@ -0,0 +1,124 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportFormat;
+import com.algo.finalproject.webcrawler.service.graph.GraphExportStats;
+import com.algo.finalproject.webcrawler.service.graph.LinkGraphWriter;
+import com.algo.finalproject.webcrawler.service.graph.LocalEdgeStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class LocalEdgeStoreTest {
+
+    private static final String MET = "https://www.metmuseum.org/";
+    private static final String NPS = "https://www.nps.gov/";
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private LinkGraphWriter linkGraphWriter;
+
+    private CrawlerProperties.Graph config;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        config = new CrawlerProperties.Graph();
+        config.setDirectory(directory.toString());
+        // Two edges per segment
+        config.setSegmentBytes(16);
+    }
+
+    @Test
+    public void testCsvExportSkipsDuplicateEdges() throws Exception {
+        LocalEdgeStore store = new LocalEdgeStore(config, linkGraphWriter);
+        store.submit(MET, NPS);
+        store.submit(MET, "https://www.mfa.org/");
+        store.submit(MET, NPS);
+        store.submit(NPS, "https://www.nps.gov/a,\"b\"");
+
+        GraphExportStats stats = store.export(GraphExportFormat.CSV);
+        store.close();
+
+        assertEquals(4, stats.pages());
+        assertEquals(3, stats.edges());
+        assertEquals(1, stats.duplicateEdges());
+        Path export = directory.resolve("export");
+        assertEquals(List.of("url:ID(Page),:LABEL", "\"" + MET + "\",Page", "\"" + NPS + "\",Page",
+                        "\"https://www.mfa.org/\",Page", "\"https://www.nps.gov/a,\"\"b\"\"\",Page"),
+                Files.readAllLines(export.resolve("pages.csv")));
+        assertEquals(List.of(":START_ID(Page),:END_ID(Page),:TYPE",
+                        "\"" + MET + "\",\"" + NPS + "\",LINKS_TO",
+                        "\"" + MET + "\",\"https://www.mfa.org/\",LINKS_TO",
+                        "\"" + NPS + "\",\"https://www.nps.gov/a,\"\"b\"\"\",LINKS_TO"),
+                Files.readAllLines(export.resolve("links.csv")));
+    }
+
+    @Test
+    public void testNearDuplicatesAreExportedAfterLinks() throws Exception {
+        LocalEdgeStore store = new LocalEdgeStore(config, linkGraphWriter);
+        store.submit(MET, NPS);
+        store.submitDuplicate("https://mirror.example.com/", MET);
+        store.submitDuplicate("https://mirror.example.com/", MET);
+
+        GraphExportStats stats = store.export(GraphExportFormat.CSV);
+        store.close();
+
+        assertEquals(3, stats.pages());
+        assertEquals(1, stats.edges());
+        assertEquals(1, stats.duplicatePages());
+        assertEquals(List.of(":START_ID(Page),:END_ID(Page),:TYPE",
+                        "\"" + MET + "\",\"" + NPS + "\",LINKS_TO",
+                        "\"https://mirror.example.com/\",\"" + MET + "\",DUPLICATE_OF"),
+                Files.readAllLines(directory.resolve("export").resolve("links.csv")));
+    }
+
+    @Test
+    public void testReopenedStoreKeepsEarlierEdges() throws Exception {
+        LocalEdgeStore store = new LocalEdgeStore(config, linkGraphWriter);
+        for (int i = 0; i < 5; i++) {
+            store.submit(MET, MET + "page/" + i);
+        }
+        store.close();
+
+        LocalEdgeStore reopened = new LocalEdgeStore(config, linkGraphWriter);
+        reopened.submit(NPS, MET + "page/0");
+        GraphExportStats stats = reopened.export(GraphExportFormat.UNWIND);
+        reopened.close();
+
+        assertEquals(7, stats.pages());
+        assertEquals(6, stats.edges());
+        verify(linkGraphWriter, times(6)).submit(anyString(), anyString());
+        verify(linkGraphWriter).submit(NPS, MET + "page/0");
+        verify(linkGraphWriter).flush();
+    }
+
+    @Test
+    public void testResetDiscardsEarlierCrawl() throws Exception {
+        LocalEdgeStore store = new LocalEdgeStore(config, linkGraphWriter);
+        store.submit(MET, NPS);
+        store.reset();
+        store.submit(NPS, MET);
+        GraphExportStats stats = store.export(GraphExportFormat.UNWIND);
+        store.close();
+
+        assertEquals(2, stats.pages());
+        assertEquals(1, stats.edges());
+        verify(linkGraphWriter).submit(NPS, MET);
+        assertTrue(stats.exportMillis() >= 0);
+    }
+}
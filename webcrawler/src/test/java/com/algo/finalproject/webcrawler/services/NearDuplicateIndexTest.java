@@ -0,0 +1,70 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.dedup.NearDuplicateIndex;
+import com.algo.finalproject.webcrawler.service.dedup.SimHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NearDuplicateIndexTest {
+
+    private static final String[] WORDS = {"armor", "painting", "gallery", "sculpture", "museum", "ancient",
+            "egyptian", "collection", "exhibition", "portrait", "bronze", "marble", "century", "european",
+            "textile", "photograph", "drawing", "print", "medieval", "roman"};
+
+    @Test
+    public void testMirroredTextGetsCloseFingerprint() {
+        String text = text(new Random(1), 400);
+        // A mirror with its own header and a changed footer
+        String mirror = "Mirror of the Met collection. " + text.substring(0, text.length() - 40) + " Copyright 2024";
+
+        long original = SimHash.of(text).value();
+
+        assertTrue(SimHash.distance(original, SimHash.of(mirror).value()) <= 3);
+        assertEquals(original, SimHash.of(text.toUpperCase().replace(" ", ",\n  ")).value());
+        assertTrue(SimHash.distance(original, SimHash.of(text(new Random(2), 400)).value()) > 10);
+        assertEquals(398, SimHash.of(text).shingles());
+    }
+
+    @Test
+    public void testFindOrAddReturnsFirstNearDuplicate() {
+        NearDuplicateIndex index = new NearDuplicateIndex(3, 100);
+        long fingerprint = 0x5deece66dL * 0x9e3779b97f4a7c15L;
+
+        assertNull(index.findOrAdd(fingerprint, "https://www.metmuseum.org/a"));
+        // Three bits apart, spread over different bands
+        assertEquals("https://www.metmuseum.org/a",
+                index.findOrAdd(fingerprint ^ 1L ^ (1L << 20) ^ (1L << 63), "https://mirror.example.com/a"));
+        assertNull(index.findOrAdd(fingerprint ^ 0xfL, "https://www.metmuseum.org/b"));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void testFullIndexStillFindsButStopsAdding() {
+        NearDuplicateIndex index = new NearDuplicateIndex(3, 2);
+        Random random = new Random(3);
+        long first = random.nextLong();
+        for (int i = 0; i < 5; i++) {
+            index.findOrAdd(i == 0 ? first : random.nextLong(), "https://www.nps.gov/" + i);
+        }
+
+        assertEquals(2, index.size());
+        assertEquals("https://www.nps.gov/0", index.find(first ^ 2L));
+
+        index.clear();
+        assertEquals(0, index.size());
+        assertNull(index.find(first));
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return text.toString().trim();
+    }
+}
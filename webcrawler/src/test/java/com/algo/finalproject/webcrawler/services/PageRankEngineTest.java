@@ -0,0 +1,77 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.rank.CsrGraph;
+import com.algo.finalproject.webcrawler.service.rank.PageRankEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PageRankEngineTest {
+
+    private ForkJoinPool pool;
+    private PageRankEngine engine;
+
+    @BeforeEach
+    public void setUp() {
+        pool = new ForkJoinPool(2);
+        engine = new PageRankEngine(pool, 0.85, 1e-10, 200);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testCycleHasUniformRank() {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        builder.addEdge("https://a.org/", "https://b.org/");
+        builder.addEdge("https://b.org/", "https://c.org/");
+        builder.addEdge("https://c.org/", "https://a.org/");
+
+        PageRankEngine.Result result = engine.run(builder.build());
+
+        assertTrue(result.converged());
+        for (double rank : result.ranks()) {
+            assertEquals(1.0 / 3, rank, 1e-9);
+        }
+    }
+
+    @Test
+    public void testDanglingRankIsRedistributed() {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        builder.addEdge("https://a.org/", "https://b.org/");
+        CsrGraph graph = builder.build();
+
+        PageRankEngine.Result result = engine.run(graph);
+
+        assertTrue(result.converged());
+        assertEquals("https://a.org/", graph.url(0));
+        assertEquals(0.5 / 1.425, result.ranks()[0], 1e-9);
+        assertEquals(1 - 0.5 / 1.425, result.ranks()[1], 1e-9);
+    }
+
+    @Test
+    public void testRanksSumToOneOnLargeGraph() {
+        CsrGraph.Builder builder = CsrGraph.builder();
+        int pages = 20_000;
+        for (int i = 0; i < pages; i++) {
+            builder.addEdge("https://x.org/" + i, "https://x.org/" + (i * 7 + 3) % pages);
+            if (i % 5 == 0) {
+                builder.addEdge("https://x.org/" + i, "https://x.org/0");
+            }
+        }
+        builder.addNode("https://x.org/isolated");
+
+        PageRankEngine.Result result = engine.run(builder.build());
+
+        assertEquals(pages + 1, result.ranks().length);
+        assertEquals(1.0, Arrays.stream(result.ranks()).sum(), 1e-9);
+    }
+}
@@ -0,0 +1,122 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.frontier.PersistentFrontier;
+import com.algo.finalproject.webcrawler.service.frontier.UrlDepthPair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PersistentFrontierTest {
+
+    private static final Comparator<UrlDepthPair> BY_URL = Comparator.comparing(pair -> pair.url);
+
+    @TempDir
+    Path directory;
+
+    private CrawlerProperties properties;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new CrawlerProperties();
+        properties.getFrontier().setMaxRequestsPerHost(100);
+        properties.getFrontier().setMinDelayMillis(0);
+        properties.getPersistence().setEnabled(true);
+        properties.getPersistence().setDirectory(directory.toString());
+        properties.getPersistence().setHotWindowSize(4);
+        properties.getPersistence().setSegmentBytes(256);
+        properties.getPersistence().setCheckpointIntervalMillis(60_000);
+    }
+
+    @Test
+    public void testSpilledEntriesAreAllDelivered() throws Exception {
+        PersistentFrontier frontier = new PersistentFrontier(BY_URL, properties);
+        frontier.start(3);
+        for (int i = 0; i < 50; i++) {
+            frontier.offer(new UrlDepthPair("https://www.metmuseum.org/page/" + i, 2));
+        }
+
+        Set<String> delivered = new HashSet<>();
+        while (!frontier.isEmpty()) {
+            UrlDepthPair entry = frontier.poll(100, TimeUnit.MILLISECONDS);
+            delivered.add(entry.url);
+            frontier.release(entry);
+        }
+        frontier.finish();
+
+        assertEquals(50, delivered.size());
+        assertFalse(frontier.canResume());
+    }
+
+    @Test
+    public void testResumeSkipsNothingUnfinished() throws Exception {
+        PersistentFrontier frontier = new PersistentFrontier(BY_URL, properties);
+        frontier.start(3);
+        for (int i = 0; i < 10; i++) {
+            frontier.offer(new UrlDepthPair("https://www.nps.gov/park/" + i, 2));
+        }
+        Set<String> finished = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            UrlDepthPair entry = frontier.poll(100, TimeUnit.MILLISECONDS);
+            if (i < 2) {
+                frontier.markVisited(entry.url);
+                finished.add(entry.url);
+                frontier.release(entry);
+            }
+        }
+        frontier.checkpoint();
+
+        // A new instance over the same directory stands in for a restarted process
+        PersistentFrontier restarted = new PersistentFrontier(BY_URL, properties);
+        assertTrue(restarted.canResume());
+        Set<String> visited = new HashSet<>();
+        assertEquals(3, restarted.resume(visited::add));
+        assertEquals(finished, visited);
+
+        Set<String> remaining = new HashSet<>();
+        while (!restarted.isEmpty()) {
+            UrlDepthPair entry = restarted.poll(100, TimeUnit.MILLISECONDS);
+            if (!visited.contains(entry.url)) {
+                remaining.add(entry.url);
+            }
+            restarted.release(entry);
+        }
+        restarted.finish();
+
+        assertEquals(8, remaining.size());
+    }
+
+    @Test
+    public void testPriorityIsKeptThroughTheLog() throws Exception {
+        PersistentFrontier frontier = new PersistentFrontier(UrlDepthPair.BY_PRIORITY, properties);
+        frontier.start(3);
+        for (int i = 0; i < 20; i++) {
+            frontier.offer(new UrlDepthPair("https://www.mfa.org/art/" + i, 2, i % 7));
+        }
+
+        Map<String, Integer> priorities = new HashMap<>();
+        while (!frontier.isEmpty()) {
+            UrlDepthPair entry = frontier.poll(100, TimeUnit.MILLISECONDS);
+            priorities.put(entry.url, entry.priority);
+            frontier.release(entry);
+        }
+        frontier.finish();
+
+        assertEquals(20, priorities.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i % 7, priorities.get("https://www.mfa.org/art/" + i));
+        }
+    }
+}
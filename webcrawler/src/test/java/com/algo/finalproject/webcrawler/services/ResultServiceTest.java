@@ -1,71 +1,130 @@
 package com.algo.finalproject.webcrawler.services;
 
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
 import com.algo.finalproject.webcrawler.service.ResultService;
+import com.algo.finalproject.webcrawler.service.rank.RankedPage;
+import com.algo.finalproject.webcrawler.service.rank.RankedPages;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.data.neo4j.core.KRecordFetchSpec;
 import org.springframework.data.neo4j.core.Neo4jClient;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 public class ResultServiceTest {
 
-    @Mock
-    private ResultService resultService;
+    /** Sum of the stored scores, which the service divides them by. */
+    private static final double TOTAL = 2.0;
+
+    /** Stored scores, best first, ties broken by URL, as the query orders them. */
+    private static final List<RankedPage> RANKING = List.of(
+            new RankedPage("https://www.metmuseum.org/", 0.30),
+            new RankedPage("https://www.mfa.org/", 0.20),
+            new RankedPage("https://www.nps.gov/", 0.20),
+            new RankedPage("https://www.nps.gov/parks", 0.20),
+            new RankedPage("https://www.metmuseum.org/art", 0.05),
+            new RankedPage("https://www.mfa.org/collections", 0.03),
+            new RankedPage("https://www.nps.gov/news", 0.01));
 
     @Mock
     private Neo4jClient neo4jClient;
 
-    @InjectMocks
-    private ResultService resultServiceTest;
-
+    private CrawlerProperties.Results config;
+    private ResultService resultService;
+    private final AtomicInteger queries = new AtomicInteger();
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     public void setUp() {
         MockitoAnnotations.openMocks(this);
-        resultService = new ResultService(neo4jClient);
+        config = new CrawlerProperties.Results();
+        resultService = new ResultService(neo4jClient, config);
+
+        // Answers the keyset query from RANKING with the bound cursor and limit
+        AtomicReference<Map<String, Object>> params = new AtomicReference<>();
+        Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
+        Neo4jClient.RunnableSpec boundSpec = mock(Neo4jClient.RunnableSpec.class);
+        Neo4jClient.MappingSpec<RankedPage> mappingSpec = mock(Neo4jClient.MappingSpec.class);
+        Neo4jClient.RecordFetchSpec<RankedPage> fetchSpec = mock(Neo4jClient.RecordFetchSpec.class);
+        when(neo4jClient.query(anyString())).thenReturn(runnableSpec);
+        when(runnableSpec.bindAll(anyMap())).thenAnswer(invocation -> {
+            params.set(invocation.getArgument(0));
+            return boundSpec;
+        });
+        when(boundSpec.fetchAs(RankedPage.class)).thenReturn(mappingSpec);
+        Neo4jClient.MappingSpec<Double> totalSpec = mock(Neo4jClient.MappingSpec.class);
+        when(runnableSpec.fetchAs(Double.class)).thenReturn(totalSpec);
+        when(totalSpec.first()).thenReturn(Optional.of(TOTAL));
+        when(mappingSpec.mappedBy(any())).thenReturn(fetchSpec);
+        when(fetchSpec.all()).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            double afterRank = (Double) params.get().get("afterRank");
+            String afterUrl = (String) params.get().get("afterUrl");
+            return RANKING.stream()
+                    .filter(page -> page.pageRank() < afterRank
+                            || (page.pageRank() == afterRank && page.url().compareTo(afterUrl) > 0))
+                    .limit((Integer) params.get().get("limit"))
+                    .toList();
+        });
     }
 
     @Test
-    public void testGetUrlsByPageRank() {
-        String cypherQuery = "MATCH (p:Page) RETURN p.url AS url ORDER BY p.pageRank ASC";
-        List<String> expectedResults = List.of("url1", "url2", "url3");
-
-        Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
-        Neo4jClient.MappingSpec<String> fetchSpec = mock(Neo4jClient.MappingSpec.class);
+    public void testPagesFollowEachOtherWithoutGapsOrRepeats() {
+        List<RankedPage> collected = new ArrayList<>();
+        RankedPages page = resultService.getTopPages(3, null, null);
+        collected.addAll(page.pages());
+        while (page.nextAfterUrl() != null) {
+            page = resultService.getTopPages(3, page.nextAfterRank(), page.nextAfterUrl());
+            collected.addAll(page.pages());
+        }
+
+        assertEquals(normalized(RANKING), collected);
+        assertEquals(1, page.pages().size());
+        assertNull(page.nextAfterRank());
+    }
 
-        when(neo4jClient.query(cypherQuery)).thenReturn(runnableSpec); // query() returns UnboundRunnableSpec
-        when(runnableSpec.fetchAs(String.class)).thenReturn(fetchSpec); // fetchAs() returns MappingSpec<String>
-        when(fetchSpec.all()).thenReturn(expectedResults); // all() returns a list
+    @Test
+    public void testPageSizeIsCapped() {
+        config.setMaxPageSize(2);
 
-        List<String> actualResults = resultService.getUrlsByPageRank();
+        RankedPages page = resultService.getTopPages(1_000, null, null);
 
-        assertEquals(expectedResults, actualResults);
+        assertEquals(normalized(RANKING.subList(0, 2)), page.pages());
+        assertEquals(0.10, page.pages().get(1).pageRank());
+        // The cursor stays a stored score
+        assertEquals(0.20, page.nextAfterRank());
+        assertEquals("https://www.mfa.org/", page.nextAfterUrl());
     }
 
     @Test
-    public void testGetUrlsByPageRankEmpty() {
-        String cypherQuery = "MATCH (p:Page) RETURN p.url AS url ORDER BY p.pageRank ASC";
-        List<String> expectedResults = List.of();
+    public void testStreamReadsTheRankingInBatches() {
+        config.setStreamBatchSize(2);
 
-        Neo4jClient.UnboundRunnableSpec runnableSpec = mock(Neo4jClient.UnboundRunnableSpec.class);
-        Neo4jClient.MappingSpec<String> fetchSpec = mock(Neo4jClient.MappingSpec.class);
+        List<RankedPage> all = new ArrayList<>();
+        resultService.streamTopPages(0, all::add);
+        assertEquals(normalized(RANKING), all);
+        assertEquals(4, queries.get());
 
-        when(neo4jClient.query(cypherQuery)).thenReturn(runnableSpec); // query() returns UnboundRunnableSpec
-        when(runnableSpec.fetchAs(String.class)).thenReturn(fetchSpec); // fetchAs() returns MappingSpec<String>
-        when(fetchSpec.all()).thenReturn(expectedResults); // all() returns a list
-
-        List<String> actualResults = resultService.getUrlsByPageRank();
-
-        assertEquals(expectedResults, actualResults);
+        List<RankedPage> top = new ArrayList<>();
+        resultService.streamTopPages(5, top::add);
+        assertEquals(normalized(RANKING.subList(0, 5)), top);
     }
 
+    private static List<RankedPage> normalized(List<RankedPage> pages) {
+        return pages.stream().map(page -> new RankedPage(page.url(), page.pageRank() / TOTAL)).toList();
+    }
 }
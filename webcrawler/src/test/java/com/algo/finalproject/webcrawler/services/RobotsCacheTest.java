@@ -0,0 +1,172 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.robots.RobotsCache;
+import com.algo.finalproject.webcrawler.service.robots.RobotsRules;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RobotsCacheTest {
+
+    private final AtomicInteger robotsRequests = new AtomicInteger();
+    private volatile int robotsStatus = 200;
+    private HttpServer server;
+    private String origin;
+    private CrawlerProperties properties;
+    private RobotsCache robotsCache;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/robots.txt", exchange -> {
+            robotsRequests.incrementAndGet();
+            respond(exchange, robotsStatus, ("""
+                    User-agent: *
+                    Disallow: /private
+                    Crawl-delay: 60
+
+                    Sitemap: %s/sitemap_index.xml
+                    """.formatted(origin)).getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/sitemap_index.xml", exchange -> respond(exchange, 200, ("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <sitemapindex xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                  <sitemap><loc>%1$s/sitemap-pages.xml</loc></sitemap>
+                  <sitemap><loc>%1$s/sitemap-posts.xml.gz</loc></sitemap>
+                  <sitemap><loc>%1$s/missing.xml</loc></sitemap>
+                </sitemapindex>
+                """.formatted(origin)).getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/sitemap-pages.xml", exchange -> respond(exchange, 200, urlset(
+                "https://example.com/a", "https://example.com/b").getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/sitemap-posts.xml.gz", exchange -> respond(exchange, 200, gzip(urlset(
+                "https://example.com/posts/1", "https://example.com/posts/2", "https://example.com/posts/3"))));
+        server.createContext("/missing.xml", exchange -> respond(exchange, 404, new byte[0]));
+        server.start();
+        properties = new CrawlerProperties();
+        properties.getFetch().setTimeoutMillis(2000);
+        robotsCache = new RobotsCache(properties);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testRobotsTxtIsFetchedOncePerHost() throws Exception {
+        List<CompletableFuture<RobotsRules>> lookups = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lookups.add(robotsCache.rules(origin + "/page/" + i));
+        }
+        RobotsRules rules = lookups.get(0).get(5, TimeUnit.SECONDS);
+
+        for (CompletableFuture<RobotsRules> lookup : lookups) {
+            assertSame(rules, lookup.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, robotsRequests.get());
+        assertTrue(rules.isAllowed(origin + "/page/1"));
+        assertFalse(rules.isAllowed(origin + "/private/page"));
+        assertSame(rules, robotsCache.cachedRules(origin + "/other"));
+        assertNull(robotsCache.cachedRules("https://example.com/page"));
+        assertEquals(1, robotsCache.size());
+    }
+
+    @Test
+    public void testCrawlDelayIsCapped() throws Exception {
+        properties.getRobots().setMaxCrawlDelayMillis(10_000);
+        RobotsRules rules = robotsCache.rules(origin + "/").get(5, TimeUnit.SECONDS);
+
+        assertEquals(60_000, rules.crawlDelayMillis());
+        assertEquals(10_000, robotsCache.crawlDelayMillis(rules));
+    }
+
+    @Test
+    public void testMissingRobotsTxtAllowsAndServerErrorDisallows() throws Exception {
+        robotsStatus = 404;
+        assertSame(RobotsRules.ALLOW_ALL, robotsCache.rules(origin + "/").get(5, TimeUnit.SECONDS));
+
+        robotsStatus = 503;
+        properties.getRobots().setErrorTtlMillis(0);
+        RobotsCache failing = new RobotsCache(properties);
+        assertSame(RobotsRules.DISALLOW_ALL, failing.rules(origin + "/").get(5, TimeUnit.SECONDS));
+        // Expires at once, so the next lookup reads robots.txt again
+        robotsStatus = 200;
+        assertFalse(failing.rules(origin + "/").get(5, TimeUnit.SECONDS).isAllowed(origin + "/private"));
+        assertEquals(3, robotsRequests.get());
+    }
+
+    @Test
+    public void testSitemapIndexIsStreamedIncludingGzippedSitemaps() throws Exception {
+        RobotsRules rules = robotsCache.rules(origin + "/").get(5, TimeUnit.SECONDS);
+        List<String> pages = new ArrayList<>();
+
+        long passed = robotsCache.sitemapReader().read(rules.sitemaps().get(0), pages::add);
+
+        assertEquals(5, passed);
+        assertEquals(List.of("https://example.com/a", "https://example.com/b", "https://example.com/posts/1",
+                "https://example.com/posts/2", "https://example.com/posts/3"), pages);
+    }
+
+    @Test
+    public void testSitemapReadingStopsWhenAsked() throws Exception {
+        List<String> pages = new ArrayList<>();
+
+        robotsCache.sitemapReader().read(origin + "/sitemap_index.xml", page -> pages.add(page) && pages.size() < 3);
+
+        assertEquals(3, pages.size());
+    }
+
+    @Test
+    public void testOriginIncludesSchemeAndPort() {
+        assertEquals("https://example.com", RobotsCache.originOf("https://user@Example.com/a?b#c"));
+        assertEquals("http://example.com:8080", RobotsCache.originOf("http://example.com:8080"));
+    }
+
+    private static String urlset(String... urls) {
+        StringBuilder xml = new StringBuilder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <urlset xmlns="http://www.sitemaps.org/schemas/sitemap/0.9">
+                """);
+        for (String url : urls) {
+            xml.append("  <url><loc>").append(url).append("</loc><priority>0.5</priority></url>\n");
+        }
+        return xml.append("</urlset>\n").toString();
+    }
+
+    private static byte[] gzip(String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
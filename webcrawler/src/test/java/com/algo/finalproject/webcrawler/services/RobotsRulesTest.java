@@ -0,0 +1,98 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.robots.RobotsParser;
+import com.algo.finalproject.webcrawler.service.robots.RobotsRules;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RobotsRulesTest {
+
+    @Test
+    public void testLongestMatchWins() {
+        RobotsRules rules = RobotsParser.parse("""
+                User-agent: *
+                Disallow: /private
+                Allow: /private/public
+                Disallow: /private/public/secret
+                """, "webcrawler");
+
+        assertTrue(rules.isAllowed("https://example.com/"));
+        assertTrue(rules.isAllowed("https://example.com"));
+        assertFalse(rules.isAllowed("https://example.com/private"));
+        assertFalse(rules.isAllowed("https://example.com/privately"));
+        assertTrue(rules.isAllowed("https://example.com/private/public/page"));
+        assertFalse(rules.isAllowed("https://example.com/private/public/secret?x=1"));
+        assertEquals(3, rules.ruleCount());
+    }
+
+    @Test
+    public void testAllowWinsTieAndEmptyDisallowAllowsAll() {
+        RobotsRules tie = RobotsParser.parse("""
+                User-agent: *
+                Disallow: /page
+                Allow: /page
+                """, "webcrawler");
+        RobotsRules empty = RobotsParser.parse("""
+                User-agent: *
+                Disallow:
+                """, "webcrawler");
+
+        assertTrue(tie.isAllowed("https://example.com/page"));
+        assertTrue(empty.isAllowed("https://example.com/anything"));
+    }
+
+    @Test
+    public void testWildcardsAndEndAnchor() {
+        RobotsRules rules = RobotsParser.parse("""
+                User-agent: *
+                Disallow: /*.pdf$
+                Disallow: /search*q=
+                Allow: /docs/*.pdf$
+                """, "webcrawler");
+
+        assertFalse(rules.isAllowed("https://example.com/files/report.pdf"));
+        assertTrue(rules.isAllowed("https://example.com/files/report.pdf?download=1"));
+        assertTrue(rules.isAllowed("https://example.com/docs/manual.pdf"));
+        assertFalse(rules.isAllowed("https://example.com/search?lang=en&q=crawler"));
+        assertTrue(rules.isAllowed("https://example.com/search?lang=en"));
+    }
+
+    @Test
+    public void testOwnGroupOverridesWildcardGroup() {
+        String robots = """
+                # Everyone else stays out
+                User-agent: *
+                Disallow: /
+
+                User-agent: OtherBot
+                User-agent: WebCrawler
+                Allow: /
+                Disallow: /admin
+                Crawl-delay: 2.5
+
+                Sitemap: https://example.com/sitemap.xml
+                """;
+        RobotsRules own = RobotsParser.parse(robots, "webcrawler");
+        RobotsRules other = RobotsParser.parse(robots, "somebot");
+
+        assertTrue(own.isAllowed("https://example.com/page"));
+        assertFalse(own.isAllowed("https://example.com/admin/users"));
+        assertEquals(2500, own.crawlDelayMillis());
+        assertEquals(List.of("https://example.com/sitemap.xml"), own.sitemaps());
+        assertFalse(other.isAllowed("https://example.com/page"));
+        assertEquals(0, other.crawlDelayMillis());
+        assertEquals(List.of("https://example.com/sitemap.xml"), other.sitemaps());
+    }
+
+    @Test
+    public void testRobotsTxtIsAlwaysAllowed() {
+        assertTrue(RobotsRules.DISALLOW_ALL.isAllowed("https://example.com/robots.txt"));
+        assertFalse(RobotsRules.DISALLOW_ALL.isAllowed("https://example.com/robots.txt.bak"));
+        assertTrue(RobotsRules.ALLOW_ALL.isAllowed("https://example.com/anything"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.seen.BloomSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.ExactSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.FingerprintSeenUrlStore;
+import com.algo.finalproject.webcrawler.service.seen.SeenUrlStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SeenUrlStoreTest {
+
+    private static List<SeenUrlStore> stores() {
+        return List.of(new ExactSeenUrlStore(), new FingerprintSeenUrlStore(1000), new BloomSeenUrlStore(1000, 0.0001));
+    }
+
+    @Test
+    public void testAddReportsNewUrlsOnce() {
+        for (SeenUrlStore store : stores()) {
+            assertTrue(store.add("https://www.metmuseum.org/"));
+            assertFalse(store.add("https://www.metmuseum.org/"));
+            assertTrue(store.contains("https://www.metmuseum.org/"));
+            assertFalse(store.contains("https://www.nps.gov/"));
+            assertEquals(1, store.size());
+
+            store.clear();
+            assertFalse(store.contains("https://www.metmuseum.org/"));
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void testCompactStoresGrowPastExpectedSize() {
+        for (SeenUrlStore store : List.of(new FingerprintSeenUrlStore(1000), new BloomSeenUrlStore(1000, 0.001))) {
+            int added = 0;
+            for (int i = 0; i < 50_000; i++) {
+                if (store.add("https://www.metmuseum.org/art/collection/search/" + i)) {
+                    added++;
+                }
+            }
+            int missing = 0;
+            for (int i = 0; i < 50_000; i++) {
+                if (!store.contains("https://www.metmuseum.org/art/collection/search/" + i)) {
+                    missing++;
+                }
+            }
+            int falsePositives = 0;
+            for (int i = 0; i < 50_000; i++) {
+                if (store.contains("https://www.nps.gov/subjects/" + i)) {
+                    falsePositives++;
+                }
+            }
+
+            assertEquals(0, missing);
+            assertTrue(added >= 49_900, store.getClass().getSimpleName() + " added " + added);
+            assertTrue(falsePositives <= 100, store.getClass().getSimpleName() + " false positives " + falsePositives);
+        }
+    }
+
+    @Test
+    public void testClearFreesTheStore() {
+        for (SeenUrlStore store : stores()) {
+            long empty = store.memoryBytes();
+            for (int i = 0; i < 50_000; i++) {
+                store.add("https://www.metmuseum.org/art/collection/search/" + i);
+            }
+            assertTrue(store.memoryBytes() > empty);
+
+            store.clear();
+            assertEquals(empty, store.memoryBytes(), store.getClass().getSimpleName());
+            assertTrue(store.add("https://www.metmuseum.org/art/collection/search/1"));
+        }
+    }
+
+    @Test
+    public void testConcurrentAddsCountEachUrlOnce() throws Exception {
+        for (SeenUrlStore store : List.of(new FingerprintSeenUrlStore(1000), new ExactSeenUrlStore())) {
+            assertConcurrentAddsCountEachUrlOnce(store);
+        }
+    }
+
+    private static void assertConcurrentAddsCountEachUrlOnce(SeenUrlStore store) throws Exception {
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20_000; i++) {
+                        if (store.add("https://mfa.org/collections/" + i)) {
+                            added.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(20_000, added.get());
+        assertEquals(20_000, store.size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.url.UrlCanonicalizer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class UrlCanonicalizerTest {
+
+    private UrlCanonicalizer urlCanonicalizer;
+
+    @BeforeEach
+    public void setUp() {
+        CrawlerProperties.Canonicalization config = new CrawlerProperties.Canonicalization();
+        CrawlerProperties.Canonicalization.HostRule rule = new CrawlerProperties.Canonicalization.HostRule();
+        rule.setDropParams(List.of("sessionid"));
+        config.getHosts().put("www.nps.gov", rule);
+        urlCanonicalizer = new UrlCanonicalizer(config);
+    }
+
+    @Test
+    public void testVariantsMapToOneUrl() {
+        List<String> variants = List.of(
+                "https://x.org/a",
+                "https://x.org/a/",
+                "https://X.org/a#top",
+                "HTTPS://x.org:443/a",
+                "https://x.org/a?utm_source=newsletter&utm_medium=email");
+
+        for (String variant : variants) {
+            assertEquals("https://x.org/a", urlCanonicalizer.canonicalize(variant), variant);
+        }
+    }
+
+    @Test
+    public void testQueryIsSortedAndCleaned() {
+        assertEquals("https://x.org/search?a=1&b=2&q=art",
+                urlCanonicalizer.canonicalize("https://x.org/search?q=art&b=2&&gclid=abc&a=1"));
+        assertEquals("https://x.org:8443/", urlCanonicalizer.canonicalize("https://x.org:8443"));
+        assertEquals("http://x.org/", urlCanonicalizer.canonicalize("http://x.org:80/"));
+    }
+
+    @Test
+    public void testHostRulesApplyOnlyToTheirHost() {
+        assertEquals("https://www.nps.gov/parks?state=ny",
+                urlCanonicalizer.canonicalize("https://www.nps.gov/parks?sessionid=42&state=ny"));
+        assertEquals("https://x.org/parks?sessionid=42&state=ny",
+                urlCanonicalizer.canonicalize("https://x.org/parks?sessionid=42&state=ny"));
+    }
+
+    @Test
+    public void testCanonicalUrlIsReturnedUnchanged() {
+        String url = "https://www.metmuseum.org/art/collection/search?page=2&q=armor";
+
+        assertSame(url, urlCanonicalizer.canonicalize(url));
+        assertEquals(0, urlCanonicalizer.getStats().urlsRewritten());
+    }
+}
@@ -0,0 +1,149 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.service.url.UrlDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UrlDictionaryTest {
+
+    private static final String[] HOSTS = {"https://www.metmuseum.org", "https://www.mfa.org",
+            "https://www.nps.gov", "http://example.com:8080"};
+
+    @Test
+    public void testIdsAreDenseAndUrlsRoundTrip() {
+        UrlDictionary dictionary = new UrlDictionary();
+        List<String> urls = urls(5_000);
+        urls.add("mailto:info@metmuseum.org");
+        urls.add("https://www.metmuseum.org");
+        urls.add("https://www.metmuseum.org/musée/北斎?q=é#top");
+        urls.add("https://www.nps.gov/" + "long/".repeat(300_000));
+
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals(i, dictionary.intern(urls.get(i)));
+        }
+
+        assertEquals(urls.size(), dictionary.size());
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals(urls.get(i), dictionary.url(i));
+            assertEquals(i, dictionary.intern(urls.get(i)));
+        }
+        assertEquals(-1, dictionary.find("https://www.metmuseum.org/art/collection/search/5000"));
+        assertFalse(dictionary.add(urls.get(42)));
+        assertTrue(dictionary.add("https://www.mfa.org/new"));
+    }
+
+    @Test
+    public void testFrontCodingKeepsUrlsSmall() {
+        UrlDictionary dictionary = new UrlDictionary();
+        int count = 200_000;
+        List<String> urls = urls(count);
+        urls.forEach(dictionary::add);
+
+        long bytesPerUrl = (dictionary.memoryBytes() - (1 << 20)) / count;
+        assertTrue(bytesPerUrl < 70, bytesPerUrl + " bytes per URL");
+
+        dictionary.clear();
+        assertEquals(0, dictionary.size());
+        assertEquals(0, dictionary.intern(urls.get(7)));
+    }
+
+    @Test
+    public void testConcurrentInternsAgreeOnIds() throws Exception {
+        UrlDictionary dictionary = new UrlDictionary();
+        List<String> urls = urls(20_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<int[]>> results = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int offset = thread * 5_000;
+            results.add(executor.submit(() -> {
+                int[] ids = new int[urls.size()];
+                for (int i = 0; i < urls.size(); i++) {
+                    int index = (i + offset) % urls.size();
+                    ids[index] = dictionary.intern(urls.get(index));
+                }
+                return ids;
+            }));
+        }
+        List<int[]> ids = new ArrayList<>();
+        for (Future<int[]> result : results) {
+            ids.add(result.get());
+        }
+        executor.shutdown();
+
+        assertEquals(urls.size(), dictionary.size());
+        for (int i = 0; i < urls.size(); i++) {
+            for (int[] threadIds : ids) {
+                assertEquals(ids.get(0)[i], threadIds[i]);
+            }
+            assertEquals(urls.get(i), dictionary.url(ids.get(0)[i]));
+        }
+    }
+
+    @Test
+    public void testConcurrentAddsAndLookups() throws Exception {
+        UrlDictionary dictionary = new UrlDictionary();
+        List<String> urls = urls(40_000);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int first = thread;
+            results.add(executor.submit(() -> {
+                int added = 0;
+                // Every URL is added by two threads, and each one is looked up right after
+                for (int i = first % 2; i < urls.size(); i += 2) {
+                    if (dictionary.add(urls.get(i))) {
+                        added++;
+                    }
+                    if (dictionary.find(urls.get(i)) < 0) {
+                        throw new AssertionError("Lost " + urls.get(i));
+                    }
+                    if (dictionary.find(urls.get(i) + "/missing") >= 0) {
+                        throw new AssertionError("Found a URL never added");
+                    }
+                }
+                return added;
+            }));
+        }
+        int added = 0;
+        for (Future<Integer> result : results) {
+            added += result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(urls.size(), added);
+        assertEquals(urls.size(), dictionary.size());
+        boolean[] taken = new boolean[urls.size()];
+        for (String url : urls) {
+            int id = dictionary.find(url);
+            assertFalse(taken[id]);
+            taken[id] = true;
+            assertEquals(url, dictionary.url(id));
+        }
+    }
+
+    /**
+     * Collection pages spread over a few hosts, in the interleaved order a crawl finds them.
+     */
+    private static List<String> urls(int count) {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String host = HOSTS[i % HOSTS.length];
+            urls.add(switch (i % 3) {
+                case 0 -> host + "/art/collection/search/" + i;
+                case 1 -> host + "/art/collection/search?department=" + (i % 21) + "&page=" + i;
+                default -> host + "/exhibitions/" + (i % 50) + "/objects/" + i + ".html";
+            });
+        }
+        return urls;
+    }
+}
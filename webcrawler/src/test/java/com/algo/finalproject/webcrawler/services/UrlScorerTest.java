@@ -0,0 +1,58 @@
+package com.algo.finalproject.webcrawler.services;
+
+import com.algo.finalproject.webcrawler.config.CrawlerProperties;
+import com.algo.finalproject.webcrawler.service.score.UrlScorer;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UrlScorerTest {
+
+    @Test
+    public void testDefaultRulesMatchHostSuffixAndPathPrefix() {
+        UrlScorer urlScorer = new UrlScorer(new CrawlerProperties.Scoring());
+
+        // 7 base + 10 host + 5 path - 3 segments
+        assertEquals(19, urlScorer.score("https://www.metmuseum.org/exhibitions/listings/2024"));
+        assertEquals(16, urlScorer.score("https://www.nps.gov:8443/park"));
+        assertEquals(11, urlScorer.score("https://x.org/collections?next=/a/b/c"));
+        // Rules match whole labels and segments, not substrings
+        assertEquals(6, urlScorer.score("https://notmetmuseum.org/a"));
+        assertEquals(5, urlScorer.score("https://x.org/collectionsmanager/a"));
+        assertEquals(5, urlScorer.score("https://x.org/a/collections"));
+    }
+
+    @Test
+    public void testLongestRuleWins() {
+        CrawlerProperties.Scoring config = new CrawlerProperties.Scoring();
+        config.setHosts(Map.of("gov", 1, "nps.gov", 10));
+        config.setPaths(Map.of("/a", 1, "/a/b", 4));
+        UrlScorer urlScorer = new UrlScorer(config);
+
+        assertEquals(17, urlScorer.score("https://www.nps.gov/"));
+        assertEquals(8, urlScorer.score("https://ed.gov"));
+        assertEquals(7, urlScorer.score("https://x.org/a"));
+        assertEquals(9, urlScorer.score("https://x.org/a/b"));
+        assertEquals(6, urlScorer.score("https://x.org/a/bc"));
+    }
+
+    @Test
+    public void testInlinksRaisePriorityPerDoubling() {
+        CrawlerProperties.Scoring config = new CrawlerProperties.Scoring();
+        config.setInlinkWeight(2);
+        config.setInlinkSketchWidth(1024);
+        UrlScorer urlScorer = new UrlScorer(config);
+
+        assertEquals(6, urlScorer.score("https://x.org/a"));
+        assertEquals(8, urlScorer.scoreLink("https://x.org/a"));
+        assertEquals(10, urlScorer.scoreLink("https://x.org/a"));
+        assertEquals(10, urlScorer.scoreLink("https://x.org/a"));
+        assertEquals(12, urlScorer.scoreLink("https://x.org/a"));
+        assertEquals(6, urlScorer.score("https://x.org/a"));
+
+        urlScorer.reset();
+        assertEquals(8, urlScorer.scoreLink("https://x.org/a"));
+    }
+}